@@ -3,15 +3,18 @@ package org.openhab.binding.russound.internal.net;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
-import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Queue;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
@@ -22,6 +25,10 @@ import org.slf4j.LoggerFactory;
  * {@link #sendCommand(String)} and responses will be received on any {@link SocketSessionListener}. This implementation
  * of {@link SocketSession} communicates using a {@link SocketChannel} connection.
  *
+ * The channel is read by the {@link SocketSessionSelector} shared by all sessions. Responses are framed in place in a
+ * reused buffer and dispatched to the listeners by a task on a shared pool as soon as they are read, one response at
+ * a time per session. If the listeners fall behind, reading from the socket is paused until they have caught up.
+ *
  * @author Tim Roberts
  */
 public class SocketChannelSession implements SocketSession {
@@ -37,26 +44,101 @@ public class SocketChannelSession implements SocketSession {
      */
     private final int _port;
 
+    /**
+     * The number of pending responses at which reading from the socket is paused
+     */
+    private static final int MAX_PENDING_RESPONSES = 50;
+
+    /**
+     * The number of pending responses at which reading from the socket is resumed
+     */
+    private static final int RESUME_PENDING_RESPONSES = MAX_PENDING_RESPONSES / 2;
+
+    /**
+     * The initial size of the read buffer
+     */
+    private static final int READ_BUFFER_SIZE = 1024;
+
+    /**
+     * The charset of the responses, every byte is one character
+     */
+    private static final Charset CHARSET = StandardCharsets.ISO_8859_1;
+
+    /**
+     * The special prompts that are treated as responses for purposes of logging in
+     */
+    private static final byte[][] PROMPTS = { "Login: ".getBytes(CHARSET), "Password: ".getBytes(CHARSET) };
+
+    /**
+     * The pool running the {@link Dispatcher}s of all sessions
+     */
+    private static final ExecutorService DISPATCHERS = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger _count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "SocketSession dispatcher-" + _count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     /**
      * The actual socket being used. Will be null if not connected
      */
     private final AtomicReference<SocketChannel> _socketChannel = new AtomicReference<SocketChannel>();
 
     /**
-     * The {@link ResponseReader} that will be used to read from {@link #_readBuffer}
+     * The event loop reading {@link #_socketChannel}. Will be null if not connected
+     */
+    private SocketSessionSelector _selector;
+
+    /**
+     * The key of {@link #_socketChannel} in {@link #_selector}, only used on the selector thread
+     */
+    private volatile SelectionKey _selectionKey;
+
+    /**
+     * The buffer the responses are read into, only used on the selector thread
+     */
+    private ByteBuffer _readBuffer;
+
+    /**
+     * The number of bytes at the start of {@link #_readBuffer} already searched for the end of a response
+     */
+    private int _scanned;
+
+    /**
+     * The commands that could not be written completely yet
+     */
+    private final Queue<ByteBuffer> _pendingWrites = new ArrayDeque<ByteBuffer>();
+
+    /**
+     * The responses read from the socket, waiting to be dispatched. Guards {@link #_dispatching} and
+     * {@link #_readPaused}.
+     */
+    private final Queue<PendingResponse> _responses = new ArrayDeque<PendingResponse>();
+
+    /**
+     * Whether the {@link #_dispatcher} has been submitted and not finished yet
      */
-    private final ResponseReader _responseReader = new ResponseReader();
+    private boolean _dispatching;
 
     /**
-     * The responses read from the {@link #_responseReader}
+     * Whether reading from the socket has been paused because of too many {@link #_responses}
      */
-    private final BlockingQueue<Object> _responses = new ArrayBlockingQueue<Object>(50);
+    private boolean _readPaused;
 
     /**
      * The dispatcher of responses from {@link #_responses}
      */
     private final Dispatcher _dispatcher = new Dispatcher();
 
+    /**
+     * The metrics of this session
+     */
+    private final SocketSessionMetrics _metrics = new SocketSessionMetrics();
+
     /**
      * The {@link SocketSessionListener} that the {@link #_dispatcher} will call
      */
@@ -93,6 +175,7 @@ public class SocketChannelSession implements SocketSession {
             throw new IllegalArgumentException("listener cannot be null");
         }
         _listeners.add(listener);
+        scheduleDispatch();
     }
 
     /*
@@ -130,19 +213,21 @@ public class SocketChannelSession implements SocketSession {
         channel.configureBlocking(true);
 
         _logger.debug("Connecting to {}:{}", _host, _port);
-        channel.connect(new InetSocketAddress(_host, _port));
-
-        _logger.debug("Waiting for connect");
-        while (!channel.finishConnect()) {
-            try {
-                Thread.sleep(250);
-            } catch (InterruptedException e) {
-            }
+        try {
+            channel.connect(new InetSocketAddress(_host, _port));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
         }
 
-        _socketChannel.set(channel);
-        new Thread(_dispatcher).start();
-        new Thread(_responseReader).start();
+        final SocketSessionSelector selector = SocketSessionSelector.acquire();
+        synchronized (this) {
+            _selector = selector;
+            _readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            _scanned = 0;
+            _socketChannel.set(channel);
+        }
+        selector.register(channel, this);
     }
 
     /*
@@ -156,12 +241,24 @@ public class SocketChannelSession implements SocketSession {
             _logger.debug("Disconnecting from {}:{}", _host, _port);
 
             final SocketChannel channel = _socketChannel.getAndSet(null);
-            channel.close();
-
-            _dispatcher.stopRunning();
-            _responseReader.stopRunning();
-
-            _responses.clear();
+            final SocketSessionSelector selector;
+            synchronized (this) {
+                selector = _selector;
+                _selector = null;
+                _pendingWrites.clear();
+            }
+            try {
+                channel.close();
+            } finally {
+                if (selector != null) {
+                    selector.release();
+                }
+                synchronized (_responses) {
+                    _responses.clear();
+                    _readPaused = false;
+                }
+                _logger.debug("Session metrics for {}:{}: {}", _host, _port, _metrics);
+            }
         }
     }
 
@@ -202,198 +299,274 @@ public class SocketChannelSession implements SocketSession {
             _logger.debug("Cannot send command '{}' - socket channel was closed", command);
         } else {
             _logger.debug("Sending Command: '{}'", command);
-            channel.write(toSend);
+            if (_pendingWrites.isEmpty()) {
+                channel.write(toSend);
+            }
+            if (toSend.hasRemaining()) {
+                // the socket buffer is full, let the selector write the rest once the channel is writable
+                _pendingWrites.add(toSend);
+                if (_pendingWrites.size() == 1) {
+                    updateInterest(SelectionKey.OP_WRITE, true);
+                }
+            }
         }
     }
 
     /**
-     * This is the runnable that will read from the socket and add messages to the responses queue (to be processed by
-     * the dispatcher)
-     *
-     * @author Tim Roberts
+     * Returns the metrics of this session
      *
+     * @return the non-null metrics
      */
-    private class ResponseReader implements Runnable {
+    public SocketSessionMetrics getMetrics() {
+        return _metrics;
+    }
 
-        /**
-         * Whether the reader is currently running
-         */
-        private final AtomicBoolean _isRunning = new AtomicBoolean(false);
+    /**
+     * Called by the {@link SocketSessionSelector} once the channel has been registered
+     *
+     * @param key the non-null key of the channel
+     */
+    void setSelectionKey(SelectionKey key) {
+        _selectionKey = key;
+        if (key.channel() != _socketChannel.get()) {
+            // disconnected while registering
+            key.cancel();
+        }
+    }
 
-        /**
-         * Locking to allow proper shutdown of the reader
-         */
-        private final CountDownLatch _running = new CountDownLatch(1);
+    /**
+     * Called by the {@link SocketSessionSelector} when the channel failed outside of reading
+     *
+     * @param channel the non-null failed channel
+     * @param e the non-null exception
+     */
+    void channelFailed(SocketChannel channel, IOException e) {
+        if (channel == _socketChannel.get()) {
+            queueResponse(e);
+        }
+    }
 
-        /**
-         * Stops the reader. Will wait 5 seconds for the runnable to stop (should stop within 1 second based on the
-         * setSOTimeout)
-         */
-        public void stopRunning() {
-            if (_isRunning.getAndSet(false)) {
-                try {
-                    if (!_running.await(5, TimeUnit.SECONDS)) {
-                        _logger.warn("Waited too long for response reader to finish");
-                    }
-                } catch (InterruptedException e) {
-                    // Do nothing
-                }
+    /**
+     * Called by the {@link SocketSessionSelector} when the channel is writable. Writes the pending commands.
+     *
+     * @param key the non-null key of the channel
+     * @throws IOException if an exception occurs while writing
+     */
+    synchronized void writeReady(SelectionKey key) throws IOException {
+        final SocketChannel channel = (SocketChannel) key.channel();
+        while (!_pendingWrites.isEmpty()) {
+            final ByteBuffer toSend = _pendingWrites.peek();
+            channel.write(toSend);
+            if (toSend.hasRemaining()) {
+                return;
             }
+            _pendingWrites.remove();
         }
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+    }
 
-        /**
-         * Runs the logic to read from the socket until {@link #_isRunning} is false. A 'response' is anything that ends
-         * with a carriage-return/newline combo. Additionally, the special "Login: " and "Password: " prompts are
-         * treated as responses for purposes of logging in.
-         */
-        @Override
-        public void run() {
-            final StringBuilder sb = new StringBuilder(100);
-            final ByteBuffer readBuffer = ByteBuffer.allocate(1024);
-
-            _isRunning.set(true);
-            _responses.clear();
-
-            while (_isRunning.get()) {
-                try {
-                    // if reader is null, sleep and try again
-                    if (readBuffer == null) {
-                        Thread.sleep(250);
-                        continue;
-                    }
+    /**
+     * Called by the {@link SocketSessionSelector} when the channel is readable. Reads from the socket and queues the
+     * responses for the dispatcher. A 'response' is anything that ends with a carriage-return/newline combo.
+     * Additionally, the special "Login: " and "Password: " prompts are treated as responses for purposes of logging in.
+     *
+     * @param key the non-null key of the channel
+     */
+    void readReady(SelectionKey key) {
+        final SocketChannel channel = (SocketChannel) key.channel();
+        if (channel != _socketChannel.get()) {
+            // socket was closed
+            key.cancel();
+            return;
+        }
 
-                    final SocketChannel channel = _socketChannel.get();
-                    if (channel == null) {
-                        // socket was closed
-                        _isRunning.set(false);
-                        break;
-                    }
+        int bytesRead;
+        try {
+            bytesRead = channel.read(_readBuffer);
+        } catch (IOException e) {
+            key.cancel();
+            channelFailed(channel, e);
+            return;
+        }
 
-                    int bytesRead = channel.read(readBuffer);
-                    if (bytesRead == -1) {
-                        _responses.put(new IOException("server closed connection"));
-                        _isRunning.set(false);
-                        break;
-                    } else if (bytesRead == 0) {
-                        readBuffer.clear();
-                        continue;
-                    }
+        if (bytesRead == -1) {
+            key.cancel();
+            channelFailed(channel, new IOException("server closed connection"));
+            return;
+        }
+        _metrics.bytesRead(bytesRead);
+
+        final byte[] data = _readBuffer.array();
+        final int end = _readBuffer.position();
+        int start = 0;
+        for (int i = _scanned; i < end; i++) {
+            final byte ch = data[i];
+            if ((ch == '\n' && i > start && data[i - 1] == '\r') || (ch == ' ' && isPrompt(data, start, i + 1))) {
+                queueResponse(new String(data, start, i + 1 - start - 2, CHARSET));
+                start = i + 1;
+            }
+        }
 
-                    readBuffer.flip();
-                    while (readBuffer.hasRemaining()) {
-                        final char ch = (char) readBuffer.get();
-                        sb.append(ch);
-                        if (ch == '\n' || ch == ' ') {
-                            final String str = sb.toString();
-                            if (str.endsWith("\r\n") || str.endsWith("Login: ") || str.endsWith("Password: ")) {
-                                sb.setLength(0);
-                                final String response = str.substring(0, str.length() - 2);
-                                _responses.put(response);
-                            }
-                        }
-                    }
+        // keep the partial response at the start of the buffer
+        _readBuffer.limit(end);
+        _readBuffer.position(start);
+        _readBuffer.compact();
+        _scanned = _readBuffer.position();
+        if (!_readBuffer.hasRemaining()) {
+            final ByteBuffer buffer = ByteBuffer.allocate(_readBuffer.capacity() * 2);
+            _readBuffer.flip();
+            buffer.put(_readBuffer);
+            _readBuffer = buffer;
+        }
 
-                    readBuffer.flip();
+        synchronized (_responses) {
+            if (!_readPaused && _responses.size() >= MAX_PENDING_RESPONSES) {
+                _logger.debug("Listeners of {}:{} fell behind, pausing reading", _host, _port);
+                _readPaused = true;
+                _metrics.readPaused();
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+        }
+    }
 
-                } catch (InterruptedException e) {
-                    // Do nothing - probably shutting down
-                } catch (AsynchronousCloseException e) {
-                    // socket was definitelyclosed by another thread
-                } catch (IOException e) {
-                    try {
-                        _isRunning.set(false);
-                        _responses.put(e);
-                    } catch (InterruptedException e1) {
-                        // Do nothing - probably shutting down
-                    }
+    /**
+     * Whether the bytes from start (inclusive) to end (exclusive) end with one of the {@link #PROMPTS}
+     */
+    private static boolean isPrompt(byte[] data, int start, int end) {
+        for (byte[] prompt : PROMPTS) {
+            if (end - start >= prompt.length) {
+                int i = 0;
+                while (i < prompt.length && data[end - prompt.length + i] == prompt[i]) {
+                    i++;
+                }
+                if (i == prompt.length) {
+                    return true;
                 }
             }
-
-            _running.countDown();
         }
+        return false;
     }
 
     /**
-     * The dispatcher runnable is responsible for reading the response queue and dispatching it to the current callable.
-     * Since the dispatcher is ONLY started when a callable is set, responses may pile up in the queue and be dispatched
-     * when a callable is set. Unlike the socket reader, this can be assigned to another thread (no state outside of the
-     * class).
+     * Queues a response or exception for the {@link #_dispatcher}
      *
-     * @author Tim Roberts
+     * @param response a non-null String or Exception
      */
-    private class Dispatcher implements Runnable {
-
-        /**
-         * Whether the dispatcher is running or not
-         */
-        private final AtomicBoolean _isRunning = new AtomicBoolean(false);
-
-        /**
-         * Locking to allow proper shutdown of the reader
-         */
-        private final CountDownLatch _running = new CountDownLatch(1);
+    private void queueResponse(Object response) {
+        synchronized (_responses) {
+            _responses.add(new PendingResponse(response));
+            _metrics.responseRead(_responses.size());
+        }
+        scheduleDispatch();
+    }
 
-        /**
-         * Stops the reader. Will wait 5 seconds for the runnable to stop (should stop within 1 second based on the poll
-         * timeout below)
-         */
-        public void stopRunning() {
+    /**
+     * Submits the {@link #_dispatcher} if there are responses and listeners and it is not running yet
+     */
+    private void scheduleDispatch() {
+        synchronized (_responses) {
+            if (_dispatching || _responses.isEmpty() || _listeners.isEmpty()) {
+                return;
+            }
+            _dispatching = true;
+        }
+        DISPATCHERS.execute(_dispatcher);
+    }
 
-            if (_isRunning.getAndSet(false)) {
-                try {
-                    if (!_running.await(5, TimeUnit.SECONDS)) {
-                        _logger.warn("Waited too long for dispatcher to finish");
-                    }
-                } catch (InterruptedException e) {
-                    // do nothing
+    /**
+     * Sets or clears an interest of the channel on the selector thread
+     *
+     * @param op the {@link SelectionKey} operation
+     * @param interested whether to set or clear the interest
+     */
+    private void updateInterest(final int op, final boolean interested) {
+        final SocketSessionSelector selector = _selector;
+        if (selector == null) {
+            return;
+        }
+        selector.execute(new Runnable() {
+            @Override
+            public void run() {
+                final SelectionKey key = _selectionKey;
+                if (key != null && key.isValid() && key.channel() == _socketChannel.get()) {
+                    key.interestOps(interested ? key.interestOps() | op : key.interestOps() & ~op);
                 }
             }
+        });
+    }
+
+    /**
+     * A response together with the time it was read
+     */
+    private static class PendingResponse {
+        private final Object _response;
+        private final long _readTime = System.nanoTime();
+
+        PendingResponse(Object response) {
+            _response = response;
         }
+    }
+
+    /**
+     * The dispatcher runnable is responsible for reading the response queue and dispatching it to the current
+     * listeners. It is submitted when responses have been queued and runs until the queue is empty. Since the
+     * dispatcher only runs when a listener is set, responses may pile up in the queue and be dispatched when a
+     * listener is added (reading from the socket is paused if too many pile up).
+     *
+     * @author Tim Roberts
+     */
+    private class Dispatcher implements Runnable {
 
         /**
-         * Runs the logic to dispatch any responses to the current listeners until {@link #_isRunning} is false.
+         * Runs the logic to dispatch any responses to the current listeners until no responses are left.
          */
         @Override
         public void run() {
-            _isRunning.set(true);
-            while (_isRunning.get()) {
-                try {
-                    final SocketSessionListener[] listeners = _listeners.toArray(new SocketSessionListener[0]);
-
-                    // if no listeners, we don't want to start dispatching yet.
-                    if (listeners.length == 0) {
-                        Thread.sleep(250);
-                        continue;
+            while (true) {
+                final SocketSessionListener[] listeners = _listeners.toArray(new SocketSessionListener[0]);
+                final PendingResponse pending;
+                boolean resume = false;
+                synchronized (_responses) {
+                    // if no listeners, we don't want to dispatch yet.
+                    pending = listeners.length == 0 ? null : _responses.poll();
+                    if (pending == null) {
+                        _dispatching = false;
+                        return;
+                    }
+                    if (_readPaused && _responses.size() <= RESUME_PENDING_RESPONSES) {
+                        _readPaused = false;
+                        resume = true;
                     }
+                }
+                if (resume) {
+                    _logger.debug("Listeners of {}:{} caught up, resuming reading", _host, _port);
+                    updateInterest(SelectionKey.OP_READ, true);
+                }
 
-                    final Object response = _responses.poll(1, TimeUnit.SECONDS);
-
-                    if (response != null) {
-                        if (response instanceof String) {
-                            try {
-                                _logger.debug("Dispatching response: {}", response);
-                                for (SocketSessionListener listener : listeners) {
-                                    listener.responseReceived((String) response);
-                                }
-                            } catch (Exception e) {
-                                _logger.warn("Exception occurred processing the response '{}': {}", response, e);
-                            }
-                        } else if (response instanceof Exception) {
-                            _logger.debug("Dispatching exception: {}", response);
-                            for (SocketSessionListener listener : listeners) {
-                                listener.responseException((Exception) response);
-                            }
-                        } else {
-                            _logger.warn("Unknown response class: {}", response);
+                _metrics.responseDispatched(pending._readTime);
+                final Object response = pending._response;
+                if (response instanceof String) {
+                    try {
+                        _logger.debug("Dispatching response: {}", response);
+                        for (SocketSessionListener listener : listeners) {
+                            listener.responseReceived((String) response);
                         }
+                    } catch (Exception e) {
+                        _logger.warn("Exception occurred processing the response '{}': {}", response, e);
                     }
-                } catch (InterruptedException e) {
-                    // Do nothing
+                } else if (response instanceof Exception) {
+                    _logger.debug("Dispatching exception: {}", response);
+                    try {
+                        for (SocketSessionListener listener : listeners) {
+                            listener.responseException((Exception) response);
+                        }
+                    } catch (Exception e) {
+                        _logger.debug("Uncaught exception {}: {}", e.getMessage(), e);
+                    }
+                } else {
+                    _logger.warn("Unknown response class: {}", response);
                 }
             }
-            _isRunning.set(false);
-
-            _running.countDown();
         }
     }
 }
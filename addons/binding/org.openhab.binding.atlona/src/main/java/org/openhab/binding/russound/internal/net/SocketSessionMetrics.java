@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.russound.internal.net;
+
+/**
+ * The metrics of a {@link SocketChannelSession}, collected over all of its connections. The dispatch latency is the
+ * time between reading a response from the socket and handing it to the listeners.
+ *
+ * @author agent - Initial contribution
+ */
+public class SocketSessionMetrics {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private long bytesRead;
+    private long responsesRead;
+    private long responsesDispatched;
+    private long totalDispatchLatency;
+    private long maxDispatchLatency;
+    private int maxPendingResponses;
+    private long readPauses;
+
+    synchronized void bytesRead(int count) {
+        bytesRead += count;
+    }
+
+    synchronized void responseRead(int pendingResponses) {
+        responsesRead++;
+        maxPendingResponses = Math.max(maxPendingResponses, pendingResponses);
+    }
+
+    synchronized void responseDispatched(long readTime) {
+        final long latency = System.nanoTime() - readTime;
+        responsesDispatched++;
+        totalDispatchLatency += latency;
+        maxDispatchLatency = Math.max(maxDispatchLatency, latency);
+    }
+
+    synchronized void readPaused() {
+        readPauses++;
+    }
+
+    /**
+     * @return the number of bytes read from the socket
+     */
+    public synchronized long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return the number of responses (and exceptions) read from the socket
+     */
+    public synchronized long getResponsesRead() {
+        return responsesRead;
+    }
+
+    /**
+     * @return the number of responses (and exceptions) handed to the listeners
+     */
+    public synchronized long getResponsesDispatched() {
+        return responsesDispatched;
+    }
+
+    /**
+     * @return the average dispatch latency in milliseconds
+     */
+    public synchronized double getAverageDispatchLatency() {
+        return responsesDispatched == 0 ? 0 : totalDispatchLatency / NANOS_PER_MILLI / responsesDispatched;
+    }
+
+    /**
+     * @return the maximum dispatch latency in milliseconds
+     */
+    public synchronized double getMaxDispatchLatency() {
+        return maxDispatchLatency / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return the highest number of responses waiting to be dispatched
+     */
+    public synchronized int getMaxPendingResponses() {
+        return maxPendingResponses;
+    }
+
+    /**
+     * @return how often reading from the socket was paused because the listeners could not keep up
+     */
+    public synchronized long getReadPauses() {
+        return readPauses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+                "bytesRead=%d, responsesRead=%d, responsesDispatched=%d, avgDispatchLatency=%.1fms, "
+                        + "maxDispatchLatency=%.1fms, maxPendingResponses=%d, readPauses=%d",
+                bytesRead, responsesRead, responsesDispatched, getAverageDispatchLatency(), getMaxDispatchLatency(),
+                maxPendingResponses, readPauses);
+    }
+}
@@ -10,19 +10,24 @@ package org.openhab.binding.feed.handler;
 
 import static org.openhab.binding.feed.FeedBindingConstants.*;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 import org.eclipse.smarthome.config.core.Configuration;
 import org.eclipse.smarthome.core.library.types.DateTimeType;
@@ -44,6 +49,7 @@ import com.rometools.rome.feed.synd.SyndEntry;
 import com.rometools.rome.feed.synd.SyndFeed;
 import com.rometools.rome.io.FeedException;
 import com.rometools.rome.io.SyndFeedInput;
+import com.rometools.rome.io.XmlReader;
 
 /**
  * The {@link FeedHandler } is responsible for handling commands, which are
@@ -55,12 +61,31 @@ public class FeedHandler extends BaseThingHandler {
 
     private Logger logger = LoggerFactory.getLogger(FeedHandler.class);
 
+    /**
+     * Timeout for establishing the connection and for reading from it in milliseconds
+     */
+    private static final int CONNECTION_TIMEOUT = 30000;
+
+    private static final String DIGEST_ALGORITHM = "MD5";
+
     private String urlString;
     private BigDecimal refreshTime;
     private ScheduledFuture<?> refreshTask;
     private SyndFeed currentFeedState;
     private long lastRefreshTime;
 
+    /**
+     * Digest of the entry IDs and dates of {@link #currentFeedState}, used to detect changes of the feed
+     */
+    private byte[] currentFeedDigest;
+
+    /**
+     * Validators sent by the server with the last successful response. They are used for conditional requests, so
+     * that the server can answer with 304 (Not Modified), if the feed has not changed.
+     */
+    private String eTag;
+    private long lastModified;
+
     public FeedHandler(Thing thing) {
         super(thing);
         currentFeedState = null;
@@ -179,23 +204,63 @@ public class FeedHandler extends BaseThingHandler {
 
     /**
      * This method updates the {@link #currentFeedState}, only if there are changes on the server, since the last check.
-     * It compares the content on the server with the local
+     * It compares the digest of the entry IDs and dates of the content on the server with the digest of the local
      * stored {@link #currentFeedState} in the {@link FeedHandler}.
      *
      * @return <code>true</code> if new content is available on the server since the last update or <code>false</code>
      *         otherwise
      */
     private synchronized boolean updateFeedIfChanged(SyndFeed newFeedState) {
-        // SyndFeed class has implementation of equals ()
-        if (newFeedState != null && !newFeedState.equals(currentFeedState)) {
-            currentFeedState = newFeedState;
-            logger.debug("New content available!");
-            return true;
+        if (newFeedState != null) {
+            byte[] newFeedDigest = computeDigest(newFeedState);
+            if (currentFeedState == null || newFeedDigest == null || !Arrays.equals(newFeedDigest, currentFeedDigest)) {
+                currentFeedState = newFeedState;
+                currentFeedDigest = newFeedDigest;
+                logger.debug("New content available!");
+                return true;
+            }
         }
         logger.debug("Feed content has not changed!");
         return false;
     }
 
+    /**
+     * Computes a digest of the published date of the feed and the IDs and dates of all entries. A change of any of
+     * them is considered as a change of the feed.
+     *
+     * @return the digest or <code>null</code>, if no digest algorithm is available
+     */
+    private byte[] computeDigest(SyndFeed feed) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            logger.warn("Digest algorithm {} is not available, every update is considered as change", DIGEST_ALGORITHM);
+            return null;
+        }
+
+        updateDigest(digest, feed.getPublishedDate());
+        for (SyndEntry entry : feed.getEntries()) {
+            // ROME falls back to the link, if an entry has no ID
+            updateDigest(digest, entry.getUri() != null ? entry.getUri() : entry.getLink());
+            updateDigest(digest, entry.getPublishedDate());
+            updateDigest(digest, entry.getUpdatedDate());
+        }
+        return digest.digest();
+    }
+
+    private void updateDigest(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        // separator, so that the values of neighbouring fields can not be shifted into each other
+        digest.update((byte) 0);
+    }
+
+    private void updateDigest(MessageDigest digest, Date value) {
+        updateDigest(digest, value == null ? null : Long.toString(value.getTime()));
+    }
+
     /**
      * This method tries to make connection with the server and fetch data from the feed.
      * The status of the feed thing is set to {@link ThingStatus#ONLINE}, if the fetching was successful.
@@ -203,26 +268,67 @@ public class FeedHandler extends BaseThingHandler {
      * {@link ThingStatusDetail#CONFIGURATION_ERROR} or
      * {@link ThingStatusDetail#COMMUNICATION_ERROR} and adequate message.
      *
+     * The request is conditional, if the server has sent an ETag or a Last-Modified header before. If the server
+     * answers that the feed has not been modified, nothing is downloaded or parsed.
+     *
      * @param urlString - URL of the Feed
-     * @return {@link SyndFeed} instance with the feed data, if the connection attempt was successful and
-     *         <code>null</code> otherwise
+     * @return {@link SyndFeed} instance with the feed data, if the connection attempt was successful and the feed has
+     *         been modified since the last request and <code>null</code> otherwise
      */
-    private SyndFeed fetchFeedData(String urlString) {
+    private synchronized SyndFeed fetchFeedData(String urlString) {
         SyndFeed feed = null;
         try {
             URL url = new URL(urlString);
 
             URLConnection connection = url.openConnection();
+            connection.setConnectTimeout(CONNECTION_TIMEOUT);
+            connection.setReadTimeout(CONNECTION_TIMEOUT);
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+
+            HttpURLConnection httpConnection = null;
+            if (connection instanceof HttpURLConnection) {
+                httpConnection = (HttpURLConnection) connection;
+                if (eTag != null) {
+                    httpConnection.setRequestProperty("If-None-Match", eTag);
+                }
+                if (lastModified > 0) {
+                    httpConnection.setIfModifiedSince(lastModified);
+                }
+
+                int responseCode = httpConnection.getResponseCode();
+                if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    logger.debug("Feed {} has not been modified since the last request", urlString);
+                    // the body of a 304 response is empty, closing it returns the connection to the keep-alive cache
+                    connection.getInputStream().close();
+                    updateStatusOnline();
+                    return null;
+                }
+                if (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                    discard(httpConnection.getErrorStream());
+                    throw new IOException("Server returned HTTP response code: " + responseCode + " for URL: "
+                            + urlString);
+                }
+            }
 
-            BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
+            InputStream in = connection.getInputStream();
+            try {
+                if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+                    in = new GZIPInputStream(in);
+                }
 
-            SyndFeedInput input = new SyndFeedInput();
-            feed = input.build(in);
-            in.close();
+                SyndFeedInput input = new SyndFeedInput();
+                feed = input.build(new XmlReader(in, connection.getContentType(), true));
+            } finally {
+                // the connection can only be reused for the next request, if the response is read completely
+                discard(in);
+            }
 
-            if (this.thing.getStatus() != ThingStatus.ONLINE) {
-                updateStatus(ThingStatus.ONLINE);
+            if (httpConnection != null) {
+                eTag = httpConnection.getHeaderField("ETag");
+                lastModified = httpConnection.getLastModified();
             }
+
+            updateStatusOnline();
         } catch (MalformedURLException e) {
             logger.warn("Url '{}' is not valid: {}", urlString, e);
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.CONFIGURATION_ERROR, e.getMessage());
@@ -245,6 +351,36 @@ public class FeedHandler extends BaseThingHandler {
 
     }
 
+    private void updateStatusOnline() {
+        if (this.thing.getStatus() != ThingStatus.ONLINE) {
+            updateStatus(ThingStatus.ONLINE);
+        }
+    }
+
+    /**
+     * Reads the rest of the stream and closes it. The JVM keeps the underlying HTTP connection alive and reuses it for
+     * the next request to the same server, which is shared by all feed things.
+     */
+    private void discard(InputStream in) {
+        if (in == null) {
+            return;
+        }
+        try {
+            byte[] buffer = new byte[4096];
+            while (in.read(buffer) >= 0) {
+                // skip the remaining content
+            }
+        } catch (IOException e) {
+            logger.trace("Error discarding the rest of the response", e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                logger.trace("Error closing the response", e);
+            }
+        }
+    }
+
     /**
      * Returns the most recent entry or null, if no entries are found.
      */
@@ -286,6 +422,8 @@ public class FeedHandler extends BaseThingHandler {
             refreshTask.cancel(true);
         }
         lastRefreshTime = 0;
+        eTag = null;
+        lastModified = 0;
     }
 
     private boolean isMinimumRefreshTimeExceeded() {
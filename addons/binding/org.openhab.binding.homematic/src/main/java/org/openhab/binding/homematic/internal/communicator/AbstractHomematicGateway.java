@@ -10,6 +10,7 @@ package org.openhab.binding.homematic.internal.communicator;
 
 import static org.openhab.binding.homematic.internal.misc.HomematicConstants.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -21,18 +22,24 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
+import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.communicator.client.BinRpcClient;
 import org.openhab.binding.homematic.internal.communicator.client.RpcClient;
 import org.openhab.binding.homematic.internal.communicator.client.TransferMode;
 import org.openhab.binding.homematic.internal.communicator.client.XmlRpcClient;
+import org.openhab.binding.homematic.internal.communicator.parser.GetParamsetDescriptionParser;
 import org.openhab.binding.homematic.internal.communicator.server.BinRpcServer;
 import org.openhab.binding.homematic.internal.communicator.server.RpcEventListener;
 import org.openhab.binding.homematic.internal.communicator.server.RpcServer;
@@ -53,6 +60,8 @@ import org.openhab.binding.homematic.internal.misc.DelayedExecuter;
 import org.openhab.binding.homematic.internal.misc.DelayedExecuter.DelayedExecuterCallback;
 import org.openhab.binding.homematic.internal.misc.HomematicClientException;
 import org.openhab.binding.homematic.internal.misc.MiscUtils;
+import org.openhab.binding.homematic.internal.misc.ParamsetDescriptionCache;
+import org.openhab.binding.homematic.internal.misc.ParamsetDescriptionCache.ParamsetDescriptionLoader;
 import org.openhab.binding.homematic.internal.model.HmChannel;
 import org.openhab.binding.homematic.internal.model.HmDatapoint;
 import org.openhab.binding.homematic.internal.model.HmDatapointConfig;
@@ -75,6 +84,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     public static final double DEFAULT_DISABLE_DELAY = 2.0;
     private static final long CONNECTION_TRACKER_INTERVAL_SECONDS = 15;
     private static final String GATEWAY_POOL_NAME = "homematicGateway";
+    private static final String METADATA_POOL_NAME = "homematicMetadata";
 
     private Map<TransferMode, RpcClient> rpcClients = new HashMap<TransferMode, RpcClient>();
     private Map<TransferMode, RpcServer> rpcServers = new HashMap<TransferMode, RpcServer>();
@@ -91,7 +101,8 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     private Map<String, HmDevice> devices = Collections.synchronizedMap(new HashMap<String, HmDevice>());
     private Map<HmInterface, TransferMode> availableInterfaces = new TreeMap<HmInterface, TransferMode>();
     private static List<VirtualDatapointHandler> virtualDatapointHandlers = new ArrayList<VirtualDatapointHandler>();
-    private boolean cancelLoadAllMetadata;
+    private volatile boolean cancelLoadAllMetadata;
+    private ParamsetDescriptionCache paramsetDescriptionCache;
 
     static {
         // loads all virtual datapoints
@@ -111,6 +122,8 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         this.id = id;
         this.config = config;
         this.eventListener = eventListener;
+        this.paramsetDescriptionCache = new ParamsetDescriptionCache(new File(ConfigConstants.getUserDataFolder()
+                + File.separator + "homematic" + File.separator + id + "-paramsets.ser"));
     }
 
     /**
@@ -156,6 +169,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
             sb.setLength(sb.length() - 2);
         }
         logger.info("Used Homematic transfer modes: " + sb.toString());
+        paramsetDescriptionCache.load();
         startClients();
         startServers();
         startWatchdogs();
@@ -354,59 +368,101 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     @Override
     public void loadAllDeviceMetadata() throws IOException {
         cancelLoadAllMetadata = false;
+        long startTime = System.currentTimeMillis();
+        paramsetDescriptionCache.resetStatistics();
         // load all device descriptions
         List<HmDevice> deviceDescriptions = getDeviceDescriptions();
 
-        // loading datapoints for all channels
+        // loading datapoints for all channels, the devices are loaded in parallel
+        ExecutorService executor = ThreadPoolManager.getPool(METADATA_POOL_NAME);
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(deviceDescriptions.size());
+        for (final HmDevice device : deviceDescriptions) {
+            futures.add(executor.submit(new Callable<Void>() {
+
+                @Override
+                public Void call() throws Exception {
+                    if (!cancelLoadAllMetadata && !device.isGatewayExtras()) {
+                        loadDeviceMetadata(device);
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        // devices are published in the order of the gateway
         Set<String> loadedDevices = new HashSet<String>();
-        Map<String, Collection<HmDatapoint>> datapointsByChannelIdCache = new HashMap<String, Collection<HmDatapoint>>();
-        for (HmDevice device : deviceDescriptions) {
-            if (!cancelLoadAllMetadata) {
+        try {
+            for (int i = 0; i < deviceDescriptions.size() && !cancelLoadAllMetadata; i++) {
+                HmDevice device = deviceDescriptions.get(i);
                 try {
-                    logger.trace("Loading metadata for device '{}' of type '{}'", device.getAddress(),
-                            device.getType());
+                    futures.get(i).get();
                     if (device.isGatewayExtras()) {
                         loadChannelValues(device.getChannel(HmChannel.CHANNEL_NUMBER_VARIABLE));
                         loadChannelValues(device.getChannel(HmChannel.CHANNEL_NUMBER_SCRIPT));
-                    } else {
-                        for (HmChannel channel : device.getChannels()) {
-                            logger.trace("  Loading channel {}", channel);
-                            // speed up metadata generation a little bit for equal channels in the gateway devices
-                            if ((DEVICE_TYPE_VIRTUAL.equals(device.getType())
-                                    || DEVICE_TYPE_VIRTUAL_WIRED.equals(device.getType())) && channel.getNumber() > 1) {
-                                HmChannel previousChannel = device.getChannel(channel.getNumber() - 1);
-                                cloneAllDatapointsIntoChannel(channel, previousChannel.getDatapoints().values());
-                            } else {
-                                String channelId = String.format("%s:%s:%s", channel.getDevice().getType(),
-                                        channel.getDevice().getFirmware(), channel.getNumber());
-                                Collection<HmDatapoint> cachedDatapoints = datapointsByChannelIdCache.get(channelId);
-                                if (cachedDatapoints != null) {
-                                    // clone all datapoints
-                                    cloneAllDatapointsIntoChannel(channel, cachedDatapoints);
-                                } else {
-                                    logger.trace("    Loading datapoints into channel {}", channel);
-                                    // load all datapoints from the gateway
-                                    HmInterface hmInterface = channel.getDevice().getHmInterface();
-                                    getRpcClient(hmInterface).addChannelDatapoints(channel, HmParamsetType.MASTER);
-                                    getRpcClient(hmInterface).addChannelDatapoints(channel, HmParamsetType.VALUES);
-
-                                    datapointsByChannelIdCache.put(channelId, channel.getDatapoints().values());
-                                }
-                            }
-                        }
                     }
                     prepareDevice(device);
                     loadedDevices.add(device.getAddress());
                     eventListener.onDeviceLoaded(device);
-                } catch (IOException ex) {
+                } catch (IOException | ExecutionException ex) {
+                    Throwable cause = ex instanceof ExecutionException ? ex.getCause() : ex;
                     logger.warn("Can't load device with address '{}' from gateway '{}': {}", device.getAddress(), id,
-                            ex.getMessage());
+                            cause.getMessage());
                 }
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            cancelLoadAllMetadata = true;
+        } finally {
+            for (Future<Void> future : futures) {
+                future.cancel(false);
+            }
         }
+
         if (!cancelLoadAllMetadata) {
             devices.keySet().retainAll(loadedDevices);
         }
+        paramsetDescriptionCache.save();
+        logger.info(
+                "Loaded metadata of {} devices from gateway with id '{}' in {} ms ({} paramset descriptions cached, {} loaded from gateway)",
+                loadedDevices.size(), id, System.currentTimeMillis() - startTime, paramsetDescriptionCache.getHits(),
+                paramsetDescriptionCache.getMisses());
+    }
+
+    /**
+     * Loads the datapoint metadata of all channels of the device.
+     */
+    private void loadDeviceMetadata(HmDevice device) throws IOException {
+        logger.trace("Loading metadata for device '{}' of type '{}'", device.getAddress(), device.getType());
+        for (HmChannel channel : device.getChannels()) {
+            logger.trace("  Loading channel {}", channel);
+            // speed up metadata generation a little bit for equal channels in the gateway devices
+            if ((DEVICE_TYPE_VIRTUAL.equals(device.getType()) || DEVICE_TYPE_VIRTUAL_WIRED.equals(device.getType()))
+                    && channel.getNumber() > 1) {
+                HmChannel previousChannel = device.getChannel(channel.getNumber() - 1);
+                cloneAllDatapointsIntoChannel(channel, previousChannel.getDatapoints().values());
+            } else {
+                logger.trace("    Loading datapoints into channel {}", channel);
+                addChannelDatapoints(channel, HmParamsetType.MASTER);
+                addChannelDatapoints(channel, HmParamsetType.VALUES);
+            }
+        }
+    }
+
+    /**
+     * Loads the datapoint metadata of the channel, the paramset description is only requested from the gateway if
+     * it is not cached yet.
+     */
+    private void addChannelDatapoints(final HmChannel channel, final HmParamsetType paramsetType)
+            throws IOException {
+        final RpcClient rpcClient = getRpcClient(channel.getDevice().getHmInterface());
+        Object[] description = paramsetDescriptionCache.get(channel, paramsetType, new ParamsetDescriptionLoader() {
+
+            @Override
+            public Object[] load() throws IOException {
+                return rpcClient.getParamsetDescription(channel, paramsetType);
+            }
+        });
+        new GetParamsetDescriptionParser(channel, paramsetType).parse(description);
     }
 
     /**
@@ -601,10 +657,10 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                 for (HmDevice device : deviceDescriptions) {
                     if (device.getAddress().equals(address)) {
                         for (HmChannel channel : device.getChannels()) {
-                            HmInterface hmInterface = channel.getDevice().getHmInterface();
-                            getRpcClient(hmInterface).addChannelDatapoints(channel, HmParamsetType.MASTER);
-                            getRpcClient(hmInterface).addChannelDatapoints(channel, HmParamsetType.VALUES);
+                            addChannelDatapoints(channel, HmParamsetType.MASTER);
+                            addChannelDatapoints(channel, HmParamsetType.VALUES);
                         }
+                        paramsetDescriptionCache.save();
                         prepareDevice(device);
                         eventListener.onNewDevice(device);
                     }
@@ -72,7 +72,7 @@ public class BinRpcClient extends RpcClient {
      * Sends a BIN-RPC message and parses the response to see if there was an error.
      */
     @Override
-    protected synchronized Object[] sendMessage(int port, RpcRequest request) throws IOException {
+    protected Object[] sendMessage(int port, RpcRequest request) throws IOException {
         if (TRACE_ENABLED) {
             logger.trace("Client BinRpcRequest:\n{}", request);
         }
@@ -84,25 +84,36 @@ public class BinRpcClient extends RpcClient {
      */
     private Object[] sendMessage(int port, BinRpcMessage request, int socketRetryCounter) throws IOException {
         BinRpcMessage resp = null;
+        SocketInfo socketInfo = socketHandler.borrowSocket(port);
         try {
-            Socket socket = socketHandler.getSocket(port);
+            Socket socket = socketInfo.getSocket();
             socket.getOutputStream().write(request.createMessage());
             resp = new BinRpcMessage(socket.getInputStream(), false, config.getEncoding());
+            socketHandler.returnSocket(port, socketInfo);
+            socketInfo = null;
             return new RpcResponseParser(request).parse(resp.getResponseData());
         } catch (UnknownRpcFailureException rpcEx) {
             // throw immediately, don't retry the message
             throw rpcEx;
         } catch (IOException ioEx) {
+            if (socketInfo != null) {
+                socketHandler.invalidateSocket(port, socketInfo);
+                socketInfo = null;
+            }
             if ("init".equals(request.getMethodName()) || socketRetryCounter >= MAX_SOCKET_RETRY) {
                 throw ioEx;
             } else {
                 socketRetryCounter++;
                 logger.debug("BinRpcMessage socket failure, sending message again {}/{}", socketRetryCounter,
                         MAX_SOCKET_RETRY);
+                // the other idle sockets are most likely broken too
                 socketHandler.removeSocket(port);
                 return sendMessage(port, request, socketRetryCounter);
             }
         } finally {
+            if (socketInfo != null) {
+                socketHandler.invalidateSocket(port, socketInfo);
+            }
             if (TRACE_ENABLED) {
                 logger.trace("Client BinRpcResponse:\n{}", resp == null ? "null" : resp.toString());
             }
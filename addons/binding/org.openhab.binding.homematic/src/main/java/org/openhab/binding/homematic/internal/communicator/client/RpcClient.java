@@ -141,10 +141,17 @@ public abstract class RpcClient {
      * Loads all datapoint metadata into the given channel.
      */
     public void addChannelDatapoints(HmChannel channel, HmParamsetType paramsetType) throws IOException {
+        new GetParamsetDescriptionParser(channel, paramsetType).parse(getParamsetDescription(channel, paramsetType));
+    }
+
+    /**
+     * Returns the unparsed datapoint metadata of the given channel.
+     */
+    public Object[] getParamsetDescription(HmChannel channel, HmParamsetType paramsetType) throws IOException {
         RpcRequest request = createRpcRequest("getParamsetDescription");
         request.addArg(getRpcAddress(channel.getDevice().getAddress()) + ":" + channel.getNumber());
         request.addArg(paramsetType.toString());
-        new GetParamsetDescriptionParser(channel, paramsetType).parse(sendMessage(config.getRpcPort(channel), request));
+        return sendMessage(config.getRpcPort(channel), request);
     }
 
     /**
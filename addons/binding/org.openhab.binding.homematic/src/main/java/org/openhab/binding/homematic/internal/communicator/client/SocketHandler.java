@@ -9,24 +9,33 @@
 package org.openhab.binding.homematic.internal.communicator.client;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Simple socket cache class.
+ * Socket pool class, holds a small pool of sockets for every port. A socket is borrowed for exactly one
+ * request/response cycle, so several requests to the same port can be sent in parallel.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class SocketHandler {
     private static final Logger logger = LoggerFactory.getLogger(SocketHandler.class);
 
-    private Map<Integer, SocketInfo> socketsPerPort = new HashMap<Integer, SocketInfo>();
+    /**
+     * Maximum number of sockets per port, additional requests wait until a socket is returned.
+     */
+    public static final int MAX_SOCKETS_PER_PORT = 4;
+
+    private Map<Integer, SocketPool> poolsPerPort = new HashMap<Integer, SocketPool>();
     private HomematicConfig config;
 
     public SocketHandler(HomematicConfig config) {
@@ -34,40 +43,74 @@ public class SocketHandler {
     }
 
     /**
-     * Returns a socket for the given port, (re)creates it if required.
+     * Borrows a socket for the given port, (re)creates it if required. The socket must be given back with
+     * {@link #returnSocket(int, SocketInfo)} or {@link #invalidateSocket(int, SocketInfo)}.
      */
-    public Socket getSocket(int port) throws IOException {
-        SocketInfo socketInfo = socketsPerPort.get(port);
-        if (socketInfo == null) {
+    public SocketInfo borrowSocket(int port) throws IOException {
+        SocketPool pool = getPool(port);
+        try {
+            pool.permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a socket on port " + port);
+        }
+
+        try {
+            SocketInfo socketInfo;
+            while ((socketInfo = pool.idleSockets.pollFirst()) != null) {
+                boolean isMaxAliveReached = System.currentTimeMillis()
+                        - socketInfo.getCreated() > (config.getSocketMaxAlive() * 1000);
+                if (!isMaxAliveReached) {
+                    logger.trace("Returning socket for port {}", port);
+                    return socketInfo;
+                }
+                logger.debug("Max alive time reached for socket on port {}", port);
+                closeSilent(socketInfo.getSocket());
+            }
+
             logger.trace("Creating new socket for port {}", port);
             Socket socket = new Socket();
             socket.setSoTimeout(config.getTimeout() * 1000);
             socket.connect(new InetSocketAddress(config.getGatewayAddress(), port), socket.getSoTimeout());
-            socketInfo = new SocketInfo(socket);
-            socketsPerPort.put(port, socketInfo);
-        } else {
-            boolean isMaxAliveReached = System.currentTimeMillis()
-                    - socketInfo.getCreated() > (config.getSocketMaxAlive() * 1000);
-
-            if (isMaxAliveReached) {
-                logger.debug("Max alive time reached for socket on port {}", port);
-                removeSocket(port);
-                return getSocket(port);
-            }
-            logger.trace("Returning socket for port {}", port);
+            return new SocketInfo(socket);
+        } catch (IOException | RuntimeException ex) {
+            pool.permits.release();
+            throw ex;
         }
-        return socketInfo.getSocket();
     }
 
     /**
-     * Removes the socket for the given port from the cache.
+     * Gives a borrowed socket back to the pool of the given port.
+     */
+    public void returnSocket(int port, SocketInfo socketInfo) {
+        SocketPool pool = getPool(port);
+        pool.idleSockets.offerFirst(socketInfo);
+        pool.permits.release();
+    }
+
+    /**
+     * Closes a borrowed socket after a failure.
+     */
+    public void invalidateSocket(int port, SocketInfo socketInfo) {
+        logger.trace("Closing Socket on port {}", port);
+        closeSilent(socketInfo.getSocket());
+        getPool(port).permits.release();
+    }
+
+    /**
+     * Closes all idle sockets of the given port.
      */
     public void removeSocket(int port) {
-        SocketInfo socketInfo = socketsPerPort.get(port);
-        if (socketInfo != null) {
-            logger.trace("Closing Socket on port {}", port);
-            socketsPerPort.remove(port);
-            closeSilent(socketInfo.getSocket());
+        SocketPool pool;
+        synchronized (poolsPerPort) {
+            pool = poolsPerPort.get(port);
+        }
+        if (pool != null) {
+            SocketInfo socketInfo;
+            while ((socketInfo = pool.idleSockets.pollFirst()) != null) {
+                logger.trace("Closing Socket on port {}", port);
+                closeSilent(socketInfo.getSocket());
+            }
         }
     }
 
@@ -75,11 +118,23 @@ public class SocketHandler {
      * Removes all cached sockets.
      */
     public void flush() {
-        synchronized (SocketHandler.class) {
-            Integer[] portsToRemove = socketsPerPort.keySet().toArray(new Integer[0]);
-            for (Integer key : portsToRemove) {
-                removeSocket(key);
+        Integer[] portsToRemove;
+        synchronized (poolsPerPort) {
+            portsToRemove = poolsPerPort.keySet().toArray(new Integer[0]);
+        }
+        for (Integer key : portsToRemove) {
+            removeSocket(key);
+        }
+    }
+
+    private SocketPool getPool(int port) {
+        synchronized (poolsPerPort) {
+            SocketPool pool = poolsPerPort.get(port);
+            if (pool == null) {
+                pool = new SocketPool();
+                poolsPerPort.put(port, pool);
             }
+            return pool;
         }
     }
 
@@ -93,4 +148,12 @@ public class SocketHandler {
             // ignore
         }
     }
+
+    /**
+     * Idle sockets and available permits of one port.
+     */
+    private static class SocketPool {
+        private final ConcurrentLinkedDeque<SocketInfo> idleSockets = new ConcurrentLinkedDeque<SocketInfo>();
+        private final Semaphore permits = new Semaphore(MAX_SOCKETS_PER_PORT);
+    }
 }
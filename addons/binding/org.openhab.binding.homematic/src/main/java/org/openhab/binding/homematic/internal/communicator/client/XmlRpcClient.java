@@ -37,6 +37,7 @@ public class XmlRpcClient extends RpcClient {
         super(config);
         httpClient = new HttpClient();
         httpClient.setConnectTimeout(config.getTimeout() * 1000L);
+        httpClient.setMaxConnectionsPerDestination(SocketHandler.MAX_SOCKETS_PER_PORT);
 
         try {
             httpClient.start();
@@ -75,7 +76,7 @@ public class XmlRpcClient extends RpcClient {
      * {@inheritDoc}
      */
     @Override
-    protected synchronized Object[] sendMessage(int port, RpcRequest request) throws IOException {
+    protected Object[] sendMessage(int port, RpcRequest request) throws IOException {
         try {
             if (TRACE_ENABLED) {
                 logger.trace("Client XmlRpcRequest (port {}):\n{}", port, request);
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.misc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmDevice;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the unparsed paramset descriptions of the gateway by device type, firmware, channel number and paramset
+ * type. The descriptions only change with the firmware of a device, so the cache is stored on disk and reused on
+ * the next start of the binding.
+ *
+ * @author agent - Initial contribution
+ */
+public class ParamsetDescriptionCache {
+    private static final Logger logger = LoggerFactory.getLogger(ParamsetDescriptionCache.class);
+
+    private final File file;
+    private final ConcurrentMap<String, Object[]> descriptions = new ConcurrentHashMap<String, Object[]>();
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<String, Object>();
+    private volatile boolean modified;
+    private int hits;
+    private int misses;
+
+    public ParamsetDescriptionCache(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the paramset description of the channel, calls the loader if it is not cached. Concurrent requests
+     * for the same description wait for the first loader.
+     */
+    public Object[] get(HmChannel channel, HmParamsetType paramsetType, ParamsetDescriptionLoader loader)
+            throws IOException {
+        String key = getKey(channel, paramsetType);
+        Object[] description = descriptions.get(key);
+        if (description == null) {
+            locks.putIfAbsent(key, new Object());
+            synchronized (locks.get(key)) {
+                description = descriptions.get(key);
+                if (description == null) {
+                    description = loader.load();
+                    descriptions.put(key, description);
+                    modified = true;
+                    countAccess(false);
+                    return description;
+                }
+            }
+        }
+        countAccess(true);
+        return description;
+    }
+
+    /**
+     * Loads the cache from disk.
+     */
+    @SuppressWarnings("unchecked")
+    public void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            descriptions.putAll((Map<String, Object[]>) in.readObject());
+            logger.debug("Loaded {} paramset descriptions from '{}'", descriptions.size(), file);
+        } catch (IOException | ClassNotFoundException | ClassCastException ex) {
+            logger.warn("Can't load paramset description cache '{}', ignoring it: {}", file, ex.getMessage());
+            descriptions.clear();
+        }
+    }
+
+    /**
+     * Saves the cache to disk, if new descriptions have been added since the last save.
+     */
+    public void save() {
+        if (!modified) {
+            return;
+        }
+        modified = false;
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            logger.warn("Can't create folder '{}' for the paramset description cache", parent);
+            return;
+        }
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeObject(new HashMap<String, Object[]>(descriptions));
+        } catch (IOException ex) {
+            logger.warn("Can't save paramset description cache '{}': {}", file, ex.getMessage());
+            return;
+        }
+        if (!file.delete() && file.exists() || !tempFile.renameTo(file)) {
+            logger.warn("Can't save paramset description cache '{}'", file);
+        }
+    }
+
+    /**
+     * Returns the number of cached descriptions.
+     */
+    public int size() {
+        return descriptions.size();
+    }
+
+    /**
+     * Returns the number of descriptions taken from the cache since the last reset.
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of descriptions loaded from the gateway since the last reset.
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Resets the hit and miss counters.
+     */
+    public synchronized void resetStatistics() {
+        hits = 0;
+        misses = 0;
+    }
+
+    private synchronized void countAccess(boolean hit) {
+        if (hit) {
+            hits++;
+        } else {
+            misses++;
+        }
+    }
+
+    private static String getKey(HmChannel channel, HmParamsetType paramsetType) {
+        HmDevice device = channel.getDevice();
+        return device.getType() + ":" + device.getFirmware() + ":" + channel.getNumber() + ":" + paramsetType;
+    }
+
+    /**
+     * Loads a paramset description from the gateway.
+     */
+    public interface ParamsetDescriptionLoader {
+        public Object[] load() throws IOException;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.max.internal.message;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.max.internal.device.Device;
+import org.openhab.binding.max.internal.device.DeviceConfiguration;
+
+/**
+ * Tests cases for {@link L_Message}.
+ *
+ * @author agent - Initial contribution
+ * @since 2.0
+ */
+public class L_MessageTest {
+
+    private final String configurationData = "C:0ff1bc,EQ/xvAQJEAJMRVEwNzk0MDA3";
+    private final String rawData1 = "L:Bg/xvAkAAA==";
+    private final String rawData2 = "L:Bg/xvAkSAA==";
+
+    private List<DeviceConfiguration> configurations = null;
+    private List<Device> devices = null;
+
+    @Before
+    public void Before() {
+        configurations = new ArrayList<DeviceConfiguration>();
+        configurations.add(DeviceConfiguration.create(new C_Message(configurationData)));
+        devices = new ArrayList<Device>();
+    }
+
+    @Test
+    public void getMessageTypeTest() {
+        MessageType messageType = ((Message) new L_Message(rawData1)).getType();
+        assertEquals(MessageType.L, messageType);
+    }
+
+    @Test
+    public void updateDevicesNewDeviceTest() {
+        Collection<? extends Device> changed = new L_Message(rawData1).updateDevices(devices, configurations);
+        assertEquals(1, devices.size());
+        assertEquals(1, changed.size());
+        assertSame(devices.get(0), changed.iterator().next());
+        assertEquals("0ff1bc", devices.get(0).getRFAddress());
+    }
+
+    @Test
+    public void updateDevicesUnchangedTest() {
+        new L_Message(rawData1).updateDevices(devices, configurations);
+        Collection<? extends Device> changed = new L_Message(rawData1).updateDevices(devices, configurations);
+        assertEquals(1, devices.size());
+        assertTrue(changed.isEmpty());
+    }
+
+    @Test
+    public void updateDevicesChangedTest() {
+        new L_Message(rawData1).updateDevices(devices, configurations);
+        Device device = devices.get(0);
+        Collection<? extends Device> changed = new L_Message(rawData2).updateDevices(devices, configurations);
+        assertEquals(1, devices.size());
+        assertEquals(1, changed.size());
+        assertSame(device, changed.iterator().next());
+    }
+
+}
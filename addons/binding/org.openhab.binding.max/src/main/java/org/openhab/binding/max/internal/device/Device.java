@@ -8,6 +8,7 @@
  */
 package org.openhab.binding.max.internal.device;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -48,6 +49,9 @@ public abstract class Device {
     private boolean linkStatusError;
     private HashMap<String, Object> properties = new HashMap<>();
 
+    /** the raw L message record this device has been updated with last */
+    private byte[] rawData;
+
     public Device(DeviceConfiguration c) {
         this.serialNumber = c.getSerialNumber();
         this.rfAddress = c.getRFAddress();
@@ -127,6 +131,7 @@ public abstract class Device {
     public static Device update(byte[] raw, List<DeviceConfiguration> configurations, Device device) {
 
         String rfAddress = device.getRFAddress();
+        device.rawData = raw;
 
         // byte 4 is skipped
 
@@ -336,6 +341,18 @@ public abstract class Device {
         this.answer = answer;
     }
 
+    /**
+     * Checks whether a raw L message record differs from the one this device
+     * has been updated with last.
+     *
+     * @param raw
+     *            the raw L message record of this device
+     * @return true if the record has changed or the device was never updated from a record
+     */
+    public boolean isRawDataChanged(byte[] raw) {
+        return !Arrays.equals(rawData, raw);
+    }
+
     public boolean isUpdated() {
         return updated;
     }
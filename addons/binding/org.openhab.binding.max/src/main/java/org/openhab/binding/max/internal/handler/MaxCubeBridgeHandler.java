@@ -20,7 +20,11 @@ import java.net.Socket;
 import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -101,10 +105,18 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
     /** timeout on network connection **/
     private static final int NETWORK_TIMEOUT = 10000;
 
+    /** interval in which all devices are passed to the listeners, changed or not */
+    private static final long FULL_UPDATE_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
     private ArrayList<Device> devices = new ArrayList<Device>();
     private ArrayList<RoomInformation> rooms;
     private HashSet<String> lastActiveDevices = new HashSet<String>();
 
+    /** devices created or changed by the L messages processed since the last refresh */
+    private Set<Device> changedDevices = new LinkedHashSet<Device>();
+    private long lastFullUpdate = 0;
+    private volatile boolean fullUpdatePending = true;
+
     /** MAX! Thermostat default off temperature */
     private static final DecimalType DEFAULT_OFF_TEMPERATURE = new DecimalType(4.5);
 
@@ -141,6 +153,12 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
      */
     private int freeMemorySlots;
 
+    /**
+     * lock serializing the communication with this Cube, guards the
+     * connection, the devices and the configurations
+     */
+    private final Object cubeLock = new Object();
+
     /**
      * connection socket and reader/writer for execute method
      */
@@ -172,7 +190,7 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
     public void handleCommand(ChannelUID channelUID, Command command) {
         if (command instanceof RefreshType) {
             logger.debug("Refresh command received.");
-            refreshData();
+            refreshData(true);
         } else {
             logger.warn("No bridge commands defined. Cannot process '{}'.", command.toString());
         }
@@ -284,21 +302,25 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
     }
 
     public void deviceInclusion() {
-        if (previousOnline && socket != null) {
-            updateStatus(ThingStatus.ONLINE, ThingStatusDetail.CONFIGURATION_PENDING, "Inclusion");
-            logger.info("Start MAX! inclusion mode for 60 seconds");
-            try {
-                socket.setSoTimeout((80000));
-                if (!sendCubeCommand(new N_Command())) {
-                    logger.debug("Error during Inclusion mode");
+        synchronized (cubeLock) {
+            if (previousOnline && socket != null) {
+                updateStatus(ThingStatus.ONLINE, ThingStatusDetail.CONFIGURATION_PENDING, "Inclusion");
+                logger.info("Start MAX! inclusion mode for 60 seconds");
+                try {
+                    socket.setSoTimeout((80000));
+                    if (!sendCubeCommand(new N_Command())) {
+                        logger.debug("Error during Inclusion mode");
+                    }
+                    logger.info("End MAX! inclusion mode");
+                    if (socket != null) {
+                        socket.setSoTimeout((NETWORK_TIMEOUT));
+                    }
+                } catch (SocketException e) {
+                    logger.debug("Timeout during MAX! inclusion mode");
                 }
-                logger.info("End MAX! inclusion mode");
-                socket.setSoTimeout((NETWORK_TIMEOUT));
-            } catch (SocketException e) {
-                logger.debug("Timeout during MAX! inclusion mode");
+            } else {
+                logger.warn("Need to be online to start inclusion mode");
             }
-        } else {
-            logger.warn("Need to be online to start inclusion mode");
         }
     }
 
@@ -327,24 +349,38 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
     }
 
     /**
-     * Takes a command from the command queue and send it to
-     * {@link executeCommand} for execution.
+     * Takes all commands from the command queue and sends them to the Cube in
+     * a single pipeline, see {@link #sendCubeCommands(List)}.
      *
      */
-    private synchronized void sendCommands() {
+    private void sendCommands() {
+        List<SendCommand> queuedCommands = new ArrayList<SendCommand>();
+        commandQueue.drainTo(queuedCommands);
+        if (queuedCommands.isEmpty()) {
+            return;
+        }
 
-        SendCommand sendCommand = commandQueue.poll();
-        if (sendCommand != null) {
-            CubeCommand cmd = sendCommand.getCubeCommand();
-            if (cmd == null) {
-                cmd = getCommand(sendCommand);
+        synchronized (cubeLock) {
+            List<SendCommand> sendCommands = new ArrayList<SendCommand>();
+            List<CubeCommand> cmds = new ArrayList<CubeCommand>();
+            for (SendCommand sendCommand : queuedCommands) {
+                CubeCommand cmd = sendCommand.getCubeCommand();
+                if (cmd == null) {
+                    cmd = getCommand(sendCommand);
+                }
+                if (cmd != null) {
+                    // Actual sending of the data to the Max! Cube Lan Gateway
+                    logger.debug("Command {} ({}:{}) sent to MAX! Cube at IP: {}", sendCommand.getId(),
+                            sendCommand.getKey(), sendCommand.getCommandText(), ipAddress);
+                    sendCommands.add(sendCommand);
+                    cmds.add(cmd);
+                }
             }
-            if (cmd != null) {
-                // Actual sending of the data to the Max! Cube Lan Gateway
-                logger.debug("Command {} ({}:{}) sent to MAX! Cube at IP: {}", sendCommand.getId(),
-                        sendCommand.getKey(), sendCommand.getCommandText(), ipAddress);
 
-                if (sendCubeCommand(cmd)) {
+            int acknowledged = sendCubeCommands(cmds);
+            for (int i = 0; i < sendCommands.size(); i++) {
+                SendCommand sendCommand = sendCommands.get(i);
+                if (i < acknowledged) {
                     logger.trace("Command {} ({}:{}) completed for MAX! Cube at IP: {}", sendCommand.getId(),
                             sendCommand.getKey(), sendCommand.getCommandText(), ipAddress);
                 } else {
@@ -359,12 +395,38 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
      * initiates read data from the MAX! Cube bridge
      */
     private void refreshData() {
+        refreshData(false);
+    }
+
+    /**
+     * Reads the data from the MAX! Cube bridge and passes the devices to the
+     * listeners. Only devices which have been added or changed since the last
+     * refresh are passed, except for the periodic or requested full update.
+     *
+     * @param fullUpdate
+     *            true to pass all devices to the listeners
+     */
+    private void refreshData(boolean fullUpdate) {
 
         try {
-            if (sendCubeCommand(new L_Command())) {
+            boolean success;
+            List<Device> updatedDevices;
+            synchronized (cubeLock) {
+                success = sendCubeCommand(new L_Command());
+                long now = System.currentTimeMillis();
+                if (fullUpdate || fullUpdatePending || now - lastFullUpdate >= FULL_UPDATE_INTERVAL) {
+                    fullUpdatePending = false;
+                    lastFullUpdate = now;
+                    updatedDevices = new ArrayList<Device>(devices);
+                } else {
+                    updatedDevices = new ArrayList<Device>(changedDevices);
+                }
+                changedDevices.clear();
+            }
+            if (success) {
                 updateStatus(ThingStatus.ONLINE);
                 previousOnline = true;
-                for (Device di : devices) {
+                for (Device di : updatedDevices) {
                     if (lastActiveDevices != null && lastActiveDevices.contains(di.getSerialNumber())) {
                         for (DeviceStatusListener deviceStatusListener : deviceStatusListeners) {
                             try {
@@ -422,7 +484,8 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
         }
         boolean result = deviceStatusListeners.add(deviceStatusListener);
         if (result) {
-            // onUpdate();
+            // pass all devices to the new listener on the next refresh
+            fullUpdatePending = true;
         }
         return result;
     }
@@ -440,6 +503,7 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
 
     public void clearDeviceList() {
         lastActiveDevices.clear();
+        fullUpdatePending = true;
     }
 
     /**
@@ -449,68 +513,81 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
      * @param {@link CubeCommand}
      * @return boolean success
      */
-    private synchronized boolean sendCubeCommand(CubeCommand command) {
-        synchronized (MaxCubeBridgeHandler.class) {
-            boolean sendSuccess = false;
-            try {
-                if (socket == null || socket.isClosed()) {
-                    this.socketConnect();
-                } else {
-                    if (maxRequestsPerConnection > 0 && requestCount >= maxRequestsPerConnection) {
-                        logger.debug("maxRequestsPerConnection reached, reconnecting.");
-                        socket.close();
-                        this.socketConnect();
-                    } else {
-
-                        if (requestCount == 0) {
-                            logger.debug("Connect to MAX! Cube");
-                            readliness("L:");
+    private boolean sendCubeCommand(CubeCommand command) {
+        return sendCubeCommands(Collections.singletonList(command)) == 1;
+    }
 
+    /**
+     * Connects to the Max! Cube Lan gateway if not connected yet, sends the
+     * commands to the Cube and processes the returned messages. The commands
+     * are pipelined: all of them are written before the acknowledgments are
+     * read. A command closing the connection ends the pipeline, the remaining
+     * commands are sent over a new connection.
+     *
+     * @param commands
+     *            the {@link CubeCommand}s to send
+     * @return the number of commands which have been acknowledged by the Cube,
+     *         in the order given
+     */
+    private int sendCubeCommands(List<CubeCommand> commands) {
+        synchronized (cubeLock) {
+            int acknowledged = 0;
+            try {
+                int index = 0;
+                while (index < commands.size()) {
+                    // the Cube sends the L message right after connecting
+                    boolean devicesRead = socketConnectIfRequired();
+
+                    List<CubeCommand> pipeline = new ArrayList<CubeCommand>();
+                    boolean closing = false;
+                    while (index < commands.size() && !closing) {
+                        CubeCommand command = commands.get(index++);
+                        if (devicesRead && pipeline.isEmpty() && command instanceof L_Command) {
+                            devicesRead = false;
+                            acknowledged++;
+                            continue;
                         }
-                        if (!(requestCount == 0 && command instanceof L_Command)) {
+                        pipeline.add(command);
+                        closing = command.getReturnStrings() == null;
+                    }
+                    if (pipeline.isEmpty()) {
+                        continue;
+                    }
 
-                            logger.debug("Sending request #{} to MAX! Cube", this.requestCount);
-                            if (writer == null) {
-                                logger.warn("Can't write to MAX! Cube");
-                                this.socketConnect();
-                            }
+                    logger.debug("Sending {} request(s) from #{} to MAX! Cube", pipeline.size(), this.requestCount);
+                    for (CubeCommand command : pipeline) {
+                        writer.write(command.getCommandString());
+                        logger.trace("Write string to Max! Cube {}: {}", ipAddress, command.getCommandString());
+                    }
+                    writer.flush();
+                    requestCount += pipeline.size();
 
-                            writer.write(command.getCommandString());
-                            logger.trace("Write string to Max! Cube {}: {}", ipAddress, command.getCommandString());
-                            writer.flush();
-                            if (command.getReturnStrings() != null) {
-                                readliness(command.getReturnStrings());
-                            } else {
-                                socketClose();
-                            }
-                        }
+                    for (CubeCommand command : pipeline) {
+                        readliness(command.getReturnStrings());
+                        acknowledged++;
+                    }
+                    if (closing) {
+                        socketClose();
                     }
                 }
 
-                requestCount++;
-                sendSuccess = true;
-
                 if (!exclusive) {
                     socketClose();
                 }
             } catch (ConnectException e) {
                 logger.debug("Connection timed out on {} port {}", ipAddress, port);
-                sendSuccess = false;
                 socketClose(); // reconnect on next execution
             } catch (UnknownHostException e) {
                 logger.debug("Host error occurred during execution: {}", e.getMessage());
-                sendSuccess = false;
                 socketClose(); // reconnect on next execution
             } catch (IOException e) {
                 logger.debug("IO error occurred during execution: {}", e.getMessage());
-                sendSuccess = false;
                 socketClose(); // reconnect on next execution
             } catch (Exception e) {
                 logger.debug("Exception occurred during execution: {}", e.getMessage(), e);
-                sendSuccess = false;
                 socketClose(); // reconnect on next execution
             }
-            return sendSuccess;
+            return acknowledged;
         }
     }
 
@@ -651,8 +728,10 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
                     }
                 }
             } else if (message.getType() == MessageType.L) {
-                ((L_Message) message).updateDevices(devices, configurations);
-                logger.trace("{} devices found.", devices.size());
+                Collection<? extends Device> updatedDevices = ((L_Message) message).updateDevices(devices,
+                        configurations);
+                changedDevices.addAll(updatedDevices);
+                logger.trace("{} devices found, {} changed.", devices.size(), updatedDevices.size());
             } else if (message.getType() == MessageType.S) {
                 dutyCycle = ((S_Message) message).getDutyCycle();
                 freeMemorySlots = ((S_Message) message).getFreeMemorySlots();
@@ -888,7 +967,9 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
             SendCommand sendCommand = new SendCommand(maxDeviceSerial, new T_Command(device.getRFAddress(), true),
                     "Delete device " + maxDeviceSerial + " from Cube!");
             queueCommand(sendCommand);
-            devices.remove(device);
+            synchronized (cubeLock) {
+                devices.remove(device);
+            }
             sendDeviceAndRoomNameUpdate("Remove name entry for " + maxDeviceSerial);
             sendCommand = new SendCommand(maxDeviceSerial, new Q_Command(), "Reload Data");
             queueCommand(sendCommand);
@@ -911,6 +992,26 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
 
     }
 
+    /**
+     * Opens a new connection unless the current one can be reused and reads
+     * the messages the Cube sends after connecting.
+     *
+     * @return true if a new connection has been opened
+     */
+    private boolean socketConnectIfRequired() throws UnknownHostException, IOException {
+        if (socket != null && !socket.isClosed() && writer != null) {
+            if (maxRequestsPerConnection <= 0 || requestCount < maxRequestsPerConnection) {
+                return false;
+            }
+            logger.debug("maxRequestsPerConnection reached, reconnecting.");
+            socketClose();
+        }
+        socketConnect();
+        logger.debug("Connect to MAX! Cube");
+        readliness("L:");
+        return true;
+    }
+
     private boolean socketConnect() throws UnknownHostException, IOException {
         socket = new Socket(ipAddress, port);
         socket.setSoTimeout((NETWORK_TIMEOUT));
@@ -927,6 +1028,8 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
         } catch (Exception e) {
         }
         socket = null;
+        reader = null;
+        writer = null;
     }
 
     private void updateCubeState() {
@@ -51,8 +51,21 @@ public final class L_Message extends Message {
         return devices;
     }
 
+    /**
+     * Updates the given devices with the records of this message. Records which
+     * are identical to the ones the devices have been updated with last are
+     * skipped, devices not listed yet are created and added.
+     *
+     * @param devices
+     *            the devices known so far, new devices are added to it
+     * @param configurations
+     *            the device configurations used to create new devices
+     * @return the devices which have been created or whose record has changed
+     */
     public Collection<? extends Device> updateDevices(List<Device> devices, List<DeviceConfiguration> configurations) {
 
+        List<Device> changedDevices = new ArrayList<Device>();
+
         byte[] decodedRawMessage = Base64.decodeBase64(getPayload().getBytes());
 
         MaxTokenizer tokenizer = new MaxTokenizer(decodedRawMessage);
@@ -60,29 +73,28 @@ public final class L_Message extends Message {
         while (tokenizer.hasMoreElements()) {
             byte[] token = tokenizer.nextElement();
             String rfAddress = Utils.toHex(token[0] & 0xFF, token[1] & 0xFF, token[2] & 0xFF);
-            // logger.debug("token: "+token+" rfaddress: "+rfAddress);
 
             Device foundDevice = null;
             for (Device device : devices) {
-                // logger.debug(device.getRFAddress().toUpperCase()+ " vs "+rfAddress);
                 if (device.getRFAddress().toUpperCase().equals(rfAddress)) {
-                    // logger.debug("Updating device..."+rfAddress);
                     foundDevice = device;
+                    break;
                 }
             }
             if (foundDevice != null) {
-                foundDevice = Device.update(token, configurations, foundDevice);
-                // devices.remove(token);
-                // devices.add(foundDevice);
+                if (foundDevice.isRawDataChanged(token)) {
+                    changedDevices.add(Device.update(token, configurations, foundDevice));
+                }
             } else {
                 Device tempDevice = Device.create(token, configurations);
                 if (tempDevice != null) {
                     devices.add(tempDevice);
+                    changedDevices.add(tempDevice);
                 }
             }
         }
 
-        return devices;
+        return changedDevices;
     }
 
     @Override
@@ -0,0 +1,274 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.discovery;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.openhab.binding.network.service.DiscoveryCallback;
+import org.openhab.binding.network.service.NetworkUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scans a set of IPs with non-blocking TCP connect probes, which are multiplexed by a single {@link Selector} in
+ * the calling thread. A host is alive if a probe is accepted or actively refused. Hosts which drop all probes but
+ * answered the ARP requests of the probes are found in the ARP table afterwards. The scan does not ping the remaining
+ * hosts, a blocking ping (or a forked system ping) per IP of the subnet is what made the former discovery slow. ICMP
+ * is only used by the {@link org.openhab.binding.network.handler.NetworkHandler} for the configured devices.
+ *
+ * The number of probes in flight and the probe rate are limited. The probe timeout adapts to the round trip
+ * times measured on the network, like the TCP retransmission timeout.
+ *
+ * Found hosts are reported to the {@link DiscoveryCallback} as soon as they answer.
+ *
+ * @author agent - Initial contribution
+ */
+class HostScanner {
+    private final Logger logger = LoggerFactory.getLogger(HostScanner.class);
+
+    /**
+     * Ports which are probed, in this order: web, ssh, smb, rtsp, alternative web and the iOS sync service
+     */
+    static final int[] PROBE_PORTS = { 80, 443, 22, 445, 554, 8080, 62078 };
+
+    static final int MAX_PENDING_PROBES = 256;
+    static final int MAX_PROBES_PER_SECOND = 2000;
+    static final int MIN_TIMEOUT_IN_MS = 500;
+    static final int MAX_TIMEOUT_IN_MS = 2000;
+
+    private final List<Host> hosts = new ArrayList<Host>();
+    private final DiscoveryCallback callback;
+    private volatile boolean cancelled = false;
+    private volatile Selector selector;
+
+    // round trip time estimation in ns
+    private long smoothedRtt = -1;
+    private long rttVariation;
+    private long timeout;
+
+    /**
+     * @param ips The IPs to scan
+     * @param initialTimeout The probe timeout in ms until the first round trip time has been measured
+     * @param callback Is called for every found host
+     */
+    HostScanner(Collection<String> ips, int initialTimeout, DiscoveryCallback callback) {
+        this.callback = callback;
+        this.timeout = initialTimeout * 1000000L;
+        for (String ip : ips) {
+            try {
+                hosts.add(new Host(ip, InetAddress.getByName(ip)));
+            } catch (UnknownHostException e) {
+                // IPs are literals, this cannot happen
+            }
+        }
+    }
+
+    /**
+     * Scans all hosts, returns after all probes have been answered or timed out, or after {@link #cancel()}.
+     */
+    void scan() throws IOException {
+        long start = System.currentTimeMillis();
+        int total = hosts.size() * PROBE_PORTS.length;
+        int next = 0;
+        int found = 0;
+        double allowance = 0;
+        long lastRefill = System.nanoTime();
+
+        selector = Selector.open();
+        try {
+            while (!cancelled && (next < total || !selector.keys().isEmpty())) {
+                // start new probes within the rate limit
+                long now = System.nanoTime();
+                allowance = Math.min(MAX_PENDING_PROBES,
+                        allowance + (now - lastRefill) * (MAX_PROBES_PER_SECOND / 1000000000.0));
+                lastRefill = now;
+                while (next < total && allowance >= 1 && selector.keys().size() < MAX_PENDING_PROBES) {
+                    // probe every host on the first port before trying the next port
+                    Host host = hosts.get(next % hosts.size());
+                    int port = PROBE_PORTS[next / hosts.size()];
+                    next++;
+                    if (!host.alive) {
+                        allowance--;
+                        found += startProbe(host, port, now);
+                    }
+                }
+
+                selector.select(next < total ? 5 : Math.max(1, timeout / 1000000L));
+
+                now = System.nanoTime();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    found += finishProbe(key, now);
+                }
+                expireProbes(now);
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                close(key);
+            }
+            selector.close();
+        }
+
+        if (!cancelled) {
+            found += checkArpTable();
+        }
+        logger.debug("Scanned {} hosts in {} ms, found {}, last probe timeout {} ms", hosts.size(),
+                System.currentTimeMillis() - start, found, timeout / 1000000L);
+    }
+
+    /**
+     * Stops a running scan.
+     */
+    void cancel() {
+        cancelled = true;
+        Selector selector = this.selector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    private int startProbe(Host host, int port, long now) {
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            if (channel.connect(new InetSocketAddress(host.address, port))) {
+                channel.close();
+                return alive(host);
+            }
+            channel.register(selector, SelectionKey.OP_CONNECT, new Probe(host, now, now + timeout));
+        } catch (IOException e) {
+            closeQuietly(channel);
+            return refused(e) ? alive(host) : 0;
+        }
+        return 0;
+    }
+
+    private int finishProbe(SelectionKey key, long now) {
+        Probe probe = (Probe) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        boolean answered;
+        try {
+            answered = channel.finishConnect();
+        } catch (IOException e) {
+            answered = refused(e);
+        }
+        close(key);
+        if (answered) {
+            updateTimeout(now - probe.start);
+            return alive(probe.host);
+        }
+        return 0;
+    }
+
+    private void expireProbes(long now) {
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid() && ((Probe) key.attachment()).deadline - now < 0) {
+                close(key);
+            }
+        }
+    }
+
+    /**
+     * A refused connection proves that the host is alive, unreachable hosts and networks throw other exceptions.
+     */
+    private boolean refused(IOException e) {
+        return e.getClass() == ConnectException.class;
+    }
+
+    private synchronized int alive(Host host) {
+        if (host.alive) {
+            return 0;
+        }
+        host.alive = true;
+        callback.newDevice(host.ip);
+        return 1;
+    }
+
+    /**
+     * Updates the probe timeout with a measured round trip time, like the TCP retransmission timeout (RFC 6298).
+     */
+    private void updateTimeout(long rtt) {
+        if (smoothedRtt < 0) {
+            smoothedRtt = rtt;
+            rttVariation = rtt / 2;
+        } else {
+            rttVariation = (3 * rttVariation + Math.abs(smoothedRtt - rtt)) / 4;
+            smoothedRtt = (7 * smoothedRtt + rtt) / 8;
+        }
+        timeout = Math.max(MIN_TIMEOUT_IN_MS * 1000000L,
+                Math.min(MAX_TIMEOUT_IN_MS * 1000000L, smoothedRtt + 4 * rttVariation));
+    }
+
+    /**
+     * Reports hosts which did not answer any probe but are resolved in the ARP table.
+     */
+    private int checkArpTable() {
+        Set<String> arpIPs = NetworkUtils.getArpTableIPs();
+        int found = 0;
+        for (Host host : hosts) {
+            if (!host.alive && arpIPs.contains(host.ip)) {
+                found += alive(host);
+            }
+        }
+        return found;
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        closeQuietly(key.channel());
+    }
+
+    private void closeQuietly(Channel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    private static class Host {
+        final String ip;
+        final InetAddress address;
+        boolean alive = false;
+
+        Host(String ip, InetAddress address) {
+            this.ip = ip;
+            this.address = address;
+        }
+    }
+
+    private static class Probe {
+        final Host host;
+        final long start;
+        final long deadline;
+
+        Probe(Host host, long start, long deadline) {
+            this.host = host;
+            this.start = start;
+            this.deadline = deadline;
+        }
+    }
+}
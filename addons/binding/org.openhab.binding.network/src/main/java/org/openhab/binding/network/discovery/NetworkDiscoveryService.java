@@ -10,13 +10,10 @@ package org.openhab.binding.network.discovery;
 
 import static org.openhab.binding.network.NetworkBindingConstants.*;
 
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.discovery.AbstractDiscoveryService;
 import org.eclipse.smarthome.config.discovery.DiscoveryResult;
@@ -35,54 +32,54 @@ import org.slf4j.LoggerFactory;
  */
 public class NetworkDiscoveryService extends AbstractDiscoveryService implements DiscoveryCallback {
     private final Logger logger = LoggerFactory.getLogger(NetworkDiscoveryService.class);
-    private ExecutorService executorService = null;
+    private HostScanner hostScanner = null;
     final static int PING_TIMEOUT_IN_MS = 500;
-    private int scanningNetworkSize = 0;
 
     public NetworkDiscoveryService() {
         super(SUPPORTED_THING_TYPES_UIDS, 900, false);
     }
 
     /**
-     * Starts the DiscoveryThread for each IP on each interface on the network
+     * Scans every IP on each interface on the network, found devices are submitted while the scan is running
      *
      */
     @Override
     protected void startScan() {
-        if (executorService != null) {
-            stopScan();
+        HostScanner scanner;
+        synchronized (this) {
+            if (hostScanner != null) {
+                hostScanner.cancel();
+            }
+            logger.debug("Starting Discovery");
+            LinkedHashSet<String> networkIPs = NetworkUtils.getNetworkIPs(NetworkUtils.getInterfaceIPs());
+            scanner = new HostScanner(networkIPs, PING_TIMEOUT_IN_MS, this);
+            hostScanner = scanner;
         }
 
-        logger.debug("Starting Discovery");
-        LinkedHashSet<String> networkIPs = NetworkUtils.getNetworkIPs(NetworkUtils.getInterfaceIPs());
-        scanningNetworkSize = networkIPs.size();
-        executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 10);
-
-        for (Iterator<String> it = networkIPs.iterator(); it.hasNext();) {
-            final String ip = it.next();
-            executorService.execute(new PingRunnable(ip, this));
+        try {
+            scanner.scan();
+        } catch (IOException e) {
+            logger.warn("Network scan failed: {}", e.getMessage());
+        } finally {
+            synchronized (this) {
+                if (hostScanner == scanner) {
+                    stopScan();
+                }
+            }
         }
-        stopScan();
     }
 
     @Override
     protected synchronized void stopScan() {
         super.stopScan();
-        if (executorService == null) {
-            return;
-        }
-
-        try {
-            executorService.awaitTermination(PING_TIMEOUT_IN_MS * scanningNetworkSize, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
+        if (hostScanner != null) {
+            hostScanner.cancel();
+            hostScanner = null;
         }
-        executorService.shutdown();
-        executorService = null;
-
     }
 
     /**
-     * Submit newly discovered devices. This method is called by the spawned threads in {@link startScan}.
+     * Submit newly discovered devices. This method is called by the {@link HostScanner} during {@link startScan}.
      *
      * @param ip The device IP, received by the
      */
@@ -8,6 +8,9 @@
  */
 package org.openhab.binding.network.service;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
 import java.net.Inet4Address;
 import java.net.InetAddress;
@@ -16,8 +19,10 @@ import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.TreeSet;
 
 import org.apache.commons.lang.SystemUtils;
@@ -29,6 +34,7 @@ import org.apache.commons.net.util.SubnetUtils;
  * @author David Graeff <david.graeff@web.de>
  */
 public class NetworkUtils {
+    private static final String ARP_TABLE = "/proc/net/arp";
 
     /**
      * Gets every IPv4 Address on each Interface except the loopback
@@ -146,6 +152,33 @@ public class NetworkUtils {
         return (inetAddress2Int(addr) & 0xFFFFFFFFL);
     }
 
+    /**
+     * Reads the IPv4 addresses of all resolved entries of the ARP table. Only supported on Linux.
+     *
+     * @return The IPs of all hosts with a known hardware address, an empty set if the table is not available
+     */
+    public static Set<String> getArpTableIPs() {
+        Set<String> ips = new HashSet<String>();
+        if (!new File(ARP_TABLE).canRead()) {
+            return ips;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(ARP_TABLE))) {
+            // skip the header: IP address, HW type, Flags, HW address, Mask, Device
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.trim().split("\\s+");
+                // flag 0x2 marks a completed entry
+                if (columns.length >= 4 && columns[2].startsWith("0x")
+                        && (Integer.parseInt(columns[2].substring(2), 16) & 0x2) != 0) {
+                    ips.add(columns[0]);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+        }
+        return ips;
+    }
+
     public static boolean nativePing(String hostname, int port, int timeout)
             throws InvalidConfigurationException, IOException, InterruptedException {
         Process proc;
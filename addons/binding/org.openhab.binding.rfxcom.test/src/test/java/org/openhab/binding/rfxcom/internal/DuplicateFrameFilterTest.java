@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import static org.junit.Assert.*;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.Test;
+
+/**
+ * Test for RFXCom-binding
+ *
+ * @author agent - Initial contribution
+ * @since 2.0.0
+ */
+public class DuplicateFrameFilterTest {
+
+    @Test
+    public void testRepeatedFrameWithinWindow() {
+        DuplicateFrameFilter filter = new DuplicateFrameFilter(500);
+        assertFalse("First frame", filter.isDuplicate(DatatypeConverter.parseHexBinary("08500110000180BC69"), 1000));
+        // repetitions differ in the sequence number only
+        assertTrue("Repeated frame", filter.isDuplicate(DatatypeConverter.parseHexBinary("08500111000180BC69"), 1100));
+        assertTrue("Repeated frame", filter.isDuplicate(DatatypeConverter.parseHexBinary("08500112000180BC69"), 1400));
+    }
+
+    @Test
+    public void testRepeatedFrameAfterWindow() {
+        DuplicateFrameFilter filter = new DuplicateFrameFilter(500);
+        assertFalse("First frame", filter.isDuplicate(DatatypeConverter.parseHexBinary("08500110000180BC69"), 1000));
+        assertFalse("Frame after window",
+                filter.isDuplicate(DatatypeConverter.parseHexBinary("08500111000180BC69"), 1500));
+    }
+
+    @Test
+    public void testDifferentFrames() {
+        DuplicateFrameFilter filter = new DuplicateFrameFilter(500);
+        assertFalse("First frame", filter.isDuplicate(DatatypeConverter.parseHexBinary("08500110000180BC69"), 1000));
+        assertFalse("Other value", filter.isDuplicate(DatatypeConverter.parseHexBinary("08500111000180BD69"), 1100));
+        assertFalse("Other device", filter.isDuplicate(DatatypeConverter.parseHexBinary("08500112000280BC69"), 1200));
+    }
+
+    @Test
+    public void testRepeatedFrameWithOtherSignalLevel() {
+        DuplicateFrameFilter filter = new DuplicateFrameFilter(500);
+        assertFalse("First frame", filter.isDuplicate(DatatypeConverter.parseHexBinary("08500110000180BC69"), 1000));
+        // the signal level is in the high nibble of the last byte
+        assertTrue("Other signal level",
+                filter.isDuplicate(DatatypeConverter.parseHexBinary("08500111000180BC89"), 1100));
+        // the battery level is in the low nibble of the last byte
+        assertFalse("Other battery level",
+                filter.isDuplicate(DatatypeConverter.parseHexBinary("08500112000180BC61"), 1200));
+    }
+
+    @Test
+    public void testRepeatedSecurityFrameWithOtherSignalLevel() {
+        DuplicateFrameFilter filter = new DuplicateFrameFilter(500);
+        assertFalse("First frame", filter.isDuplicate(DatatypeConverter.parseHexBinary("0820004DD3DC540089"), 1000));
+        // security messages have the signal level in the low nibble of the last byte
+        assertTrue("Other signal level",
+                filter.isDuplicate(DatatypeConverter.parseHexBinary("0820004ED3DC540086"), 1100));
+        assertFalse("Other battery level",
+                filter.isDuplicate(DatatypeConverter.parseHexBinary("0820004FD3DC540009"), 1200));
+    }
+
+    @Test
+    public void testDisabled() {
+        DuplicateFrameFilter filter = new DuplicateFrameFilter(0);
+        assertFalse("First frame", filter.isDuplicate(DatatypeConverter.parseHexBinary("08500110000180BC69"), 1000));
+        assertFalse("Repeated frame",
+                filter.isDuplicate(DatatypeConverter.parseHexBinary("08500111000180BC69"), 1100));
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.messages;
+
+import static org.junit.Assert.*;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComNotImpException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+
+/**
+ * Test for RFXCom-binding
+ *
+ * @author agent - Initial contribution
+ * @since 2.0.0
+ */
+public class RFXComMessageFactoryTest {
+
+    /**
+     * The message class created for every supported packet type
+     */
+    private static final Map<PacketType, Class<? extends RFXComMessage>> MESSAGE_CLASSES = new EnumMap<>(
+            PacketType.class);
+
+    static {
+        MESSAGE_CLASSES.put(PacketType.INTERFACE_CONTROL, RFXComControlMessage.class);
+        MESSAGE_CLASSES.put(PacketType.INTERFACE_MESSAGE, RFXComInterfaceMessage.class);
+        MESSAGE_CLASSES.put(PacketType.TRANSMITTER_MESSAGE, RFXComTransmitterMessage.class);
+        MESSAGE_CLASSES.put(PacketType.UNDECODED_RF_MESSAGE, RFXComUndecodedRFMessage.class);
+        MESSAGE_CLASSES.put(PacketType.LIGHTING1, RFXComLighting1Message.class);
+        MESSAGE_CLASSES.put(PacketType.LIGHTING2, RFXComLighting2Message.class);
+        MESSAGE_CLASSES.put(PacketType.LIGHTING4, RFXComLighting4Message.class);
+        MESSAGE_CLASSES.put(PacketType.LIGHTING5, RFXComLighting5Message.class);
+        MESSAGE_CLASSES.put(PacketType.LIGHTING6, RFXComLighting6Message.class);
+        MESSAGE_CLASSES.put(PacketType.CURTAIN1, RFXComCurtain1Message.class);
+        MESSAGE_CLASSES.put(PacketType.BLINDS1, RFXComBlinds1Message.class);
+        MESSAGE_CLASSES.put(PacketType.RFY, RFXComRfyMessage.class);
+        MESSAGE_CLASSES.put(PacketType.SECURITY1, RFXComSecurity1Message.class);
+        MESSAGE_CLASSES.put(PacketType.THERMOSTAT1, RFXComThermostat1Message.class);
+        MESSAGE_CLASSES.put(PacketType.TEMPERATURE, RFXComTemperatureMessage.class);
+        MESSAGE_CLASSES.put(PacketType.HUMIDITY, RFXComHumidityMessage.class);
+        MESSAGE_CLASSES.put(PacketType.TEMPERATURE_HUMIDITY, RFXComTemperatureHumidityMessage.class);
+        MESSAGE_CLASSES.put(PacketType.RAIN, RFXComRainMessage.class);
+        MESSAGE_CLASSES.put(PacketType.WIND, RFXComWindMessage.class);
+        MESSAGE_CLASSES.put(PacketType.DATE_TIME, RFXComDateTimeMessage.class);
+        MESSAGE_CLASSES.put(PacketType.ENERGY, RFXComEnergyMessage.class);
+        MESSAGE_CLASSES.put(PacketType.CURRENT_ENERGY, RFXComCurrentEnergyMessage.class);
+    }
+
+    @Test
+    public void testPacketTypeFromByte() {
+        for (PacketType packetType : PacketType.values()) {
+            assertEquals("Packet type", packetType, PacketType.fromByte(packetType.toByte()));
+        }
+        assertEquals("Unknown packet type", PacketType.UNKNOWN, PacketType.fromByte((byte) 0x7F));
+    }
+
+    @Test
+    public void testCreateMessageForSupportedPacketTypes() throws Exception {
+        for (Map.Entry<PacketType, Class<? extends RFXComMessage>> entry : MESSAGE_CLASSES.entrySet()) {
+            RFXComMessage message = RFXComMessageFactory.createMessage(entry.getKey());
+            assertEquals("Message class for " + entry.getKey(), entry.getValue(), message.getClass());
+            assertNotSame("New instance for " + entry.getKey(), message,
+                    RFXComMessageFactory.createMessage(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testCreateMessageForUnsupportedPacketTypes() throws Exception {
+        for (PacketType packetType : PacketType.values()) {
+            if (MESSAGE_CLASSES.containsKey(packetType)) {
+                continue;
+            }
+            try {
+                RFXComMessageFactory.createMessage(packetType);
+                fail("Expected RFXComNotImpException for " + packetType);
+            } catch (RFXComNotImpException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testCreateMessageFromPacket() throws Exception {
+        RFXComMessage message = RFXComMessageFactory
+                .createMessage(DatatypeConverter.parseHexBinary("08500110000180BC69"));
+        assertTrue("Message class", message instanceof RFXComTemperatureMessage);
+        assertEquals("Device Id", "1", message.getDeviceId());
+    }
+
+    @Test(expected = RFXComNotImpException.class)
+    public void testCreateMessageFromUnknownPacket() throws Exception {
+        RFXComMessageFactory.createMessage(DatatypeConverter.parseHexBinary("087F0110000180BC69"));
+    }
+}
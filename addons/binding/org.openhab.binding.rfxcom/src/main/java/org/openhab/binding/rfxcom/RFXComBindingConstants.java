@@ -31,6 +31,11 @@ public class RFXComBindingConstants {
     public static final String DEVICE_ID = "deviceId";
     public static final String SUB_TYPE = "subType";
 
+    // Bridge properties
+    public static final String PROPERTY_RECEIVED_FRAMES = "receivedFrames";
+    public static final String PROPERTY_DEDUPLICATED_FRAMES = "deduplicatedFrames";
+    public static final String PROPERTY_DISPATCHED_FRAMES = "dispatchedFrames";
+
     // List of all Bridge Type UIDs
     public static final String BRIDGE_TYPE_MANUAL_BRIDGE = "bridge";
     public static final String BRIDGE_TYPE_TCP_BRIDGE = "tcpbridge";
@@ -9,8 +9,15 @@
 package org.openhab.binding.rfxcom.handler;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -20,10 +27,12 @@ import org.eclipse.smarthome.core.thing.Bridge;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.openhab.binding.rfxcom.RFXComBindingConstants;
 import org.openhab.binding.rfxcom.internal.DeviceMessageListener;
+import org.openhab.binding.rfxcom.internal.DuplicateFrameFilter;
 import org.openhab.binding.rfxcom.internal.config.RFXComBridgeConfiguration;
 import org.openhab.binding.rfxcom.internal.connector.RFXComConnectorInterface;
 import org.openhab.binding.rfxcom.internal.connector.RFXComEventListener;
@@ -33,6 +42,7 @@ import org.openhab.binding.rfxcom.internal.connector.RFXComTcpConnector;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComNotImpException;
 import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
 import org.openhab.binding.rfxcom.internal.messages.RFXComInterfaceMessage;
 import org.openhab.binding.rfxcom.internal.messages.RFXComInterfaceMessage.Commands;
 import org.openhab.binding.rfxcom.internal.messages.RFXComInterfaceMessage.SubType;
@@ -59,8 +69,32 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
     RFXComConnectorInterface connector = null;
     private MessageListener eventListener = new MessageListener();
 
+    /**
+     * listeners for messages of devices without a registered thing, e.g. the discovery service
+     */
     private List<DeviceMessageListener> deviceStatusListeners = new CopyOnWriteArrayList<>();
 
+    /**
+     * listeners of a single device, indexed by the key of the device (see {@link #getDeviceKey})
+     */
+    private ConcurrentMap<String, Set<DeviceMessageListener>> deviceListeners = new ConcurrentHashMap<>();
+
+    /**
+     * device key of every registered device listener, guarded by itself
+     */
+    private Map<DeviceMessageListener, String> deviceListenerKeys = new HashMap<>();
+
+    /**
+     * coalescing state of every device that received a message, indexed by the key of the device
+     */
+    private ConcurrentMap<String, DeviceUpdate> deviceUpdates = new ConcurrentHashMap<>();
+
+    private DuplicateFrameFilter duplicateFrameFilter = new DuplicateFrameFilter(0);
+
+    private final AtomicLong receivedFrames = new AtomicLong();
+    private final AtomicLong deduplicatedFrames = new AtomicLong();
+    private final AtomicLong dispatchedFrames = new AtomicLong();
+
     private static final int timeout = 5000;
     private static byte seqNbr = 0;
     private static RFXComTransmitterMessage responseMessage = null;
@@ -84,6 +118,11 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
             unregisterDeviceStatusListener(deviceStatusListener);
         }
+        synchronized (deviceListenerKeys) {
+            deviceListenerKeys.clear();
+            deviceListeners.clear();
+        }
+        deviceUpdates.clear();
 
         if (connector != null) {
             connector.removeEventListener(eventListener);
@@ -104,6 +143,7 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         updateStatus(ThingStatus.OFFLINE);
 
         configuration = getConfigAs(RFXComBridgeConfiguration.class);
+        duplicateFrameFilter = new DuplicateFrameFilter(configuration.dedupWindow);
 
         if (connectorTask == null || connectorTask.isCancelled()) {
             connectorTask = scheduler.scheduleAtFixedRate(new Runnable() {
@@ -114,6 +154,7 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
                     if (thing.getStatus() != ThingStatus.ONLINE) {
                         connect();
                     }
+                    updateFrameCounters();
                 }
             }, 0, 60, TimeUnit.SECONDS);
         }
@@ -232,6 +273,20 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         }
     }
 
+    private void updateFrameCounters() {
+        updateFrameCounter(RFXComBindingConstants.PROPERTY_RECEIVED_FRAMES, receivedFrames.get());
+        updateFrameCounter(RFXComBindingConstants.PROPERTY_DEDUPLICATED_FRAMES, deduplicatedFrames.get());
+        updateFrameCounter(RFXComBindingConstants.PROPERTY_DISPATCHED_FRAMES, dispatchedFrames.get());
+    }
+
+    private void updateFrameCounter(String name, long count) {
+        // every property update persists the thing, so only changed counters are written
+        String value = String.valueOf(count);
+        if (!value.equals(getThing().getProperties().get(name))) {
+            updateProperty(name, value);
+        }
+    }
+
     private byte[] createConfMessage(String bridgeType, RFXComBridgeConfiguration conf) {
         if (conf != null && bridgeType != null) {
             RFXComInterfaceMessage msg = new RFXComInterfaceMessage();
@@ -370,6 +425,13 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
 
         @Override
         public void packetReceived(byte[] packet) {
+            receivedFrames.incrementAndGet();
+            if (isDeviceFrame(packet) && duplicateFrameFilter.isDuplicate(packet, System.currentTimeMillis())) {
+                deduplicatedFrames.incrementAndGet();
+                logger.trace("Duplicate frame dropped: {}", DatatypeConverter.printHexBinary(packet));
+                return;
+            }
+
             try {
                 RFXComMessage message = RFXComMessageFactory.createMessage(packet);
                 logger.debug("Message received: {}", message);
@@ -396,12 +458,14 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
 
                 } else {
 
-                    for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
-                        try {
-                            deviceStatusListener.onDeviceMessageReceived(getThing().getUID(), message);
-                        } catch (Exception e) {
-                            logger.error("An exception occurred while calling the DeviceStatusListener", e);
-                        }
+                    String key = getDeviceKey(message);
+                    Set<DeviceMessageListener> listeners = deviceListeners.get(key);
+                    if (listeners == null || listeners.isEmpty()) {
+                        // unknown device
+                        dispatchedFrames.incrementAndGet();
+                        notifyListeners(deviceStatusListeners, message);
+                    } else {
+                        dispatch(key, message);
                     }
                 }
             } catch (RFXComNotImpException e) {
@@ -414,6 +478,77 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
             updateStatus(ThingStatus.ONLINE);
         }
 
+        private boolean isDeviceFrame(byte[] packet) {
+            // interface and transmitter responses are never repeated
+            PacketType packetType = packet.length > 1 ? PacketType.fromByte(packet[1]) : PacketType.UNKNOWN;
+            return packetType != PacketType.INTERFACE_CONTROL && packetType != PacketType.INTERFACE_MESSAGE
+                    && packetType != PacketType.TRANSMITTER_MESSAGE;
+        }
+
+        /**
+         * Dispatches the message to the listeners of the device. If the device received a message within the
+         * coalesce window, the message is held back until the window ends and replaced by any later message.
+         */
+        private void dispatch(final String key, RFXComMessage message) {
+            long window = configuration != null ? configuration.coalesceWindow : 0;
+            if (window > 0) {
+                DeviceUpdate update = deviceUpdates.get(key);
+                if (update == null) {
+                    update = new DeviceUpdate();
+                    DeviceUpdate existing = deviceUpdates.putIfAbsent(key, update);
+                    if (existing != null) {
+                        update = existing;
+                    }
+                }
+                final DeviceUpdate deviceUpdate = update;
+                synchronized (deviceUpdate) {
+                    long now = System.currentTimeMillis();
+                    if (deviceUpdate.pending != null) {
+                        // a dispatch is already scheduled, it will use the latest message
+                        deviceUpdate.pending = message;
+                        return;
+                    }
+                    long delay = deviceUpdate.lastDispatch + window - now;
+                    if (delay > 0) {
+                        deviceUpdate.pending = message;
+                        scheduler.schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                RFXComMessage pending;
+                                synchronized (deviceUpdate) {
+                                    pending = deviceUpdate.pending;
+                                    deviceUpdate.pending = null;
+                                    deviceUpdate.lastDispatch = System.currentTimeMillis();
+                                }
+                                notifyDeviceListeners(key, pending);
+                            }
+                        }, delay, TimeUnit.MILLISECONDS);
+                        return;
+                    }
+                    deviceUpdate.lastDispatch = now;
+                }
+            }
+            notifyDeviceListeners(key, message);
+        }
+
+        private void notifyDeviceListeners(String key, RFXComMessage message) {
+            Set<DeviceMessageListener> listeners = deviceListeners.get(key);
+            if (message != null && listeners != null) {
+                dispatchedFrames.incrementAndGet();
+                notifyListeners(listeners, message);
+            }
+        }
+
+        private void notifyListeners(Iterable<DeviceMessageListener> listeners, RFXComMessage message) {
+            for (DeviceMessageListener deviceStatusListener : listeners) {
+                try {
+                    deviceStatusListener.onDeviceMessageReceived(getThing().getUID(), message);
+                } catch (Exception e) {
+                    logger.error("An exception occurred while calling the DeviceStatusListener", e);
+                }
+            }
+        }
+
         @Override
         public void errorOccurred(String error) {
             logger.error("Error occurred: {}", error);
@@ -421,6 +556,20 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         }
     }
 
+    /**
+     * Coalescing state of a single device
+     */
+    private static class DeviceUpdate {
+        private long lastDispatch;
+        private RFXComMessage pending;
+    }
+
+    /**
+     * Registers a listener for the messages of all devices which have no registered device listener.
+     *
+     * @param deviceStatusListener the listener to register
+     * @return true if the listener has been registered, false if it already was
+     */
     public boolean registerDeviceStatusListener(DeviceMessageListener deviceStatusListener) {
         if (deviceStatusListener == null) {
             throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
@@ -429,11 +578,65 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
                 : deviceStatusListeners.add(deviceStatusListener);
     }
 
+    /**
+     * Registers a listener for the messages of a single device. A listener can only be registered for one
+     * device, registering it again replaces its previous registration.
+     *
+     * @param thingTypeUID the thing type of the device
+     * @param deviceId the id of the device
+     * @param deviceStatusListener the listener to register
+     */
+    public void registerDeviceStatusListener(ThingTypeUID thingTypeUID, String deviceId,
+            DeviceMessageListener deviceStatusListener) {
+        if (deviceStatusListener == null) {
+            throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
+        }
+        String key = getDeviceKey(thingTypeUID, deviceId);
+        synchronized (deviceListenerKeys) {
+            removeDeviceListener(deviceStatusListener);
+            Set<DeviceMessageListener> listeners = deviceListeners.get(key);
+            if (listeners == null) {
+                listeners = new CopyOnWriteArraySet<>();
+                deviceListeners.put(key, listeners);
+            }
+            listeners.add(deviceStatusListener);
+            deviceListenerKeys.put(deviceStatusListener, key);
+        }
+    }
+
     public boolean unregisterDeviceStatusListener(DeviceMessageListener deviceStatusListener) {
         if (deviceStatusListener == null) {
             throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
         }
-        return deviceStatusListeners.remove(deviceStatusListener);
+        boolean removed;
+        synchronized (deviceListenerKeys) {
+            removed = removeDeviceListener(deviceStatusListener);
+        }
+        return deviceStatusListeners.remove(deviceStatusListener) || removed;
+    }
+
+    private boolean removeDeviceListener(DeviceMessageListener deviceStatusListener) {
+        String key = deviceListenerKeys.remove(deviceStatusListener);
+        if (key == null) {
+            return false;
+        }
+        Set<DeviceMessageListener> listeners = deviceListeners.get(key);
+        if (listeners != null) {
+            listeners.remove(deviceStatusListener);
+            if (listeners.isEmpty()) {
+                deviceListeners.remove(key);
+            }
+        }
+        return true;
+    }
+
+    private static String getDeviceKey(RFXComMessage message) throws RFXComException {
+        return getDeviceKey(RFXComBindingConstants.packetTypeThingMap.get(((RFXComBaseMessage) message).packetType),
+                message.getDeviceId());
+    }
+
+    private static String getDeviceKey(ThingTypeUID thingTypeUID, String deviceId) {
+        return (thingTypeUID == null ? null : thingTypeUID.getId()) + ":" + deviceId;
     }
 
-}
\ No newline at end of file
+}
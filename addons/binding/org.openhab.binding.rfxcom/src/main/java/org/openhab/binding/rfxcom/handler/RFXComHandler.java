@@ -127,7 +127,7 @@ public class RFXComHandler extends BaseThingHandler implements DeviceMessageList
         } else if (thingHandler != null && bridgeStatus != null) {
 
             bridgeHandler = (RFXComBridgeHandler) thingHandler;
-            bridgeHandler.registerDeviceStatusListener(this);
+            bridgeHandler.registerDeviceStatusListener(getThing().getThingTypeUID(), config.deviceId, this);
 
             if (bridgeStatus == ThingStatus.ONLINE) {
                 updateStatus(ThingStatus.ONLINE);
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+
+/**
+ * The {@link DuplicateFrameFilter} detects repeated RF frames. Most RF transmitters send every frame several
+ * times, the transceiver forwards each repetition with a new sequence number. A frame is a duplicate if a frame
+ * with the same content has been seen within the configured window. The sequence number and the signal level,
+ * which the transceiver measures for every repetition, are ignored.
+ *
+ * Recently seen frames are kept in a small ring, so a lookup never allocates more than the new ring entry.
+ *
+ * @author agent - Initial contribution
+ */
+public class DuplicateFrameFilter {
+
+    private static final int RING_SIZE = 16;
+
+    /**
+     * index of the sequence number, which differs between repetitions of the same frame
+     */
+    private static final int SEQ_NBR_INDEX = 3;
+
+    /**
+     * the bits of the last byte compared per packet type. The last byte of a received frame holds the signal level
+     * in one nibble and the battery level (or nothing) in the other, only the signal level nibble is ignored.
+     */
+    private static final int[] LAST_BYTE_MASKS = new int[256];
+
+    static {
+        Arrays.fill(LAST_BYTE_MASKS, 0x0F);
+        // security messages have the battery level in the high nibble and the signal level in the low nibble
+        LAST_BYTE_MASKS[PacketType.SECURITY1.toByte() & 0xFF] = 0xF0;
+        // undecoded messages contain the raw RF data only
+        LAST_BYTE_MASKS[PacketType.UNDECODED_RF_MESSAGE.toByte() & 0xFF] = 0xFF;
+    }
+
+    private final AtomicReferenceArray<Frame> ring = new AtomicReferenceArray<>(RING_SIZE);
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final long window;
+
+    /**
+     * @param window time in ms within which a repeated frame is a duplicate, values &lt;= 0 disable the filter
+     */
+    public DuplicateFrameFilter(long window) {
+        this.window = window;
+    }
+
+    /**
+     * Checks if the frame is a repetition of a recently seen frame and remembers it otherwise.
+     *
+     * @param data the received frame
+     * @param now the time the frame has been received in ms
+     * @return true if the frame is a duplicate
+     */
+    public boolean isDuplicate(byte[] data, long now) {
+        if (window <= 0) {
+            return false;
+        }
+
+        int hash = hash(data);
+        for (int i = 0; i < RING_SIZE; i++) {
+            Frame frame = ring.get(i);
+            if (frame != null && frame.hash == hash && now - frame.time < window && matches(frame.data, data)) {
+                return true;
+            }
+        }
+
+        ring.set((next.getAndIncrement() & Integer.MAX_VALUE) % RING_SIZE, new Frame(hash, data, now));
+        return false;
+    }
+
+    private static int hash(byte[] data) {
+        int hash = 1;
+        for (int i = 0; i < data.length; i++) {
+            hash = 31 * hash + valueAt(data, i);
+        }
+        return hash;
+    }
+
+    private static boolean matches(byte[] data, byte[] other) {
+        if (data.length != other.length) {
+            return false;
+        }
+        for (int i = 0; i < data.length; i++) {
+            if (valueAt(data, i) != valueAt(other, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the byte at the given index without the parts that differ between repetitions of a frame
+     */
+    private static int valueAt(byte[] data, int index) {
+        if (index == SEQ_NBR_INDEX) {
+            return 0;
+        }
+        if (index == data.length - 1 && index > SEQ_NBR_INDEX) {
+            return data[index] & LAST_BYTE_MASKS[data[1] & 0xFF];
+        }
+        return data[index];
+    }
+
+    private static class Frame {
+        private final int hash;
+        private final byte[] data;
+        private final long time;
+
+        private Frame(int hash, byte[] data, long time) {
+            this.hash = hash;
+            this.data = data;
+            this.time = time;
+        }
+    }
+}
@@ -34,6 +34,12 @@ public class RFXComBridgeConfiguration {
 
     public String setMode;
 
+    // Repeated frames within this time (ms) are dropped
+    public int dedupWindow;
+
+    // Minimum time (ms) between two messages dispatched to the same device
+    public int coalesceWindow;
+
     // Enabled protocols
     public boolean enableUndecoded;
     public boolean enableImagintronixOpus;
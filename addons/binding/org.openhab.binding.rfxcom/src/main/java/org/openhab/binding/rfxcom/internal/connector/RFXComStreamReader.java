@@ -68,8 +68,10 @@ public class RFXComStreamReader extends Thread {
 
                 if ((len = in.read(tmpData)) > 0) {
 
-                    byte[] logData = Arrays.copyOf(tmpData, len);
-                    logger.trace("Received data (len={}): {}", len, DatatypeConverter.printHexBinary(logData));
+                    if (logger.isTraceEnabled()) {
+                        logger.trace("Received data (len={}): {}", len,
+                                DatatypeConverter.printHexBinary(Arrays.copyOf(tmpData, len)));
+                    }
 
                     for (int i = 0; i < len; i++) {
 
@@ -93,14 +95,8 @@ public class RFXComStreamReader extends Thread {
                             if (index == msgLen) {
 
                                 // whole message received, send an event
-
-                                byte[] msg = new byte[msgLen];
-
-                                for (int j = 0; j < msgLen; j++) {
-                                    msg[j] = dataBuffer[j];
-                                }
-
-                                connector.sendMsgToListeners(msg);
+                                // the buffer is reused, the message keeps its own copy
+                                connector.sendMsgToListeners(Arrays.copyOf(dataBuffer, msgLen));
 
                                 // find new start
                                 start_found = false;
@@ -66,6 +66,17 @@ public abstract class RFXComBaseMessage implements RFXComMessage {
 
         UNKNOWN(255);
 
+        private static final PacketType[] lookup = new PacketType[256];
+
+        static {
+            for (int i = 0; i < lookup.length; i++) {
+                lookup[i] = UNKNOWN;
+            }
+            for (PacketType packetType : values()) {
+                lookup[packetType.packetType & 0xFF] = packetType;
+            }
+        }
+
         private final int packetType;
 
         PacketType(int packetType) {
@@ -81,13 +92,8 @@ public abstract class RFXComBaseMessage implements RFXComMessage {
         }
 
         public static PacketType fromByte(int input) {
-            for (PacketType packetType : PacketType.values()) {
-                if (packetType.packetType == input) {
-                    return packetType;
-                }
-            }
-
-            return PacketType.UNKNOWN;
+            // packet types are received as signed bytes
+            return lookup[input & 0xFF];
         }
 
     }
@@ -8,9 +8,7 @@
  */
 package org.openhab.binding.rfxcom.internal.messages;
 
-import java.lang.reflect.Constructor;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
@@ -19,57 +17,150 @@ import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType
 
 public class RFXComMessageFactory {
 
-    final static String classUrl = "org.openhab.binding.rfxcom.internal.messages.";
-
-    @SuppressWarnings("serial")
-    private static final Map<PacketType, String> messageClasses = Collections
-            .unmodifiableMap(new HashMap<PacketType, String>() {
-                {
-                    put(PacketType.INTERFACE_CONTROL, "RFXComControlMessage");
-                    put(PacketType.INTERFACE_MESSAGE, "RFXComInterfaceMessage");
-                    put(PacketType.TRANSMITTER_MESSAGE, "RFXComTransmitterMessage");
-                    put(PacketType.UNDECODED_RF_MESSAGE, "RFXComUndecodedRFMessage");
-                    put(PacketType.LIGHTING1, "RFXComLighting1Message");
-                    put(PacketType.LIGHTING2, "RFXComLighting2Message");
-                    put(PacketType.LIGHTING3, "RFXComLighting3Message");
-                    put(PacketType.LIGHTING4, "RFXComLighting4Message");
-                    put(PacketType.LIGHTING5, "RFXComLighting5Message");
-                    put(PacketType.LIGHTING6, "RFXComLighting6Message");
-                    put(PacketType.CHIME, "RFXComChimeMessage");
-                    put(PacketType.FAN, "RFXComFanMessage");
-                    put(PacketType.CURTAIN1, "RFXComCurtain1Message");
-                    put(PacketType.BLINDS1, "RFXComBlinds1Message");
-                    put(PacketType.RFY, "RFXComRfyMessage");
-                    put(PacketType.SECURITY1, "RFXComSecurity1Message");
-                    put(PacketType.CAMERA1, "RFXComCamera1Message");
-                    put(PacketType.REMOTE_CONTROL, "RFXComRemoteControlMessage");
-                    put(PacketType.THERMOSTAT1, "RFXComThermostat1Message");
-                    put(PacketType.THERMOSTAT2, "RFXComThermostat2Message");
-                    put(PacketType.THERMOSTAT3, "RFXComThermostat3Message");
-                    put(PacketType.BBQ1, "RFXComBBQMessage");
-                    put(PacketType.TEMPERATURE_RAIN, "RFXComTemperatureRainMessage");
-                    put(PacketType.TEMPERATURE, "RFXComTemperatureMessage");
-                    put(PacketType.HUMIDITY, "RFXComHumidityMessage");
-                    put(PacketType.TEMPERATURE_HUMIDITY, "RFXComTemperatureHumidityMessage");
-                    put(PacketType.BAROMETRIC, "RFXComBarometricMessage");
-                    put(PacketType.TEMPERATURE_HUMIDITY_BAROMETRIC, "RFXComTemperatureHumidityBarometricMessage");
-                    put(PacketType.RAIN, "RFXComRainMessage");
-                    put(PacketType.WIND, "RFXComWindMessage");
-                    put(PacketType.UV, "RFXComUVMessage");
-                    put(PacketType.DATE_TIME, "RFXComDateTimeMessage");
-                    put(PacketType.CURRENT, "RFXComCurrentMessage");
-                    put(PacketType.ENERGY, "RFXComEnergyMessage");
-                    put(PacketType.CURRENT_ENERGY, "RFXComCurrentEnergyMessage");
-                    put(PacketType.POWER, "RFXComPowerMessage");
-                    put(PacketType.WEIGHT, "RFXComWeightMessage");
-                    put(PacketType.GAS, "RFXComGasMessage");
-                    put(PacketType.WATER, "RFXComWaterMessage");
-                    put(PacketType.RFXSENSOR, "RFXComRFXSensorMessage");
-                    put(PacketType.RFXMETER, "RFXComRFXMeterMessage");
-                    put(PacketType.FS20, "RFXComFS20Message");
-                    put(PacketType.IO_LINES, "RFXComIOLinesMessage");
-                }
-            });
+    /**
+     * Creates new instances of a message class, avoids reflection for every received packet
+     */
+    private interface MessageCreator {
+        RFXComMessage create();
+    }
+
+    private static final Map<PacketType, MessageCreator> messageCreators = new EnumMap<PacketType, MessageCreator>(
+            PacketType.class);
+
+    static {
+        messageCreators.put(PacketType.INTERFACE_CONTROL, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComControlMessage();
+            }
+        });
+        messageCreators.put(PacketType.INTERFACE_MESSAGE, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComInterfaceMessage();
+            }
+        });
+        messageCreators.put(PacketType.TRANSMITTER_MESSAGE, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComTransmitterMessage();
+            }
+        });
+        messageCreators.put(PacketType.UNDECODED_RF_MESSAGE, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComUndecodedRFMessage();
+            }
+        });
+        messageCreators.put(PacketType.LIGHTING1, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComLighting1Message();
+            }
+        });
+        messageCreators.put(PacketType.LIGHTING2, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComLighting2Message();
+            }
+        });
+        messageCreators.put(PacketType.LIGHTING4, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComLighting4Message();
+            }
+        });
+        messageCreators.put(PacketType.LIGHTING5, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComLighting5Message();
+            }
+        });
+        messageCreators.put(PacketType.LIGHTING6, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComLighting6Message();
+            }
+        });
+        messageCreators.put(PacketType.CURTAIN1, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComCurtain1Message();
+            }
+        });
+        messageCreators.put(PacketType.BLINDS1, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComBlinds1Message();
+            }
+        });
+        messageCreators.put(PacketType.RFY, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComRfyMessage();
+            }
+        });
+        messageCreators.put(PacketType.SECURITY1, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComSecurity1Message();
+            }
+        });
+        messageCreators.put(PacketType.THERMOSTAT1, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComThermostat1Message();
+            }
+        });
+        messageCreators.put(PacketType.TEMPERATURE, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComTemperatureMessage();
+            }
+        });
+        messageCreators.put(PacketType.HUMIDITY, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComHumidityMessage();
+            }
+        });
+        messageCreators.put(PacketType.TEMPERATURE_HUMIDITY, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComTemperatureHumidityMessage();
+            }
+        });
+        messageCreators.put(PacketType.RAIN, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComRainMessage();
+            }
+        });
+        messageCreators.put(PacketType.WIND, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComWindMessage();
+            }
+        });
+        messageCreators.put(PacketType.DATE_TIME, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComDateTimeMessage();
+            }
+        });
+        messageCreators.put(PacketType.ENERGY, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComEnergyMessage();
+            }
+        });
+        messageCreators.put(PacketType.CURRENT_ENERGY, new MessageCreator() {
+            @Override
+            public RFXComMessage create() {
+                return new RFXComCurrentEnergyMessage();
+            }
+        });
+    }
 
     /**
      * Command to reset RFXCOM controller.
@@ -100,36 +191,27 @@ public class RFXComMessageFactory {
             0x00, 0x00, 0x00, 0x00, 0x00 };
 
     public static RFXComMessage createMessage(PacketType packetType) throws RFXComException, RFXComNotImpException {
-
-        try {
-            String className = messageClasses.get(packetType);
-            Class<?> cl = Class.forName(classUrl + className);
-            return (RFXComMessage) cl.newInstance();
-
-        } catch (ClassNotFoundException e) {
-            throw new RFXComNotImpException("Message " + packetType + " not implemented", e);
-
-        } catch (Exception e) {
-            throw new RFXComException(e);
-        }
+        return getMessageCreator(packetType).create();
     }
 
     public static RFXComMessage createMessage(byte[] packet) throws RFXComException, RFXComNotImpException {
+        PacketType packetType = PacketType.fromByte(packet[1]);
 
-        PacketType packetType = getPacketType(packet[1]);
-
+        RFXComMessage message = getMessageCreator(packetType).create();
         try {
-            String className = messageClasses.get(packetType);
-            Class<?> cl = Class.forName(classUrl + className);
-            Constructor<?> c = cl.getConstructor(byte[].class);
-            return (RFXComMessage) c.newInstance(packet);
-
-        } catch (ClassNotFoundException e) {
-            throw new RFXComNotImpException("Message " + packetType + " not implemented, exception: ", e);
-
-        } catch (Exception e) {
+            message.encodeMessage(packet);
+        } catch (RuntimeException e) {
             throw new RFXComException(e);
         }
+        return message;
+    }
+
+    private static MessageCreator getMessageCreator(PacketType packetType) throws RFXComNotImpException {
+        MessageCreator creator = messageCreators.get(packetType);
+        if (creator == null) {
+            throw new RFXComNotImpException("Message " + packetType + " not implemented");
+        }
+        return creator;
     }
 
     public static PacketType convertPacketType(String packetType) throws IllegalArgumentException {
@@ -142,14 +224,4 @@ public class RFXComMessageFactory {
 
         throw new IllegalArgumentException("Unknown packet type " + packetType);
     }
-
-    private static PacketType getPacketType(byte packetType) {
-        for (PacketType p : PacketType.values()) {
-            if (p.toByte() == packetType) {
-                return p;
-            }
-        }
-
-        return PacketType.UNKNOWN;
-    }
 }
@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.russound.internal.rio;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Test cases for {@link RioRoutingSession#getResponsePath(String)}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RioRoutingSessionTest {
+
+    @Test
+    public void zoneNotificationPathTest() {
+        assertEquals("C[1].Z[2]", RioRoutingSession.getResponsePath("N C[1].Z[2].volume=\"10\""));
+    }
+
+    @Test
+    public void sourceNotificationPathTest() {
+        assertEquals("S[3]", RioRoutingSession.getResponsePath("N S[3].artistName=\"A.B. Artist\""));
+    }
+
+    @Test
+    public void systemStatusPathTest() {
+        assertEquals("System", RioRoutingSession.getResponsePath("S System.status=\"ON\""));
+    }
+
+    @Test
+    public void valueWithDotsTest() {
+        assertEquals("C[1]", RioRoutingSession.getResponsePath("S C[1].ipAddress=\"192.168.1.10\""));
+    }
+
+    @Test
+    public void keyWithoutPathTest() {
+        assertEquals("", RioRoutingSession.getResponsePath("S VERSION=\"1.10.00\""));
+    }
+
+    @Test
+    public void errorResponseTest() {
+        assertEquals("", RioRoutingSession.getResponsePath("E Invalid command"));
+    }
+
+    @Test
+    public void responseWithoutValueTest() {
+        assertEquals("", RioRoutingSession.getResponsePath("S"));
+        assertEquals("", RioRoutingSession.getResponsePath("N C[1].Z[2].volume"));
+        assertEquals("", RioRoutingSession.getResponsePath("OK"));
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.russound.internal.net;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The event loop shared by all connected {@link SocketChannelSession}s. A single thread waits on one {@link Selector}
+ * for any session channel to become readable (or writable if a command could not be written completely) and lets the
+ * session handle it. The loop is started with the first session and stopped once the last session has disconnected.
+ *
+ * Changes to the registrations are queued as tasks that are run by the loop thread, so no thread other than the loop
+ * thread touches the {@link SelectionKey}s.
+ *
+ * @author agent - Initial contribution
+ */
+final class SocketSessionSelector implements Runnable {
+    private Logger _logger = LoggerFactory.getLogger(SocketSessionSelector.class);
+
+    /**
+     * The running event loop or null if no session is connected
+     */
+    private static SocketSessionSelector _instance;
+
+    /**
+     * The number of sessions using {@link #_instance}
+     */
+    private static int _sessionCount;
+
+    /**
+     * The selector all session channels are registered with
+     */
+    private final Selector _selector;
+
+    /**
+     * The tasks to run on the loop thread
+     */
+    private final Queue<Runnable> _tasks = new ConcurrentLinkedQueue<Runnable>();
+
+    /**
+     * Whether the loop should keep running
+     */
+    private volatile boolean _isRunning = true;
+
+    private SocketSessionSelector() throws IOException {
+        _selector = Selector.open();
+    }
+
+    /**
+     * Returns the running event loop, starting it if needed. Every call has to be paired with a call to
+     * {@link #release()}.
+     *
+     * @return the non-null running event loop
+     * @throws IOException if the selector could not be opened
+     */
+    static synchronized SocketSessionSelector acquire() throws IOException {
+        if (_instance == null) {
+            _instance = new SocketSessionSelector();
+            final Thread thread = new Thread(_instance, "SocketSession selector");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        _sessionCount++;
+        return _instance;
+    }
+
+    /**
+     * Releases the event loop acquired by {@link #acquire()}, stopping it if no session uses it anymore
+     */
+    void release() {
+        synchronized (SocketSessionSelector.class) {
+            if (_instance == this && --_sessionCount == 0) {
+                _instance = null;
+                _isRunning = false;
+                _selector.wakeup();
+            }
+        }
+    }
+
+    /**
+     * Registers the channel of a session for reading. The session will be called on the loop thread whenever the
+     * channel is ready.
+     *
+     * @param channel a non-null, connected channel
+     * @param session the non-null session owning the channel
+     */
+    void register(final SocketChannel channel, final SocketChannelSession session) {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    channel.configureBlocking(false);
+                    session.setSelectionKey(channel.register(_selector, SelectionKey.OP_READ, session));
+                } catch (IOException e) {
+                    session.channelFailed(channel, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs a task on the loop thread
+     *
+     * @param task a non-null task
+     */
+    void execute(Runnable task) {
+        _tasks.add(task);
+        _selector.wakeup();
+    }
+
+    /**
+     * Runs the event loop until {@link #_isRunning} is false
+     */
+    @Override
+    public void run() {
+        _logger.debug("Starting socket session selector");
+        while (_isRunning) {
+            try {
+                _selector.select();
+                runTasks();
+
+                final Iterator<SelectionKey> keys = _selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+
+                    final SocketChannelSession session = (SocketChannelSession) key.attachment();
+                    try {
+                        if (key.isValid() && key.isWritable()) {
+                            session.writeReady(key);
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            session.readReady(key);
+                        }
+                    } catch (CancelledKeyException e) {
+                        // channel was closed by another thread
+                    } catch (Exception e) {
+                        _logger.debug("Uncaught exception {}: {}", e.getMessage(), e);
+                    }
+                }
+            } catch (IOException e) {
+                _logger.warn("Exception in socket session selector: {}", e.getMessage(), e);
+            }
+        }
+
+        runTasks();
+        try {
+            _selector.close();
+        } catch (IOException e) {
+            // Do nothing - shutting down
+        }
+        _logger.debug("Stopped socket session selector");
+    }
+
+    /**
+     * Runs all queued tasks
+     */
+    private void runTasks() {
+        Runnable task;
+        while ((task = _tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (CancelledKeyException e) {
+                // channel was closed by another thread
+            } catch (Exception e) {
+                _logger.debug("Uncaught exception {}: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -35,15 +35,35 @@ public abstract class AbstractRioProtocol implements SocketSessionListener {
      */
     private final RioHandlerCallback _callback;
 
+    /**
+     * The response paths this protocol handler is interested in or null for all responses
+     */
+    private final String[] _responsePaths;
+
     /**
      * Constructs the protocol handler from given parameters and will add this handler as a
      * {@link SocketSessionListener} to the specified {@link SocketSession} via
-     * {@link SocketSession#addListener(SocketSessionListener)}
+     * {@link SocketSession#addListener(SocketSessionListener)}. The handler will receive all responses.
      *
      * @param session a non-null {@link SocketSession} (may be connected or disconnected)
      * @param callback a non-null {@link RioHandlerCallback} to update state and status
      */
     protected AbstractRioProtocol(SocketSession session, RioHandlerCallback callback) {
+        this(session, callback, (String[]) null);
+    }
+
+    /**
+     * Constructs the protocol handler from given parameters and will add this handler as a
+     * {@link SocketSessionListener} to the specified {@link SocketSession} via
+     * {@link SocketSession#addListener(SocketSessionListener)}. If the session is a {@link RioRoutingSession}, the
+     * handler will only receive the responses for the given paths (see {@link RioRoutingSession#getResponsePath(String)}
+     * for the format).
+     *
+     * @param session a non-null {@link SocketSession} (may be connected or disconnected)
+     * @param callback a non-null {@link RioHandlerCallback} to update state and status
+     * @param responsePaths the paths of the responses to receive or null to receive all responses
+     */
+    protected AbstractRioProtocol(SocketSession session, RioHandlerCallback callback, String... responsePaths) {
 
         if (session == null) {
             throw new IllegalArgumentException("session cannot be null");
@@ -54,8 +74,9 @@ public abstract class AbstractRioProtocol implements SocketSessionListener {
         }
 
         _session = session;
-        _session.addListener(this);
         _callback = callback;
+        _responsePaths = responsePaths;
+        _session.addListener(this);
     }
 
     /**
@@ -126,6 +147,15 @@ public abstract class AbstractRioProtocol implements SocketSessionListener {
                 "Exception occurred reading from the socket: " + e);
     }
 
+    /**
+     * Returns the paths of the responses this protocol handler is interested in
+     *
+     * @return the possibly empty paths or null if interested in all responses
+     */
+    String[] getResponsePaths() {
+        return _responsePaths;
+    }
+
     /**
      * Returns the {@link RioHandlerCallback} used by this protocol
      *
@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.russound.internal.rio;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.openhab.binding.russound.internal.net.SocketSession;
+import org.openhab.binding.russound.internal.net.SocketSessionListener;
+
+/**
+ * A {@link SocketSession} that routes the responses of the underlying session by their RIO key path. Instead of
+ * handing every response to every {@link AbstractRioProtocol} (each of which would run its regular expressions on
+ * it), the path of a response is parsed once and the response is handed only to the protocol handlers that have
+ * registered for this path via {@link AbstractRioProtocol#getResponsePaths()}.
+ *
+ * The path of a response is the key path without the trailing key, for example "C[1].Z[2]" for
+ * "N C[1].Z[2].volume="10"", "S[3]" for "N S[3].artistName="..."" or "System" for "S System.status="ON"". Responses
+ * without a path (like "S VERSION="..."" or "E ...") have the empty path. Listeners that are not protocol handlers
+ * or that did not specify any paths receive all responses. Exceptions are handed to all listeners.
+ *
+ * @author agent - Initial contribution
+ */
+public class RioRoutingSession implements SocketSession, SocketSessionListener {
+
+    /**
+     * The underlying session
+     */
+    private final SocketSession _session;
+
+    /**
+     * All listeners added to this session
+     */
+    private final List<SocketSessionListener> _listeners = new CopyOnWriteArrayList<SocketSessionListener>();
+
+    /**
+     * The listeners that receive all responses
+     */
+    private final List<SocketSessionListener> _unroutedListeners = new CopyOnWriteArrayList<SocketSessionListener>();
+
+    /**
+     * The listeners by response path. The map is replaced (never modified) when listeners are added or removed.
+     */
+    private volatile Map<String, SocketSessionListener[]> _routes = Collections.emptyMap();
+
+    /**
+     * Creates the routing session on top of the given session
+     *
+     * @param session a non-null {@link SocketSession}
+     */
+    public RioRoutingSession(SocketSession session) {
+        if (session == null) {
+            throw new IllegalArgumentException("session cannot be null");
+        }
+        _session = session;
+        _session.addListener(this);
+    }
+
+    /**
+     * Returns the path of a response. The path is the RIO key path of a "S" or "N" response without the trailing key
+     * or the empty string for any other response.
+     *
+     * @param response a non-null response
+     * @return the non-null, possibly empty path
+     */
+    public static String getResponsePath(String response) {
+        if (response.length() < 2 || response.charAt(1) != ' '
+                || (response.charAt(0) != 'S' && response.charAt(0) != 'N')) {
+            return "";
+        }
+
+        final int eq = response.indexOf('=', 2);
+        if (eq < 0) {
+            return "";
+        }
+
+        final int dot = response.lastIndexOf('.', eq);
+        if (dot < 2) {
+            return "";
+        }
+
+        return response.substring(2, dot);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * org.openhab.binding.russound.internal.net.SocketSession#addListener(org.openhab.binding.russound.internal.net.
+     * SocketSessionListener)
+     */
+    @Override
+    public void addListener(SocketSessionListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener cannot be null");
+        }
+
+        final String[] paths = getResponsePaths(listener);
+        if (paths == null) {
+            _unroutedListeners.add(listener);
+        } else {
+            synchronized (this) {
+                final Map<String, SocketSessionListener[]> routes = new HashMap<String, SocketSessionListener[]>(
+                        _routes);
+                for (String path : paths) {
+                    final SocketSessionListener[] listeners = routes.get(path);
+                    if (listeners == null) {
+                        routes.put(path, new SocketSessionListener[] { listener });
+                    } else {
+                        final SocketSessionListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+                        newListeners[listeners.length] = listener;
+                        routes.put(path, newListeners);
+                    }
+                }
+                _routes = routes;
+            }
+        }
+        _listeners.add(listener);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.openhab.binding.russound.internal.net.SocketSession#clearListeners()
+     */
+    @Override
+    public synchronized void clearListeners() {
+        _listeners.clear();
+        _unroutedListeners.clear();
+        _routes = Collections.emptyMap();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * org.openhab.binding.russound.internal.net.SocketSession#removeListener(org.openhab.binding.russound.internal.net.
+     * SocketSessionListener)
+     */
+    @Override
+    public boolean removeListener(SocketSessionListener listener) {
+        if (!_listeners.remove(listener)) {
+            return false;
+        }
+
+        if (!_unroutedListeners.remove(listener)) {
+            synchronized (this) {
+                final Map<String, SocketSessionListener[]> routes = new HashMap<String, SocketSessionListener[]>();
+                for (Map.Entry<String, SocketSessionListener[]> route : _routes.entrySet()) {
+                    final List<SocketSessionListener> listeners = new ArrayList<SocketSessionListener>(
+                            Arrays.asList(route.getValue()));
+                    listeners.remove(listener);
+                    if (!listeners.isEmpty()) {
+                        routes.put(route.getKey(), listeners.toArray(new SocketSessionListener[0]));
+                    }
+                }
+                _routes = routes;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.openhab.binding.russound.internal.net.SocketSession#connect()
+     */
+    @Override
+    public void connect() throws IOException {
+        _session.connect();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.openhab.binding.russound.internal.net.SocketSession#disconnect()
+     */
+    @Override
+    public void disconnect() throws IOException {
+        _session.disconnect();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.openhab.binding.russound.internal.net.SocketSession#isConnected()
+     */
+    @Override
+    public boolean isConnected() {
+        return _session.isConnected();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.openhab.binding.russound.internal.net.SocketSession#sendCommand(java.lang.String)
+     */
+    @Override
+    public void sendCommand(String command) throws IOException {
+        _session.sendCommand(command);
+    }
+
+    /**
+     * Implements {@link SocketSessionListener#responseReceived(String)} to hand the response to the listeners
+     * registered for its path and to the listeners receiving all responses
+     *
+     * @param response a possibly null, possibly empty response
+     */
+    @Override
+    public void responseReceived(String response) {
+        if (response == null || response.length() == 0) {
+            return;
+        }
+
+        final SocketSessionListener[] listeners = _routes.get(getResponsePath(response));
+        if (listeners != null) {
+            for (SocketSessionListener listener : listeners) {
+                listener.responseReceived(response);
+            }
+        }
+        for (SocketSessionListener listener : _unroutedListeners) {
+            listener.responseReceived(response);
+        }
+    }
+
+    /**
+     * Implements {@link SocketSessionListener#responseException(Exception)} to hand the exception to all listeners
+     *
+     * @param e the exception
+     */
+    @Override
+    public void responseException(Exception e) {
+        for (SocketSessionListener listener : _listeners) {
+            listener.responseException(e);
+        }
+    }
+
+    /**
+     * Returns the paths a listener is interested in
+     *
+     * @param listener a non-null listener
+     * @return the paths or null if the listener is interested in all responses
+     */
+    private static String[] getResponsePaths(SocketSessionListener listener) {
+        if (listener instanceof AbstractRioProtocol) {
+            final String[] paths = ((AbstractRioProtocol) listener).getResponsePaths();
+            if (paths != null && paths.length > 0) {
+                return paths;
+            }
+        }
+        return null;
+    }
+}
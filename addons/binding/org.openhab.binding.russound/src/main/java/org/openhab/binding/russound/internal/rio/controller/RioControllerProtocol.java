@@ -51,7 +51,7 @@ class RioControllerProtocol extends AbstractRioProtocol {
      * @param callback a non-null {@link RioHandlerCallback} to callback
      */
     RioControllerProtocol(int controller, SocketSession session, RioHandlerCallback callback) {
-        super(session, callback);
+        super(session, callback, "C[" + controller + "]");
         _controller = controller;
     }
 
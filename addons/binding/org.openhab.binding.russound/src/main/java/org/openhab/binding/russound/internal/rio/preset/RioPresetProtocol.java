@@ -83,7 +83,7 @@ class RioPresetProtocol extends AbstractRioProtocol {
      */
     RioPresetProtocol(int preset, int bank, int source, int zone, int controller, SocketSession session,
             RioHandlerCallback callback) {
-        super(session, callback);
+        super(session, callback, "S[" + source + "].B[" + bank + "].P[" + preset + "]");
         _preset = preset;
         _bank = bank;
         _source = source;
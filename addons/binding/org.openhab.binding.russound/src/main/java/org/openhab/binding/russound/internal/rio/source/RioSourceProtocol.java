@@ -88,7 +88,7 @@ class RioSourceProtocol extends AbstractRioProtocol {
      * @throws Exception exception when starting the {@link HttpClient}
      */
     RioSourceProtocol(int source, SocketSession session, RioHandlerCallback callback) throws Exception {
-        super(session, callback);
+        super(session, callback, "S[" + source + "]");
         if (source < 1 || source > 12) {
             throw new IllegalArgumentException("Source must be between 1-12: " + source);
         }
@@ -27,6 +27,7 @@ import org.openhab.binding.russound.internal.net.SocketSession;
 import org.openhab.binding.russound.internal.rio.AbstractBridgeHandler;
 import org.openhab.binding.russound.internal.rio.RioConstants;
 import org.openhab.binding.russound.internal.rio.RioHandlerCallback;
+import org.openhab.binding.russound.internal.rio.RioRoutingSession;
 import org.openhab.binding.russound.internal.rio.StatefulHandlerCallback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -171,7 +172,7 @@ public class RioSystemHandler extends AbstractBridgeHandler<RioSystemProtocol> {
             return;
         }
 
-        _session = new SocketChannelSession(config.getIpAddress(), 9621);
+        _session = new RioRoutingSession(new SocketChannelSession(config.getIpAddress(), 9621));
 
         // Try initial connection in a scheduled task
         this.scheduler.schedule(new Runnable() {
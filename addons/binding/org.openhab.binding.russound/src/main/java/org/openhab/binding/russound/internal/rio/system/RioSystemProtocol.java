@@ -57,7 +57,8 @@ class RioSystemProtocol extends AbstractRioProtocol {
      * @param callback a non-null {@link RioHandlerCallback} to callback
      */
     RioSystemProtocol(SocketSession session, RioHandlerCallback callback) {
-        super(session, callback);
+        // the version and failure responses have no path
+        super(session, callback, "", "System");
 
     }
 
@@ -76,7 +76,7 @@ class RioZoneProtocol extends AbstractRioProtocol {
      * @param callback a non-null {@link RioHandlerCallback} to callback
      */
     RioZoneProtocol(int zone, int controller, SocketSession session, RioHandlerCallback callback) {
-        super(session, callback);
+        super(session, callback, "C[" + controller + "].Z[" + zone + "]");
 
         if (controller < 1 || controller > 6) {
             throw new IllegalArgumentException("Controller must be between 1-6: " + controller);
@@ -22,6 +22,8 @@ public class SysteminfoBindingConstants {
 
     public final static ThingTypeUID THING_TYPE_COMPUTER = new ThingTypeUID(BINDING_ID, "computer");
 
+    public final static ThingTypeUID THING_TYPE_RUNTIME = new ThingTypeUID(BINDING_ID, "runtime");
+
     // Thing properties
     /**
      * Number of CPU logical cores
@@ -48,6 +50,16 @@ public class SysteminfoBindingConstants {
      */
     public final static String PROPERTY_OS_VERSION = "os_version";
 
+    /**
+     * Name of the Java virtual machine, which runs openHAB
+     */
+    public final static String PROPERTY_JAVA_VM_NAME = "java_vmName";
+
+    /**
+     * Version of the Java virtual machine, which runs openHAB
+     */
+    public final static String PROPERTY_JAVA_VM_VERSION = "java_vmVersion";
+
     // List of all Channel IDs
 
     /**
@@ -255,6 +267,41 @@ public class SysteminfoBindingConstants {
      */
     public final static String CHANNEL_NETWORK_MAC = "network#mac";
 
+    /**
+     * Network data sent rate in kB/s
+     */
+    public final static String CHANNEL_NETWORK_DATA_SENT_RATE = "network#dataSentRate";
+
+    /**
+     * Network data received rate in kB/s
+     */
+    public final static String CHANNEL_NETWORK_DATA_RECEIVED_RATE = "network#dataReceivedRate";
+
+    /**
+     * Name of the channel group for CPU information
+     */
+    public final static String CHANNEL_GROUP_CPU = "cpu";
+
+    /**
+     * Name of the channel group for physical memory information
+     */
+    public final static String CHANNEL_GROUP_MEMORY = "memory";
+
+    /**
+     * Name of the channel group for swap memory information
+     */
+    public final static String CHANNEL_GROUP_SWAP = "swap";
+
+    /**
+     * Name of the channel group for storage information
+     */
+    public final static String CHANNEL_GROUP_STORAGE = "storage";
+
+    /**
+     * Name of the channel group for network information
+     */
+    public final static String CHANNEL_GROUP_NETWORK = "network";
+
     /**
      * Name of the channel group for process information
      */
@@ -286,6 +333,161 @@ public class SysteminfoBindingConstants {
      */
     public final static String CHANNEL_PROCESS_PATH = "process#path";
 
+    /**
+     * Name of the channel group for heap memory information of the Java runtime
+     */
+    public final static String CHANNEL_GROUP_HEAP = "heap";
+
+    /**
+     * Name of the channel group for non-heap memory information of the Java runtime
+     */
+    public final static String CHANNEL_GROUP_NON_HEAP = "nonHeap";
+
+    /**
+     * Name of the channel group for metaspace information of the Java runtime
+     */
+    public final static String CHANNEL_GROUP_METASPACE = "metaspace";
+
+    /**
+     * Name of the channel group for thread information of the Java runtime
+     */
+    public final static String CHANNEL_GROUP_THREADS = "threads";
+
+    /**
+     * Name of the channel group for garbage collector information of the Java runtime
+     */
+    public final static String CHANNEL_GROUP_GC = "gc";
+
+    /**
+     * Name of the channel group for thread pool information of openHAB
+     */
+    public final static String CHANNEL_GROUP_POOL = "pool";
+
+    /**
+     * Name of the channel group for event bus information of openHAB
+     */
+    public final static String CHANNEL_GROUP_EVENTS = "events";
+
+    /**
+     * Name of the channel group for the sampling times of the priorities
+     */
+    public final static String CHANNEL_GROUP_SAMPLING = "sampling";
+
+    /**
+     * Used heap memory in MB
+     */
+    public final static String CHANNEL_HEAP_USED = "heap#used";
+
+    /**
+     * Heap memory committed by the JVM in MB
+     */
+    public final static String CHANNEL_HEAP_COMMITTED = "heap#committed";
+
+    /**
+     * Maximal heap memory in MB
+     */
+    public final static String CHANNEL_HEAP_MAX = "heap#max";
+
+    /**
+     * Used non-heap memory in MB
+     */
+    public final static String CHANNEL_NON_HEAP_USED = "nonHeap#used";
+
+    /**
+     * Non-heap memory committed by the JVM in MB
+     */
+    public final static String CHANNEL_NON_HEAP_COMMITTED = "nonHeap#committed";
+
+    /**
+     * Used metaspace in MB
+     */
+    public final static String CHANNEL_METASPACE_USED = "metaspace#used";
+
+    /**
+     * Metaspace committed by the JVM in MB
+     */
+    public final static String CHANNEL_METASPACE_COMMITTED = "metaspace#committed";
+
+    /**
+     * Number of live threads
+     */
+    public final static String CHANNEL_THREADS_LIVE = "threads#live";
+
+    /**
+     * Peak number of live threads
+     */
+    public final static String CHANNEL_THREADS_PEAK = "threads#peak";
+
+    /**
+     * Number of live daemon threads
+     */
+    public final static String CHANNEL_THREADS_DAEMON = "threads#daemon";
+
+    /**
+     * Name of the garbage collector
+     */
+    public final static String CHANNEL_GC_NAME = "gc#name";
+
+    /**
+     * Number of collections
+     */
+    public final static String CHANNEL_GC_COUNT = "gc#count";
+
+    /**
+     * Accumulated collection time in ms
+     */
+    public final static String CHANNEL_GC_TIME = "gc#time";
+
+    /**
+     * Share of the time spent in collections since the previous update in percents
+     */
+    public final static String CHANNEL_GC_LOAD = "gc#load";
+
+    /**
+     * Name of the thread pool
+     */
+    public final static String CHANNEL_POOL_NAME = "pool#name";
+
+    /**
+     * Number of tasks waiting in the queue of the thread pool
+     */
+    public final static String CHANNEL_POOL_QUEUE = "pool#queue";
+
+    /**
+     * Number of threads of the thread pool, which are executing tasks
+     */
+    public final static String CHANNEL_POOL_ACTIVE = "pool#active";
+
+    /**
+     * Number of threads of the thread pool
+     */
+    public final static String CHANNEL_POOL_SIZE = "pool#size";
+
+    /**
+     * Number of events received since the start of the binding
+     */
+    public final static String CHANNEL_EVENTS_TOTAL = "events#total";
+
+    /**
+     * Number of events per second since the previous update
+     */
+    public final static String CHANNEL_EVENTS_RATE = "events#rate";
+
+    /**
+     * Time in ms needed to sample the information for the High priority channels
+     */
+    public final static String CHANNEL_SAMPLING_HIGH = "sampling#high";
+
+    /**
+     * Time in ms needed to sample the information for the Medium priority channels
+     */
+    public final static String CHANNEL_SAMPLING_MEDIUM = "sampling#medium";
+
+    /**
+     * Time in ms needed to sample the information for the Low priority channels
+     */
+    public final static String CHANNEL_SAMPLING_LOW = "sampling#low";
+
     // Thing configuraion
     /**
      * Name of the configuration parameter of the thing that defines refresh time for High priority channels
@@ -297,6 +499,11 @@ public class SysteminfoBindingConstants {
      */
     public final static String MEDIUM_PRIORITY_REFRESH_TIME = "interval_medium";
 
+    /**
+     * Name of the configuration parameter of the runtime thing that defines the monitored thread pools
+     */
+    public final static String POOLS_PARAM = "pools";
+
     // Channel configuration
 
     /**
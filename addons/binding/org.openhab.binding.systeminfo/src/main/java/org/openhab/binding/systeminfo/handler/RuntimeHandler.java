@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.handler;
+
+import static org.openhab.binding.systeminfo.SysteminfoBindingConstants.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.smarthome.core.thing.ChannelUID;
+import org.eclipse.smarthome.core.thing.Thing;
+import org.eclipse.smarthome.core.types.State;
+import org.openhab.binding.systeminfo.internal.EventCounter;
+import org.openhab.binding.systeminfo.model.DeviceNotFoundException;
+import org.openhab.binding.systeminfo.model.RuntimeInfo;
+import org.openhab.binding.systeminfo.model.RuntimeSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link RuntimeHandler} is responsible for providing real time information about the Java runtime of openHAB
+ * itself (memory, threads, garbage collectors, thread pools and event bus). The channels are updated with the same
+ * priorities and intervals as the channels of the {@link SysteminfoHandler}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RuntimeHandler extends SysteminfoHandler {
+
+    private final EventCounter eventCounter;
+
+    private RuntimeInfo runtimeInfo;
+
+    /**
+     * The last snapshot by priority. It is used to calculate rates for the next snapshot with the same priority.
+     */
+    private Map<String, RuntimeSnapshot> lastSnapshots = new ConcurrentHashMap<String, RuntimeSnapshot>();
+
+    private Logger logger = LoggerFactory.getLogger(RuntimeHandler.class);
+
+    public RuntimeHandler(Thing thing, EventCounter eventCounter) {
+        super(thing);
+        this.eventCounter = eventCounter;
+    }
+
+    @Override
+    protected boolean instantiateSysteminfoLibrary() {
+        List<String> poolNames = new ArrayList<String>();
+        Object pools = getThing().getConfiguration().get(POOLS_PARAM);
+        if (pools instanceof String) {
+            for (String poolName : ((String) pools).split(",")) {
+                poolName = poolName.trim();
+                if (RuntimeInfo.CORE_POOL_NAMES.contains(poolName)) {
+                    poolNames.add(poolName);
+                } else if (!poolName.isEmpty()) {
+                    // the thread pool manager would create the pool, if it does not exist
+                    logger.warn("Thread pool '{}' is not monitored, only the pools {} can be monitored", poolName,
+                            RuntimeInfo.CORE_POOL_NAMES);
+                }
+            }
+        }
+        runtimeInfo = new RuntimeInfo(poolNames);
+        logger.debug("Runtime information is instantiated for thread pools {}", poolNames);
+        return true;
+    }
+
+    @Override
+    protected boolean updateProperties() {
+        Map<String, String> properties = editProperties();
+        properties.put(PROPERTY_JAVA_VM_NAME, runtimeInfo.getVmName());
+        properties.put(PROPERTY_JAVA_VM_VERSION, runtimeInfo.getVmVersion());
+        updateProperties(properties);
+        return true;
+    }
+
+    @Override
+    protected void publishData(String priority, Set<ChannelUID> channels) {
+        Set<ChannelUID> linkedChannels = getLinkedChannels(channels);
+        if (linkedChannels.isEmpty()) {
+            return;
+        }
+
+        RuntimeSnapshot snapshot = takeSnapshot(lastSnapshots.get(priority), linkedChannels);
+        if (snapshot != null) {
+            lastSnapshots.put(priority, snapshot);
+            for (ChannelUID channelUID : linkedChannels) {
+                publishState(channelUID, getInfoForChannel(channelUID, snapshot));
+            }
+            updateSamplingTime(priority, snapshot.getSamplingTime());
+        }
+    }
+
+    @Override
+    protected void publishDataForChannel(ChannelUID channelUID) {
+        RuntimeSnapshot snapshot = takeSnapshot(lastSnapshots.get(getPriority(channelUID)),
+                Collections.singleton(channelUID));
+        if (snapshot != null) {
+            publishState(channelUID, getInfoForChannel(channelUID, snapshot));
+        }
+    }
+
+    private RuntimeSnapshot takeSnapshot(RuntimeSnapshot previous, Set<ChannelUID> channels) {
+        long events = eventCounter != null ? eventCounter.getCount() : -1;
+        try {
+            return runtimeInfo.takeSnapshot(previous, getChannelGroups(channels), events);
+        } catch (Exception e) {
+            handleUnexpectedError(e);
+            return null;
+        }
+    }
+
+    /**
+     * This method gets the information for specific channel from the {@link RuntimeSnapshot}. It uses the channel ID
+     * to call the correct method with deviceIndex parameter (in case of multiple garbage collectors or thread pools)
+     *
+     * @param channelUID - the UID of the channel
+     * @param snapshot - the snapshot with the information for the channel
+     * @return State object or null, if there is no information for the device with this index
+     */
+    private State getInfoForChannel(ChannelUID channelUID, RuntimeSnapshot snapshot) {
+        State state = null;
+        int deviceIndex = getDeviceIndex(channelUID);
+
+        // All digits are deleted from the ID
+        String channelID = channelUID.getGroupId().replaceAll("\\d+", "") + "#" + channelUID.getIdWithoutGroup();
+
+        try {
+            switch (channelID) {
+                case CHANNEL_HEAP_USED:
+                    state = snapshot.getHeapUsed();
+                    break;
+                case CHANNEL_HEAP_COMMITTED:
+                    state = snapshot.getHeapCommitted();
+                    break;
+                case CHANNEL_HEAP_MAX:
+                    state = snapshot.getHeapMax();
+                    break;
+                case CHANNEL_NON_HEAP_USED:
+                    state = snapshot.getNonHeapUsed();
+                    break;
+                case CHANNEL_NON_HEAP_COMMITTED:
+                    state = snapshot.getNonHeapCommitted();
+                    break;
+                case CHANNEL_METASPACE_USED:
+                    state = snapshot.getMetaspaceUsed();
+                    break;
+                case CHANNEL_METASPACE_COMMITTED:
+                    state = snapshot.getMetaspaceCommitted();
+                    break;
+                case CHANNEL_THREADS_LIVE:
+                    state = snapshot.getThreadsLive();
+                    break;
+                case CHANNEL_THREADS_PEAK:
+                    state = snapshot.getThreadsPeak();
+                    break;
+                case CHANNEL_THREADS_DAEMON:
+                    state = snapshot.getThreadsDaemon();
+                    break;
+                case CHANNEL_GC_NAME:
+                    state = snapshot.getCollectorName(deviceIndex);
+                    break;
+                case CHANNEL_GC_COUNT:
+                    state = snapshot.getCollectorCount(deviceIndex);
+                    break;
+                case CHANNEL_GC_TIME:
+                    state = snapshot.getCollectorTime(deviceIndex);
+                    break;
+                case CHANNEL_GC_LOAD:
+                    state = snapshot.getCollectorLoad(deviceIndex);
+                    break;
+                case CHANNEL_POOL_NAME:
+                    state = snapshot.getPoolName(deviceIndex);
+                    break;
+                case CHANNEL_POOL_QUEUE:
+                    state = snapshot.getPoolQueue(deviceIndex);
+                    break;
+                case CHANNEL_POOL_ACTIVE:
+                    state = snapshot.getPoolActive(deviceIndex);
+                    break;
+                case CHANNEL_POOL_SIZE:
+                    state = snapshot.getPoolSize(deviceIndex);
+                    break;
+                case CHANNEL_EVENTS_TOTAL:
+                    state = snapshot.getEventsTotal();
+                    break;
+                case CHANNEL_EVENTS_RATE:
+                    state = snapshot.getEventsRate();
+                    break;
+                default:
+                    logger.error("Channel with unknown ID: {} !", channelID);
+            }
+        } catch (DeviceNotFoundException e) {
+            logger.error("No information for channel " + channelID + deviceIndex, e);
+        } catch (Exception e) {
+            handleUnexpectedError(e);
+        }
+        return state;
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        lastSnapshots.clear();
+    }
+}
@@ -11,15 +11,17 @@ package org.openhab.binding.systeminfo.handler;
 import static org.openhab.binding.systeminfo.SysteminfoBindingConstants.*;
 
 import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.core.Configuration;
+import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.thing.Channel;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.Thing;
@@ -32,6 +34,7 @@ import org.eclipse.smarthome.core.types.State;
 import org.openhab.binding.systeminfo.model.DeviceNotFoundException;
 import org.openhab.binding.systeminfo.model.OshiSysteminfo;
 import org.openhab.binding.systeminfo.model.SysteminfoInterface;
+import org.openhab.binding.systeminfo.model.SysteminfoSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +42,10 @@ import org.slf4j.LoggerFactory;
  * The {@link SysteminfoHandler} is responsible for providing real time information about the system
  * (CPU, Memory, Storage, Display and others).
  *
+ * Channels are grouped by their priority configuration and updated at the interval of the priority. Subclasses can
+ * provide other information by overriding {@link #publishData(String, Set)} and
+ * {@link #publishDataForChannel(ChannelUID)}.
+ *
  * @author Svilen Valkanov - Initial contribution
  */
 
@@ -82,6 +89,11 @@ public class SysteminfoHandler extends BaseThingHandler {
 
     private SysteminfoInterface systeminfo;
 
+    /**
+     * The last snapshot by priority. It is used to calculate rates for the next snapshot with the same priority.
+     */
+    private Map<String, SysteminfoSnapshot> lastSnapshots = new ConcurrentHashMap<String, SysteminfoSnapshot>();
+
     ScheduledFuture<?> highPriorityTasks;
     ScheduledFuture<?> mediumPriorityTasks;
 
@@ -107,7 +119,7 @@ public class SysteminfoHandler extends BaseThingHandler {
 
     }
 
-    private boolean instantiateSysteminfoLibrary() {
+    protected boolean instantiateSysteminfoLibrary() {
         try {
             this.systeminfo = new OshiSysteminfo();
             logger.debug("OSHI Systeminfo library is instatiated!");
@@ -140,7 +152,7 @@ public class SysteminfoHandler extends BaseThingHandler {
         }
     }
 
-    private boolean updateProperties() {
+    protected boolean updateProperties() {
         Map<String, String> properties = editProperties();
         try {
             properties.put(PROPERTY_CPU_LOGICAL_CORES, systeminfo.getCpuLogicalCores().toString());
@@ -162,6 +174,10 @@ public class SysteminfoHandler extends BaseThingHandler {
         List<Channel> channels = this.thing.getChannels();
 
         for (Channel channel : channels) {
+            if (isSamplingChannel(channel.getUID())) {
+                // updated together with the channels of their priority
+                continue;
+            }
             Configuration properties = channel.getConfiguration();
             String priority = (String) properties.get(PRIOIRITY_PARAM);
             if (priority == null) {
@@ -212,7 +228,7 @@ public class SysteminfoHandler extends BaseThingHandler {
         highPriorityTasks = scheduler.scheduleAtFixedRate(new Runnable() {
             @Override
             public void run() {
-                publishData(highPriorityChannels);
+                publishData("High", highPriorityChannels);
             }
         }, WAIT_TIME_CHANNEL_ITEM_LINK_INIT, refreshIntervalHighPriority.intValue(), TimeUnit.SECONDS);
 
@@ -220,7 +236,7 @@ public class SysteminfoHandler extends BaseThingHandler {
         mediumPriorityTasks = scheduler.scheduleAtFixedRate(new Runnable() {
             @Override
             public void run() {
-                publishData(mediumPriorityChannels);
+                publishData("Medium", mediumPriorityChannels);
             }
         }, WAIT_TIME_CHANNEL_ITEM_LINK_INIT, refreshIntervalMediumPriority.intValue(), TimeUnit.SECONDS);
 
@@ -228,26 +244,41 @@ public class SysteminfoHandler extends BaseThingHandler {
         scheduler.schedule(new Runnable() {
             @Override
             public void run() {
-                publishData(lowPriorityChannels);
+                publishData("Low", lowPriorityChannels);
             }
         }, WAIT_TIME_CHANNEL_ITEM_LINK_INIT, TimeUnit.SECONDS);
 
     }
 
-    private void publishData(Set<ChannelUID> channels) {
-        if (channels != null) {
-            Iterator<ChannelUID> iter = channels.iterator();
-            while (iter.hasNext()) {
-                ChannelUID channeUID = iter.next();
-                if (isLinked(channeUID.getId())) {
-                    publishDataForChannel(channeUID);
-                }
+    /**
+     * Samples the information for all linked channels of a priority in a single snapshot and updates the channels
+     * from it.
+     */
+    protected void publishData(String priority, Set<ChannelUID> channels) {
+        Set<ChannelUID> linkedChannels = getLinkedChannels(channels);
+        if (linkedChannels.isEmpty()) {
+            return;
+        }
+
+        SysteminfoSnapshot snapshot = takeSnapshot(lastSnapshots.get(priority), linkedChannels);
+        if (snapshot != null) {
+            lastSnapshots.put(priority, snapshot);
+            for (ChannelUID channelUID : linkedChannels) {
+                publishState(channelUID, getInfoForChannel(channelUID, snapshot));
             }
+            updateSamplingTime(priority, snapshot.getSamplingTime());
+        }
+    }
+
+    protected void publishDataForChannel(ChannelUID channelUID) {
+        SysteminfoSnapshot snapshot = takeSnapshot(lastSnapshots.get(getPriority(channelUID)),
+                Collections.singleton(channelUID));
+        if (snapshot != null) {
+            publishState(channelUID, getInfoForChannel(channelUID, snapshot));
         }
     }
 
-    private void publishDataForChannel(ChannelUID channelUID) {
-        State state = getInfoForChannel(channelUID);
+    protected void publishState(ChannelUID channelUID, State state) {
         String channelID = channelUID.getId();
         if (state != null) {
             updateState(channelID, state);
@@ -257,15 +288,97 @@ public class SysteminfoHandler extends BaseThingHandler {
         }
     }
 
+    protected Set<ChannelUID> getLinkedChannels(Set<ChannelUID> channels) {
+        Set<ChannelUID> linkedChannels = new HashSet<ChannelUID>();
+        if (channels != null) {
+            for (ChannelUID channelUID : channels) {
+                if (isLinked(channelUID.getId())) {
+                    linkedChannels.add(channelUID);
+                }
+            }
+        }
+        return linkedChannels;
+    }
+
+    /**
+     * Returns the IDs of the channel groups of the channels without device index
+     */
+    protected Set<String> getChannelGroups(Set<ChannelUID> channels) {
+        Set<String> channelGroups = new HashSet<String>();
+        for (ChannelUID channelUID : channels) {
+            // All digits are deleted from the group ID
+            channelGroups.add(channelUID.getGroupId().replaceAll("\\d+", ""));
+        }
+        return channelGroups;
+    }
+
     /**
-     * This method gets the information for specific channel through the {@link SysteminfoInterface}. It uses the
-     * channel ID to call the correct method from the {@link SysteminfoInterface} with deviceIndex parameter (in case of
-     * multiple devices, for reference see {@link #getDeviceIndex(String)}})
+     * Samples the dynamic information needed for the given channels in a single pass through the
+     * {@link SysteminfoInterface}.
+     *
+     * @param previous - the previous snapshot of the channels or null
+     * @param channels - the channels, which will be updated from the snapshot
+     * @return the snapshot or null, if the sampling has failed
+     */
+    private SysteminfoSnapshot takeSnapshot(SysteminfoSnapshot previous, Set<ChannelUID> channels) {
+        Set<Integer> pids = new HashSet<Integer>();
+        for (ChannelUID channelUID : channels) {
+            if (channelUID.getGroupId().contains(CHANNEL_GROUP_PROCESS)) {
+                pids.add(getPID(channelUID));
+            }
+        }
+
+        try {
+            return systeminfo.takeSnapshot(previous, getChannelGroups(channels), pids);
+        } catch (Exception e) {
+            handleUnexpectedError(e);
+            return null;
+        }
+    }
+
+    protected void handleUnexpectedError(Exception e) {
+        logger.error("Unexpected error occurred while getting system information!", e);
+        updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR,
+                "Can not get system info as result of unexpected error. Please try to restart the binding (remove and re-add the thing)!");
+    }
+
+    /**
+     * Updates the sampling channel of the priority with the time needed to sample the information for its channels
+     */
+    protected void updateSamplingTime(String priority, long samplingTimeInNanos) {
+        String channelID = CHANNEL_GROUP_SAMPLING + "#" + priority.toLowerCase();
+        if (isLinked(channelID)) {
+            BigDecimal samplingTime = new BigDecimal(samplingTimeInNanos / 1000000.0);
+            samplingTime = samplingTime.setScale(OshiSysteminfo.PRECISION_AFTER_DECIMAl_SIGN,
+                    BigDecimal.ROUND_HALF_UP);
+            updateState(channelID, new DecimalType(samplingTime));
+        }
+    }
+
+    protected boolean isSamplingChannel(ChannelUID channelUID) {
+        return CHANNEL_GROUP_SAMPLING.equals(channelUID.getGroupId());
+    }
+
+    protected String getPriority(ChannelUID channelUID) {
+        if (highPriorityChannels.contains(channelUID)) {
+            return "High";
+        } else if (mediumPriorityChannels.contains(channelUID)) {
+            return "Medium";
+        } else {
+            return "Low";
+        }
+    }
+
+    /**
+     * This method gets the information for specific channel from the {@link SysteminfoSnapshot} or, for static
+     * information, through the {@link SysteminfoInterface}. It uses the channel ID to call the correct method with
+     * deviceIndex parameter (in case of multiple devices, for reference see {@link #getDeviceIndex(String)}})
      *
      * @param channelUID - the UID of the channel
+     * @param snapshot - the snapshot with the dynamic information for the channel
      * @return State object or null, if there is no information for the device with this index
      */
-    private State getInfoForChannel(ChannelUID channelUID) {
+    private State getInfoForChannel(ChannelUID channelUID, SysteminfoSnapshot snapshot) {
         State state = null;
         String channelID = channelUID.getId();
         String channelIDWithoutGroup = channelUID.getIdWithoutGroup();
@@ -302,22 +415,22 @@ public class SysteminfoHandler extends BaseThingHandler {
                     state = systeminfo.getSensorsFanSpeed(deviceIndex);
                     break;
                 case CHANNEL_CPU_LOAD:
-                    state = systeminfo.getCpuLoad();
+                    state = snapshot.getCpuLoad();
                     break;
                 case CHANNEL_CPU_LOAD_1:
-                    state = systeminfo.getCpuLoad1();
+                    state = snapshot.getCpuLoadAverage(1);
                     break;
                 case CHANNEL_CPU_LOAD_5:
-                    state = systeminfo.getCpuLoad5();
+                    state = snapshot.getCpuLoadAverage(5);
                     break;
                 case CHANNEL_CPU_LOAD_15:
-                    state = systeminfo.getCpuLoad15();
+                    state = snapshot.getCpuLoadAverage(15);
                     break;
                 case CHANNEL_CPU_UPTIME:
-                    state = systeminfo.getCpuUptime();
+                    state = snapshot.getCpuUptime();
                     break;
                 case CHANNEL_CPU_THREADS:
-                    state = systeminfo.getCpuThreads();
+                    state = snapshot.getCpuThreads();
                     break;
                 case CHANNEL_CPU_DESCRIPTION:
                     state = systeminfo.getCpuDescription();
@@ -326,28 +439,28 @@ public class SysteminfoHandler extends BaseThingHandler {
                     state = systeminfo.getCpuName();
                     break;
                 case CHANNEL_MEMORY_AVAILABLE:
-                    state = systeminfo.getMemoryAvailable();
+                    state = snapshot.getMemoryAvailable();
                     break;
                 case CHANNEL_MEMORY_USED:
-                    state = systeminfo.getMemoryUsed();
+                    state = snapshot.getMemoryUsed();
                     break;
                 case CHANNEL_MEMORY_TOTAL:
-                    state = systeminfo.getMemoryTotal();
+                    state = snapshot.getMemoryTotal();
                     break;
                 case CHANNEL_MEMORY_AVAILABLE_PERCENT:
-                    state = systeminfo.getMemoryAvailablePercent();
+                    state = snapshot.getMemoryAvailablePercent();
                     break;
                 case CHANNEL_SWAP_AVAILABLE:
-                    state = systeminfo.getSwapAvailable();
+                    state = snapshot.getSwapAvailable();
                     break;
                 case CHANNEL_SWAP_USED:
-                    state = systeminfo.getSwapUsed();
+                    state = snapshot.getSwapUsed();
                     break;
                 case CHANNEL_SWAP_TOTAL:
-                    state = systeminfo.getSwapTotal();
+                    state = snapshot.getSwapTotal();
                     break;
                 case CHANNEL_SWAP_AVAILABLE_PERCENT:
-                    state = systeminfo.getSwapAvailablePercent();
+                    state = snapshot.getSwapAvailablePercent();
                     break;
                 case CHANNEL_DRIVE_MODEL:
                     state = systeminfo.getDriveModel(deviceIndex);
@@ -365,19 +478,19 @@ public class SysteminfoHandler extends BaseThingHandler {
                     state = systeminfo.getStorageDescription(deviceIndex);
                     break;
                 case CHANNEL_STORAGE_AVAILABLE:
-                    state = systeminfo.getStorageAvailable(deviceIndex);
+                    state = snapshot.getStorageAvailable(deviceIndex);
                     break;
                 case CHANNEL_STORAGE_USED:
-                    state = systeminfo.getStorageUsed(deviceIndex);
+                    state = snapshot.getStorageUsed(deviceIndex);
                     break;
                 case CHANNEL_STORAGE_TOTAL:
-                    state = systeminfo.getStorageTotal(deviceIndex);
+                    state = snapshot.getStorageTotal(deviceIndex);
                     break;
                 case CHANNEL_STORAGE_TYPE:
                     state = systeminfo.getStorageType(deviceIndex);
                     break;
                 case CHANNEL_STORAGE_AVAILABLE_PERCENT:
-                    state = systeminfo.getStorageAvailablePercent(deviceIndex);
+                    state = snapshot.getStorageAvailablePercent(deviceIndex);
                     break;
                 case CHANNEL_NETWORK_IP:
                     state = systeminfo.getNetworkIp(deviceIndex);
@@ -392,31 +505,37 @@ public class SysteminfoHandler extends BaseThingHandler {
                     state = systeminfo.getNetworkMac(deviceIndex);
                     break;
                 case CHANNEL_NETWORK_DATA_SENT:
-                    state = systeminfo.getNetworkDataSent(deviceIndex);
+                    state = snapshot.getNetworkDataSent(deviceIndex);
                     break;
                 case CHANNEL_NETWORK_DATA_RECEIVED:
-                    state = systeminfo.getNetworkDataReceived(deviceIndex);
+                    state = snapshot.getNetworkDataReceived(deviceIndex);
+                    break;
+                case CHANNEL_NETWORK_DATA_SENT_RATE:
+                    state = snapshot.getNetworkDataSentRate(deviceIndex);
+                    break;
+                case CHANNEL_NETWORK_DATA_RECEIVED_RATE:
+                    state = snapshot.getNetworkDataReceivedRate(deviceIndex);
                     break;
                 case CHANNEL_NETWORK_PACKAGES_RECEIVED:
-                    state = systeminfo.getNetworkPackageReceived(deviceIndex);
+                    state = snapshot.getNetworkPackageReceived(deviceIndex);
                     break;
                 case CHANNEL_NETWORK_PACKAGES_SENT:
-                    state = systeminfo.getNetworkPackageSent(deviceIndex);
+                    state = snapshot.getNetworkPackageSent(deviceIndex);
                     break;
                 case CHANNEL_PROCESS_LOAD:
-                    state = systeminfo.getProcessCpuUsage(deviceIndex);
+                    state = snapshot.getProcessCpuUsage(deviceIndex);
                     break;
                 case CHANNEL_PROCESS_MEMORY:
-                    state = systeminfo.getProcessMemoryUsage(deviceIndex);
+                    state = snapshot.getProcessMemoryUsage(deviceIndex);
                     break;
                 case CHANNEL_PROCESS_NAME:
-                    state = systeminfo.getProcessName(deviceIndex);
+                    state = snapshot.getProcessName(deviceIndex);
                     break;
                 case CHANNEL_PROCESS_PATH:
-                    state = systeminfo.getProcessPath(deviceIndex);
+                    state = snapshot.getProcessPath(deviceIndex);
                     break;
                 case CHANNEL_PROCESS_THREADS:
-                    state = systeminfo.getProcessThreads(deviceIndex);
+                    state = snapshot.getProcessThreads(deviceIndex);
                     break;
                 default:
                     logger.error("Channel with unknown ID: {} !", channelID);
@@ -424,9 +543,7 @@ public class SysteminfoHandler extends BaseThingHandler {
         } catch (DeviceNotFoundException e) {
             logger.error("No information for channel " + channelID + deviceIndex, e);
         } catch (Exception e) {
-            logger.error("Unexpected error occurred while getting system information!", e);
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR,
-                    "Can not get system info as result of unexpected error. Please try to restart the binding (remove and re-add the thing)!");
+            handleUnexpectedError(e);
         }
         return state;
     }
@@ -440,7 +557,7 @@ public class SysteminfoHandler extends BaseThingHandler {
      * @param channelID - the ID of the channel
      * @return natural number (number >=0)
      */
-    private int getDeviceIndex(ChannelUID channelUID) {
+    protected int getDeviceIndex(ChannelUID channelUID) {
         int deviceIndex = 0;
         if (channelUID.getGroupId().contains(CHANNEL_GROUP_PROCESS)) {
             // Only in this case the deviceIndex is part of the channel configuration - PID (Process Identifier)
@@ -487,7 +604,9 @@ public class SysteminfoHandler extends BaseThingHandler {
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
         if (thing.getStatus().equals(ThingStatus.ONLINE)) {
-            if (command instanceof RefreshType) {
+            if (command instanceof RefreshType && isSamplingChannel(channelUID)) {
+                logger.debug("Channel {} is updated with the next sampling of its priority", channelUID);
+            } else if (command instanceof RefreshType) {
                 logger.debug("Refresh command received for channel {}!", channelUID);
                 publishDataForChannel(channelUID);
             } else {
@@ -576,6 +695,7 @@ public class SysteminfoHandler extends BaseThingHandler {
     @Override
     public void dispose() {
         stopScheduledUpdates();
+        lastSnapshots.clear();
     }
 
 }
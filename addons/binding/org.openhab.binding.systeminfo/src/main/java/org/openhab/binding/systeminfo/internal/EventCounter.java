@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.internal;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventFilter;
+import org.eclipse.smarthome.core.events.EventSubscriber;
+
+/**
+ * The {@link EventCounter} counts all events on the openHAB event bus. It is used to calculate the event throughput
+ * for the runtime thing.
+ *
+ * @author agent - Initial contribution
+ */
+public class EventCounter implements EventSubscriber {
+
+    private final AtomicLong count = new AtomicLong();
+
+    @Override
+    public Set<String> getSubscribedEventTypes() {
+        return Collections.singleton(EventSubscriber.ALL_EVENT_TYPES);
+    }
+
+    @Override
+    public EventFilter getEventFilter() {
+        return null;
+    }
+
+    @Override
+    public void receive(Event event) {
+        count.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of events received since the start of the binding
+     */
+    public long getCount() {
+        return count.get();
+    }
+}
@@ -10,15 +10,17 @@ package org.openhab.binding.systeminfo.internal;
 
 import static org.openhab.binding.systeminfo.SysteminfoBindingConstants.*;
 
-import java.util.Collections;
 import java.util.Set;
 
+import org.openhab.binding.systeminfo.handler.RuntimeHandler;
 import org.openhab.binding.systeminfo.handler.SysteminfoHandler;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandlerFactory;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 
+import com.google.common.collect.ImmutableSet;
+
 /**
  * The {@link SysteminfoHandlerFactory} is responsible for creating things and thing 
  * handlers.
@@ -27,8 +29,11 @@ import org.eclipse.smarthome.core.thing.binding.ThingHandler;
  */
 public class SysteminfoHandlerFactory extends BaseThingHandlerFactory {
     
-    private final static Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Collections.singleton(THING_TYPE_COMPUTER);
-    
+    private final static Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = ImmutableSet.of(THING_TYPE_COMPUTER,
+            THING_TYPE_RUNTIME);
+
+    private EventCounter eventCounter;
+
     @Override
     public boolean supportsThingType(ThingTypeUID thingTypeUID) {
         return SUPPORTED_THING_TYPES_UIDS.contains(thingTypeUID);
@@ -41,9 +46,18 @@ public class SysteminfoHandlerFactory extends BaseThingHandlerFactory {
 
         if (thingTypeUID.equals(THING_TYPE_COMPUTER)) {
             return new SysteminfoHandler(thing);
+        } else if (thingTypeUID.equals(THING_TYPE_RUNTIME)) {
+            return new RuntimeHandler(thing, eventCounter);
         }
 
         return null;
     }
-}
 
+    protected void setEventCounter(EventCounter eventCounter) {
+        this.eventCounter = eventCounter;
+    }
+
+    protected void unsetEventCounter(EventCounter eventCounter) {
+        this.eventCounter = null;
+    }
+}
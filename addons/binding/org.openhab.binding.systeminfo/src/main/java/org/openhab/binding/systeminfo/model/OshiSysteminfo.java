@@ -8,14 +8,23 @@
  */
 package org.openhab.binding.systeminfo.model;
 
+import static org.openhab.binding.systeminfo.SysteminfoBindingConstants.*;
+
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.library.types.StringType;
+import org.openhab.binding.systeminfo.model.SysteminfoSnapshot.CpuInfo;
+import org.openhab.binding.systeminfo.model.SysteminfoSnapshot.MemoryInfo;
+import org.openhab.binding.systeminfo.model.SysteminfoSnapshot.ProcessInfo;
 
 import oshi.SystemInfo;
 import oshi.hardware.CentralProcessor;
+import oshi.hardware.CentralProcessor.TickType;
 import oshi.hardware.Display;
 import oshi.hardware.GlobalMemory;
 import oshi.hardware.HWDiskStore;
@@ -42,7 +51,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
     private OperatingSystem operatingSystem;
     private NetworkIF[] networks;
     private Display[] displays;
-    private OSFileStore[] fileStores;
+    private volatile OSFileStore[] fileStores;
     private GlobalMemory memory;
     private PowerSource[] powerSources;
     private CentralProcessor cpu;
@@ -69,6 +78,69 @@ public class OshiSysteminfo implements SysteminfoInterface {
         drives = hal.getDiskStores();
     }
 
+    @Override
+    public synchronized SysteminfoSnapshot takeSnapshot(SysteminfoSnapshot previous, Set<String> channelGroups,
+            Set<Integer> pids) {
+        long timestamp = System.nanoTime();
+
+        CpuInfo cpuInfo = null;
+        if (channelGroups.contains(CHANNEL_GROUP_CPU)) {
+            long[] ticks = cpu.getSystemCpuLoadTicks();
+            long totalTicks = 0;
+            for (long tick : ticks) {
+                totalTicks += tick;
+            }
+            long idleTicks = ticks[TickType.IDLE.getIndex()] + ticks[TickType.IOWAIT.getIndex()];
+            // the load is calculated from the ticks, if there is a previous snapshot
+            double load = previous != null && previous.hasCpuInfo() ? 0 : cpu.getSystemCpuLoad();
+            cpuInfo = new CpuInfo(totalTicks, idleTicks, load, cpu.getSystemLoadAverage(3), cpu.getSystemUptime(),
+                    operatingSystem.getThreadCount());
+        }
+
+        MemoryInfo memoryInfo = null;
+        if (channelGroups.contains(CHANNEL_GROUP_MEMORY) || channelGroups.contains(CHANNEL_GROUP_SWAP)) {
+            memoryInfo = new MemoryInfo(memory.getTotal(), memory.getAvailable(), memory.getSwapTotal(),
+                    memory.getSwapUsed());
+        }
+
+        long[][] storages = null;
+        if (channelGroups.contains(CHANNEL_GROUP_STORAGE)) {
+            // the file stores hold the space at the time they have been created
+            fileStores = operatingSystem.getFileSystem().getFileStores();
+            storages = new long[fileStores.length][2];
+            for (int i = 0; i < fileStores.length; i++) {
+                storages[i][SysteminfoSnapshot.TOTAL_SPACE] = fileStores[i].getTotalSpace();
+                storages[i][SysteminfoSnapshot.USABLE_SPACE] = fileStores[i].getUsableSpace();
+            }
+        }
+
+        long[][] networkCounters = null;
+        if (channelGroups.contains(CHANNEL_GROUP_NETWORK)) {
+            networkCounters = new long[networks.length][4];
+            for (int i = 0; i < networks.length; i++) {
+                NetworkIF network = networks[i];
+                network.updateNetworkStats();
+                networkCounters[i][SysteminfoSnapshot.BYTES_SENT] = network.getBytesSent();
+                networkCounters[i][SysteminfoSnapshot.BYTES_RECEIVED] = network.getBytesRecv();
+                networkCounters[i][SysteminfoSnapshot.PACKETS_SENT] = network.getPacketsSent();
+                networkCounters[i][SysteminfoSnapshot.PACKETS_RECEIVED] = network.getPacketsRecv();
+            }
+        }
+
+        Map<Integer, ProcessInfo> processes = new HashMap<Integer, ProcessInfo>();
+        for (Integer pid : pids) {
+            OSProcess process = operatingSystem.getProcess(pid);
+            if (process != null) {
+                processes.put(pid,
+                        new ProcessInfo(pid, process.getName(), process.getPath(), process.getThreadCount(),
+                                process.getResidentSetSize(), process.getKernelTime() + process.getUserTime(),
+                                process.getUpTime()));
+            }
+        }
+
+        return new SysteminfoSnapshot(timestamp, previous, cpuInfo, memoryInfo, storages, networkCounters, processes);
+    }
+
     @SuppressWarnings("null")
     private Object getDevice(Object[] devices, int index) throws DeviceNotFoundException {
         if ((devices != null) && (devices.length <= index)) {
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.model;
+
+import static org.openhab.binding.systeminfo.SysteminfoBindingConstants.*;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.RuntimeMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.openhab.binding.systeminfo.model.RuntimeSnapshot.CollectorInfo;
+import org.openhab.binding.systeminfo.model.RuntimeSnapshot.MemoryUsageInfo;
+import org.openhab.binding.systeminfo.model.RuntimeSnapshot.PoolInfo;
+import org.openhab.binding.systeminfo.model.RuntimeSnapshot.ThreadsInfo;
+
+/**
+ * The {@link RuntimeInfo} provides information about the Java runtime of openHAB itself. It uses the platform
+ * MXBeans of {@link ManagementFactory} and the thread pools of the {@link ThreadPoolManager}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RuntimeInfo {
+
+    /**
+     * The pools, which are always created by the openHAB core. {@link ThreadPoolManager#getPool(String)} creates a
+     * pool, which does not exist yet, and there is no way to check if a pool exists. Only these pools are monitored,
+     * so monitoring never creates a pool.
+     */
+    public static final Set<String> CORE_POOL_NAMES = Collections.unmodifiableSet(
+            new HashSet<String>(Arrays.asList("thingHandler", "thingManager", "discovery", "safeCall")));
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+    private final MemoryPoolMXBean metaspace;
+    private final String[] poolNames;
+
+    /**
+     * @param poolNames - names of the {@link ThreadPoolManager} pools, which are monitored. Only the
+     *            {@link #CORE_POOL_NAMES} are allowed.
+     * @throws IllegalArgumentException if a pool is not one of the {@link #CORE_POOL_NAMES}
+     */
+    public RuntimeInfo(List<String> poolNames) {
+        for (String poolName : poolNames) {
+            if (!CORE_POOL_NAMES.contains(poolName)) {
+                throw new IllegalArgumentException("Thread pool '" + poolName + "' is not one of " + CORE_POOL_NAMES);
+            }
+        }
+        this.poolNames = poolNames.toArray(new String[poolNames.size()]);
+        this.metaspace = findMetaspace();
+    }
+
+    /**
+     * Get the name of the Java virtual machine
+     */
+    public String getVmName() {
+        return runtime.getVmName();
+    }
+
+    /**
+     * Get the version of the Java virtual machine
+     */
+    public String getVmVersion() {
+        return runtime.getVmVersion();
+    }
+
+    /**
+     * Samples the runtime information of the given channel groups in a single pass.
+     *
+     * @param previous - the previous snapshot of the same channels, used to calculate rates. May be null.
+     * @param channelGroups - IDs of the channel groups without device index, which have to be sampled
+     * @param events - the number of events received since the start of the binding
+     * @return the snapshot
+     */
+    public RuntimeSnapshot takeSnapshot(RuntimeSnapshot previous, Set<String> channelGroups, long events) {
+        long timestamp = System.nanoTime();
+
+        MemoryUsageInfo heap = null;
+        if (channelGroups.contains(CHANNEL_GROUP_HEAP)) {
+            heap = getMemoryUsageInfo(memory.getHeapMemoryUsage());
+        }
+
+        MemoryUsageInfo nonHeap = null;
+        if (channelGroups.contains(CHANNEL_GROUP_NON_HEAP)) {
+            nonHeap = getMemoryUsageInfo(memory.getNonHeapMemoryUsage());
+        }
+
+        MemoryUsageInfo metaspaceInfo = null;
+        if (metaspace != null && channelGroups.contains(CHANNEL_GROUP_METASPACE)) {
+            metaspaceInfo = getMemoryUsageInfo(metaspace.getUsage());
+        }
+
+        ThreadsInfo threadsInfo = null;
+        if (channelGroups.contains(CHANNEL_GROUP_THREADS)) {
+            threadsInfo = new ThreadsInfo(threads.getThreadCount(), threads.getPeakThreadCount(),
+                    threads.getDaemonThreadCount());
+        }
+
+        CollectorInfo[] collectors = null;
+        if (channelGroups.contains(CHANNEL_GROUP_GC)) {
+            List<GarbageCollectorMXBean> collectorBeans = ManagementFactory.getGarbageCollectorMXBeans();
+            collectors = new CollectorInfo[collectorBeans.size()];
+            for (int i = 0; i < collectors.length; i++) {
+                GarbageCollectorMXBean collector = collectorBeans.get(i);
+                collectors[i] = new CollectorInfo(collector.getName(), collector.getCollectionCount(),
+                        collector.getCollectionTime());
+            }
+        }
+
+        PoolInfo[] pools = null;
+        if (channelGroups.contains(CHANNEL_GROUP_POOL)) {
+            pools = new PoolInfo[poolNames.length];
+            for (int i = 0; i < pools.length; i++) {
+                pools[i] = getPoolInfo(poolNames[i]);
+            }
+        }
+
+        long sampledEvents = channelGroups.contains(CHANNEL_GROUP_EVENTS) ? events : -1;
+
+        return new RuntimeSnapshot(timestamp, previous, heap, nonHeap, metaspaceInfo, threadsInfo, collectors, pools,
+                sampledEvents);
+    }
+
+    private MemoryUsageInfo getMemoryUsageInfo(MemoryUsage usage) {
+        return new MemoryUsageInfo(usage.getUsed(), usage.getCommitted(), usage.getMax());
+    }
+
+    private PoolInfo getPoolInfo(String name) {
+        ExecutorService pool = ThreadPoolManager.getPool(name);
+        if (pool instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor executor = (ThreadPoolExecutor) pool;
+            return new PoolInfo(name, executor.getQueue().size(), executor.getActiveCount(), executor.getPoolSize());
+        }
+        return new PoolInfo(name, 0, 0, 0);
+    }
+
+    /**
+     * The metaspace holds the class metadata since Java 8, before it has been part of the permanent generation
+     */
+    private static MemoryPoolMXBean findMetaspace() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getName().equals("Metaspace") || pool.getName().endsWith("Perm Gen")) {
+                return pool;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,393 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.model;
+
+import java.math.BigDecimal;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.UnDefType;
+
+/**
+ * The {@link RuntimeSnapshot} holds the information about the Java runtime of openHAB (memory, threads, garbage
+ * collectors, thread pools and events), which has been sampled in a single pass by {@link RuntimeInfo}.
+ *
+ * The garbage collector load and the event rate are calculated from the difference to the previous snapshot. A
+ * snapshot does not change after it has been created.
+ *
+ * @author agent - Initial contribution
+ */
+public class RuntimeSnapshot {
+
+    private final long timestamp;
+    private final long samplingTime;
+
+    private final MemoryUsageInfo heap;
+    private final MemoryUsageInfo nonHeap;
+    private final MemoryUsageInfo metaspace;
+    private final ThreadsInfo threads;
+    private final CollectorInfo[] collectors;
+    private final PoolInfo[] pools;
+    private final long events;
+    private final double eventRate;
+
+    /**
+     * @param timestamp - the time the sampling has started, as returned by {@link System#nanoTime()}
+     * @param previous - the previous snapshot with the same content, used to calculate rates, may be null
+     * @param heap - heap memory usage or null, if it has not been sampled
+     * @param nonHeap - non-heap memory usage or null, if it has not been sampled
+     * @param metaspace - metaspace usage or null, if it has not been sampled or it is not available
+     * @param threads - thread counts or null, if they have not been sampled
+     * @param collectors - garbage collector statistics or null, if they have not been sampled
+     * @param pools - thread pool statistics or null, if they have not been sampled
+     * @param events - number of events received since the start of the binding or -1, if it has not been sampled
+     */
+    RuntimeSnapshot(long timestamp, RuntimeSnapshot previous, MemoryUsageInfo heap, MemoryUsageInfo nonHeap,
+            MemoryUsageInfo metaspace, ThreadsInfo threads, CollectorInfo[] collectors, PoolInfo[] pools,
+            long events) {
+        this.timestamp = timestamp;
+        this.heap = heap;
+        this.nonHeap = nonHeap;
+        this.metaspace = metaspace;
+        this.threads = threads;
+        this.collectors = collectors;
+        this.pools = pools;
+        this.events = events;
+
+        long elapsedNanos = previous == null ? 0 : timestamp - previous.timestamp;
+
+        if (collectors != null) {
+            for (CollectorInfo collector : collectors) {
+                collector.setLoad(previous == null ? null : previous.getCollector(collector.name), elapsedNanos);
+            }
+        }
+
+        if (events >= 0 && elapsedNanos > 0 && previous.events >= 0 && previous.events <= events) {
+            eventRate = (events - previous.events) / (elapsedNanos / 1000000000.0);
+        } else {
+            eventRate = Double.NaN;
+        }
+
+        this.samplingTime = System.nanoTime() - timestamp;
+    }
+
+    /**
+     * Returns the time needed to take this snapshot in nanoseconds
+     */
+    public long getSamplingTime() {
+        return samplingTime;
+    }
+
+    /**
+     * Returns the used heap memory in MB
+     *
+     * @return null, if the heap memory has not been sampled
+     */
+    public DecimalType getHeapUsed() {
+        return heap == null ? null : new DecimalType(getSizeInMB(heap.used));
+    }
+
+    /**
+     * Returns the heap memory committed by the JVM in MB
+     *
+     * @return null, if the heap memory has not been sampled
+     */
+    public DecimalType getHeapCommitted() {
+        return heap == null ? null : new DecimalType(getSizeInMB(heap.committed));
+    }
+
+    /**
+     * Returns the maximal heap memory in MB
+     *
+     * @return null, if the heap memory has not been sampled, {@link UnDefType#UNDEF} if the maximum is not defined
+     */
+    public State getHeapMax() {
+        if (heap == null) {
+            return null;
+        }
+        return heap.max < 0 ? UnDefType.UNDEF : new DecimalType(getSizeInMB(heap.max));
+    }
+
+    /**
+     * Returns the used non-heap memory in MB
+     *
+     * @return null, if the non-heap memory has not been sampled
+     */
+    public DecimalType getNonHeapUsed() {
+        return nonHeap == null ? null : new DecimalType(getSizeInMB(nonHeap.used));
+    }
+
+    /**
+     * Returns the non-heap memory committed by the JVM in MB
+     *
+     * @return null, if the non-heap memory has not been sampled
+     */
+    public DecimalType getNonHeapCommitted() {
+        return nonHeap == null ? null : new DecimalType(getSizeInMB(nonHeap.committed));
+    }
+
+    /**
+     * Returns the used metaspace (permanent generation before Java 8) in MB
+     *
+     * @return null, if the metaspace has not been sampled or is not available
+     */
+    public DecimalType getMetaspaceUsed() {
+        return metaspace == null ? null : new DecimalType(getSizeInMB(metaspace.used));
+    }
+
+    /**
+     * Returns the metaspace (permanent generation before Java 8) committed by the JVM in MB
+     *
+     * @return null, if the metaspace has not been sampled or is not available
+     */
+    public DecimalType getMetaspaceCommitted() {
+        return metaspace == null ? null : new DecimalType(getSizeInMB(metaspace.committed));
+    }
+
+    /**
+     * Returns the number of live threads
+     *
+     * @return null, if the threads have not been sampled
+     */
+    public DecimalType getThreadsLive() {
+        return threads == null ? null : new DecimalType(threads.live);
+    }
+
+    /**
+     * Returns the peak number of live threads since the start of the JVM
+     *
+     * @return null, if the threads have not been sampled
+     */
+    public DecimalType getThreadsPeak() {
+        return threads == null ? null : new DecimalType(threads.peak);
+    }
+
+    /**
+     * Returns the number of live daemon threads
+     *
+     * @return null, if the threads have not been sampled
+     */
+    public DecimalType getThreadsDaemon() {
+        return threads == null ? null : new DecimalType(threads.daemon);
+    }
+
+    /**
+     * Returns the name of the garbage collector
+     *
+     * @return null, if the garbage collectors have not been sampled
+     */
+    public StringType getCollectorName(int index) throws DeviceNotFoundException {
+        CollectorInfo collector = getDevice(collectors, index);
+        return collector == null ? null : new StringType(collector.name);
+    }
+
+    /**
+     * Returns the number of collections since the start of the JVM
+     *
+     * @return null, if the garbage collectors have not been sampled
+     */
+    public DecimalType getCollectorCount(int index) throws DeviceNotFoundException {
+        CollectorInfo collector = getDevice(collectors, index);
+        return collector == null ? null : new DecimalType(collector.count);
+    }
+
+    /**
+     * Returns the accumulated collection time since the start of the JVM in ms
+     *
+     * @return null, if the garbage collectors have not been sampled
+     */
+    public DecimalType getCollectorTime(int index) throws DeviceNotFoundException {
+        CollectorInfo collector = getDevice(collectors, index);
+        return collector == null ? null : new DecimalType(collector.time);
+    }
+
+    /**
+     * Returns the share of the time since the previous snapshot, which has been spent in collections, in percents
+     *
+     * @return null, if the garbage collectors have not been sampled, {@link UnDefType#UNDEF} if there is no previous
+     *         snapshot
+     */
+    public State getCollectorLoad(int index) throws DeviceNotFoundException {
+        CollectorInfo collector = getDevice(collectors, index);
+        if (collector == null) {
+            return null;
+        }
+        return Double.isNaN(collector.load) ? UnDefType.UNDEF : new DecimalType(getPercentsValue(collector.load));
+    }
+
+    /**
+     * Returns the name of the thread pool
+     *
+     * @return null, if the thread pools have not been sampled
+     */
+    public StringType getPoolName(int index) throws DeviceNotFoundException {
+        PoolInfo pool = getDevice(pools, index);
+        return pool == null ? null : new StringType(pool.name);
+    }
+
+    /**
+     * Returns the number of tasks waiting in the queue of the thread pool
+     *
+     * @return null, if the thread pools have not been sampled
+     */
+    public DecimalType getPoolQueue(int index) throws DeviceNotFoundException {
+        PoolInfo pool = getDevice(pools, index);
+        return pool == null ? null : new DecimalType(pool.queue);
+    }
+
+    /**
+     * Returns the number of threads of the thread pool, which are executing tasks
+     *
+     * @return null, if the thread pools have not been sampled
+     */
+    public DecimalType getPoolActive(int index) throws DeviceNotFoundException {
+        PoolInfo pool = getDevice(pools, index);
+        return pool == null ? null : new DecimalType(pool.active);
+    }
+
+    /**
+     * Returns the number of threads of the thread pool
+     *
+     * @return null, if the thread pools have not been sampled
+     */
+    public DecimalType getPoolSize(int index) throws DeviceNotFoundException {
+        PoolInfo pool = getDevice(pools, index);
+        return pool == null ? null : new DecimalType(pool.size);
+    }
+
+    /**
+     * Returns the number of events received since the start of the binding
+     *
+     * @return null, if the events have not been sampled
+     */
+    public DecimalType getEventsTotal() {
+        return events < 0 ? null : new DecimalType(events);
+    }
+
+    /**
+     * Returns the number of events per second since the previous snapshot
+     *
+     * @return null, if the events have not been sampled, {@link UnDefType#UNDEF} if there is no previous snapshot
+     */
+    public State getEventsRate() {
+        if (events < 0) {
+            return null;
+        }
+        if (Double.isNaN(eventRate)) {
+            return UnDefType.UNDEF;
+        }
+        BigDecimal result = new BigDecimal(eventRate);
+        result = result.setScale(OshiSysteminfo.PRECISION_AFTER_DECIMAl_SIGN, BigDecimal.ROUND_HALF_UP);
+        return new DecimalType(result);
+    }
+
+    private CollectorInfo getCollector(String name) {
+        if (collectors != null) {
+            for (CollectorInfo collector : collectors) {
+                if (collector.name.equals(name)) {
+                    return collector;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static <T> T getDevice(T[] devices, int index) throws DeviceNotFoundException {
+        if (devices == null) {
+            return null;
+        }
+        if (devices.length <= index) {
+            throw new DeviceNotFoundException("Device with index: " + index + " can not be found!");
+        }
+        return devices[index];
+    }
+
+    private static long getSizeInMB(long sizeInBytes) {
+        return sizeInBytes / (1024 * 1024);
+    }
+
+    private static BigDecimal getPercentsValue(double decimalFraction) {
+        BigDecimal result = new BigDecimal(decimalFraction * 100);
+        result = result.setScale(OshiSysteminfo.PRECISION_AFTER_DECIMAl_SIGN, BigDecimal.ROUND_HALF_UP);
+        return result;
+    }
+
+    /**
+     * Memory usage of a memory area, all values in bytes
+     */
+    static class MemoryUsageInfo {
+        private final long used;
+        private final long committed;
+        private final long max;
+
+        MemoryUsageInfo(long used, long committed, long max) {
+            this.used = used;
+            this.committed = committed;
+            this.max = max;
+        }
+    }
+
+    /**
+     * Thread counts of a snapshot
+     */
+    static class ThreadsInfo {
+        private final int live;
+        private final int peak;
+        private final int daemon;
+
+        ThreadsInfo(int live, int peak, int daemon) {
+            this.live = live;
+            this.peak = peak;
+            this.daemon = daemon;
+        }
+    }
+
+    /**
+     * Statistics of a garbage collector
+     */
+    static class CollectorInfo {
+        private final String name;
+        private final long count;
+        private final long time;
+        private double load = Double.NaN;
+
+        /**
+         * @param time - the accumulated collection time in ms
+         */
+        CollectorInfo(String name, long count, long time) {
+            this.name = name;
+            this.count = count;
+            this.time = time;
+        }
+
+        private void setLoad(CollectorInfo previous, long elapsedNanos) {
+            if (previous != null && elapsedNanos > 0 && previous.time <= time) {
+                load = Math.min(1, (time - previous.time) / (elapsedNanos / 1000000.0));
+            }
+        }
+    }
+
+    /**
+     * Statistics of a thread pool
+     */
+    static class PoolInfo {
+        private final String name;
+        private final int queue;
+        private final int active;
+        private final int size;
+
+        PoolInfo(String name, int queue, int active, int size) {
+            this.name = name;
+            this.queue = queue;
+            this.active = active;
+            this.size = size;
+        }
+    }
+}
@@ -8,6 +8,8 @@
  */
 package org.openhab.binding.systeminfo.model;
 
+import java.util.Set;
+
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.library.types.StringType;
 
@@ -19,6 +21,18 @@ import org.eclipse.smarthome.core.library.types.StringType;
  */
 public interface SysteminfoInterface {
 
+    // Snapshot
+    /**
+     * Samples the dynamic information (CPU, memory, storage, network and processes) of the given channel groups in a
+     * single pass.
+     *
+     * @param previous - the previous snapshot of the same channels, used to calculate rates. May be null.
+     * @param channelGroups - IDs of the channel groups without device index, which have to be sampled
+     * @param pids - process identifiers of the processes, which have to be sampled
+     * @return the snapshot
+     */
+    public SysteminfoSnapshot takeSnapshot(SysteminfoSnapshot previous, Set<String> channelGroups, Set<Integer> pids);
+
     // Operating system info
     /**
      * Get the Family of the operating system /e.g. Windows,Unix,.../
@@ -0,0 +1,510 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.model;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.UnDefType;
+
+/**
+ * The {@link SysteminfoSnapshot} holds the dynamic system information (CPU, memory, storage, network and processes),
+ * which has been sampled in a single pass by {@link SysteminfoInterface#takeSnapshot}. All channels with the same
+ * priority are updated from one snapshot, so the operating system is queried only once per refresh.
+ *
+ * Rates (CPU load, network throughput) are calculated from the difference to the previous snapshot and stored with
+ * the snapshot. A snapshot does not change after it has been created.
+ *
+ * @author agent - Initial contribution
+ */
+public class SysteminfoSnapshot {
+
+    static final int BYTES_SENT = 0;
+    static final int BYTES_RECEIVED = 1;
+    static final int PACKETS_SENT = 2;
+    static final int PACKETS_RECEIVED = 3;
+
+    static final int TOTAL_SPACE = 0;
+    static final int USABLE_SPACE = 1;
+
+    private final long timestamp;
+    private final long samplingTime;
+
+    private final CpuInfo cpu;
+    private final MemoryInfo memory;
+    private final long[][] storages;
+    private final long[][] networks;
+    private final double[][] networkRates;
+    private final Map<Integer, ProcessInfo> processes;
+
+    /**
+     * @param timestamp - the time the sampling has started, as returned by {@link System#nanoTime()}
+     * @param previous - the previous snapshot with the same content, used to calculate rates, may be null
+     * @param cpu - CPU information or null, if it has not been sampled
+     * @param memory - memory information or null, if it has not been sampled
+     * @param storages - total and usable space of each storage or null, if it has not been sampled
+     * @param networks - byte and packet counters of each network interface or null, if it has not been sampled
+     * @param processes - the sampled processes by PID
+     */
+    SysteminfoSnapshot(long timestamp, SysteminfoSnapshot previous, CpuInfo cpu, MemoryInfo memory, long[][] storages,
+            long[][] networks, Map<Integer, ProcessInfo> processes) {
+        this.timestamp = timestamp;
+        this.memory = memory;
+        this.storages = storages;
+        this.networks = networks;
+        this.processes = Collections.unmodifiableMap(processes);
+
+        double seconds = previous == null ? 0 : (timestamp - previous.timestamp) / 1000000000.0;
+
+        if (cpu != null && previous != null && previous.cpu != null) {
+            cpu.setLoad(previous.cpu);
+        }
+        this.cpu = cpu;
+
+        this.networkRates = networks == null ? null : new double[networks.length][2];
+        if (networkRates != null) {
+            for (int i = 0; i < networks.length; i++) {
+                if (seconds > 0 && previous.networks != null && i < previous.networks.length) {
+                    networkRates[i][BYTES_SENT] = getRate(networks[i][BYTES_SENT],
+                            previous.networks[i][BYTES_SENT], seconds);
+                    networkRates[i][BYTES_RECEIVED] = getRate(networks[i][BYTES_RECEIVED],
+                            previous.networks[i][BYTES_RECEIVED], seconds);
+                } else {
+                    networkRates[i][BYTES_SENT] = Double.NaN;
+                    networkRates[i][BYTES_RECEIVED] = Double.NaN;
+                }
+            }
+        }
+
+        for (ProcessInfo process : processes.values()) {
+            ProcessInfo previousProcess = previous == null ? null : previous.processes.get(process.pid);
+            process.setLoad(previousProcess, timestamp - (previous == null ? 0 : previous.timestamp));
+        }
+
+        this.samplingTime = System.nanoTime() - timestamp;
+    }
+
+    boolean hasCpuInfo() {
+        return cpu != null;
+    }
+
+    /**
+     * Returns the time the sampling has started, as returned by {@link System#nanoTime()}
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the time needed to take this snapshot in nanoseconds
+     */
+    public long getSamplingTime() {
+        return samplingTime;
+    }
+
+    /**
+     * Get the recent CPU load in percents. The load is calculated for the time since the previous snapshot.
+     *
+     * @return null, if the CPU has not been sampled
+     */
+    public DecimalType getCpuLoad() {
+        return cpu == null ? null : new DecimalType(getPercentsValue(cpu.load));
+    }
+
+    /**
+     * Get the average CPU load for the last 1, 5 or 15 minutes
+     *
+     * @return null, if the CPU has not been sampled
+     */
+    public DecimalType getCpuLoadAverage(int timeInMinutes) {
+        if (cpu == null) {
+            return null;
+        }
+        int index = timeInMinutes == 1 ? 0 : timeInMinutes == 5 ? 1 : 2;
+        BigDecimal result = new BigDecimal(cpu.loadAverages[index]);
+        result = result.setScale(OshiSysteminfo.PRECISION_AFTER_DECIMAl_SIGN, BigDecimal.ROUND_HALF_UP);
+        return new DecimalType(result);
+    }
+
+    /**
+     * Get the system uptime in minutes
+     *
+     * @return null, if the CPU has not been sampled
+     */
+    public DecimalType getCpuUptime() {
+        return cpu == null ? null : new DecimalType(getTimeInMinutes(cpu.uptime));
+    }
+
+    /**
+     * Get the number of threads currently running
+     *
+     * @return null, if the CPU has not been sampled
+     */
+    public DecimalType getCpuThreads() {
+        return cpu == null ? null : new DecimalType(cpu.threadCount);
+    }
+
+    /**
+     * Returns the size of the physical memory in MB
+     *
+     * @return null, if the memory has not been sampled
+     */
+    public DecimalType getMemoryTotal() {
+        return memory == null ? null : new DecimalType(getSizeInMB(memory.total));
+    }
+
+    /**
+     * Returns the size of the available physical memory in MB
+     *
+     * @return null, if the memory has not been sampled
+     */
+    public DecimalType getMemoryAvailable() {
+        return memory == null ? null : new DecimalType(getSizeInMB(memory.available));
+    }
+
+    /**
+     * Returns the size of the used physical memory in MB
+     *
+     * @return null, if the memory has not been sampled
+     */
+    public DecimalType getMemoryUsed() {
+        return memory == null ? null : new DecimalType(getSizeInMB(memory.total - memory.available));
+    }
+
+    /**
+     * Returns the available physical memory in percents
+     *
+     * @return null, if the memory has not been sampled
+     */
+    public DecimalType getMemoryAvailablePercent() {
+        return memory == null ? null : new DecimalType(getPercentsValue(memory.available, memory.total));
+    }
+
+    /**
+     * Returns the size of the swap memory in MB
+     *
+     * @return null, if the memory has not been sampled
+     */
+    public DecimalType getSwapTotal() {
+        return memory == null ? null : new DecimalType(getSizeInMB(memory.swapTotal));
+    }
+
+    /**
+     * Returns the size of the available swap memory in MB
+     *
+     * @return null, if the memory has not been sampled
+     */
+    public DecimalType getSwapAvailable() {
+        return memory == null ? null : new DecimalType(getSizeInMB(memory.swapTotal - memory.swapUsed));
+    }
+
+    /**
+     * Returns the size of the used swap memory in MB
+     *
+     * @return null, if the memory has not been sampled
+     */
+    public DecimalType getSwapUsed() {
+        return memory == null ? null : new DecimalType(getSizeInMB(memory.swapUsed));
+    }
+
+    /**
+     * Returns the available swap memory in percents
+     *
+     * @return null, if the memory has not been sampled
+     */
+    public DecimalType getSwapAvailablePercent() {
+        return memory == null ? null
+                : new DecimalType(getPercentsValue(memory.swapTotal - memory.swapUsed, memory.swapTotal));
+    }
+
+    /**
+     * Returns the total space of the logical storage volume in MB
+     *
+     * @return null, if the storage has not been sampled
+     */
+    public DecimalType getStorageTotal(int deviceIndex) throws DeviceNotFoundException {
+        long[] storage = getDevice(storages, deviceIndex);
+        return storage == null ? null : new DecimalType(getSizeInMB(storage[TOTAL_SPACE]));
+    }
+
+    /**
+     * Returns the available space of the logical storage volume in MB
+     *
+     * @return null, if the storage has not been sampled
+     */
+    public DecimalType getStorageAvailable(int deviceIndex) throws DeviceNotFoundException {
+        long[] storage = getDevice(storages, deviceIndex);
+        return storage == null ? null : new DecimalType(getSizeInMB(storage[USABLE_SPACE]));
+    }
+
+    /**
+     * Returns the used space of the logical storage volume in MB
+     *
+     * @return null, if the storage has not been sampled
+     */
+    public DecimalType getStorageUsed(int deviceIndex) throws DeviceNotFoundException {
+        long[] storage = getDevice(storages, deviceIndex);
+        return storage == null ? null : new DecimalType(getSizeInMB(storage[TOTAL_SPACE] - storage[USABLE_SPACE]));
+    }
+
+    /**
+     * Returns the available space of the logical storage volume in percents
+     *
+     * @return null, if the storage has not been sampled
+     */
+    public DecimalType getStorageAvailablePercent(int deviceIndex) throws DeviceNotFoundException {
+        long[] storage = getDevice(storages, deviceIndex);
+        return storage == null ? null
+                : new DecimalType(getPercentsValue(storage[USABLE_SPACE], storage[TOTAL_SPACE]));
+    }
+
+    /**
+     * Returns the data sent by the network interface in MB
+     *
+     * @return null, if the network has not been sampled
+     */
+    public DecimalType getNetworkDataSent(int networkIndex) throws DeviceNotFoundException {
+        long[] network = getDevice(networks, networkIndex);
+        return network == null ? null : new DecimalType(getSizeInMB(network[BYTES_SENT]));
+    }
+
+    /**
+     * Returns the data received by the network interface in MB
+     *
+     * @return null, if the network has not been sampled
+     */
+    public DecimalType getNetworkDataReceived(int networkIndex) throws DeviceNotFoundException {
+        long[] network = getDevice(networks, networkIndex);
+        return network == null ? null : new DecimalType(getSizeInMB(network[BYTES_RECEIVED]));
+    }
+
+    /**
+     * Returns the number of packets sent by the network interface
+     *
+     * @return null, if the network has not been sampled
+     */
+    public DecimalType getNetworkPackageSent(int networkIndex) throws DeviceNotFoundException {
+        long[] network = getDevice(networks, networkIndex);
+        return network == null ? null : new DecimalType(network[PACKETS_SENT]);
+    }
+
+    /**
+     * Returns the number of packets received by the network interface
+     *
+     * @return null, if the network has not been sampled
+     */
+    public DecimalType getNetworkPackageReceived(int networkIndex) throws DeviceNotFoundException {
+        long[] network = getDevice(networks, networkIndex);
+        return network == null ? null : new DecimalType(network[PACKETS_RECEIVED]);
+    }
+
+    /**
+     * Returns the rate of the data sent by the network interface since the previous snapshot in kB/s
+     *
+     * @return null, if the network has not been sampled, {@link UnDefType#UNDEF} if there is no previous snapshot
+     */
+    public State getNetworkDataSentRate(int networkIndex) throws DeviceNotFoundException {
+        getDevice(networks, networkIndex);
+        return networkRates == null ? null : getRateInKB(networkRates[networkIndex][BYTES_SENT]);
+    }
+
+    /**
+     * Returns the rate of the data received by the network interface since the previous snapshot in kB/s
+     *
+     * @return null, if the network has not been sampled, {@link UnDefType#UNDEF} if there is no previous snapshot
+     */
+    public State getNetworkDataReceivedRate(int networkIndex) throws DeviceNotFoundException {
+        getDevice(networks, networkIndex);
+        return networkRates == null ? null : getRateInKB(networkRates[networkIndex][BYTES_RECEIVED]);
+    }
+
+    /**
+     * Returns the name of the process
+     */
+    public StringType getProcessName(int pid) throws DeviceNotFoundException {
+        return new StringType(getProcess(pid).name);
+    }
+
+    /**
+     * Returns the full path of the process
+     */
+    public StringType getProcessPath(int pid) throws DeviceNotFoundException {
+        return new StringType(getProcess(pid).path);
+    }
+
+    /**
+     * Returns the CPU load of the process in percents. The load is calculated for the time since the previous
+     * snapshot, or for the whole lifetime of the process, if it has not been sampled before.
+     */
+    public DecimalType getProcessCpuUsage(int pid) throws DeviceNotFoundException {
+        return new DecimalType(getPercentsValue(getProcess(pid).load));
+    }
+
+    /**
+     * Returns the size of the RAM memory used by the process in MB
+     */
+    public DecimalType getProcessMemoryUsage(int pid) throws DeviceNotFoundException {
+        return new DecimalType(getSizeInMB(getProcess(pid).residentSetSize));
+    }
+
+    /**
+     * Returns the number of threads of the process
+     */
+    public DecimalType getProcessThreads(int pid) throws DeviceNotFoundException {
+        return new DecimalType(getProcess(pid).threadCount);
+    }
+
+    private ProcessInfo getProcess(int pid) throws DeviceNotFoundException {
+        ProcessInfo process = processes.get(pid);
+        if (process == null) {
+            throw new DeviceNotFoundException("Error while getting information for process with PID " + pid);
+        }
+        return process;
+    }
+
+    private static long[] getDevice(long[][] devices, int index) throws DeviceNotFoundException {
+        if (devices == null) {
+            return null;
+        }
+        if (devices.length <= index) {
+            throw new DeviceNotFoundException("Device with index: " + index + " can not be found!");
+        }
+        return devices[index];
+    }
+
+    private static double getRate(long value, long previousValue, double seconds) {
+        // counters are reset, when a network interface is restarted
+        return value < previousValue ? Double.NaN : (value - previousValue) / seconds;
+    }
+
+    private static State getRateInKB(double bytesPerSecond) {
+        if (Double.isNaN(bytesPerSecond)) {
+            return UnDefType.UNDEF;
+        }
+        BigDecimal result = new BigDecimal(bytesPerSecond / 1024);
+        result = result.setScale(OshiSysteminfo.PRECISION_AFTER_DECIMAl_SIGN, BigDecimal.ROUND_HALF_UP);
+        return new DecimalType(result);
+    }
+
+    private static long getSizeInMB(long sizeInBytes) {
+        return sizeInBytes / (1024 * 1024);
+    }
+
+    private static BigDecimal getPercentsValue(long part, long total) {
+        if (total <= 0) {
+            return new BigDecimal(0);
+        }
+        return getPercentsValue((double) part / (double) total);
+    }
+
+    private static BigDecimal getPercentsValue(double decimalFraction) {
+        BigDecimal result = new BigDecimal(decimalFraction * 100);
+        result = result.setScale(OshiSysteminfo.PRECISION_AFTER_DECIMAl_SIGN, BigDecimal.ROUND_HALF_UP);
+        return result;
+    }
+
+    private static BigDecimal getTimeInMinutes(double timeInSeconds) {
+        BigDecimal timeInMinutes = new BigDecimal(timeInSeconds / 60);
+        timeInMinutes = timeInMinutes.setScale(OshiSysteminfo.PRECISION_AFTER_DECIMAl_SIGN, BigDecimal.ROUND_UP);
+        return timeInMinutes;
+    }
+
+    /**
+     * CPU information of a snapshot
+     */
+    static class CpuInfo {
+        private final long totalTicks;
+        private final long idleTicks;
+        private final double[] loadAverages;
+        private final long uptime;
+        private final int threadCount;
+        private double load;
+
+        /**
+         * @param totalTicks - the sum of all CPU ticks since the system start
+         * @param idleTicks - the idle and I/O wait CPU ticks since the system start
+         * @param load - the CPU load as fraction, used if there is no previous snapshot to calculate the load
+         */
+        CpuInfo(long totalTicks, long idleTicks, double load, double[] loadAverages, long uptime, int threadCount) {
+            this.totalTicks = totalTicks;
+            this.idleTicks = idleTicks;
+            this.load = load;
+            this.loadAverages = loadAverages;
+            this.uptime = uptime;
+            this.threadCount = threadCount;
+        }
+
+        private void setLoad(CpuInfo previous) {
+            long total = totalTicks - previous.totalTicks;
+            long idle = idleTicks - previous.idleTicks;
+            if (total > 0) {
+                load = (double) (total - idle) / total;
+            }
+        }
+    }
+
+    /**
+     * Memory information of a snapshot, all values in bytes
+     */
+    static class MemoryInfo {
+        private final long total;
+        private final long available;
+        private final long swapTotal;
+        private final long swapUsed;
+
+        MemoryInfo(long total, long available, long swapTotal, long swapUsed) {
+            this.total = total;
+            this.available = available;
+            this.swapTotal = swapTotal;
+            this.swapUsed = swapUsed;
+        }
+    }
+
+    /**
+     * Process information of a snapshot
+     */
+    static class ProcessInfo {
+        private final int pid;
+        private final String name;
+        private final String path;
+        private final int threadCount;
+        private final long residentSetSize;
+        private final long cpuTime;
+        private final long upTime;
+        private double load;
+
+        /**
+         * @param cpuTime - the kernel and user time of the process in ms
+         * @param upTime - the time the process is running in ms
+         */
+        ProcessInfo(int pid, String name, String path, int threadCount, long residentSetSize, long cpuTime,
+                long upTime) {
+            this.pid = pid;
+            this.name = name;
+            this.path = path;
+            this.threadCount = threadCount;
+            this.residentSetSize = residentSetSize;
+            this.cpuTime = cpuTime;
+            this.upTime = upTime;
+        }
+
+        private void setLoad(ProcessInfo previous, long elapsedNanos) {
+            // a previous process with the same PID and a longer up time has been replaced by a new process
+            if (previous != null && elapsedNanos > 0 && previous.upTime <= upTime && previous.cpuTime <= cpuTime) {
+                load = (cpuTime - previous.cpuTime) / (elapsedNanos / 1000000.0);
+            } else {
+                load = upTime > 0 ? (double) cpuTime / upTime : 0;
+            }
+        }
+    }
+}
@@ -8,9 +8,14 @@
  */
 package org.openhab.io.homekit.internal;
 
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.StateChangeListener;
@@ -26,31 +31,53 @@ import com.beowulfe.hap.HomekitCharacteristicChangeCallback;
  * Homekit library takes care of insuring only a single subscription exists for
  * each accessory.
  *
+ * Notifications are coalesced per subscription: after a notification, further changes within the minimum
+ * interval are collected and a single notification with the latest value is sent once the interval has passed.
+ * A notification is suppressed, if the value projected for the characteristic did not change since the last one.
+ *
  * @author Andy Lintner
  */
 public class HomekitAccessoryUpdater {
 
+    private static final String THREAD_POOL_NAME = "homekit";
+
+    /**
+     * Marks a subscription which has not sent a notification yet
+     */
+    private static final Object NOT_NOTIFIED = new Object();
+
     private Logger logger = LoggerFactory.getLogger(HomekitAccessoryUpdater.class);
     private final ConcurrentMap<ItemKey, Subscription> subscriptionsByName = new ConcurrentHashMap<>();
+    private volatile long minimumInterval = HomekitSettings.DEFAULT_MINIMUM_NOTIFICATION_INTERVAL;
 
     public void subscribe(GenericItem item, HomekitCharacteristicChangeCallback callback) {
         subscribe(item, null, callback);
     }
 
     public void subscribe(GenericItem item, String key, HomekitCharacteristicChangeCallback callback) {
+        subscribe(item, key, callback, GenericItem::getState);
+    }
+
+    /**
+     * Subscribes to the changes of an item
+     *
+     * @param item the item
+     * @param key optional key to distinguish several characteristics of the same item
+     * @param callback the callback to notify the Homekit clients
+     * @param projection maps the item to the value of the characteristic, changes of the item which do not change
+     *            this value are not notified
+     */
+    public void subscribe(GenericItem item, String key, HomekitCharacteristicChangeCallback callback,
+            Function<GenericItem, Object> projection) {
         if (item == null) {
             return;
         }
-        ItemKey itemKey = new ItemKey(item, key);
-        if (subscriptionsByName.containsKey(itemKey)) {
-            logger.error("Received duplicate subscription on " + item.getName());
-        }
-        subscriptionsByName.compute(itemKey, (k, v) -> {
+        subscriptionsByName.compute(new ItemKey(item.getName(), key), (k, v) -> {
             if (v != null) {
                 logger.error("Received duplicate subscription on " + item.getName());
-                unsubscribe(item, key);
+                v.cancel();
             }
-            Subscription subscription = (changedItem, oldState, newState) -> callback.changed();
+            Subscription subscription = new Subscription(item, callback, projection);
             item.addStateChangeListener(subscription);
             return subscription;
         });
@@ -64,30 +91,110 @@ public class HomekitAccessoryUpdater {
         if (item == null) {
             return;
         }
-        subscriptionsByName.computeIfPresent(new ItemKey(item, key), (k, v) -> {
-            item.removeStateChangeListener(v);
+        subscriptionsByName.computeIfPresent(new ItemKey(item.getName(), key), (k, v) -> {
+            v.cancel();
             return null;
         });
     }
 
-    @FunctionalInterface
-    private static interface Subscription extends StateChangeListener {
+    /**
+     * Moves the subscriptions of an item to the new instance of the item, after it has been updated in the registry
+     *
+     * @param item the new instance of the item
+     */
+    public void itemUpdated(GenericItem item) {
+        subscriptionsByName.forEach((k, v) -> {
+            if (k.itemName.equals(item.getName())) {
+                v.setItem(item);
+            }
+        });
+    }
+
+    /**
+     * Sets the minimum time between two notifications of the same characteristic
+     *
+     * @param minimumInterval interval in milliseconds, 0 disables the coalescing
+     */
+    public void setMinimumInterval(long minimumInterval) {
+        this.minimumInterval = Math.max(0, minimumInterval);
+    }
+
+    private class Subscription implements StateChangeListener {
+
+        private final HomekitCharacteristicChangeCallback callback;
+        private final Function<GenericItem, Object> projection;
+        private GenericItem item;
+        private Object notifiedValue = NOT_NOTIFIED;
+        private long lastNotification;
+        private ScheduledFuture<?> pendingNotification;
+
+        public Subscription(GenericItem item, HomekitCharacteristicChangeCallback callback,
+                Function<GenericItem, Object> projection) {
+            this.item = item;
+            this.callback = callback;
+            this.projection = projection;
+        }
 
         @Override
-        public abstract void stateChanged(Item item, State oldState, State newState);
+        public synchronized void stateChanged(Item changedItem, State oldState, State newState) {
+            if (pendingNotification != null) {
+                // the pending notification sends the latest value
+                return;
+            }
+            long delay = lastNotification + minimumInterval - System.currentTimeMillis();
+            if (delay <= 0) {
+                notifyChanged();
+            } else {
+                pendingNotification = ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME).schedule(() -> {
+                    synchronized (this) {
+                        if (pendingNotification != null) {
+                            pendingNotification = null;
+                            notifyChanged();
+                        }
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+        }
 
         @Override
-        default public void stateUpdated(Item item, State state) {
+        public void stateUpdated(Item item, State state) {
             // Do nothing on non-change update
         }
+
+        private void notifyChanged() {
+            Object value = projection.apply(item);
+            if (Objects.equals(value, notifiedValue)) {
+                logger.trace("Suppressed notification of unchanged value {} of {}", value, item.getName());
+                return;
+            }
+            notifiedValue = value;
+            lastNotification = System.currentTimeMillis();
+            callback.changed();
+        }
+
+        public synchronized void setItem(GenericItem item) {
+            if (this.item != item) {
+                this.item.removeStateChangeListener(this);
+                this.item = item;
+                item.addStateChangeListener(this);
+            }
+        }
+
+        public synchronized void cancel() {
+            item.removeStateChangeListener(this);
+            if (pendingNotification != null) {
+                pendingNotification.cancel(false);
+                pendingNotification = null;
+            }
+        }
     }
 
     private static class ItemKey {
-        public GenericItem item;
+        public String itemName;
         public String key;
 
-        public ItemKey(GenericItem item, String key) {
-            this.item = item;
+        public ItemKey(String itemName, String key) {
+            this.itemName = itemName;
             this.key = key;
         }
 
@@ -95,7 +202,7 @@ public class HomekitAccessoryUpdater {
         public int hashCode() {
             final int prime = 31;
             int result = 1;
-            result = prime * result + ((item == null) ? 0 : item.hashCode());
+            result = prime * result + ((itemName == null) ? 0 : itemName.hashCode());
             result = prime * result + ((key == null) ? 0 : key.hashCode());
             return result;
         }
@@ -109,10 +216,10 @@ public class HomekitAccessoryUpdater {
             if (getClass() != obj.getClass())
                 return false;
             ItemKey other = (ItemKey) obj;
-            if (item == null) {
-                if (other.item != null)
+            if (itemName == null) {
+                if (other.itemName != null)
                     return false;
-            } else if (!item.equals(other.item))
+            } else if (!itemName.equals(other.itemName))
                 return false;
             if (key == null) {
                 if (other.key != null)
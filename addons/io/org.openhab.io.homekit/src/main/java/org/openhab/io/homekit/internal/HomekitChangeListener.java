@@ -9,7 +9,11 @@
 package org.openhab.io.homekit.internal;
 
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
 
+import org.eclipse.smarthome.core.items.GenericItem;
+import org.eclipse.smarthome.core.items.GroupItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
@@ -60,9 +64,20 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
     }
 
     @Override
-    public void updated(Item oldElement, Item element) {
-        removed(oldElement);
-        added(element);
+    public synchronized void updated(Item oldElement, Item element) {
+        HomekitTaggedItem oldTaggedItem = new HomekitTaggedItem(oldElement, itemRegistry);
+        HomekitTaggedItem taggedItem = new HomekitTaggedItem(element, itemRegistry);
+        if (!oldTaggedItem.isTagged() && !taggedItem.isTagged()) {
+            return;
+        }
+        if (isSameAccessory(oldTaggedItem, taggedItem) && element instanceof GenericItem) {
+            // the accessories look up their item by name, only the subscriptions refer to the replaced instance
+            updater.itemUpdated((GenericItem) element);
+            logger.debug("Kept homekit accessory of updated item " + element.getName());
+        } else {
+            removed(oldElement);
+            added(element);
+        }
     }
 
     public synchronized void clearAccessories() {
@@ -85,6 +100,7 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
 
     public void setSettings(HomekitSettings settings) {
         this.settings = settings;
+        updater.setMinimumInterval(settings.getMinimumNotificationInterval());
     }
 
     public void stop() {
@@ -104,6 +120,27 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
         }
     }
 
+    /**
+     * Checks whether an updated item is still represented by the same accessory or characteristic
+     */
+    private boolean isSameAccessory(HomekitTaggedItem oldTaggedItem, HomekitTaggedItem taggedItem) {
+        Item oldItem = oldTaggedItem.getItem();
+        Item item = taggedItem.getItem();
+        return oldTaggedItem.getDeviceType() == taggedItem.getDeviceType()
+                && oldTaggedItem.getCharacteristicType() == taggedItem.getCharacteristicType()
+                && oldTaggedItem.getId() == taggedItem.getId() && oldItem.getClass() == item.getClass()
+                && getBaseItemClass(oldItem) == getBaseItemClass(item)
+                && Objects.equals(oldItem.getLabel(), item.getLabel())
+                && new HashSet<>(oldItem.getGroupNames()).equals(new HashSet<>(item.getGroupNames()));
+    }
+
+    private static Class<?> getBaseItemClass(Item item) {
+        if (item instanceof GroupItem && ((GroupItem) item).getBaseItem() != null) {
+            return ((GroupItem) item).getBaseItem().getClass();
+        }
+        return null;
+    }
+
     private void createCharacteristic(HomekitTaggedItem taggedItem) {
         logger.debug("Adding grouped homekit characteristic " + taggedItem.getItem().getName());
         accessoryRegistry.addCharacteristic(taggedItem);
@@ -25,6 +25,11 @@ public class HomekitSettings {
     private final static String MANUFACTURER = "openHAB";
     private final static String SERIAL_NUMBER = "none";
 
+    /**
+     * Default minimum time in milliseconds between two notifications of the same characteristic
+     */
+    public final static long DEFAULT_MINIMUM_NOTIFICATION_INTERVAL = 250;
+
     private int port = 9123;
     private String pin = "031-45-154";
     private boolean useFahrenheitTemperature = false;
@@ -35,6 +40,7 @@ public class HomekitSettings {
     private String thermostatAutoMode = "Auto";
     private String thermostatOffMode = "Off";
     private InetAddress networkInterface;
+    private long minimumNotificationInterval = DEFAULT_MINIMUM_NOTIFICATION_INTERVAL;
 
     public void fill(Dictionary<String, ?> properties) throws UnknownHostException {
         Object port = properties.get("port");
@@ -75,6 +81,13 @@ public class HomekitSettings {
         } else {
             this.networkInterface = InetAddress.getByName(networkInterface);
         }
+
+        Object minimumNotificationInterval = properties.get("minimumNotificationInterval");
+        if (minimumNotificationInterval instanceof Number) {
+            this.minimumNotificationInterval = ((Number) minimumNotificationInterval).longValue();
+        } else if (minimumNotificationInterval instanceof String) {
+            this.minimumNotificationInterval = Long.parseLong(((String) minimumNotificationInterval).trim());
+        }
     }
 
     private static String getOrDefault(Object value, String defaultValue) {
@@ -140,6 +153,10 @@ public class HomekitSettings {
         return thermostatOffMode;
     }
 
+    public long getMinimumNotificationInterval() {
+        return minimumNotificationInterval;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -149,6 +166,7 @@ public class HomekitSettings {
         result = prime * result + (int) (temp ^ (temp >>> 32));
         temp = Double.doubleToLongBits(minimumTemperature);
         result = prime * result + (int) (temp ^ (temp >>> 32));
+        result = prime * result + (int) (minimumNotificationInterval ^ (minimumNotificationInterval >>> 32));
         result = prime * result + ((pin == null) ? 0 : pin.hashCode());
         result = prime * result + port;
         result = prime * result + ((thermostatAutoMode == null) ? 0 : thermostatAutoMode.hashCode());
@@ -177,6 +195,9 @@ public class HomekitSettings {
         if (Double.doubleToLongBits(minimumTemperature) != Double.doubleToLongBits(other.minimumTemperature)) {
             return false;
         }
+        if (minimumNotificationInterval != other.minimumNotificationInterval) {
+            return false;
+        }
         if (pin == null) {
             if (other.pin != null) {
                 return false;
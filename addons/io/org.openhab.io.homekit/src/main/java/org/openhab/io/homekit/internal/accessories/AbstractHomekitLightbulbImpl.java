@@ -53,7 +53,7 @@ abstract class AbstractHomekitLightbulbImpl<T extends SwitchItem> extends Abstra
 
     @Override
     public void subscribeLightbulbPowerState(HomekitCharacteristicChangeCallback callback) {
-        getUpdater().subscribe(getItem(), callback);
+        getUpdater().subscribe(getItem(), null, callback, item -> item.getStateAs(OnOffType.class));
     }
 
     @Override
@@ -9,7 +9,9 @@
 package org.openhab.io.homekit.internal.accessories;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
+import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.library.items.ColorItem;
 import org.eclipse.smarthome.core.library.types.DecimalType;
@@ -122,17 +124,18 @@ class HomekitColorfulLightbulbImpl extends AbstractHomekitLightbulbImpl<ColorIte
 
     @Override
     public void subscribeHue(HomekitCharacteristicChangeCallback callback) {
-        getUpdater().subscribe(getItem(), "hue", callback);
+        getUpdater().subscribe(getItem(), "hue", callback, item -> getHsbComponent(item, HSBType::getHue));
     }
 
     @Override
     public void subscribeSaturation(HomekitCharacteristicChangeCallback callback) {
-        getUpdater().subscribe(getItem(), "saturation", callback);
+        getUpdater().subscribe(getItem(), "saturation", callback,
+                item -> getHsbComponent(item, HSBType::getSaturation));
     }
 
     @Override
     public void subscribeBrightness(HomekitCharacteristicChangeCallback callback) {
-        getUpdater().subscribe(getItem(), "brightness", callback);
+        getUpdater().subscribe(getItem(), "brightness", callback, item -> item.getStateAs(PercentType.class));
     }
 
     @Override
@@ -150,4 +153,9 @@ class HomekitColorfulLightbulbImpl extends AbstractHomekitLightbulbImpl<ColorIte
         getUpdater().unsubscribe(getItem(), "brightness");
     }
 
+    private static Object getHsbComponent(GenericItem item, Function<HSBType, Object> component) {
+        State state = item.getStateAs(HSBType.class);
+        return state instanceof HSBType ? component.apply((HSBType) state) : null;
+    }
+
 }
@@ -58,7 +58,7 @@ class HomekitDimmableLightbulbImpl extends AbstractHomekitLightbulbImpl<DimmerIt
 
     @Override
     public void subscribeBrightness(HomekitCharacteristicChangeCallback callback) {
-        getUpdater().subscribe(getItem(), "brightness", callback);
+        getUpdater().subscribe(getItem(), "brightness", callback, item -> item.getStateAs(PercentType.class));
     }
 
     @Override
@@ -51,7 +51,7 @@ public class HomekitSwitchImpl extends AbstractHomekitAccessoryImpl<SwitchItem>i
 
     @Override
     public void subscribeSwitchState(HomekitCharacteristicChangeCallback callback) {
-        getUpdater().subscribe(getItem(), callback);
+        getUpdater().subscribe(getItem(), null, callback, item -> item.getStateAs(OnOffType.class));
     }
 
     @Override
@@ -0,0 +1,266 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.types.State;
+import org.openhab.io.hueemulation.internal.api.HueDevice;
+import org.openhab.io.hueemulation.internal.api.HueState;
+
+import com.google.gson.Gson;
+
+/**
+ * Keeps an index of all items with a supported tag and caches their JSON representation as Hue devices.
+ *
+ * The index is maintained from the changes of the item registry, the JSON of a single device is rendered again only
+ * if the state of its item changes. The JSON documents of all devices are assembled from the cached device fragments
+ * on the first request after a change. Every change increases the version of the cache.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class HueDeviceCache implements ItemRegistryChangeListener {
+
+    private static final Set<String> SUPPORTED_TAGS = Collections
+            .unmodifiableSet(new HashSet<String>(Arrays.asList("Switchable", "Lighting", "TargetTemperature")));
+
+    private final Gson gson = new Gson();
+    private ItemRegistry itemRegistry;
+
+    /**
+     * Tagged items and the JSON fragments of their Hue devices by item name
+     */
+    private final Map<String, Item> items = new TreeMap<String, Item>();
+    private final Map<String, String> deviceFragments = new TreeMap<String, String>();
+
+    private long version;
+    private volatile String devicesJson;
+    private volatile String deviceNamesJson;
+    private volatile String[] deviceNames;
+
+    /**
+     * Starts tracking the items of the given registry
+     */
+    public synchronized void setItemRegistry(ItemRegistry itemRegistry) {
+        this.itemRegistry = itemRegistry;
+        itemRegistry.addRegistryChangeListener(this);
+        addAll(itemRegistry.getItems());
+    }
+
+    /**
+     * Stops tracking the items of the registry and clears the cache
+     */
+    public synchronized void unsetItemRegistry(ItemRegistry itemRegistry) {
+        itemRegistry.removeRegistryChangeListener(this);
+        this.itemRegistry = null;
+        clear();
+    }
+
+    @Override
+    public synchronized void added(Item item) {
+        if (isTagged(item)) {
+            items.put(item.getName(), item);
+            deviceFragments.put(item.getName(), gson.toJson(itemToDevice(item)));
+            invalidate(true);
+        }
+    }
+
+    @Override
+    public synchronized void removed(Item item) {
+        if (items.remove(item.getName()) != null) {
+            deviceFragments.remove(item.getName());
+            invalidate(true);
+        }
+    }
+
+    @Override
+    public synchronized void updated(Item oldElement, Item element) {
+        removed(oldElement);
+        added(element);
+    }
+
+    @Override
+    public synchronized void allItemsChanged(Collection<String> oldItemNames) {
+        clear();
+        if (itemRegistry != null) {
+            addAll(itemRegistry.getItems());
+        }
+    }
+
+    /**
+     * Renders the device of a tagged item again, after the state of the item has changed
+     *
+     * @param itemName
+     *            name of the item
+     */
+    public synchronized void stateChanged(String itemName) {
+        Item item = items.get(itemName);
+        if (item != null) {
+            deviceFragments.put(itemName, gson.toJson(itemToDevice(item)));
+            invalidate(false);
+        }
+    }
+
+    /**
+     * Returns the JSON of the Hue device of a tagged item
+     *
+     * @param itemName
+     *            name of the item
+     * @return
+     *         JSON document or null, if the item is unknown or not tagged
+     */
+    public synchronized String getDeviceJson(String itemName) {
+        return deviceFragments.get(itemName);
+    }
+
+    /**
+     * Returns the JSON object of all Hue devices
+     *
+     * @return
+     *         JSON object {item name: HueDevice}
+     */
+    public String getDevicesJson() {
+        String json = devicesJson;
+        if (json == null) {
+            synchronized (this) {
+                if (devicesJson == null) {
+                    StringBuilder builder = new StringBuilder("{");
+                    for (Map.Entry<String, String> fragment : deviceFragments.entrySet()) {
+                        if (builder.length() > 1) {
+                            builder.append(',');
+                        }
+                        builder.append(gson.toJson(fragment.getKey())).append(':').append(fragment.getValue());
+                    }
+                    devicesJson = builder.append('}').toString();
+                }
+                json = devicesJson;
+            }
+        }
+        return json;
+    }
+
+    /**
+     * Returns the JSON object of the names of all Hue devices
+     *
+     * @return
+     *         JSON object {item name: item label}
+     */
+    public String getDeviceNamesJson() {
+        String json = deviceNamesJson;
+        if (json == null) {
+            synchronized (this) {
+                if (deviceNamesJson == null) {
+                    Map<String, String> names = new TreeMap<String, String>();
+                    for (Item item : items.values()) {
+                        names.put(item.getName(), item.getLabel());
+                    }
+                    deviceNamesJson = gson.toJson(names);
+                }
+                json = deviceNamesJson;
+            }
+        }
+        return json;
+    }
+
+    /**
+     * Returns the item names of all Hue devices
+     */
+    public String[] getDeviceNames() {
+        String[] names = deviceNames;
+        if (names == null) {
+            synchronized (this) {
+                if (deviceNames == null) {
+                    deviceNames = items.keySet().toArray(new String[items.size()]);
+                }
+                names = deviceNames;
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Returns the version of the cache, which is increased with every change of a device
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Converts an Item to a HueDevice
+     *
+     * @param item
+     * @return
+     *         HueDevice
+     */
+    public static HueDevice itemToDevice(Item item) {
+        State itemState = item.getState();
+        HueState hueState;
+        if (itemState instanceof HSBType) {
+            HSBType color = (HSBType) itemState;
+            hueState = new HueState(color);
+        } else if (itemState instanceof DecimalType) {
+            short bri = (short) ((((DecimalType) itemState).intValue() * 255) / 100);
+            hueState = new HueState(bri);
+        } else if (itemState instanceof OnOffType) {
+            short bri = (short) (((OnOffType) itemState) == OnOffType.ON ? 255 : 0);
+            hueState = new HueState(bri);
+        } else {
+            hueState = new HueState((short) 0);
+        }
+
+        HueDevice d = new HueDevice(hueState, item.getLabel(), item.getName());
+        return d;
+    }
+
+    private void addAll(Collection<Item> items) {
+        for (Item item : items) {
+            added(item);
+        }
+    }
+
+    private void clear() {
+        items.clear();
+        deviceFragments.clear();
+        invalidate(true);
+    }
+
+    /**
+     * Drops the assembled JSON documents, the device names are only affected by changes of the registry
+     */
+    private void invalidate(boolean registryChanged) {
+        version++;
+        devicesJson = null;
+        if (registryChanged) {
+            deviceNamesJson = null;
+            deviceNames = null;
+        }
+    }
+
+    private boolean isTagged(Item item) {
+        for (String tag : item.getTags()) {
+            if (SUPPORTED_TAGS.contains(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
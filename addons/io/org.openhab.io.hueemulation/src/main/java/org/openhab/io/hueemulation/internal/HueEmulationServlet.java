@@ -13,15 +13,12 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.net.InetAddress;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.Dictionary;
-import java.util.HashMap;
 import java.util.Hashtable;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -31,22 +28,21 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventFilter;
 import org.eclipse.smarthome.core.events.EventPublisher;
+import org.eclipse.smarthome.core.events.EventSubscriber;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemNotFoundException;
 import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.items.events.ItemEventFactory;
-import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.items.events.ItemStateChangedEvent;
 import org.eclipse.smarthome.core.library.types.HSBType;
-import org.eclipse.smarthome.core.library.types.OnOffType;
 import org.eclipse.smarthome.core.types.Command;
-import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.TypeParser;
+import org.openhab.io.hueemulation.internal.api.HueConfig;
 import org.openhab.io.hueemulation.internal.api.HueCreateUser;
-import org.openhab.io.hueemulation.internal.api.HueDataStore;
-import org.openhab.io.hueemulation.internal.api.HueDevice;
 import org.openhab.io.hueemulation.internal.api.HueErrorResponse;
 import org.openhab.io.hueemulation.internal.api.HueGroup;
 import org.openhab.io.hueemulation.internal.api.HueState;
@@ -64,7 +60,7 @@ import com.google.gson.Gson;
  *
  */
 @SuppressWarnings("serial")
-public class HueEmulationServlet extends HttpServlet {
+public class HueEmulationServlet extends HttpServlet implements EventSubscriber {
     private Logger logger = LoggerFactory.getLogger(HueEmulationServlet.class);
     private static final String CONFIG_PAIRING_ENABLED = "pairingEnabled";
     private static final String CONFIG_DISCOVERY_IP = "discoveryIp";
@@ -81,11 +77,10 @@ public class HueEmulationServlet extends HttpServlet {
     private static final File UDN_FILE = new File(
             ConfigConstants.getUserDataFolder() + File.separator + "hueemulation" + File.separator + "udn");
 
-    private static final String[] SUPPORTED_TAGS = new String[] { "Switchable", "Lighting", "TargetTemperature" };
-
     private Gson gson = new Gson();
     private HttpService httpService;
     private ItemRegistry itemRegistry;
+    private HueDeviceCache deviceCache = new HueDeviceCache();
     private EventPublisher eventPublisher;
     private HueEmulationUpnpServer disco;
     private String udn;
@@ -155,9 +150,11 @@ public class HueEmulationServlet extends HttpServlet {
 
     protected void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
+        deviceCache.setItemRegistry(itemRegistry);
     }
 
     protected void unsetItemRegistry(ItemRegistry itemRegistry) {
+        deviceCache.unsetItemRegistry(itemRegistry);
         this.itemRegistry = null;
     }
 
@@ -269,6 +266,11 @@ public class HueEmulationServlet extends HttpServlet {
                         default:
                             break;
                     }
+                } else if ("config".equals(function) && pathParts.length == 2) {
+                    /**
+                     * /api/{username}/config
+                     */
+                    apiBridgeConfig(req, resp);
                 } else {
                     apiServerError(req, resp, HueErrorResponse.NOT_AVAILABLE, "Hue resource not available");
                 }
@@ -344,9 +346,13 @@ public class HueEmulationServlet extends HttpServlet {
      */
     private void apiLight(String id, HttpServletRequest req, HttpServletResponse resp) throws IOException {
         try {
-            Item item = itemRegistry.getItem(id);
+            String json = deviceCache.getDeviceJson(id);
+            if (json == null) {
+                // the item is not tagged, but it can still be addressed directly
+                json = gson.toJson(HueDeviceCache.itemToDevice(itemRegistry.getItem(id)));
+            }
             PrintWriter out = resp.getWriter();
-            out.write(gson.toJson(itemToDevice(item)));
+            out.write(json);
             out.close();
         } catch (ItemNotFoundException e) {
             logger.debug("Item not found: " + id);
@@ -362,8 +368,11 @@ public class HueEmulationServlet extends HttpServlet {
      * @throws IOException
      */
     public void apiLights(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (isNotModified(req, resp)) {
+            return;
+        }
         PrintWriter out = resp.getWriter();
-        out.write(gson.toJson(getHueDeviceNames()));
+        out.write(deviceCache.getDeviceNamesJson());
         out.close();
     }
 
@@ -376,12 +385,28 @@ public class HueEmulationServlet extends HttpServlet {
      */
     public void apiGroupZero(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         PrintWriter out = resp.getWriter();
-        String[] lights = getHueDeviceNames().keySet().toArray(new String[0]);
+        String[] lights = deviceCache.getDeviceNames();
         HueState action = new HueState();
         out.write(gson.toJson(new HueGroup("0", lights, action)));
         out.close();
     }
 
+    /**
+     * HUE API call to get the configuration of the bridge, including the number of answered and suppressed UPNP
+     * discovery requests
+     *
+     * @param req
+     * @param resp
+     * @throws IOException
+     */
+    public void apiBridgeConfig(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        HueEmulationUpnpServer disco = this.disco;
+        PrintWriter out = resp.getWriter();
+        out.write(gson.toJson(new HueConfig(req.getLocalAddr(), disco != null ? disco.getAnsweredQueries() : 0,
+                disco != null ? disco.getSuppressedQueries() : 0)));
+        out.close();
+    }
+
     /**
      * HUE API call to get the Data Store of the bridge (only lights supported for now)
      *
@@ -390,10 +415,31 @@ public class HueEmulationServlet extends HttpServlet {
      * @throws IOException
      */
     public void apiDataStore(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (isNotModified(req, resp)) {
+            return;
+        }
         PrintWriter out = resp.getWriter();
-        HueDataStore ds = new HueDataStore();
-        ds.lights = getHueDevices();
-        out.write(gson.toJson(ds));
+        // same document as a serialized HueDataStore
+        out.write("{\"lights\":" + deviceCache.getDevicesJson() + "}");
+    }
+
+    /**
+     * Sets the version of the device cache as ETag and answers with 304 (Not Modified), if the client already has
+     * the current version
+     *
+     * @param req
+     * @param resp
+     * @return
+     *         true, if the response has been sent
+     */
+    private boolean isNotModified(HttpServletRequest req, HttpServletResponse resp) {
+        String eTag = "\"" + deviceCache.getVersion() + "\"";
+        resp.setHeader("ETag", eTag);
+        if (eTag.equals(req.getHeader("If-None-Match"))) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -452,7 +498,8 @@ public class HueEmulationServlet extends HttpServlet {
     }
 
     /**
-     * Generates the XML Discovery document
+     * Generates the XML Discovery document. The URL base is the address and port the request arrived on, because the
+     * UPNP server advertises the address of every interface to the requesters on its subnet.
      *
      * @return
      *         XML document
@@ -462,100 +509,19 @@ public class HueEmulationServlet extends HttpServlet {
             xmlDoc = IOUtils.toString(getClass().getClassLoader().getResourceAsStream("discovery.xml"), "UTF-8");
         }
 
-        InetAddress address = disco.getAddress();
-        if (address == null) {
-            return;
+        String address = req.getLocalAddr();
+        if (address.indexOf(':') >= 0) {
+            // IPv6 literal
+            address = "[" + address + "]";
         }
 
-        String formattedXML = String.format(xmlDoc, address.getHostAddress(),
-                System.getProperty("org.osgi.service.http.port"), getUDN());
+        String formattedXML = String.format(xmlDoc, address, req.getLocalPort(), getUDN());
         resp.setContentType(APPLICATION_XML);
         PrintWriter out = resp.getWriter();
         out.write(formattedXML);
         out.close();
     }
 
-    /**
-     * Returns a map of all our items that have voice tags.
-     *
-     * @param username
-     * @return
-     *         Map <item name, HueDevice>
-     */
-    private Map<String, HueDevice> getHueDevices() {
-        Collection<Item> items = getTaggedItems();
-        Map<String, HueDevice> devices = new HashMap<String, HueDevice>();
-        Iterator<Item> it = items.iterator();
-        while (it.hasNext()) {
-            Item item = it.next();
-            devices.put(item.getName(), itemToDevice(item));
-        }
-        return devices;
-    }
-
-    /**
-     * Returns the item name and voice name of each item
-     *
-     * @param username
-     * @return
-     *         Map<item name, item voice tag>
-     */
-    public Map<String, String> getHueDeviceNames() {
-        Collection<Item> items = getTaggedItems();
-        Map<String, String> devices = new HashMap<String, String>();
-        Iterator<Item> it = items.iterator();
-        while (it.hasNext()) {
-            Item item = it.next();
-            devices.put(item.getName(), item.getLabel());
-        }
-        return devices;
-    }
-
-    /**
-     * Converts an Item to a HueDevice
-     *
-     * @param item
-     * @return
-     *         HueDevice
-     */
-    private HueDevice itemToDevice(Item item) {
-        State itemState = item.getState();
-        HueState hueState;
-        if (itemState instanceof HSBType) {
-            HSBType color = (HSBType) itemState;
-            hueState = new HueState(color);
-        } else if (itemState instanceof DecimalType) {
-            short bri = (short) ((((DecimalType) itemState).intValue() * 255) / 100);
-            hueState = new HueState(bri);
-        } else if (itemState instanceof OnOffType) {
-            short bri = (short) (((OnOffType) itemState) == OnOffType.ON ? 255 : 0);
-            hueState = new HueState(bri);
-        } else {
-            hueState = new HueState((short) 0);
-        }
-
-        HueDevice d = new HueDevice(hueState, item.getLabel(), item.getName());
-        return d;
-    }
-
-    /**
-     * Gets all items that match our tag
-     *
-     * @return
-     */
-    private Collection<Item> getTaggedItems() {
-        Collection<Item> items = new LinkedList<Item>();
-        for (Item item : itemRegistry.getItems()) {
-            for (String tag : item.getTags()) {
-                if (ArrayUtils.contains(SUPPORTED_TAGS, tag)) {
-                    items.add(item);
-                    break;
-                }
-            }
-        }
-        return items;
-    }
-
     /**
      * Checks if the username exists in our user list
      *
@@ -636,4 +602,19 @@ public class HueEmulationServlet extends HttpServlet {
     public boolean getPairingEnabled() {
         return pairingEnabled;
     }
+
+    @Override
+    public Set<String> getSubscribedEventTypes() {
+        return Collections.singleton(ItemStateChangedEvent.TYPE);
+    }
+
+    @Override
+    public EventFilter getEventFilter() {
+        return null;
+    }
+
+    @Override
+    public void receive(Event event) {
+        deviceCache.stateChanged(((ItemStateChangedEvent) event).getItemName());
+    }
 }
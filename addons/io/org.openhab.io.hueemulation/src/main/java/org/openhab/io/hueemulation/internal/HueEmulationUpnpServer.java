@@ -9,15 +9,26 @@
 package org.openhab.io.hueemulation.internal;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.MulticastSocket;
+import java.net.InterfaceAddress;
 import java.net.NetworkInterface;
-import java.net.SocketException;
-import java.util.Enumeration;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
@@ -26,6 +37,11 @@ import org.slf4j.LoggerFactory;
 /**
  * Advertises a Hue UPNP compatible bridge
  *
+ * A single non blocking channel receives the SSDP packets of all interfaces. The responses are rendered once per
+ * interface address, the address in the same subnet as the requester is advertised. A requester repeating the same
+ * M-SEARCH (same search target) within {@link #REPLY_INTERVAL} gets only one response; the interval is well below the
+ * smallest MX of one second, so retransmitted searches are still answered.
+ *
  * @author Dan Cunningham
  *
  */
@@ -35,11 +51,40 @@ public class HueEmulationUpnpServer extends Thread {
     // jUPNP shares port 1900, but since this is multicast, we can also bind to it
     static final private int UPNP_PORT_RECV = 1900;
     static final private String MULTI_ADDR = "239.255.255.250";
-    private boolean running;
+
+    /**
+     * Minimum time in milliseconds between two responses to the same search of the same requester
+     */
+    static final private long REPLY_INTERVAL = 100;
+
+    /**
+     * Maximum number of searches, which are remembered for rate limiting
+     */
+    static final private int MAX_REQUESTERS = 256;
+
+    static final private byte[] M_SEARCH = "M-SEARCH".getBytes(StandardCharsets.US_ASCII);
+    static final private String ST_HEADER = "\r\nST:";
+
+    private volatile boolean running;
     private String discoPath;
     private String usn;
-    private InetAddress address;
+    private volatile InetAddress address;
     private String discoveryIp;
+    private volatile Selector selector;
+
+    /**
+     * Pre-rendered responses by advertised interface address
+     */
+    private final Map<InterfaceAddress, ByteBuffer> responses = new HashMap<InterfaceAddress, ByteBuffer>();
+    private ByteBuffer defaultResponse;
+
+    /**
+     * Time of the last response by requester and search target
+     */
+    private final Map<String, Long> lastReplies = new HashMap<String, Long>();
+
+    private final AtomicLong answeredQueries = new AtomicLong();
+    private final AtomicLong suppressedQueries = new AtomicLong();
 
     private String discoString = "HTTP/1.1 200 OK\r\n" + "CACHE-CONTROL: max-age=100\r\n" + "EXT:\r\n"
             + "LOCATION: %s\r\n" + "SERVER: FreeRTOS/7.4.2 UPnP/1.0 IpBridge/1.10.0\r\n"
@@ -67,67 +112,53 @@ public class HueEmulationUpnpServer extends Thread {
      */
     public void shutdown() {
         this.running = false;
+        Selector s = selector;
+        if (s != null) {
+            s.wakeup();
+        }
+        logger.debug("UPNP server answered {} and suppressed {} discovery requests", answeredQueries.get(),
+                suppressedQueries.get());
     }
 
     @Override
     public void run() {
-        MulticastSocket recvSocket = null;
-        // since jupnp shares port 1900, lets use a different port to send UDP packets on just to be safe.
-        DatagramSocket sendSocket = null;
-        byte[] buf = new byte[1000];
-        DatagramPacket recv = new DatagramPacket(buf, buf.length);
+        ByteBuffer recv = ByteBuffer.allocate(1000);
         while (running) {
+            DatagramChannel recvChannel = null;
+            // since jupnp shares port 1900, lets use a different port to send UDP packets on just to be safe.
+            DatagramChannel sendChannel = null;
             try {
-                if (discoveryIp != null && discoveryIp.trim().length() > 0) {
-                    address = InetAddress.getByName(discoveryIp);
-                } else {
-                    Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
-                    while (interfaces.hasMoreElements()) {
-                        NetworkInterface ni = interfaces.nextElement();
-                        Enumeration<InetAddress> addresses = ni.getInetAddresses();
-                        while (addresses.hasMoreElements()) {
-                            InetAddress addr = addresses.nextElement();
-                            if (addr instanceof Inet4Address && !addr.isLoopbackAddress()) {
-                                address = addr;
-                                break;
-                            }
-                        }
-                    }
-                }
-                InetSocketAddress socketAddr = new InetSocketAddress(MULTI_ADDR, UPNP_PORT_RECV);
-                recvSocket = new MulticastSocket(UPNP_PORT_RECV);
-                recvSocket.joinGroup(socketAddr, NetworkInterface.getByInetAddress(address));
-                sendSocket = new DatagramSocket();
+                selector = Selector.open();
+                recvChannel = DatagramChannel.open(StandardProtocolFamily.INET);
+                recvChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+                recvChannel.bind(new InetSocketAddress(UPNP_PORT_RECV));
+                recvChannel.configureBlocking(false);
+                joinGroup(recvChannel);
+                recvChannel.register(selector, SelectionKey.OP_READ);
+
+                sendChannel = DatagramChannel.open(StandardProtocolFamily.INET);
+                sendChannel.configureBlocking(false);
+
                 while (running) {
-                    recvSocket.receive(recv);
-                    if (recv.getLength() > 0) {
-                        String data = new String(recv.getData());
-                        logger.trace("Got SSDP Discovery packet from " + recv.getAddress().getHostAddress() + ":"
-                                + recv.getPort());
-                        if (data.startsWith("M-SEARCH")) {
-                            String msg = String
-                                    .format(discoString,
-                                            "http://" + address.getHostAddress().toString() + ":"
-                                                    + System.getProperty("org.osgi.service.http.port") + discoPath,
-                                            usn);
-                            DatagramPacket response = new DatagramPacket(msg.getBytes(), msg.length(),
-                                    recv.getAddress(), recv.getPort());
-                            try {
-                                logger.trace("Sending to " + recv.getAddress().getHostAddress() + " : " + msg);
-                                sendSocket.send(response);
-                            } catch (IOException e) {
-                                logger.error("Could not send UPNP response", e);
-                            }
+                    if (selector.select() == 0) {
+                        continue;
+                    }
+                    selector.selectedKeys().clear();
+                    SocketAddress requester;
+                    while ((requester = recvChannel.receive(recv)) != null) {
+                        recv.flip();
+                        if (isSearchRequest(recv)) {
+                            respond(sendChannel, (InetSocketAddress) requester, getSearchTarget(recv));
                         }
+                        recv.clear();
                     }
                 }
-            } catch (SocketException e) {
-                logger.error("Socket error with UPNP server", e);
             } catch (IOException e) {
                 logger.error("IO Error with UPNP server", e);
             } finally {
-                IOUtils.closeQuietly(recvSocket);
-                IOUtils.closeQuietly(sendSocket);
+                IOUtils.closeQuietly(recvChannel);
+                IOUtils.closeQuietly(sendChannel);
+                IOUtils.closeQuietly(selector);
                 if (running) {
                     try {
                         Thread.sleep(3000);
@@ -138,7 +169,174 @@ public class HueEmulationUpnpServer extends Thread {
         }
     }
 
+    /**
+     * Joins the SSDP multicast group on the interface of the discovery IP or on all multicast capable interfaces and
+     * renders the responses for their addresses
+     */
+    private void joinGroup(DatagramChannel channel) throws IOException {
+        InetAddress group = InetAddress.getByName(MULTI_ADDR);
+        String location = "http://%s:" + System.getProperty("org.osgi.service.http.port") + discoPath;
+        responses.clear();
+        defaultResponse = null;
+
+        List<NetworkInterface> interfaces = new ArrayList<NetworkInterface>();
+        if (discoveryIp != null && discoveryIp.trim().length() > 0) {
+            address = InetAddress.getByName(discoveryIp);
+            NetworkInterface ni = NetworkInterface.getByInetAddress(address);
+            if (ni != null) {
+                interfaces.add(ni);
+            }
+            defaultResponse = renderResponse(location, address);
+        } else {
+            address = null;
+            for (NetworkInterface ni : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                if (ni.isUp() && !ni.isLoopback() && ni.supportsMulticast()) {
+                    interfaces.add(ni);
+                }
+            }
+        }
+
+        for (NetworkInterface ni : interfaces) {
+            boolean hasAddress = false;
+            for (InterfaceAddress interfaceAddress : ni.getInterfaceAddresses()) {
+                InetAddress addr = interfaceAddress.getAddress();
+                if (addr instanceof Inet4Address && !addr.isLoopbackAddress()) {
+                    hasAddress = true;
+                    if (defaultResponse == null) {
+                        address = addr;
+                        defaultResponse = renderResponse(location, addr);
+                    }
+                    if (discoveryIp == null || discoveryIp.trim().length() == 0) {
+                        responses.put(interfaceAddress, renderResponse(location, addr));
+                    }
+                }
+            }
+            if (hasAddress) {
+                try {
+                    channel.join(group, ni);
+                    logger.debug("Joined UPNP multicast group on interface {}", ni.getName());
+                } catch (IOException e) {
+                    logger.warn("Could not join UPNP multicast group on interface {}: {}", ni.getName(),
+                            e.getMessage());
+                }
+            }
+        }
+
+        if (defaultResponse == null) {
+            throw new IOException("No network interface with an IPv4 address found");
+        }
+    }
+
+    private ByteBuffer renderResponse(String location, InetAddress addr) {
+        String msg = String.format(discoString, String.format(location, addr.getHostAddress()), usn);
+        return ByteBuffer.wrap(msg.getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+    }
+
+    private boolean isSearchRequest(ByteBuffer packet) {
+        if (packet.remaining() < M_SEARCH.length) {
+            return false;
+        }
+        for (int i = 0; i < M_SEARCH.length; i++) {
+            if (packet.get(packet.position() + i) != M_SEARCH[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value of the ST header of a M-SEARCH request or an empty string if it has none
+     */
+    private String getSearchTarget(ByteBuffer packet) {
+        String data = new String(packet.array(), packet.position(), packet.remaining(), StandardCharsets.US_ASCII);
+        int start = data.toUpperCase().indexOf(ST_HEADER);
+        if (start < 0) {
+            return "";
+        }
+        start += ST_HEADER.length();
+        int end = data.indexOf("\r\n", start);
+        return (end < 0 ? data.substring(start) : data.substring(start, end)).trim();
+    }
+
+    private void respond(DatagramChannel sendChannel, InetSocketAddress requester, String searchTarget) {
+        long now = System.currentTimeMillis();
+        String search = requester + " " + searchTarget;
+        Long lastReply = lastReplies.get(search);
+        if (lastReply != null && now - lastReply < REPLY_INTERVAL) {
+            suppressedQueries.incrementAndGet();
+            logger.trace("Suppressed repeated SSDP Discovery packet from {} for {}", requester, searchTarget);
+            return;
+        }
+        if (lastReplies.size() >= MAX_REQUESTERS) {
+            removeExpiredRequesters(now);
+        }
+        lastReplies.put(search, now);
+
+        ByteBuffer response = getResponse(requester.getAddress()).duplicate();
+        try {
+            logger.trace("Sending SSDP response to {}", requester);
+            if (sendChannel.send(response, requester) > 0) {
+                answeredQueries.incrementAndGet();
+            } else {
+                logger.debug("Send buffer is full, dropped UPNP response to {}", requester);
+            }
+        } catch (IOException e) {
+            logger.error("Could not send UPNP response", e);
+        }
+    }
+
+    /**
+     * Returns the response with the interface address in the same subnet as the requester
+     */
+    private ByteBuffer getResponse(InetAddress requester) {
+        byte[] requesterBytes = requester.getAddress();
+        for (Map.Entry<InterfaceAddress, ByteBuffer> entry : responses.entrySet()) {
+            byte[] interfaceBytes = entry.getKey().getAddress().getAddress();
+            if (requesterBytes.length == interfaceBytes.length
+                    && isSameSubnet(requesterBytes, interfaceBytes, entry.getKey().getNetworkPrefixLength())) {
+                return entry.getValue();
+            }
+        }
+        return defaultResponse;
+    }
+
+    private static boolean isSameSubnet(byte[] a, byte[] b, int prefixLength) {
+        for (int i = 0; i < a.length && prefixLength > 0; i++, prefixLength -= 8) {
+            int mask = prefixLength >= 8 ? 0xFF : (0xFF << (8 - prefixLength)) & 0xFF;
+            if ((a[i] & mask) != (b[i] & mask)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removeExpiredRequesters(long now) {
+        Iterator<Long> it = lastReplies.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next() >= REPLY_INTERVAL) {
+                it.remove();
+            }
+        }
+        if (lastReplies.size() >= MAX_REQUESTERS) {
+            lastReplies.clear();
+        }
+    }
+
     public InetAddress getAddress() {
         return address;
     }
+
+    /**
+     * Returns the number of discovery requests, which have been answered
+     */
+    public long getAnsweredQueries() {
+        return answeredQueries.get();
+    }
+
+    /**
+     * Returns the number of repeated discovery requests, which have not been answered
+     */
+    public long getSuppressedQueries() {
+        return suppressedQueries.get();
+    }
 }
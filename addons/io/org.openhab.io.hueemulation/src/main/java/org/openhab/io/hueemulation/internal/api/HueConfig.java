@@ -0,0 +1,28 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal.api;
+
+/**
+ * Hue API config object, extended by the statistics of the UPNP discovery
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class HueConfig {
+    public String name = "openHAB Hue Emulation";
+    public String ipaddress;
+    public long answeredDiscoveryQueries;
+    public long suppressedDiscoveryQueries;
+
+    public HueConfig(String ipaddress, long answeredDiscoveryQueries, long suppressedDiscoveryQueries) {
+        this.ipaddress = ipaddress;
+        this.answeredDiscoveryQueries = answeredDiscoveryQueries;
+        this.suppressedDiscoveryQueries = suppressedDiscoveryQueries;
+    }
+}
@@ -107,7 +107,7 @@ public class ImperiHomeApiServlet extends HttpServlet {
         actionRegistry = new ActionRegistry(eventPublisher);
         itemProcessor = new ItemProcessor(itemRegistry, deviceRegistry, actionRegistry);
         roomListHandler = new RoomListHandler(deviceRegistry);
-        devicesListHandler = new DevicesListHandler(deviceRegistry);
+        devicesListHandler = new DevicesListHandler(deviceRegistry, gson);
         deviceActionHandler = new DeviceActionHandler(deviceRegistry);
         deviceHistoryHandler = new DeviceHistoryHandler(deviceRegistry, persistenceServiceRegistry);
 
@@ -190,11 +190,15 @@ public class ImperiHomeApiServlet extends HttpServlet {
         if (URL_PATTERN_ROOMS.matcher(path).matches()) {
             response = roomListHandler.handle(req);
         } else if (URL_PATTERN_DEVICES.matcher(path).matches()) {
-            response = devicesListHandler.handle(req);
+            // the device list is cached as JSON and written directly
+            devicesListHandler.handle(req, resp);
+            return;
         } else if (actionMatcher.matches()) {
             deviceActionHandler.handle(req, actionMatcher);
         } else if (historyMatcher.matches()) {
-            response = deviceHistoryHandler.handle(req, historyMatcher);
+            // the history is written directly, it is not serialized from a response object
+            deviceHistoryHandler.handle(req, historyMatcher, resp.getWriter());
+            return;
         } else if (URL_PATTERN_SYSTEM.matcher(path).matches()) {
             response = systemHandler.handle(req);
         } else {
@@ -8,12 +8,15 @@
  */
 package org.openhab.io.imperihome.internal.handler;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.net.URLDecoder;
 import java.util.Date;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 
 import javax.servlet.http.HttpServletRequest;
@@ -25,15 +28,21 @@ import org.eclipse.smarthome.core.persistence.PersistenceService;
 import org.eclipse.smarthome.core.persistence.PersistenceServiceRegistry;
 import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
 import org.eclipse.smarthome.core.types.State;
-import org.openhab.io.imperihome.internal.model.HistoryItem;
 import org.openhab.io.imperihome.internal.model.HistoryList;
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
 import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.stream.JsonWriter;
+
 /**
  * Device history request handler.
+ * <p>
+ * The history is reduced to at most {@link #MAX_HISTORY_POINTS} values while it is read from persistence, each value
+ * is the average of an equally sized interval of the requested range. The JSON responses are cached for
+ * {@link #CACHE_TTL} ms, the end of the requested range is rounded to the TTL for the cache key, because the app
+ * requests the history up to the current time.
  *
  * @author Pepijn de Geus - Initial contribution
  */
@@ -41,17 +50,35 @@ public class DeviceHistoryHandler {
 
     private static final String CHARSET = "UTF-8";
 
+    private static final int MAX_HISTORY_POINTS = 200;
+    private static final long CACHE_TTL = 30000;
+    private static final int CACHE_SIZE = 32;
+
     private final Logger logger = LoggerFactory.getLogger(DeviceHistoryHandler.class);
 
     private final DeviceRegistry deviceRegistry;
     private final PersistenceServiceRegistry persistenceServiceRegistry;
 
+    private final Map<String, CachedHistory> historyCache = new LinkedHashMap<String, CachedHistory>(16, 0.75f,
+            true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedHistory> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
     public DeviceHistoryHandler(DeviceRegistry deviceRegistry, PersistenceServiceRegistry persistenceServiceRegistry) {
         this.deviceRegistry = deviceRegistry;
         this.persistenceServiceRegistry = persistenceServiceRegistry;
     }
 
-    public HistoryList handle(HttpServletRequest req, Matcher urlMatcher) {
+    /**
+     * Writes the {@link HistoryList} JSON of the requested device and range, or <code>null</code> if no history can
+     * be served.
+     */
+    public void handle(HttpServletRequest req, Matcher urlMatcher, Writer writer) throws IOException {
         String deviceId, field;
         long start, end;
         try {
@@ -68,52 +95,141 @@ public class DeviceHistoryHandler {
         AbstractDevice device = deviceRegistry.getDevice(deviceId);
         if (device == null) {
             logger.warn("Received history request for unknown device: {}", urlMatcher.group(0));
-            return null;
+            writer.write("null");
+            return;
         }
 
-        PersistenceService persistence = persistenceServiceRegistry.getDefault();
-        if (persistence == null) {
-            logger.warn("Could not retrieve default persistence service; can't serve history request");
-            return null;
-        }
-        if (!(persistence instanceof QueryablePersistenceService)) {
-            logger.warn("Default persistence service is not queryable; can't serve history request");
-            return null;
+        String cacheKey = device.getItemName() + '|' + start + '|' + end / CACHE_TTL;
+        String history = getCachedHistory(cacheKey);
+        if (history == null) {
+            PersistenceService persistence = persistenceServiceRegistry.getDefault();
+            if (persistence == null) {
+                logger.warn("Could not retrieve default persistence service; can't serve history request");
+                writer.write("null");
+                return;
+            }
+            if (!(persistence instanceof QueryablePersistenceService)) {
+                logger.warn("Default persistence service is not queryable; can't serve history request");
+                writer.write("null");
+                return;
+            }
+
+            history = serveHistory(device, (QueryablePersistenceService) persistence, start, end);
+            putCachedHistory(cacheKey, history);
+        } else {
+            logger.debug("Serving cached history of Item {}", device.getItemName());
         }
 
-        return serveHistory(device, (QueryablePersistenceService) persistence, start, end);
+        writer.write(history);
     }
 
-    private HistoryList serveHistory(AbstractDevice device, QueryablePersistenceService persistence, long start,
-            long end) {
+    private String serveHistory(AbstractDevice device, QueryablePersistenceService persistence, long start, long end)
+            throws IOException {
         logger.info("Querying persistence for history of Item {}, from {} to {}", device.getItemName(), start, end);
 
         FilterCriteria criteria = new FilterCriteria().setItemName(device.getItemName()).setBeginDate(new Date(start))
                 .setEndDate(new Date(end));
 
-        List<HistoryItem> resultItems = new LinkedList<>();
-        Iterable<HistoricItem> historicItems = persistence.query(criteria);
+        StringWriter result = new StringWriter();
+        JsonWriter json = new JsonWriter(result);
+        json.beginObject().name("values").beginArray();
+
+        long bucketSize = Math.max(1, (end - start) / MAX_HISTORY_POINTS);
+        long bucket = Long.MIN_VALUE;
+        Bucket values = new Bucket();
+        boolean hasResults = false;
+
+        Iterator<HistoricItem> iterator = persistence.query(criteria).iterator();
+        while (iterator.hasNext()) {
+            HistoricItem historicItem = iterator.next();
+            hasResults = true;
+            State state = historicItem.getState();
+            if (state instanceof DecimalType) {
+                long date = historicItem.getTimestamp().getTime();
+                long itemBucket = (date - start) / bucketSize;
+                if (itemBucket != bucket) {
+                    values.write(json);
+                    bucket = itemBucket;
+                }
+                values.add(date, ((DecimalType) state).doubleValue());
+            }
+        }
+        int count = values.write(json);
+
+        json.endArray().endObject();
+        json.close();
 
-        Iterator<HistoricItem> iterator = historicItems.iterator();
-        if (!iterator.hasNext()) {
+        if (!hasResults) {
             logger.info("Persistence returned no results for history query");
-        } else {
-            while (iterator.hasNext()) {
-                HistoricItem historicItem = iterator.next();
-                State state = historicItem.getState();
-                if (state instanceof DecimalType) {
-                    Number value = ((DecimalType) state).toBigDecimal();
-                    resultItems.add(new HistoryItem(historicItem.getTimestamp(), value));
-                }
+        } else if (count == 0) {
+            logger.warn("Persistence returned results for history query, but could not be interpreted as DecimalTypes");
+        }
+
+        return result.toString();
+    }
+
+    private String getCachedHistory(String key) {
+        synchronized (historyCache) {
+            CachedHistory cached = historyCache.get(key);
+            if (cached == null) {
+                return null;
             }
+            if (cached.expires < System.currentTimeMillis()) {
+                historyCache.remove(key);
+                return null;
+            }
+            return cached.json;
+        }
+    }
 
-            if (resultItems.isEmpty()) {
-                logger.warn(
-                        "Persistence returned results for history query, but could not be interpreted as DecimalTypes");
+    private void putCachedHistory(String key, String json) {
+        synchronized (historyCache) {
+            historyCache.put(key, new CachedHistory(json, System.currentTimeMillis() + CACHE_TTL));
+        }
+    }
+
+    /**
+     * Accumulates the values of one interval of the requested range.
+     */
+    private static class Bucket {
+        private long dateSum;
+        private double valueSum;
+        private int size;
+        private int written;
+
+        private void add(long date, double value) {
+            dateSum += date;
+            valueSum += value;
+            size++;
+        }
+
+        /**
+         * Writes the average of the accumulated values as {@link org.openhab.io.imperihome.internal.model.HistoryItem}
+         * and resets the bucket.
+         *
+         * @return the number of history items written so far
+         */
+        private int write(JsonWriter json) throws IOException {
+            if (size > 0) {
+                json.beginObject().name("date").value(dateSum / size).name("value").value(valueSum / size)
+                        .endObject();
+                written++;
             }
+            dateSum = 0;
+            valueSum = 0;
+            size = 0;
+            return written;
         }
+    }
+
+    private static class CachedHistory {
+        private final String json;
+        private final long expires;
 
-        return new HistoryList(resultItems);
+        private CachedHistory(String json, long expires) {
+            this.json = json;
+            this.expires = expires;
+        }
     }
 
 }
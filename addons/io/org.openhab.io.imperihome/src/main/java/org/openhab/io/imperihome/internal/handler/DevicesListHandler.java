@@ -8,9 +8,12 @@
  */
 package org.openhab.io.imperihome.internal.handler;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
 import org.openhab.io.imperihome.internal.model.device.DeviceList;
@@ -18,8 +21,13 @@ import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.Gson;
+
 /**
  * Device list request handler.
+ * <p>
+ * The JSON of each device is cached and only serialized again after the device has changed. The {@link DeviceList}
+ * response is assembled from the cached devices and sent with the version of the {@link DeviceRegistry} as ETag.
  *
  * @author Pepijn de Geus - Initial contribution
  */
@@ -28,23 +36,64 @@ public class DevicesListHandler {
     private final Logger logger = LoggerFactory.getLogger(DevicesListHandler.class);
 
     private final DeviceRegistry deviceRegistry;
+    private final Gson gson;
+
+    private final Map<String, String> deviceJson = new TreeMap<>();
+    private long renderedVersion = -1;
+    private String renderedList;
 
-    public DevicesListHandler(DeviceRegistry deviceRegistry) {
+    public DevicesListHandler(DeviceRegistry deviceRegistry, Gson gson) {
         this.deviceRegistry = deviceRegistry;
+        this.gson = gson;
     }
 
-    public DeviceList handle(HttpServletRequest req) {
-        DeviceList response = new DeviceList();
-
-        Collection<AbstractDevice> devices = deviceRegistry.getDevices().values();
-        for (AbstractDevice device : devices) {
-            device.updateParams();
+    public void handle(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String eTag;
+        String response;
+        synchronized (this) {
+            long version = deviceRegistry.getVersion();
+            if (version != renderedVersion) {
+                renderedList = render();
+                renderedVersion = version;
+            }
+            eTag = "\"" + renderedVersion + "\"";
+            response = renderedList;
         }
 
-        response.setDevices(devices);
+        resp.setHeader("ETag", eTag);
+        if (eTag.equals(req.getHeader("If-None-Match"))) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
 
         logger.debug("Device list response: {}", response);
-        return response;
+        resp.getWriter().write(response);
+    }
+
+    /**
+     * Serializes the changed devices and assembles the JSON of the {@link DeviceList}.
+     */
+    private String render() {
+        for (String deviceId : deviceRegistry.pollChangedDevices()) {
+            AbstractDevice device = deviceRegistry.getDevice(deviceId);
+            if (device == null) {
+                deviceJson.remove(deviceId);
+            } else {
+                device.updateParams();
+                deviceJson.put(deviceId, gson.toJson(device));
+            }
+        }
+
+        StringBuilder builder = new StringBuilder("{\"devices\":[");
+        boolean first = true;
+        for (String json : deviceJson.values()) {
+            if (!first) {
+                builder.append(',');
+            }
+            builder.append(json);
+            first = false;
+        }
+        return builder.append("]}").toString();
     }
 
 }
@@ -50,6 +50,28 @@ public abstract class AbstractDevice implements StateChangeListener {
     private transient DeviceRegistry deviceRegistry;
     private transient ActionRegistry actionRegistry;
 
+    /**
+     * Forwards the state updates of the Item to this device. The {@link DeviceRegistry} is only notified when the
+     * state has changed, so updates with the same value do not change the version of the registry. The item calls
+     * {@link StateChangeListener#stateChanged} after {@link StateChangeListener#stateUpdated}, when the parameters of
+     * this device have already been updated by all subclasses.
+     */
+    private final transient StateChangeListener itemListener = new StateChangeListener() {
+        @Override
+        public void stateChanged(Item item, State oldState, State newState) {
+            AbstractDevice.this.stateChanged(item, oldState, newState);
+            DeviceRegistry registry = deviceRegistry;
+            if (registry != null) {
+                registry.deviceUpdated(AbstractDevice.this);
+            }
+        }
+
+        @Override
+        public void stateUpdated(Item item, State newState) {
+            AbstractDevice.this.stateUpdated(item, newState);
+        }
+    };
+
     public AbstractDevice(DeviceType type, Item item) {
         this.type = type;
         this.item = item;
@@ -57,13 +79,13 @@ public abstract class AbstractDevice implements StateChangeListener {
         links = new HashMap<>();
 
         if (item instanceof GenericItem) {
-            ((GenericItem) item).addStateChangeListener(this);
+            ((GenericItem) item).addStateChangeListener(itemListener);
         }
     }
 
     public void destroy() {
         if (item instanceof GenericItem) {
-            ((GenericItem) item).removeStateChangeListener(this);
+            ((GenericItem) item).removeStateChangeListener(itemListener);
         }
 
         deviceRegistry = null;
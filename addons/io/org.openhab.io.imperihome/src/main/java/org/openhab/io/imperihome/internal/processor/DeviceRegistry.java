@@ -21,13 +21,19 @@ import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
 
 /**
  * The device registry stores created devices by ID.
+ * <p>
+ * Every change of the registry or of a device increases the version of the registry and marks the affected devices as
+ * changed, so that serialized representations can be updated per device.
  *
  * @author Pepijn de Geus - Initial contribution
  */
 public class DeviceRegistry implements Iterable<AbstractDevice> {
 
     private final Map<String, AbstractDevice> devices;
-    private Set<Room> rooms;
+    private volatile Set<Room> rooms;
+
+    private long version;
+    private final Set<String> changedDevices = new HashSet<>();
 
     public DeviceRegistry() {
         devices = new ConcurrentHashMap<>();
@@ -42,7 +48,12 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
     }
 
     public Collection<Room> getRooms() {
-        return new HashSet<>(rooms);
+        Set<Room> currentRooms = rooms;
+        if (currentRooms == null) {
+            currentRooms = collectRooms();
+            rooms = currentRooms;
+        }
+        return new HashSet<>(currentRooms);
     }
 
     public boolean hasDevices() {
@@ -55,29 +66,74 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
 
     public void add(AbstractDevice device) {
         devices.put(device.getId(), device);
-        updateRooms();
+        rooms = null;
+        markChanged(device);
     }
 
     public AbstractDevice remove(String deviceId) {
         AbstractDevice removed = devices.remove(deviceId);
-        updateRooms();
+        rooms = null;
+        if (removed != null) {
+            markChanged(removed);
+        }
         return removed;
     }
 
+    /**
+     * Notifies the registry that the parameters of a device have changed. Devices linked to this device are marked as
+     * changed too.
+     */
+    public void deviceUpdated(AbstractDevice device) {
+        if (devices.get(device.getId()) == device) {
+            markChanged(device);
+        }
+    }
+
+    /**
+     * Returns the current version of the registry, which is increased with every change.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the IDs of the devices, which have been added, removed or changed since the last call, and resets them.
+     */
+    public synchronized Set<String> pollChangedDevices() {
+        Set<String> changed = new HashSet<>(changedDevices);
+        changedDevices.clear();
+        return changed;
+    }
+
     @Override
     public Iterator<AbstractDevice> iterator() {
         return devices.values().iterator();
     }
 
     public void clear() {
+        synchronized (this) {
+            changedDevices.addAll(devices.keySet());
+            version++;
+        }
         devices.clear();
+        rooms = null;
+    }
 
-        if (rooms != null) {
-            rooms.clear();
+    private void markChanged(AbstractDevice device) {
+        synchronized (this) {
+            changedDevices.add(device.getId());
+            // linked devices read their values from this device when they are serialized
+            String itemName = device.getItemName();
+            for (AbstractDevice linkingDevice : devices.values()) {
+                if (!linkingDevice.getLinks().isEmpty() && linkingDevice.getLinks().containsValue(itemName)) {
+                    changedDevices.add(linkingDevice.getId());
+                }
+            }
+            version++;
         }
     }
 
-    private void updateRooms() {
+    private Set<Room> collectRooms() {
         Set<Room> newRooms = new HashSet<>();
         for (AbstractDevice device : devices.values()) {
             Room room = new Room();
@@ -85,7 +141,7 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
             room.setName(device.getRoomName());
             newRooms.add(room);
         }
-        rooms = newRooms;
+        return newRooms;
     }
 
 }
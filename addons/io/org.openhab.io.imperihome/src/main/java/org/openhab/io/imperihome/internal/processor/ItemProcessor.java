@@ -81,10 +81,10 @@ public class ItemProcessor implements ItemRegistryChangeListener {
         itemRegistry.removeRegistryChangeListener(this);
 
         // Destroy all Devices (unregisters state listeners)
-        for (Item item : itemRegistry.getItems()) {
-            String deviceId = getDeviceId(item);
-            if (deviceRegistry.hasDevice(deviceId)) {
-                deviceRegistry.remove(deviceId).destroy();
+        for (String deviceId : deviceRegistry.getDevices().keySet()) {
+            AbstractDevice device = deviceRegistry.remove(deviceId);
+            if (device != null) {
+                device.destroy();
             }
         }
     }
@@ -103,6 +103,8 @@ public class ItemProcessor implements ItemRegistryChangeListener {
                 device.setName(getLabel(item, issTags));
                 device.setInverted(isInverted(issTags));
                 device.setActionRegistry(actionRegistry);
+                // Pass device registry to device for linked device lookup and state change notifications
+                device.setDeviceRegistry(deviceRegistry);
 
                 setDeviceRoom(device, issTags);
                 setDeviceLinks(device, item, issTags);
@@ -201,9 +203,6 @@ public class ItemProcessor implements ItemRegistryChangeListener {
 
     private void setDeviceLinks(AbstractDevice device, Item item, Map<TagType, List<String>> issTags) {
         if (issTags.containsKey(TagType.LINK)) {
-            // Pass device registry to device for linked device lookup
-            device.setDeviceRegistry(deviceRegistry);
-
             // Parse link tags
             for (String link : issTags.get(TagType.LINK)) {
                 String[] parts = link.split(":");
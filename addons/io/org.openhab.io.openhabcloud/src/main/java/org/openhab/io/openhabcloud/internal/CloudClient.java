@@ -11,29 +11,32 @@ package org.openhab.io.openhabcloud.internal;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URLEncoder;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Request.FailureListener;
 import org.eclipse.jetty.client.api.Response;
-import org.eclipse.jetty.client.api.Response.ContentListener;
+import org.eclipse.jetty.client.api.Response.AsyncContentListener;
 import org.eclipse.jetty.client.api.Response.HeadersListener;
 import org.eclipse.jetty.client.api.Result;
-import org.eclipse.jetty.client.util.BytesContentProvider;
+import org.eclipse.jetty.client.util.StringContentProvider;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.json.JSONException;
@@ -47,6 +50,7 @@ import io.socket.client.Manager;
 import io.socket.client.Socket;
 import io.socket.emitter.Emitter;
 import io.socket.engineio.client.Transport;
+import io.socket.thread.EventThread;
 
 /**
  * This class provides communication between openHAB and the openHAB Cloud service.
@@ -77,6 +81,21 @@ public class CloudClient {
      */
     private static final int HTTP_CLIENT_TIMEOUT = 30000;
 
+    /*
+     * This constant defines the interval in milliseconds, in which item updates are collected before
+     * they are sent to the openHAB Cloud. Only the latest state of each item is sent.
+     */
+    private static final int ITEM_UPDATE_INTERVAL = 200;
+
+    /*
+     * This constant defines the maximum number of response bytes per request, which have been read from
+     * local openHAB, but not yet written by the Engine.IO transport. Reading of the response is suspended
+     * until the transport has drained.
+     */
+    private static final int MAX_IN_FLIGHT_BYTES_PER_REQUEST = 64 * 1024;
+
+    private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
+
     /*
      * This variable holds base URL for the openHAB Cloud connections
      */
@@ -103,9 +122,27 @@ public class CloudClient {
     private HttpClient jettyClient;
 
     /*
-     * This hashmap holds HTTP requests to local openHAB which are currently running
+     * This map holds HTTP requests to local openHAB which are currently running
+     */
+    private final Map<Integer, Request> runningRequests = new ConcurrentHashMap<Integer, Request>();
+
+    /*
+     * This map holds the latest states of the items, which have been updated since the last item update
+     * has been sent to the openHAB Cloud
      */
-    private HashMap<Integer, Request> runningRequests;
+    private final Map<String, String> pendingItemUpdates = new LinkedHashMap<String, String>();
+
+    /*
+     * This variable counts the drain events of the Engine.IO transports. A transport drains when it has
+     * written all packets passed to it. Only accessed on the Socket.IO event thread.
+     */
+    private long transportDrains = 0;
+
+    /*
+     * This queue holds the response content, which has been emitted, but not yet drained, in the order
+     * of emission. Only accessed on the Socket.IO event thread.
+     */
+    private final Queue<EmittedContent> emittedContents = new LinkedList<EmittedContent>();
 
     /*
      * This variable indicates if connection to the openHAB Cloud is currently in an established state
@@ -148,7 +185,6 @@ public class CloudClient {
         this.localBaseUrl = localBaseUrl;
         this.remoteAccessEnabled = remoteAccessEnabled;
         this.exposedItems = exposedItems;
-        runningRequests = new HashMap<Integer, Request>();
         jettyClient = new HttpClient();
         jettyClient.setMaxConnectionsPerDestination(HTTP_CLIENT_MAX_CONNECTIONS_PER_DEST);
         jettyClient.setConnectTimeout(HTTP_CLIENT_TIMEOUT);
@@ -182,6 +218,12 @@ public class CloudClient {
                         headers.put("remoteaccess", Arrays.asList(((Boolean) remoteAccessEnabled).toString()));
                     }
                 });
+                transport.on(Transport.EVENT_DRAIN, new Emitter.Listener() {
+                    @Override
+                    public void call(Object... args) {
+                        onTransportDrain();
+                    }
+                });
             }
         });
         socket.on(Socket.EVENT_CONNECT, new Emitter.Listener() {
@@ -257,8 +299,21 @@ public class CloudClient {
             }
         }
         // And clean up the list of running requests
-        if (runningRequests != null) {
-            runningRequests.clear();
+        runningRequests.clear();
+        // The content of the stopped requests will not be drained anymore
+        emittedContents.clear();
+    }
+
+    /**
+     * Callback method for the Engine.IO transports which is called when a transport has written all packets.
+     * Content emitted before the previous drain has been written by now, content emitted since then has at
+     * least been passed to the transport, as Engine.IO flushes its buffer on every drain.
+     */
+    private void onTransportDrain() {
+        transportDrains++;
+        while (!emittedContents.isEmpty() && emittedContents.peek().drainMark < transportDrains) {
+            EmittedContent content = emittedContents.poll();
+            content.listener.onContentDrained(content.size);
         }
     }
 
@@ -307,52 +362,42 @@ public class CloudClient {
             logger.debug(requestHeadersJson.toString());
             // Get JSONObject for request query parameters
             JSONObject requestQueryJson = data.getJSONObject("query");
-            // Create URI builder with base request URI of openHAB and path from request
-            String newPath = URIUtil.addPaths(localBaseUrl, requestPath);
+            // Create request URI with base request URI of openHAB and path from request
+            URI requestUri = new URI(URIUtil.addPaths(localBaseUrl, requestPath));
+            // All preparations which are common for different methods are done
+            // Now perform the request to openHAB
+            logger.debug("Request method is " + requestMethod);
+            Request request = jettyClient.newRequest(requestUri);
+            // Add query parameters, they are encoded by the Jetty client
             @SuppressWarnings("unchecked")
             Iterator<String> queryIterator = requestQueryJson.keys();
-            // Add query parameters to URI builder, if any
-            newPath += "?";
             while (queryIterator.hasNext()) {
                 String queryName = queryIterator.next();
-                newPath += queryName;
-                newPath += "=";
-                newPath += URLEncoder.encode(requestQueryJson.getString(queryName), "UTF-8");
-                if (queryIterator.hasNext()) {
-                    newPath += "&";
-                }
+                request.param(queryName, requestQueryJson.getString(queryName));
             }
-            // Finally get the future request URI
-            URI requestUri = new URI(newPath);
-            // All preparations which are common for different methods are done
-            // Now perform the request to openHAB
-            // If method is GET
-            logger.debug("Request method is " + requestMethod);
-            Request request = jettyClient.newRequest(requestUri);
             setRequestHeaders(request, requestHeadersJson);
             request.header("X-Forwarded-Proto", "https");
             if (requestMethod.equals("GET")) {
                 request.method(HttpMethod.GET);
             } else if (requestMethod.equals("POST")) {
                 request.method(HttpMethod.POST);
-                request.content(new BytesContentProvider(requestBody.getBytes()));
+                request.content(new StringContentProvider(requestBody, "UTF-8"));
             } else if (requestMethod.equals("PUT")) {
                 request.method(HttpMethod.PUT);
-                request.content(new BytesContentProvider(requestBody.getBytes()));
+                request.content(new StringContentProvider(requestBody, "UTF-8"));
             } else {
                 // TODO: Reject unsupported methods
                 logger.error("Unsupported request method " + requestMethod);
                 return;
             }
             ResponseListener listener = new ResponseListener(requestId);
-            request.onResponseHeaders(listener).onResponseContent(listener).onRequestFailure(listener).send(listener);
-            // If successfully submitted request to http client, add it to the list of currently
-            // running requests to be able to cancel it if needed
+            // Add the request to the list of currently running requests before it is sent,
+            // to be able to cancel it if needed, the listener removes it again on completion
             runningRequests.put(requestId, request);
+            request.onResponseHeaders(listener).onResponseContentAsync(listener).onRequestFailure(listener)
+                    .send(listener);
         } catch (JSONException e) {
             logger.error(e.getMessage());
-        } catch (IOException e) {
-            logger.error(e.getMessage());
         } catch (URISyntaxException e) {
             logger.error(e.getMessage());
         }
@@ -382,10 +427,9 @@ public class CloudClient {
             int requestId = data.getInt("id");
             logger.debug("Received cancel for request {}", requestId);
             // Find and abort running request
-            if (runningRequests.containsKey(requestId)) {
-                Request request = runningRequests.get(requestId);
+            Request request = runningRequests.remove(requestId);
+            if (request != null) {
                 request.abort(new InterruptedException());
-                runningRequests.remove(requestId);
             }
         } catch (JSONException e) {
             logger.error(e.getMessage());
@@ -483,7 +527,8 @@ public class CloudClient {
     }
 
     /**
-     * Send item update to openHAB Cloud
+     * Send item update to openHAB Cloud. The updates are collected for a short interval and only the
+     * latest state of each item is sent.
      *
      * @param itemName the name of the item
      * @param itemState updated item state
@@ -491,17 +536,48 @@ public class CloudClient {
      */
     public void sendItemUpdate(String itemName, String itemState) {
         if (isConnected()) {
-            logger.debug("Sending update '{}' for item '{}'", itemState, itemName);
+            synchronized (pendingItemUpdates) {
+                // remove first to keep the order of the latest updates
+                boolean flushScheduled = !pendingItemUpdates.isEmpty();
+                pendingItemUpdates.remove(itemName);
+                pendingItemUpdates.put(itemName, itemState);
+                if (!flushScheduled) {
+                    ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD).schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            flushItemUpdates();
+                        }
+                    }, ITEM_UPDATE_INTERVAL, TimeUnit.MILLISECONDS);
+                }
+            }
+        } else {
+            logger.debug("No connection, Item update is not sent");
+        }
+    }
+
+    /**
+     * Sends the collected item updates to the openHAB Cloud
+     */
+    private void flushItemUpdates() {
+        Map<String, String> itemUpdates;
+        synchronized (pendingItemUpdates) {
+            itemUpdates = new LinkedHashMap<String, String>(pendingItemUpdates);
+            pendingItemUpdates.clear();
+        }
+        if (!isConnected()) {
+            logger.debug("No connection, {} Item updates are not sent", itemUpdates.size());
+            return;
+        }
+        for (Map.Entry<String, String> itemUpdate : itemUpdates.entrySet()) {
+            logger.debug("Sending update '{}' for item '{}'", itemUpdate.getValue(), itemUpdate.getKey());
             JSONObject itemUpdateMessage = new JSONObject();
             try {
-                itemUpdateMessage.put("itemName", itemName);
-                itemUpdateMessage.put("itemStatus", itemState);
+                itemUpdateMessage.put("itemName", itemUpdate.getKey());
+                itemUpdateMessage.put("itemStatus", itemUpdate.getValue());
                 socket.emit("itemupdate", itemUpdateMessage);
             } catch (JSONException e) {
                 logger.error(e.getMessage());
             }
-        } else {
-            logger.debug("No connection, Item update is not sent");
         }
     }
 
@@ -541,12 +617,21 @@ public class CloudClient {
      * An internal class which forwards response headers and data back to the openHAB Cloud
      */
     private class ResponseListener
-            implements Response.CompleteListener, HeadersListener, ContentListener, FailureListener {
+            implements Response.CompleteListener, HeadersListener, AsyncContentListener, FailureListener {
 
-        private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
         private int mRequestId;
         private boolean mHeadersSent = false;
 
+        /*
+         * Number of content bytes, which have been read from local openHAB, but not yet drained
+         */
+        private int mInFlightBytes = 0;
+
+        /*
+         * Callback of the Jetty client, which is completed as soon as the in-flight bytes drop below the limit
+         */
+        private Callback mPendingCallback;
+
         public ResponseListener(int requestId) {
             mRequestId = requestId;
         }
@@ -608,16 +693,53 @@ public class CloudClient {
         }
 
         @Override
-        public void onContent(Response response, ByteBuffer content) {
-            logger.debug("Jetty received response content of size " + String.valueOf(content.remaining()));
-            JSONObject responseJson = new JSONObject();
+        public void onContent(Response response, ByteBuffer content, Callback callback) {
+            final int size = content.remaining();
+            logger.debug("Jetty received response content of size {}", size);
+            final JSONObject responseJson = new JSONObject();
             try {
                 responseJson.put("id", mRequestId);
                 responseJson.put("body", BufferUtil.toArray(content));
-                socket.emit("responseContentBinary", responseJson);
-                logger.debug("Sent content to request {}", mRequestId);
             } catch (JSONException e) {
                 logger.error(e.getMessage());
+                callback.failed(e);
+                return;
+            }
+
+            synchronized (this) {
+                mInFlightBytes += size;
+            }
+            // Emit on the event thread to know the transport drains, which happened before the emission
+            EventThread.exec(new Runnable() {
+                @Override
+                public void run() {
+                    socket.emit("responseContentBinary", responseJson);
+                    emittedContents.add(new EmittedContent(ResponseListener.this, size, transportDrains));
+                    logger.debug("Sent content to request {}", mRequestId);
+                }
+            });
+
+            synchronized (this) {
+                if (mInFlightBytes > MAX_IN_FLIGHT_BYTES_PER_REQUEST) {
+                    // suspend reading the response until the transport has drained the pending content
+                    mPendingCallback = callback;
+                    return;
+                }
+            }
+            callback.succeeded();
+        }
+
+        private void onContentDrained(int size) {
+            Callback callback = null;
+            synchronized (this) {
+                mInFlightBytes -= size;
+                if (mPendingCallback != null && mInFlightBytes <= MAX_IN_FLIGHT_BYTES_PER_REQUEST) {
+                    callback = mPendingCallback;
+                    mPendingCallback = null;
+                }
+            }
+            if (callback != null) {
+                callback.succeeded();
             }
         }
 
@@ -643,4 +765,23 @@ public class CloudClient {
             }
         }
     }
+
+    /*
+     * Response content, which has been emitted to the openHAB Cloud
+     */
+    private static class EmittedContent {
+        private final ResponseListener listener;
+        private final int size;
+
+        /*
+         * The number of transport drains at the time of the emission
+         */
+        private final long drainMark;
+
+        EmittedContent(ResponseListener listener, int size, long drainMark) {
+            this.listener = listener;
+            this.size = size;
+            this.drainMark = drainMark;
+        }
+    }
 }
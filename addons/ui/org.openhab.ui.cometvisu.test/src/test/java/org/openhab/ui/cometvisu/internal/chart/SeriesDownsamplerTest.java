@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.chart;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.eclipse.smarthome.core.types.State;
+import org.junit.Test;
+import org.openhab.ui.cometvisu.internal.chart.SeriesDownsampler.Consolidation;
+
+/**
+ * Tests cases for {@link SeriesDownsampler}.
+ *
+ * @author agent - Initial contribution
+ * @since 2.0.0
+ */
+public class SeriesDownsamplerTest {
+
+    private static final double DELTA = 0.0001;
+
+    /**
+     * values 1, 2, 3, 4 in the bucket [0,1000), 10, 20 in the bucket [1000,2000) and 5 in the bucket [3000,4000)
+     */
+    private Iterator<HistoricItem> items() {
+        List<HistoricItem> items = new ArrayList<HistoricItem>();
+        items.add(new TestHistoricItem(100, new DecimalType(1)));
+        items.add(new TestHistoricItem(250, new DecimalType(2)));
+        items.add(new TestHistoricItem(500, new DecimalType(3)));
+        items.add(new TestHistoricItem(750, new DecimalType(4)));
+        items.add(new TestHistoricItem(1000, new DecimalType(10)));
+        items.add(new TestHistoricItem(1500, StringType.valueOf("ignored")));
+        items.add(new TestHistoricItem(1999, new DecimalType(20)));
+        items.add(new TestHistoricItem(3500, new DecimalType(5)));
+        return items.iterator();
+    }
+
+    private void assertSeries(ChartSeries series, long[] timestamps, double[] values) {
+        assertEquals(timestamps.length, series.size());
+        for (int i = 0; i < timestamps.length; i++) {
+            assertEquals(timestamps[i], series.getTimestamp(i));
+            assertEquals(values[i], series.getValue(i), DELTA);
+        }
+    }
+
+    @Test
+    public void getBucketTest() {
+        assertEquals(0, SeriesDownsampler.getBucket(0, 1000));
+        assertEquals(0, SeriesDownsampler.getBucket(999, 1000));
+        assertEquals(1000, SeriesDownsampler.getBucket(1000, 1000));
+        assertEquals(5000, SeriesDownsampler.getBucket(5999, 1000));
+    }
+
+    @Test
+    public void averageTest() {
+        ChartSeries series = SeriesDownsampler.consolidate(items(), 1000, Consolidation.AVERAGE);
+        assertSeries(series, new long[] { 0, 1000, 3000 }, new double[] { 2.5, 15, 5 });
+    }
+
+    @Test
+    public void minTest() {
+        ChartSeries series = SeriesDownsampler.consolidate(items(), 1000, Consolidation.MIN);
+        assertSeries(series, new long[] { 0, 1000, 3000 }, new double[] { 1, 10, 5 });
+    }
+
+    @Test
+    public void maxTest() {
+        ChartSeries series = SeriesDownsampler.consolidate(items(), 1000, Consolidation.MAX);
+        assertSeries(series, new long[] { 0, 1000, 3000 }, new double[] { 4, 20, 5 });
+    }
+
+    @Test
+    public void firstTest() {
+        ChartSeries series = SeriesDownsampler.consolidate(items(), 1000, Consolidation.FIRST);
+        assertSeries(series, new long[] { 0, 1000, 3000 }, new double[] { 1, 10, 5 });
+    }
+
+    @Test
+    public void lastTest() {
+        ChartSeries series = SeriesDownsampler.consolidate(items(), 1000, Consolidation.LAST);
+        assertSeries(series, new long[] { 0, 1000, 3000 }, new double[] { 4, 20, 5 });
+    }
+
+    @Test
+    public void totalTest() {
+        ChartSeries series = SeriesDownsampler.consolidate(items(), 1000, Consolidation.TOTAL);
+        assertSeries(series, new long[] { 0, 1000, 3000 }, new double[] { 10, 30, 5 });
+    }
+
+    @Test
+    public void downsampleWithoutBucketSizeTest() {
+        ChartSeries series = SeriesDownsampler.downsample(items(), 0, 4000, 0, Consolidation.AVERAGE);
+        assertSeries(series, new long[] { 100, 250, 500, 750, 1000, 1999, 3500 },
+                new double[] { 1, 2, 3, 4, 10, 20, 5 });
+    }
+
+    @Test
+    public void readAfterTest() {
+        ChartSeries series = SeriesDownsampler.read(items(), 1000);
+        assertSeries(series, new long[] { 1999, 3500 }, new double[] { 20, 5 });
+    }
+
+    @Test
+    public void lttbKeepsFirstAndLastPointTest() {
+        ChartSeries full = new ChartSeries();
+        for (int i = 0; i < 100; i++) {
+            full.add(i * 1000, i == 42 ? 100 : 0);
+        }
+        ChartSeries sampled = SeriesDownsampler.lttb(full, 10);
+        assertEquals(10, sampled.size());
+        assertEquals(0, sampled.getTimestamp(0));
+        assertEquals(99000, sampled.getTimestamp(9));
+
+        // the peak is a real point and must survive the downsampling
+        boolean peakFound = false;
+        for (int i = 0; i < sampled.size(); i++) {
+            if (sampled.getTimestamp(i) == 42000) {
+                assertEquals(100, sampled.getValue(i), DELTA);
+                peakFound = true;
+            }
+        }
+        assertTrue(peakFound);
+    }
+
+    @Test
+    public void lttbBelowThresholdTest() {
+        ChartSeries full = new ChartSeries();
+        full.add(0, 1);
+        full.add(1000, 2);
+        assertSame(full, SeriesDownsampler.lttb(full, 10));
+    }
+
+    @Test
+    public void consolidationFromStringTest() {
+        assertEquals(Consolidation.MAX, Consolidation.fromString("max"));
+        assertEquals(Consolidation.LTTB, Consolidation.fromString("LTTB"));
+        assertEquals(Consolidation.AVERAGE, Consolidation.fromString("unknown"));
+        assertEquals(Consolidation.AVERAGE, Consolidation.fromString(null));
+    }
+
+    private static class TestHistoricItem implements HistoricItem {
+        private final Date timestamp;
+        private final State state;
+
+        TestHistoricItem(long timestamp, State state) {
+            this.timestamp = new Date(timestamp);
+            this.state = state;
+        }
+
+        @Override
+        public Date getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public State getState() {
+            return state;
+        }
+
+        @Override
+        public String getName() {
+            return "Item";
+        }
+    }
+}
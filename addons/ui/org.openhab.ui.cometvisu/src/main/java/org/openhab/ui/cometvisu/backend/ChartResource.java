@@ -8,9 +8,14 @@
  */
 package org.openhab.ui.cometvisu.backend;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
@@ -27,24 +32,25 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.eclipse.smarthome.core.items.GroupItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemNotFoundException;
 import org.eclipse.smarthome.core.items.ItemRegistry;
-import org.eclipse.smarthome.core.library.types.DecimalType;
-import org.eclipse.smarthome.core.persistence.FilterCriteria;
-import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
-import org.eclipse.smarthome.core.persistence.HistoricItem;
 import org.eclipse.smarthome.core.persistence.PersistenceService;
 import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
 import org.eclipse.smarthome.io.rest.RESTResource;
 import org.openhab.ui.cometvisu.internal.Config;
+import org.openhab.ui.cometvisu.internal.chart.ChartSeries;
+import org.openhab.ui.cometvisu.internal.chart.ChartSeriesCache;
+import org.openhab.ui.cometvisu.internal.chart.SeriesDownsampler.Consolidation;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.core.FetchData;
 import org.rrd4j.core.FetchRequest;
@@ -83,6 +89,8 @@ public class ChartResource implements RESTResource {
 
     private ItemRegistry itemRegistry;
 
+    private final ChartSeriesCache seriesCache = new ChartSeriesCache();
+
     @Context
     private UriInfo uriInfo;
 
@@ -94,6 +102,7 @@ public class ChartResource implements RESTResource {
 
     public void removePersistenceService(PersistenceService service) {
         persistenceServices.remove(service.getId());
+        seriesCache.invalidate(service.getId());
     }
 
     static public Map<String, QueryablePersistenceService> getPersistenceServices() {
@@ -118,8 +127,11 @@ public class ChartResource implements RESTResource {
         }
         String responseType = MediaType.APPLICATION_JSON;
 
-        // RRD specific: no equivalent in PersistenceService known
-        ConsolFun consilidationFunction = ConsolFun.valueOf(consFunction);
+        // RRD consolidation functions are calculated by the downsampler for other persistence services,
+        // LTTB is not available in RRD, which falls back to AVERAGE
+        Consolidation consolidation = Consolidation.fromString(consFunction);
+        ConsolFun consilidationFunction = consolidation == Consolidation.LTTB ? ConsolFun.AVERAGE
+                : ConsolFun.valueOf(consolidation.name());
 
         // read the start/end time as they are provided in the RRD-way, we use
         // the RRD4j to read them
@@ -161,7 +173,7 @@ public class ChartResource implements RESTResource {
             if (persistenceService.getId().equals("rrd4j")) {
                 data = getRrdSeries(persistenceService, item, consilidationFunction, startTime, endTime, resolution);
             } else {
-                data = getPersistenceSeries(persistenceService, item, startTime, endTime, resolution);
+                data = getPersistenceSeries(persistenceService, item, consolidation, startTime, endTime, resolution);
             }
             return Response.ok(data, responseType).build();
         } catch (ItemNotFoundException e1) {
@@ -171,36 +183,46 @@ public class ChartResource implements RESTResource {
         return Response.serverError().build();
     }
 
-    public Object getPersistenceSeries(QueryablePersistenceService persistenceService, Item item, Date timeBegin,
-            Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new HashMap<Long, ArrayList<String>>();
-
-        // Define the data filter
-        FilterCriteria filter = new FilterCriteria();
-        filter.setBeginDate(timeBegin);
-        filter.setEndDate(timeEnd);
-        filter.setItemName(item.getName());
-        filter.setOrdering(Ordering.ASCENDING);
-
-        // Get the data from the persistence store
-        Iterable<HistoricItem> result = persistenceService.query(filter);
-        Iterator<HistoricItem> it = result.iterator();
-
-        // Iterate through the data
-        int dataCounter = 0;
-        while (it.hasNext()) {
-            dataCounter++;
-            HistoricItem historicItem = it.next();
-            org.eclipse.smarthome.core.types.State state = historicItem.getState();
-            if (state instanceof DecimalType) {
-                ArrayList<String> vals = new ArrayList<String>();
-                vals.add(formatDouble(((DecimalType) state).doubleValue(), "null", true));
-                data.put(historicItem.getTimestamp().getTime(), vals);
+    /**
+     * returns the series data of a generic persistence service, downsampled to the requested resolution
+     *
+     * @param persistenceService
+     * @param item
+     * @param consolidation
+     *            - how the values within one resolution step are consolidated
+     * @param timeBegin
+     * @param timeEnd
+     * @param resolution
+     *            - resolution in seconds, values <= 0 return all persisted values
+     * @return the series, written directly to the response
+     */
+    public StreamingOutput getPersistenceSeries(QueryablePersistenceService persistenceService, Item item,
+            Consolidation consolidation, Date timeBegin, Date timeEnd, long resolution) {
+        // Get the data from the persistence store, only values that are not cached yet are queried
+        final ChartSeries series = seriesCache.getSeries(persistenceService, item.getName(), consolidation,
+                timeBegin.getTime(), timeEnd.getTime(), resolution * 1000);
+
+        logger.debug("'{}' querying item '{}' from '{}' to '{}' => '{}' values ({})", persistenceService.getId(),
+                item.getName(), timeBegin, timeEnd, series.size(), consolidation);
+        return writeSeries(series);
+    }
+
+    private StreamingOutput writeSeries(final ChartSeries series) {
+        // DecimalFormat is not thread safe, every response gets its own copy
+        final DecimalFormat decimalFormat = (DecimalFormat) df.clone();
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException, WebApplicationException {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                series.writeTo(writer, new ChartSeries.ValueFormatter() {
+                    @Override
+                    public String format(double value) {
+                        return Double.isNaN(value) ? "null" : decimalFormat.format(value);
+                    }
+                });
+                writer.flush();
             }
-        }
-        logger.debug("'{}' querying item '{}' from '{}' to '{}' => '{}' results", persistenceService.getId(),
-                filter.getItemName(), filter.getBeginDate(), filter.getEndDate(), dataCounter);
-        return convertToRrd(data);
+        };
     }
 
     /**
@@ -235,10 +257,12 @@ public class ChartResource implements RESTResource {
         } catch (FileNotFoundException e) {
             // rrd file does not exist, fallback to generic persistance service
             logger.debug("no rrd file found '{}'", (RRD_FOLDER + File.separator + item.getName() + ".rrd"));
-            return getPersistenceSeries(persistenceService, item, timeBegin, timeEnd, resolution);
+            return getPersistenceSeries(persistenceService, item,
+                    Consolidation.fromString(consilidationFunction.name()), timeBegin, timeEnd, resolution);
         } catch (Exception e) {
             logger.error(e.getLocalizedMessage() + ": fallback to generic persistance service");
-            return getPersistenceSeries(persistenceService, item, timeBegin, timeEnd, resolution);
+            return getPersistenceSeries(persistenceService, item,
+                    Consolidation.fromString(consilidationFunction.name()), timeBegin, timeEnd, resolution);
         }
         return convertToRrd(data);
     }
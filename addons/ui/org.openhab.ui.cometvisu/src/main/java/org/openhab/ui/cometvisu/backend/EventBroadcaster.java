@@ -8,10 +8,13 @@
  */
 package org.openhab.ui.cometvisu.backend;
 
-import java.util.Map;
+import java.util.Collection;
+import java.util.List;
 
 import org.eclipse.smarthome.core.items.Item;
-import org.eclipse.smarthome.core.types.State;
+import org.openhab.ui.cometvisu.internal.sse.ClientSubscription;
+import org.openhab.ui.cometvisu.internal.sse.StateConversions;
+import org.openhab.ui.cometvisu.internal.sse.StateProjection;
 
 /**
  * Broadcast state change events of items to listening clients
@@ -21,15 +24,18 @@ import org.eclipse.smarthome.core.types.State;
  */
 public interface EventBroadcaster {
     /**
-     * Broadcasts an event described by the given parameters to all currently
-     * listening clients.
+     * Queues the state updates of an item for a single client. Updates are coalesced per client
+     * and sent as one event on the next flush.
      *
-     * @param item
-     *            - the item that should be broadcasted
-     * @param eventObject
-     *            - bean that can be converted to a JSON object.
+     * @param client
+     *            - the client that should receive the update
+     * @param projections
+     *            - the CometVisu items of the client that have to be updated
+     * @param conversions
+     *            - the converted states of the item
      */
-    public void broadcastEvent(final Object eventObject);
+    public void publishStates(ClientSubscription client, List<StateProjection> projections,
+            StateConversions conversions);
 
     /**
      * listens to state changes of the given item, if it is part of the
@@ -55,12 +61,11 @@ public interface EventBroadcaster {
     public void registerItems();
 
     /**
-     * lists all client item names and the associated type which must be notified
-     * when the item changes
+     * lists all clients which must be notified when the item changes
      *
      * @param item
      *            - the item that is listened to
-     * @return
+     * @return the subscribed clients, never null
      */
-    public Map<String, Class<? extends State>> getClientItems(Item item);
+    public Collection<ClientSubscription> getSubscriptions(Item item);
 }
@@ -11,12 +11,19 @@ package org.openhab.ui.cometvisu.backend;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -35,12 +42,13 @@ import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.io.rest.RESTResource;
 import org.glassfish.jersey.media.sse.EventOutput;
-import org.glassfish.jersey.media.sse.SseBroadcaster;
 import org.glassfish.jersey.media.sse.SseFeature;
 import org.openhab.ui.cometvisu.backend.beans.StateBean;
 import org.openhab.ui.cometvisu.internal.Config;
 import org.openhab.ui.cometvisu.internal.listeners.StateEventListener;
-import org.openhab.ui.cometvisu.internal.util.SseUtil;
+import org.openhab.ui.cometvisu.internal.sse.ClientSubscription;
+import org.openhab.ui.cometvisu.internal.sse.StateConversions;
+import org.openhab.ui.cometvisu.internal.sse.StateProjection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +56,10 @@ import org.slf4j.LoggerFactory;
  * handles read request from the CometVisu client every request initializes a
  * SSE communication
  *
+ * Every connection is tracked as a {@link ClientSubscription}. An index from item name to the subscribed clients
+ * makes sure that a state change is only delivered to the clients that requested the item. State changes are
+ * queued per client and flushed as one batched event every {@link Config#COMETVISU_SSE_FLUSH_INTERVAL} ms.
+ *
  * @author Tobias Bräutigam
  * @since 2.0.0
  */
@@ -55,16 +67,32 @@ import org.slf4j.LoggerFactory;
 public class ReadResource implements EventBroadcaster, RESTResource {
     private static final Logger logger = LoggerFactory.getLogger(ReadResource.class);
 
-    private SseBroadcaster broadcaster = new SseBroadcaster();
+    /**
+     * interval in ms in which a keep-alive event is sent to every client, so closed connections are detected
+     * even if none of their items changes
+     */
+    private static final long KEEP_ALIVE_INTERVAL = 30000;
 
-    private final ExecutorService executorService;
+    private final ScheduledExecutorService scheduler;
 
     private ItemRegistry itemRegistry;
 
     private StateEventListener stateEventListener;
 
-    private List<String> itemNames = new ArrayList<String>();
-    private Map<Item, Map<String, Class<? extends State>>> items = new HashMap<Item, Map<String, Class<? extends State>>>();
+    /**
+     * openHAB item name -> clients that are subscribed to this item
+     */
+    private final ConcurrentMap<String, Set<ClientSubscription>> subscriptions = new ConcurrentHashMap<String, Set<ClientSubscription>>();
+
+    /**
+     * all connected clients
+     */
+    private final Set<ClientSubscription> clients = new CopyOnWriteArraySet<ClientSubscription>();
+
+    /**
+     * clients with pending state updates
+     */
+    private final ConcurrentLinkedQueue<ClientSubscription> pendingClients = new ConcurrentLinkedQueue<ClientSubscription>();
 
     @Context
     private UriInfo uriInfo;
@@ -77,12 +105,48 @@ public class ReadResource implements EventBroadcaster, RESTResource {
 
     private Collection<ItemFactory> itemFactories = new CopyOnWriteArrayList<ItemFactory>();
 
+    /**
+     * whether the flush task is scheduled, it only runs while clients are connected
+     */
+    private boolean flushScheduled = false;
+
+    private long lastKeepAlive = System.currentTimeMillis();
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                flushPendingClients();
+                if (System.currentTimeMillis() - lastKeepAlive >= KEEP_ALIVE_INTERVAL) {
+                    lastKeepAlive = System.currentTimeMillis();
+                    keepAliveClients();
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Error while sending state updates to the CometVisu clients", e);
+            } finally {
+                synchronized (ReadResource.this) {
+                    flushScheduled = false;
+                }
+                scheduleFlush();
+            }
+        }
+    };
+
     public ReadResource() {
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
         this.stateEventListener = new StateEventListener();
         this.stateEventListener.setEventBroadcaster(this);
     }
 
+    protected void deactivate() {
+        scheduler.shutdownNow();
+        for (ClientSubscription client : clients) {
+            removeClient(client);
+            client.close();
+        }
+        pendingClients.clear();
+    }
+
     protected void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
     }
@@ -100,10 +164,10 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     }
 
     /**
-     * Subscribes the connecting client to the stream of events filtered by the
-     * given eventFilter.
+     * Subscribes the connecting client to the state changes of the requested items.
      *
-     * @param eventFilter
+     * @param itemNames
+     *            - the CometVisu item names (optionally prefixed by a type, e.g. number:Item)
      * @return {@link EventOutput} object associated with the incoming
      *         connection.
      * @throws IOException
@@ -115,68 +179,170 @@ public class ReadResource implements EventBroadcaster, RESTResource {
             @QueryParam("t") long time) throws IOException, InterruptedException {
         final EventOutput eventOutput = new EventOutput();
 
-        this.itemNames = itemNames;
-
-        broadcaster.add(eventOutput);
+        // compile the projections of all requested items
+        Map<String, List<StateProjection>> projections = new HashMap<String, List<StateProjection>>();
+        for (String cvItemName : itemNames) {
+            String[] parts = cvItemName.split(":");
+            String ohItemName = cvItemName;
+            Class<? extends State> stateClass = null;
+            if (parts.length == 2) {
+                String classPrefix = parts[0].toLowerCase();
+                if (Config.itemTypeMapper.containsKey(classPrefix)) {
+                    stateClass = Config.itemTypeMapper.get(classPrefix);
+                } else {
+                    logger.debug("no type found for '{}'", classPrefix);
+                }
+                ohItemName = parts[1];
+            }
+            if (!projections.containsKey(ohItemName)) {
+                projections.put(ohItemName, new ArrayList<StateProjection>());
+            }
+            projections.get(ohItemName).add(new StateProjection(cvItemName, stateClass));
+        }
 
-        // get all requested items and send their states to the client
-        items = new HashMap<Item, Map<String, Class<? extends State>>>();
         // send the current states of all items to the client
+        List<StateBean> states = new ArrayList<StateBean>();
         if (this.itemRegistry != null) {
-            List<StateBean> states = new ArrayList<StateBean>();
-            for (String cvItemName : itemNames) {
+            for (Map.Entry<String, List<StateProjection>> entry : projections.entrySet()) {
                 try {
-                    String[] parts = cvItemName.split(":");
-                    String ohItemName = cvItemName;
-                    Class<? extends State> stateClass = null;
-                    if (parts.length == 2) {
-                        String classPrefix = parts[0].toLowerCase();
-                        if (Config.itemTypeMapper.containsKey(classPrefix)) {
-                            stateClass = Config.itemTypeMapper.get(classPrefix);
-                            classPrefix += ":";
-                        } else {
-                            logger.debug("no type found for '{}'", classPrefix);
-                            classPrefix = "";
-                        }
-                        ohItemName = parts[1];
-                    }
-                    Item item = this.itemRegistry.getItem(ohItemName);
-                    if (!items.containsKey(item)) {
-                        items.put(item, new HashMap<String, Class<? extends State>>());
+                    Item item = this.itemRegistry.getItem(entry.getKey());
+                    StateConversions conversions = new StateConversions(item, item.getState());
+                    for (StateProjection projection : entry.getValue()) {
+                        StateBean itemState = new StateBean();
+                        itemState.name = projection.getCvItemName();
+                        itemState.state = conversions.get(projection);
+                        logger.trace("get state of '{}' as '{}' == '{}'", item, projection.getStateClass(),
+                                itemState.state);
+                        states.add(itemState);
                     }
-                    items.get(item).put(cvItemName, stateClass);
-                    StateBean itemState = new StateBean();
-                    itemState.name = cvItemName;
-
-                    if (stateClass != null) {
-                        itemState.state = item.getStateAs(stateClass).toString();
-                        logger.trace("get state of '{}' as '{}' == '{}'", item, stateClass, itemState.state);
-                    } else {
-                        itemState.state = item.getState().toString();
-                    }
-                    states.add(itemState);
                 } catch (ItemNotFoundException e) {
                     logger.error(e.getLocalizedMessage());
                 }
             }
-            logger.debug("initially broadcasting " + states.size() + "/" + itemNames.size() + " item states");
-            broadcaster.broadcast(SseUtil.buildEvent(states));
         }
+
+        ClientSubscription client = new ClientSubscription(eventOutput, projections);
+        logger.debug("initially sending {}/{} item states", states.size(), itemNames.size());
+        client.send(states);
+
         // listen to state changes of the requested items
-        registerItems();
+        addClient(client);
 
         return eventOutput;
     }
 
+    private void addClient(ClientSubscription client) {
+        clients.add(client);
+        for (String itemName : client.getItemNames()) {
+            Set<ClientSubscription> itemClients = subscriptions.get(itemName);
+            if (itemClients == null) {
+                itemClients = new CopyOnWriteArraySet<ClientSubscription>();
+                Set<ClientSubscription> existing = subscriptions.putIfAbsent(itemName, itemClients);
+                if (existing != null) {
+                    itemClients = existing;
+                }
+            }
+            itemClients.add(client);
+            addStateChangeListener(itemName);
+        }
+        scheduleFlush();
+    }
+
+    private void removeClient(ClientSubscription client) {
+        clients.remove(client);
+        for (String itemName : client.getItemNames()) {
+            Set<ClientSubscription> itemClients = subscriptions.get(itemName);
+            if (itemClients != null) {
+                itemClients.remove(client);
+                if (itemClients.isEmpty() && subscriptions.remove(itemName, itemClients)) {
+                    removeStateChangeListener(itemName);
+                }
+            }
+        }
+    }
+
+    private void addStateChangeListener(String itemName) {
+        if (this.itemRegistry == null) {
+            return;
+        }
+        try {
+            Item item = this.itemRegistry.getItem(itemName);
+            if (item instanceof GenericItem) {
+                ((GenericItem) item).addStateChangeListener(stateEventListener);
+            }
+        } catch (ItemNotFoundException e) {
+            // item will be registered when it is added to the registry
+        }
+    }
+
+    private void removeStateChangeListener(String itemName) {
+        if (this.itemRegistry == null) {
+            return;
+        }
+        try {
+            Item item = this.itemRegistry.getItem(itemName);
+            if (item instanceof GenericItem) {
+                ((GenericItem) item).removeStateChangeListener(stateEventListener);
+            }
+        } catch (ItemNotFoundException e) {
+            // nothing to unregister
+        }
+    }
+
+    private synchronized void scheduleFlush() {
+        if (!flushScheduled && !clients.isEmpty() && !scheduler.isShutdown()) {
+            flushScheduled = true;
+            scheduler.schedule(flushTask, Config.COMETVISU_SSE_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * sends a keep-alive event to all clients and removes the ones whose connection is closed
+     */
+    private void keepAliveClients() {
+        for (ClientSubscription client : clients) {
+            if (client.isClosed()) {
+                removeClient(client);
+                continue;
+            }
+            try {
+                client.keepAlive();
+            } catch (IOException e) {
+                logger.debug("Client connection closed, removing subscription: {}", e.getMessage());
+                removeClient(client);
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * sends the pending state updates to all clients that have some
+     */
+    private void flushPendingClients() {
+        ClientSubscription client;
+        while ((client = pendingClients.poll()) != null) {
+            if (client.isClosed()) {
+                client.drain();
+                removeClient(client);
+                continue;
+            }
+            try {
+                client.flush();
+            } catch (IOException e) {
+                logger.debug("Client connection closed, removing subscription: {}", e.getMessage());
+                removeClient(client);
+                client.close();
+            }
+        }
+    }
+
     /**
      * listen for state changes from the requested items
      */
     @Override
     public void registerItems() {
-        for (Item item : items.keySet()) {
-            if (item instanceof GenericItem) {
-                ((GenericItem) item).addStateChangeListener(stateEventListener);
-            }
+        for (String itemName : subscriptions.keySet()) {
+            addStateChangeListener(itemName);
         }
     }
 
@@ -189,52 +355,44 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      */
     @Override
     public void registerItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName()))
+        if (item == null || !subscriptions.containsKey(item.getName())) {
             return;
+        }
         if (item instanceof GenericItem) {
             ((GenericItem) item).addStateChangeListener(stateEventListener);
         }
     }
 
     /**
-     * listens to state changes of the given item, if it is part of the
-     * requested items
+     * stops listening to state changes of the given item
      *
      * @param item
-     *            - the new item, that should be listened to
+     *            - the item, that should not be listened to anymore
      */
     @Override
     public void unregisterItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName()))
+        if (item == null) {
             return;
+        }
         if (item instanceof GenericItem) {
             ((GenericItem) item).removeStateChangeListener(stateEventListener);
-            items.remove(item);
         }
     }
 
-    /**
-     * Broadcasts an event described by the given parameters to all currently
-     * listening clients.
-     *
-     * @param item
-     *            - the item which has changed
-     * @param eventObject
-     *            - bean that can be converted to a JSON object.
-     */
     @Override
-    public void broadcastEvent(final Object eventObject) {
-        executorService.execute(new Runnable() {
-
-            @Override
-            public void run() {
-                broadcaster.broadcast(SseUtil.buildEvent(eventObject));
-            }
-        });
+    public void publishStates(ClientSubscription client, List<StateProjection> projections,
+            StateConversions conversions) {
+        if (client.queue(projections, conversions)) {
+            pendingClients.add(client);
+        }
     }
 
     @Override
-    public Map<String, Class<? extends State>> getClientItems(Item item) {
-        return items.get(item);
+    public Collection<ClientSubscription> getSubscriptions(Item item) {
+        Set<ClientSubscription> itemClients = subscriptions.get(item.getName());
+        if (itemClients == null) {
+            return Collections.emptySet();
+        }
+        return itemClients;
     }
 }
@@ -44,6 +44,34 @@ public class Config {
 
     public static String COMETVISU_WEBAPP_ALIAS = "/cometvisu";
 
+    public static final String COMETVISU_SSE_FLUSH_INTERVAL_PROPERTY = "sseFlushInterval";
+
+    /*
+     * interval in ms in which the queued state updates are sent to the clients
+     */
+    public static long COMETVISU_SSE_FLUSH_INTERVAL = 100;
+
+    public static final String COMETVISU_CHART_CACHE_SIZE_PROPERTY = "chartCacheSize";
+
+    /*
+     * maximum number of chart series that are cached, 0 disables the cache
+     */
+    public static int COMETVISU_CHART_CACHE_SIZE = 50;
+
+    public static final String COMETVISU_FILE_CACHE_SIZE_PROPERTY = "fileCacheSize";
+
+    /*
+     * maximum size in KB of the static files cached in memory, 0 disables the cache
+     */
+    public static long COMETVISU_FILE_CACHE_SIZE = 32 * 1024;
+
+    public static final String COMETVISU_FILE_CACHE_MAX_FILE_SIZE_PROPERTY = "fileCacheMaxFileSize";
+
+    /*
+     * size in KB of the largest static file that is cached, larger files are streamed from the file system
+     */
+    public static long COMETVISU_FILE_CACHE_MAX_FILE_SIZE = 1024;
+
     public static String COMETVISU_WEBAPP_USERFILE_FOLDER = File.separator + "cometvisu";
 
     /*
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.chart;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Series of numeric values backed by primitive arrays, ordered by timestamp.
+ *
+ * @author agent - Initial contribution
+ * @since 2.0.0
+ */
+public class ChartSeries {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private long[] timestamps;
+
+    private double[] values;
+
+    private int size = 0;
+
+    public ChartSeries() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ChartSeries(int capacity) {
+        timestamps = new long[Math.max(capacity, 1)];
+        values = new double[Math.max(capacity, 1)];
+    }
+
+    /**
+     * appends a value, timestamps must be added in ascending order
+     *
+     * @param timestamp
+     *            - time in ms
+     * @param value
+     *            - the value
+     */
+    public void add(long timestamp, double value) {
+        if (size == timestamps.length) {
+            int capacity = size * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * @return the timestamp of the last value or -1 if the series is empty
+     */
+    public long getLastTimestamp() {
+        return size > 0 ? timestamps[size - 1] : -1;
+    }
+
+    /**
+     * removes all values with a timestamp before the given time
+     *
+     * @param timestamp
+     *            - time in ms
+     */
+    public void removeBefore(long timestamp) {
+        int first = 0;
+        while (first < size && timestamps[first] < timestamp) {
+            first++;
+        }
+        if (first > 0) {
+            System.arraycopy(timestamps, first, timestamps, 0, size - first);
+            System.arraycopy(values, first, values, 0, size - first);
+            size -= first;
+        }
+    }
+
+    /**
+     * removes the last value, if there is one
+     */
+    public void removeLast() {
+        if (size > 0) {
+            size--;
+        }
+    }
+
+    /**
+     * appends all values of the given series, which must start after the last value of this series
+     *
+     * @param series
+     *            - the values to append
+     */
+    public void addAll(ChartSeries series) {
+        for (int i = 0; i < series.size; i++) {
+            add(series.timestamps[i], series.values[i]);
+        }
+    }
+
+    /**
+     * @param from
+     *            - start time in ms (inclusive)
+     * @param to
+     *            - end time in ms (inclusive)
+     * @return a copy of the values within the given time range
+     */
+    public ChartSeries subSeries(long from, long to) {
+        int first = 0;
+        while (first < size && timestamps[first] < from) {
+            first++;
+        }
+        int last = size;
+        while (last > first && timestamps[last - 1] > to) {
+            last--;
+        }
+        ChartSeries series = new ChartSeries(last - first);
+        System.arraycopy(timestamps, first, series.timestamps, 0, last - first);
+        System.arraycopy(values, first, series.values, 0, last - first);
+        series.size = last - first;
+        return series;
+    }
+
+    /**
+     * writes the series in the CometVisu RRD format: [[timestamp,["value"]],...]
+     *
+     * @param writer
+     *            - the writer to write to
+     * @param formatter
+     *            - formats a single value
+     * @throws IOException
+     */
+    public void writeTo(Writer writer, ValueFormatter formatter) throws IOException {
+        writer.write('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write('[');
+            writer.write(Long.toString(timestamps[i]));
+            writer.write(",[\"");
+            writer.write(formatter.format(values[i]));
+            writer.write("\"]]");
+        }
+        writer.write(']');
+    }
+
+    /**
+     * Formats the values of a series for the response
+     */
+    public interface ValueFormatter {
+        /**
+         * @param value
+         *            - the value to format
+         * @return the formatted value
+         */
+        String format(double value);
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.chart;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
+import org.openhab.ui.cometvisu.internal.Config;
+import org.openhab.ui.cometvisu.internal.chart.SeriesDownsampler.Consolidation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LRU cache of chart series, keyed by persistence service, item, consolidation function and resolution.
+ * A repeated request only queries the values persisted since the last request and appends them to the
+ * cached series. An entry keeps the widest time range requested for it, so diagrams of the same item
+ * with different ranges share the cached values instead of reloading them.
+ *
+ * Consolidated series are cached with their buckets, the last (possibly incomplete) bucket is replaced on
+ * every refresh. LTTB needs the full resolution values, so these are cached and reduced per request.
+ *
+ * @author agent - Initial contribution
+ * @since 2.0.0
+ */
+public class ChartSeriesCache {
+    private static final Logger logger = LoggerFactory.getLogger(ChartSeriesCache.class);
+
+    private final Map<CacheKey, CacheEntry> entries = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+            return size() > Config.COMETVISU_CHART_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Returns the series of the item within the given time range, only querying the persistence service for
+     * values that are not cached yet.
+     *
+     * @param persistenceService
+     *            - the service to query
+     * @param itemName
+     *            - name of the item
+     * @param consolidation
+     *            - how the values within one bucket are consolidated
+     * @param begin
+     *            - start of the time range in ms
+     * @param end
+     *            - end of the time range in ms
+     * @param bucketSize
+     *            - size of a bucket in ms, values <= 0 disable the downsampling
+     * @return the series
+     */
+    public ChartSeries getSeries(QueryablePersistenceService persistenceService, String itemName,
+            Consolidation consolidation, long begin, long end, long bucketSize) {
+        if (Config.COMETVISU_CHART_CACHE_SIZE <= 0) {
+            return SeriesDownsampler.downsample(query(persistenceService, itemName, begin, end), begin, end,
+                    bucketSize, consolidation);
+        }
+
+        CacheKey key = new CacheKey(persistenceService.getId(), itemName, consolidation, bucketSize);
+        CacheEntry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new CacheEntry(bucketSize > 0 && consolidation != Consolidation.LTTB ? consolidation : null,
+                        bucketSize);
+                entries.put(key, entry);
+            }
+        }
+
+        ChartSeries series;
+        synchronized (entry) {
+            entry.refresh(persistenceService, itemName, begin, end);
+            series = entry.getSeries(begin, end);
+        }
+        if (consolidation == Consolidation.LTTB && bucketSize > 0) {
+            int buckets = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (end - begin) / bucketSize));
+            series = SeriesDownsampler.lttb(series, buckets);
+        }
+        return series;
+    }
+
+    /**
+     * removes all cached series of the given persistence service
+     *
+     * @param serviceId
+     *            - id of the persistence service
+     */
+    public void invalidate(String serviceId) {
+        synchronized (entries) {
+            Iterator<CacheKey> it = entries.keySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().serviceId.equals(serviceId)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static Iterator<HistoricItem> query(QueryablePersistenceService persistenceService, String itemName,
+            long begin, long end) {
+        FilterCriteria filter = new FilterCriteria();
+        filter.setBeginDate(new Date(begin));
+        filter.setEndDate(new Date(end));
+        filter.setItemName(itemName);
+        filter.setOrdering(Ordering.ASCENDING);
+        return persistenceService.query(filter).iterator();
+    }
+
+    /**
+     * cached series of one key
+     */
+    private static class CacheEntry {
+
+        /**
+         * consolidation of the buckets, null if the full resolution values are cached
+         */
+        private final Consolidation consolidation;
+
+        private final long bucketSize;
+
+        private ChartSeries series;
+
+        /**
+         * start of the cached time range
+         */
+        private long from;
+
+        /**
+         * end of the cached time range
+         */
+        private long until;
+
+        /**
+         * length of the widest time range requested, older values are removed from the cache
+         */
+        private long span;
+
+        private CacheEntry(Consolidation consolidation, long bucketSize) {
+            this.consolidation = consolidation;
+            this.bucketSize = bucketSize;
+        }
+
+        private void refresh(QueryablePersistenceService persistenceService, String itemName, long begin, long end) {
+            long now = System.currentTimeMillis();
+            span = Math.max(span, end - begin);
+            if (series == null || begin < from) {
+                // nothing usable in the cache
+                series = read(query(persistenceService, itemName, begin, end), 0);
+                from = begin;
+                until = Math.min(end, now);
+                logger.trace("cached {} values of '{}' from '{}'", series.size(), itemName,
+                        persistenceService.getId());
+                return;
+            }
+            if (end > until) {
+                // values might have been persisted since the last query, regardless of the persistence strategy
+                long deltaBegin;
+                long after;
+                if (consolidation != null && series.size() > 0) {
+                    // the last bucket is queried again, it might have been incomplete
+                    deltaBegin = series.getLastTimestamp();
+                    after = 0;
+                    series.removeLast();
+                } else {
+                    deltaBegin = series.size() > 0 ? series.getLastTimestamp() : until;
+                    after = series.getLastTimestamp();
+                }
+                ChartSeries delta = read(query(persistenceService, itemName, deltaBegin, end), after);
+                series.addAll(delta);
+                until = Math.min(end, now);
+                logger.trace("appended {} values of '{}' from '{}'", delta.size(), itemName,
+                        persistenceService.getId());
+            }
+            long keepFrom = end - span;
+            if (keepFrom > from) {
+                // the time window has moved, values older than the widest requested range are not needed anymore
+                series.removeBefore(
+                        consolidation != null ? SeriesDownsampler.getBucket(keepFrom, bucketSize) : keepFrom);
+                from = keepFrom;
+            }
+        }
+
+        private ChartSeries read(Iterator<HistoricItem> items, long after) {
+            if (consolidation != null) {
+                return SeriesDownsampler.consolidate(items, bucketSize, consolidation);
+            }
+            return SeriesDownsampler.read(items, after);
+        }
+
+        private ChartSeries getSeries(long begin, long end) {
+            return series.subSeries(consolidation != null ? SeriesDownsampler.getBucket(begin, bucketSize) : begin,
+                    end);
+        }
+    }
+
+    private static class CacheKey {
+        private final String serviceId;
+        private final String itemName;
+        private final Consolidation consolidation;
+        private final long bucketSize;
+
+        private CacheKey(String serviceId, String itemName, Consolidation consolidation, long bucketSize) {
+            this.serviceId = serviceId;
+            this.itemName = itemName;
+            this.consolidation = consolidation;
+            this.bucketSize = bucketSize;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + serviceId.hashCode();
+            result = prime * result + itemName.hashCode();
+            result = prime * result + consolidation.hashCode();
+            result = prime * result + (int) (bucketSize ^ (bucketSize >>> 32));
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return bucketSize == other.bucketSize && consolidation == other.consolidation
+                    && serviceId.equals(other.serviceId) && itemName.equals(other.itemName);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.chart;
+
+import java.util.Iterator;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * Reduces persisted item states to the resolution requested by the diagram plugin.
+ * The consolidation functions (AVERAGE, MIN, MAX, FIRST, LAST, TOTAL) are calculated in one pass over
+ * the ascending {@link HistoricItem}s, LTTB (Largest-Triangle-Three-Buckets) keeps the visual shape of the
+ * series by selecting one real point per bucket.
+ *
+ * @author agent - Initial contribution
+ * @since 2.0.0
+ */
+public class SeriesDownsampler {
+
+    /**
+     * Consolidation functions supported by the downsampler, names match the RRD consolidation functions
+     */
+    public enum Consolidation {
+        AVERAGE,
+        MIN,
+        MAX,
+        FIRST,
+        LAST,
+        TOTAL,
+        LTTB;
+
+        /**
+         * @param name
+         *            - name of the consolidation function as sent by the client (case insensitive)
+         * @return the consolidation function, AVERAGE if the name is unknown
+         */
+        public static Consolidation fromString(String name) {
+            if (name != null) {
+                for (Consolidation consolidation : values()) {
+                    if (consolidation.name().equalsIgnoreCase(name)) {
+                        return consolidation;
+                    }
+                }
+            }
+            return AVERAGE;
+        }
+    }
+
+    private SeriesDownsampler() {
+        // utility class
+    }
+
+    /**
+     * Reads the numeric states of the historic items and consolidates them into buckets.
+     *
+     * @param items
+     *            - historic items in ascending order
+     * @param begin
+     *            - start of the requested time range in ms
+     * @param end
+     *            - end of the requested time range in ms
+     * @param bucketSize
+     *            - size of a bucket in ms, values <= 0 disable the downsampling
+     * @param consolidation
+     *            - how the values of a bucket are consolidated
+     * @return the consolidated series
+     */
+    public static ChartSeries downsample(Iterator<HistoricItem> items, long begin, long end, long bucketSize,
+            Consolidation consolidation) {
+        if (bucketSize <= 0) {
+            return read(items, 0);
+        }
+        if (consolidation == Consolidation.LTTB) {
+            int buckets = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (end - begin) / bucketSize));
+            return lttb(read(items, 0), buckets);
+        }
+        return consolidate(items, bucketSize, consolidation);
+    }
+
+    /**
+     * Reads the numeric states of the historic items without any consolidation.
+     *
+     * @param items
+     *            - historic items in ascending order
+     * @param after
+     *            - only items with a timestamp greater than this are read
+     * @return the series
+     */
+    public static ChartSeries read(Iterator<HistoricItem> items, long after) {
+        ChartSeries series = new ChartSeries();
+        while (items.hasNext()) {
+            HistoricItem historicItem = items.next();
+            State state = historicItem.getState();
+            long time = historicItem.getTimestamp().getTime();
+            if (state instanceof DecimalType && time > after) {
+                series.add(time, ((DecimalType) state).doubleValue());
+            }
+        }
+        return series;
+    }
+
+    /**
+     * Consolidates the numeric states of the historic items into buckets. Buckets are aligned to multiples of
+     * the bucket size, so the same bucket always gets the same timestamp regardless of the requested time range.
+     *
+     * @param items
+     *            - historic items in ascending order
+     * @param bucketSize
+     *            - size of a bucket in ms
+     * @param consolidation
+     *            - how the values of a bucket are consolidated, must not be LTTB
+     * @return the consolidated series, the timestamp of a value is the start of its bucket
+     */
+    public static ChartSeries consolidate(Iterator<HistoricItem> items, long bucketSize,
+            Consolidation consolidation) {
+        ChartSeries series = new ChartSeries();
+        long currentBucket = Long.MIN_VALUE;
+        double aggregate = 0;
+        int count = 0;
+
+        while (items.hasNext()) {
+            HistoricItem historicItem = items.next();
+            State state = historicItem.getState();
+            if (!(state instanceof DecimalType)) {
+                continue;
+            }
+            double value = ((DecimalType) state).doubleValue();
+            long time = historicItem.getTimestamp().getTime();
+            long bucket = getBucket(time, bucketSize);
+
+            if (bucket != currentBucket) {
+                if (count > 0) {
+                    series.add(currentBucket, finish(consolidation, aggregate, count));
+                }
+                currentBucket = bucket;
+                aggregate = value;
+                count = 1;
+                continue;
+            }
+            switch (consolidation) {
+                case MIN:
+                    aggregate = Math.min(aggregate, value);
+                    break;
+                case MAX:
+                    aggregate = Math.max(aggregate, value);
+                    break;
+                case FIRST:
+                    break;
+                case LAST:
+                    aggregate = value;
+                    break;
+                default:
+                    // AVERAGE and TOTAL sum up the values
+                    aggregate += value;
+                    break;
+            }
+            count++;
+        }
+        if (count > 0) {
+            series.add(currentBucket, finish(consolidation, aggregate, count));
+        }
+        return series;
+    }
+
+    /**
+     * @param time
+     *            - time in ms
+     * @param bucketSize
+     *            - size of a bucket in ms
+     * @return the start of the bucket the given time belongs to
+     */
+    public static long getBucket(long time, long bucketSize) {
+        return (time / bucketSize) * bucketSize;
+    }
+
+    private static double finish(Consolidation consolidation, double aggregate, int count) {
+        return consolidation == Consolidation.AVERAGE ? aggregate / count : aggregate;
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets downsampling. The first and last points are always kept, from every bucket
+     * in between the point that forms the largest triangle with the previously selected point and the average
+     * of the next bucket is selected.
+     *
+     * @param series
+     *            - the full resolution series
+     * @param threshold
+     *            - number of points of the result
+     * @return the downsampled series
+     */
+    public static ChartSeries lttb(ChartSeries series, int threshold) {
+        int size = series.size();
+        if (threshold >= size || threshold < 3) {
+            return series;
+        }
+        ChartSeries sampled = new ChartSeries(threshold);
+
+        // bucket size, leaving room for the first and last point
+        double every = (double) (size - 2) / (threshold - 2);
+
+        int a = 0;
+        sampled.add(series.getTimestamp(a), series.getValue(a));
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // average of the next bucket
+            int avgRangeStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgRangeEnd = Math.min((int) Math.floor((i + 2) * every) + 1, size);
+            double avgX = 0;
+            double avgY = 0;
+            int avgRangeLength = avgRangeEnd - avgRangeStart;
+            for (int j = avgRangeStart; j < avgRangeEnd; j++) {
+                avgX += series.getTimestamp(j);
+                avgY += series.getValue(j);
+            }
+            avgX /= avgRangeLength;
+            avgY /= avgRangeLength;
+
+            // range of the current bucket
+            int rangeOffs = (int) Math.floor(i * every) + 1;
+            int rangeTo = (int) Math.floor((i + 1) * every) + 1;
+
+            double pointAX = series.getTimestamp(a);
+            double pointAY = series.getValue(a);
+
+            double maxArea = -1;
+            int maxAreaPoint = rangeOffs;
+            for (int j = rangeOffs; j < rangeTo; j++) {
+                double area = Math.abs((pointAX - avgX) * (series.getValue(j) - pointAY)
+                        - (pointAX - series.getTimestamp(j)) * (avgY - pointAY)) * 0.5;
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxAreaPoint = j;
+                }
+            }
+            sampled.add(series.getTimestamp(maxAreaPoint), series.getValue(maxAreaPoint));
+            a = maxAreaPoint;
+        }
+
+        sampled.add(series.getTimestamp(size - 1), series.getValue(size - 1));
+        return sampled;
+    }
+}
@@ -8,17 +8,20 @@
  */
 package org.openhab.ui.cometvisu.internal.listeners;
 
-import java.util.Map;
+import java.util.List;
 
 import org.eclipse.smarthome.core.items.GroupItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.StateChangeListener;
 import org.eclipse.smarthome.core.types.State;
 import org.openhab.ui.cometvisu.backend.EventBroadcaster;
-import org.openhab.ui.cometvisu.backend.beans.StateBean;
+import org.openhab.ui.cometvisu.internal.sse.ClientSubscription;
+import org.openhab.ui.cometvisu.internal.sse.StateConversions;
+import org.openhab.ui.cometvisu.internal.sse.StateProjection;
 
 /**
- * listens to state changes on items and send them to an EventBroadcaster
+ * listens to state changes on items and queues them for the subscribed clients of an EventBroadcaster.
+ * A single instance is registered on all subscribed items.
  * 
  * @author Tobias Bräutigam
  * @since 2.0.0
@@ -37,25 +40,7 @@ public class StateEventListener implements StateChangeListener {
 
     @Override
     public void stateChanged(Item item, State oldState, State newState) {
-        Map<String, Class<? extends State>> clientItems = eventBroadcaster.getClientItems(item);
-        if (clientItems != null && clientItems.size() > 0) {
-            for (String cvItemName : clientItems.keySet()) {
-                Class<? extends State> stateClass = clientItems.get(cvItemName);
-                StateBean stateBean = new StateBean();
-                stateBean.name = cvItemName;
-                if (stateClass != null)
-                    stateBean.state = item.getStateAs(stateClass).toString();
-                else
-                    stateBean.state = item.getState().toString();
-                eventBroadcaster.broadcastEvent(stateBean);
-            }
-        } else {
-            StateBean stateBean = new StateBean();
-            stateBean.name = item.getName();
-            stateBean.state = newState.toString();
-            eventBroadcaster.broadcastEvent(stateBean);
-        }
-
+        publish(item, newState, false);
     }
 
     @Override
@@ -64,19 +49,32 @@ public class StateEventListener implements StateChangeListener {
 
             // group item update could be relevant for the client, although the state of switch group does not change
             // wenn more the one are on, the number-groupFunction changes
-            Map<String, Class<? extends State>> clientItems = eventBroadcaster.getClientItems(item);
-            if (clientItems != null && clientItems.size() > 0) {
-                for (String cvItemName : clientItems.keySet()) {
-                    Class<? extends State> stateClass = clientItems.get(cvItemName);
-                    if (stateClass != null) {
-                        StateBean stateBean = new StateBean();
-                        stateBean.name = cvItemName;
-                        stateBean.state = item.getStateAs(stateClass).toString();
+            publish(item, state, true);
+        }
+    }
 
-                        eventBroadcaster.broadcastEvent(stateBean);
-                    }
-                }
+    /**
+     * queues the new state for all subscribed clients, every requested type is converted only once
+     *
+     * @param item
+     *            - the item that has been updated
+     * @param state
+     *            - the new state
+     * @param typedOnly
+     *            - only update CometVisu items that requested a type
+     */
+    private void publish(Item item, State state, boolean typedOnly) {
+        StateConversions conversions = null;
+        for (ClientSubscription client : eventBroadcaster.getSubscriptions(item)) {
+            List<StateProjection> projections = typedOnly ? client.getTypedProjections(item.getName())
+                    : client.getProjections(item.getName());
+            if (projections == null) {
+                continue;
+            }
+            if (conversions == null) {
+                conversions = new StateConversions(item, state);
             }
+            eventBroadcaster.publishStates(client, projections, conversions);
         }
     }
 }
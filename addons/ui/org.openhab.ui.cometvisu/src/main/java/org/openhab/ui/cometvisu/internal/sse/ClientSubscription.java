@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.sse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.openhab.ui.cometvisu.backend.beans.StateBean;
+import org.openhab.ui.cometvisu.internal.util.SseUtil;
+
+/**
+ * Subscription of a single CometVisu client (one SSE connection) to a set of items.
+ * State changes are queued per client and coalesced (last value wins) until the
+ * next flush sends them as one batched event.
+ *
+ * @author agent - Initial contribution
+ * @since 2.0.0
+ */
+public class ClientSubscription {
+
+    private final EventOutput eventOutput;
+
+    /**
+     * openHAB item name -> projections to the CometVisu items requested by the client
+     */
+    private final Map<String, List<StateProjection>> projections;
+
+    /**
+     * openHAB item name -> projections that requested a state type
+     */
+    private final Map<String, List<StateProjection>> typedProjections = new HashMap<String, List<StateProjection>>();
+
+    private final Map<String, String> pendingStates = new LinkedHashMap<String, String>();
+
+    private boolean scheduled = false;
+
+    /**
+     * @param eventOutput
+     *            - the SSE connection of the client
+     * @param projections
+     *            - openHAB item name -> projections to the requested CometVisu items
+     */
+    public ClientSubscription(EventOutput eventOutput, Map<String, List<StateProjection>> projections) {
+        this.eventOutput = eventOutput;
+        this.projections = projections;
+        for (Map.Entry<String, List<StateProjection>> entry : projections.entrySet()) {
+            List<StateProjection> typed = new ArrayList<StateProjection>();
+            for (StateProjection projection : entry.getValue()) {
+                if (projection.getStateClass() != null) {
+                    typed.add(projection);
+                }
+            }
+            if (!typed.isEmpty()) {
+                typedProjections.put(entry.getKey(), typed);
+            }
+        }
+    }
+
+    public EventOutput getEventOutput() {
+        return eventOutput;
+    }
+
+    /**
+     * @return the names of all openHAB items this client is subscribed to
+     */
+    public Set<String> getItemNames() {
+        return Collections.unmodifiableSet(projections.keySet());
+    }
+
+    /**
+     * @param itemName
+     *            - name of the openHAB item
+     * @return the projections to the CometVisu items requested for the given item or null if the client is
+     *         not interested in this item
+     */
+    public List<StateProjection> getProjections(String itemName) {
+        return projections.get(itemName);
+    }
+
+    /**
+     * @param itemName
+     *            - name of the openHAB item
+     * @return the projections to the CometVisu items that requested a state type for the given item or null if
+     *         there are none
+     */
+    public List<StateProjection> getTypedProjections(String itemName) {
+        return typedProjections.get(itemName);
+    }
+
+    /**
+     * Queues the states of all given projections for the next flush, replacing any state of the same CometVisu
+     * items that is still pending.
+     *
+     * @param itemProjections
+     *            - the projections of the item whose state changed
+     * @param conversions
+     *            - the converted states of the item
+     * @return true if the client has to be scheduled for a flush, false if it already is
+     */
+    public synchronized boolean queue(List<StateProjection> itemProjections, StateConversions conversions) {
+        for (StateProjection projection : itemProjections) {
+            pendingStates.put(projection.getCvItemName(), conversions.get(projection));
+        }
+        if (scheduled) {
+            return false;
+        }
+        scheduled = true;
+        return true;
+    }
+
+    /**
+     * Removes all pending states from the queue.
+     *
+     * @return the pending states in the order of their first change
+     */
+    public synchronized List<StateBean> drain() {
+        scheduled = false;
+        List<StateBean> states = new ArrayList<StateBean>(pendingStates.size());
+        for (Map.Entry<String, String> entry : pendingStates.entrySet()) {
+            StateBean stateBean = new StateBean();
+            stateBean.name = entry.getKey();
+            stateBean.state = entry.getValue();
+            states.add(stateBean);
+        }
+        pendingStates.clear();
+        return states;
+    }
+
+    /**
+     * Sends all pending states to the client in one event.
+     *
+     * @throws IOException if the client connection is broken
+     */
+    public void flush() throws IOException {
+        List<StateBean> states = drain();
+        if (!states.isEmpty()) {
+            send(states);
+        }
+    }
+
+    /**
+     * Sends the given states to the client immediately.
+     *
+     * @param states
+     *            - the states to send
+     * @throws IOException if the client connection is broken
+     */
+    public void send(List<StateBean> states) throws IOException {
+        eventOutput.write(SseUtil.buildEvent(states));
+    }
+
+    /**
+     * Sends an event the client ignores, to find out whether the connection is still open.
+     *
+     * @throws IOException if the client connection is broken
+     */
+    public void keepAlive() throws IOException {
+        eventOutput.write(SseUtil.buildKeepAliveEvent());
+    }
+
+    public boolean isClosed() {
+        return eventOutput.isClosed();
+    }
+
+    public void close() {
+        try {
+            eventOutput.close();
+        } catch (IOException e) {
+            // connection is already broken, nothing to do
+        }
+    }
+}
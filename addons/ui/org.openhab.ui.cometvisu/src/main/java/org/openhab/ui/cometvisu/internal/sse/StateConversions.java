@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.sse;
+
+import java.util.Arrays;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * Converts one state of an item to the types requested by the clients. Every type is converted only once,
+ * no matter how many clients and aliases request it. An instance is only valid for a single state.
+ *
+ * @author agent - Initial contribution
+ * @since 2.0.0
+ */
+public class StateConversions {
+
+    private final Item item;
+
+    private final State state;
+
+    private String rawState;
+
+    // only a few different types are requested for one item, so arrays are faster than a map
+    private Class<?>[] stateClasses = new Class<?>[4];
+
+    private String[] convertedStates = new String[4];
+
+    private int size = 0;
+
+    /**
+     * @param item
+     *            - the item the state belongs to
+     * @param state
+     *            - the state that is sent, if no type has been requested
+     */
+    public StateConversions(Item item, State state) {
+        this.item = item;
+        this.state = state;
+    }
+
+    /**
+     * @param projection
+     *            - the projection to apply
+     * @return the state as it should be sent to the client
+     */
+    public String get(StateProjection projection) {
+        Class<? extends State> stateClass = projection.getStateClass();
+        if (stateClass == null) {
+            if (rawState == null) {
+                rawState = state.toString();
+            }
+            return rawState;
+        }
+        for (int i = 0; i < size; i++) {
+            if (stateClasses[i] == stateClass) {
+                return convertedStates[i];
+            }
+        }
+        State converted = item.getStateAs(stateClass);
+        String result = String.valueOf(converted);
+        if (size == stateClasses.length) {
+            stateClasses = Arrays.copyOf(stateClasses, size * 2);
+            convertedStates = Arrays.copyOf(convertedStates, size * 2);
+        }
+        stateClasses[size] = stateClass;
+        convertedStates[size] = result;
+        size++;
+        return result;
+    }
+}
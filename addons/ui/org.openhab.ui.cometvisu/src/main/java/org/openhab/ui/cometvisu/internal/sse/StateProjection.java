@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.sse;
+
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * Projection of an openHAB item state to a CometVisu item: the CometVisu item name and the state type
+ * the client requested for it.
+ *
+ * @author agent - Initial contribution
+ * @since 2.0.0
+ */
+public class StateProjection {
+
+    private final String cvItemName;
+
+    private final Class<? extends State> stateClass;
+
+    /**
+     * @param cvItemName
+     *            - the CometVisu item name
+     * @param stateClass
+     *            - the requested state type, null if the state should be sent as it is
+     */
+    public StateProjection(String cvItemName, Class<? extends State> stateClass) {
+        this.cvItemName = cvItemName;
+        this.stateClass = stateClass;
+    }
+
+    public String getCvItemName() {
+        return cvItemName;
+    }
+
+    public Class<? extends State> getStateClass() {
+        return stateClass;
+    }
+}
@@ -47,6 +47,16 @@ public class SseUtil {
         return event;
     }
 
+    /**
+     * Creates a new {@link OutboundEvent} object only containing a comment,
+     * which is ignored by the client. Used to detect closed connections.
+     *
+     * @return a new OutboundEvent.
+     */
+    public static OutboundEvent buildKeepAliveEvent() {
+        return new OutboundEvent.Builder().comment("keep-alive").build();
+    }
+
     /**
      * Used to mark our current thread(request processing) that SSE blocking
      * should be enabled.
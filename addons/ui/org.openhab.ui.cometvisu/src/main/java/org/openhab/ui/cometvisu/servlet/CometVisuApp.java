@@ -171,6 +171,42 @@ public class CometVisuApp {
             if (properties.get(Config.COMETVISU_WEBAPP_ALIAS_PROPERTY) != null) {
                 Config.COMETVISU_WEBAPP_ALIAS = (String) properties.get(Config.COMETVISU_WEBAPP_ALIAS_PROPERTY);
             }
+            if (properties.get(Config.COMETVISU_SSE_FLUSH_INTERVAL_PROPERTY) != null) {
+                try {
+                    Config.COMETVISU_SSE_FLUSH_INTERVAL = Long
+                            .parseLong(properties.get(Config.COMETVISU_SSE_FLUSH_INTERVAL_PROPERTY).toString());
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid value for '{}': {}", Config.COMETVISU_SSE_FLUSH_INTERVAL_PROPERTY,
+                            properties.get(Config.COMETVISU_SSE_FLUSH_INTERVAL_PROPERTY));
+                }
+            }
+            if (properties.get(Config.COMETVISU_CHART_CACHE_SIZE_PROPERTY) != null) {
+                try {
+                    Config.COMETVISU_CHART_CACHE_SIZE = Integer
+                            .parseInt(properties.get(Config.COMETVISU_CHART_CACHE_SIZE_PROPERTY).toString());
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid value for '{}': {}", Config.COMETVISU_CHART_CACHE_SIZE_PROPERTY,
+                            properties.get(Config.COMETVISU_CHART_CACHE_SIZE_PROPERTY));
+                }
+            }
+            if (properties.get(Config.COMETVISU_FILE_CACHE_SIZE_PROPERTY) != null) {
+                try {
+                    Config.COMETVISU_FILE_CACHE_SIZE = Long
+                            .parseLong(properties.get(Config.COMETVISU_FILE_CACHE_SIZE_PROPERTY).toString());
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid value for '{}': {}", Config.COMETVISU_FILE_CACHE_SIZE_PROPERTY,
+                            properties.get(Config.COMETVISU_FILE_CACHE_SIZE_PROPERTY));
+                }
+            }
+            if (properties.get(Config.COMETVISU_FILE_CACHE_MAX_FILE_SIZE_PROPERTY) != null) {
+                try {
+                    Config.COMETVISU_FILE_CACHE_MAX_FILE_SIZE = Long
+                            .parseLong(properties.get(Config.COMETVISU_FILE_CACHE_MAX_FILE_SIZE_PROPERTY).toString());
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid value for '{}': {}", Config.COMETVISU_FILE_CACHE_MAX_FILE_SIZE_PROPERTY,
+                            properties.get(Config.COMETVISU_FILE_CACHE_MAX_FILE_SIZE_PROPERTY));
+                }
+            }
             for (String key : properties.keySet()) {
                 String[] parts = key.split(">");
                 String propKey = parts.length > 1 ? parts[1] : parts[0];
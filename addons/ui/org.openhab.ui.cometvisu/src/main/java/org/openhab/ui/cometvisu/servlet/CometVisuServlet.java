@@ -16,6 +16,9 @@ import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -102,6 +105,10 @@ public class CometVisuServlet extends HttpServlet {
 
     private CometVisuApp cometVisuApp;
 
+    private final StaticFileCache fileCache = new StaticFileCache();
+
+    private Thread cacheWarmUp;
+
     public CometVisuServlet(String filesystemDir, CometVisuApp cometVisuApp) {
         root = filesystemDir;
         rootFolder = new File(root);
@@ -153,6 +160,31 @@ public class CometVisuServlet extends HttpServlet {
             this.engine.init(rootFolder.getAbsolutePath(), defaultUserDir, _servletContext);
             phpEnabled = true;
         }
+
+        // read the client files into the cache, so the first clients do not have to wait for them
+        cacheWarmUp = new Thread("CometVisu file cache") {
+            @Override
+            public void run() {
+                if (userFileFolder.isDirectory()) {
+                    fileCache.warmUp(userFileFolder);
+                }
+                if (rootFolder.isDirectory()) {
+                    fileCache.warmUp(rootFolder);
+                }
+            }
+        };
+        cacheWarmUp.setDaemon(true);
+        cacheWarmUp.start();
+    }
+
+    @Override
+    public void destroy() {
+        if (cacheWarmUp != null) {
+            cacheWarmUp.interrupt();
+            cacheWarmUp = null;
+        }
+        fileCache.clear();
+        super.destroy();
     }
 
     /**
@@ -671,10 +703,16 @@ public class CometVisuServlet extends HttpServlet {
         // is supported by
         // the browser and expand content type with the one and right character
         // encoding.
-        if (contentType.startsWith("text")) {
+        boolean acceptsBrotli = false;
+        if (contentType.startsWith("text") || contentType.endsWith("javascript") || contentType.endsWith("json")
+                || contentType.endsWith("xml")) {
             String acceptEncoding = request.getHeader("Accept-Encoding");
             acceptsGzip = acceptEncoding != null && accepts(acceptEncoding, "gzip");
-            contentType += ";charset=UTF-8";
+            acceptsBrotli = acceptEncoding != null && accepts(acceptEncoding, "br");
+            if (contentType.startsWith("text")) {
+                contentType += ";charset=UTF-8";
+            }
+            response.setHeader("Vary", "Accept-Encoding");
         }
 
         // Else, expect for images, determine content disposition. If content
@@ -696,13 +734,22 @@ public class CometVisuServlet extends HttpServlet {
         // Send requested file (part(s)) to client
         // ------------------------------------------------
 
+        // small files are served from memory, large ones are transferred from the file channel
+        StaticFileCache.CachedFile cached = content ? fileCache.get(file) : null;
+        if (cached != null && (cached.length != length || cached.lastModified != lastModified)) {
+            // the file has changed since the ranges were calculated, serve it from the file system
+            cached = null;
+        }
+
         // Prepare streams.
         RandomAccessFile input = null;
         OutputStream output = null;
 
         try {
             // Open streams.
-            input = new RandomAccessFile(file, "r");
+            if (cached == null) {
+                input = new RandomAccessFile(file, "r");
+            }
             output = response.getOutputStream();
 
             if (ranges.isEmpty() || ranges.get(0) == full) {
@@ -713,20 +760,33 @@ public class CometVisuServlet extends HttpServlet {
                 response.setHeader("Content-Range", "bytes " + r.start + "-" + r.end + "/" + r.total);
 
                 if (content) {
-                    if (acceptsGzip) {
-                        // The browser accepts GZIP, so GZIP the content.
-                        response.setHeader("Content-Encoding", "gzip");
-                        output = new GZIPOutputStream(output, DEFAULT_BUFFER_SIZE);
+                    if (cached != null) {
+                        byte[] data = cached.content;
+                        if (acceptsBrotli && cached.brotli != null) {
+                            response.setHeader("Content-Encoding", "br");
+                            data = cached.brotli;
+                        } else if (acceptsGzip && cached.gzip != null) {
+                            response.setHeader("Content-Encoding", "gzip");
+                            data = cached.gzip;
+                        }
+                        response.setHeader("Content-Length", String.valueOf(data.length));
+                        output.write(data);
                     } else {
-                        // Content length is not directly predictable in case of
-                        // GZIP.
-                        // So only add it if there is no means of GZIP, else
-                        // browser will hang.
-                        response.setHeader("Content-Length", String.valueOf(r.length));
-                    }
+                        if (acceptsGzip) {
+                            // The browser accepts GZIP, so GZIP the content.
+                            response.setHeader("Content-Encoding", "gzip");
+                            output = new GZIPOutputStream(output, DEFAULT_BUFFER_SIZE);
+                        } else {
+                            // Content length is not directly predictable in case of
+                            // GZIP.
+                            // So only add it if there is no means of GZIP, else
+                            // browser will hang.
+                            response.setHeader("Content-Length", String.valueOf(r.length));
+                        }
 
-                    // Copy full range.
-                    copy(input, output, r.start, r.length);
+                        // Copy full range.
+                        copy(input, output, r.start, r.length);
+                    }
                 }
 
             } else if (ranges.size() == 1) {
@@ -740,7 +800,7 @@ public class CometVisuServlet extends HttpServlet {
 
                 if (content) {
                     // Copy single part range.
-                    copy(input, output, r.start, r.length);
+                    copy(cached, input, output, r);
                 }
 
             } else {
@@ -764,7 +824,7 @@ public class CometVisuServlet extends HttpServlet {
                         sos.println("Content-Range: bytes " + r.start + "-" + r.end + "/" + r.total);
 
                         // Copy single part range of multi part range.
-                        copy(input, output, r.start, r.length);
+                        copy(cached, input, output, r);
                     }
 
                     // End with multipart boundary.
@@ -981,6 +1041,29 @@ public class CometVisuServlet extends HttpServlet {
         return (substring.length() > 0) ? Long.parseLong(substring) : -1;
     }
 
+    /**
+     * Copy the given byte range of the cached file or the given input to the given output.
+     *
+     * @param cached
+     *            The cached file content, null if the file is not cached.
+     * @param input
+     *            The input to copy the given range from, if the file is not cached.
+     * @param output
+     *            The output to copy the given range to.
+     * @param range
+     *            The byte range.
+     * @throws IOException
+     *             If something fails at I/O level.
+     */
+    private static void copy(StaticFileCache.CachedFile cached, RandomAccessFile input, OutputStream output,
+            Range range) throws IOException {
+        if (cached != null) {
+            output.write(cached.content, (int) range.start, (int) range.length);
+        } else {
+            copy(input, output, range.start, range.length);
+        }
+    }
+
     /**
      * Copy the given byte range of the given input to the given output.
      *
@@ -996,27 +1079,16 @@ public class CometVisuServlet extends HttpServlet {
      *             If something fails at I/O level.
      */
     private static void copy(RandomAccessFile input, OutputStream output, long start, long length) throws IOException {
-        byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
-        int read;
-
-        if (input.length() == length) {
-            // Write full range.
-            while ((read = input.read(buffer)) > 0) {
-                output.write(buffer, 0, read);
-            }
-        } else {
-            // Write partial range.
-            input.seek(start);
-            long toRead = length;
-
-            while ((read = input.read(buffer)) > 0) {
-                if ((toRead -= read) > 0) {
-                    output.write(buffer, 0, read);
-                } else {
-                    output.write(buffer, 0, (int) toRead + read);
-                    break;
-                }
+        FileChannel channel = input.getChannel();
+        WritableByteChannel target = Channels.newChannel(output);
+        long position = start;
+        long end = start + length;
+        while (position < end) {
+            long transferred = channel.transferTo(position, end - position, target);
+            if (transferred <= 0) {
+                break;
             }
+            position += transferred;
         }
     }
 
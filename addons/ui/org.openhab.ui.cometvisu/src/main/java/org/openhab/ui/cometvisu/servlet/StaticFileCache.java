@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.openhab.ui.cometvisu.internal.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory cache for the static files of the CometVisu client. Cached files are revalidated by their
+ * modification time and length, so changed files are re-read on the next request.
+ * For compressible files a gzip variant is built once when the file is loaded. If a precompressed variant
+ * (file.gz or file.br) exists next to the file it is used instead.
+ * The size limits are configured by {@link Config#COMETVISU_FILE_CACHE_SIZE} and
+ * {@link Config#COMETVISU_FILE_CACHE_MAX_FILE_SIZE}.
+ *
+ * @author agent - Initial contribution
+ */
+public class StaticFileCache {
+    private static final Logger logger = LoggerFactory.getLogger(StaticFileCache.class);
+
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = new HashSet<String>(
+            Arrays.asList("html", "htm", "js", "css", "json", "xml", "xsd", "svg", "txt", "map"));
+
+    private final Map<String, CachedFile> files = new LinkedHashMap<String, CachedFile>(64, 0.75f, true);
+
+    private long cacheSize = 0;
+
+    /**
+     * Returns the cached content of the file, reading it if it is not cached yet or has been modified.
+     *
+     * @param file
+     *            - the requested file
+     * @return the cached file or null if the file is not cacheable
+     */
+    public CachedFile get(File file) {
+        long length = file.length();
+        long lastModified = file.lastModified();
+        if (length > getMaxFileSize() || getMaxCacheSize() <= 0 || !file.isFile()) {
+            return null;
+        }
+        String key = file.getAbsolutePath();
+        synchronized (files) {
+            CachedFile cached = files.get(key);
+            if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+                return cached;
+            }
+        }
+        try {
+            CachedFile cached = load(file, lastModified);
+            put(key, cached);
+            return cached;
+        } catch (IOException e) {
+            logger.debug("Could not cache file '{}': {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads all compressible files below the given folder into the cache, until the cache is full.
+     *
+     * @param folder
+     *            - the folder to read
+     */
+    public void warmUp(File folder) {
+        long start = System.currentTimeMillis();
+        Iterator<File> it = FileUtils.iterateFiles(folder,
+                COMPRESSIBLE_EXTENSIONS.toArray(new String[COMPRESSIBLE_EXTENSIONS.size()]), true);
+        int count = 0;
+        while (it.hasNext() && !Thread.currentThread().isInterrupted()) {
+            synchronized (files) {
+                if (cacheSize >= getMaxCacheSize()) {
+                    break;
+                }
+            }
+            if (get(it.next()) != null) {
+                count++;
+            }
+        }
+        logger.debug("Cached {} files of '{}' in {} ms", count, folder, System.currentTimeMillis() - start);
+    }
+
+    public void clear() {
+        synchronized (files) {
+            files.clear();
+            cacheSize = 0;
+        }
+    }
+
+    private void put(String key, CachedFile cached) {
+        synchronized (files) {
+            CachedFile old = files.put(key, cached);
+            if (old != null) {
+                cacheSize -= old.size();
+            }
+            cacheSize += cached.size();
+            // remove the least recently used files
+            Iterator<CachedFile> it = files.values().iterator();
+            long maxCacheSize = getMaxCacheSize();
+            while (cacheSize > maxCacheSize && it.hasNext()) {
+                CachedFile eldest = it.next();
+                if (eldest != cached) {
+                    cacheSize -= eldest.size();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private CachedFile load(File file, long lastModified) throws IOException {
+        byte[] content = FileUtils.readFileToByteArray(file);
+        byte[] gzip = null;
+        byte[] brotli = null;
+        if (isCompressible(file.getName())) {
+            File gzipFile = new File(file.getPath() + ".gz");
+            if (gzipFile.isFile() && gzipFile.lastModified() >= lastModified) {
+                gzip = FileUtils.readFileToByteArray(gzipFile);
+            } else {
+                gzip = compress(content);
+            }
+            File brotliFile = new File(file.getPath() + ".br");
+            if (brotliFile.isFile() && brotliFile.lastModified() >= lastModified) {
+                brotli = FileUtils.readFileToByteArray(brotliFile);
+            }
+        }
+        // the file might have changed while it was read, the cached length always matches the content
+        return new CachedFile(content, gzip, brotli, content.length, lastModified);
+    }
+
+    private static long getMaxFileSize() {
+        return Config.COMETVISU_FILE_CACHE_MAX_FILE_SIZE * 1024;
+    }
+
+    private static long getMaxCacheSize() {
+        return Config.COMETVISU_FILE_CACHE_SIZE * 1024;
+    }
+
+    private static boolean isCompressible(String fileName) {
+        int index = fileName.lastIndexOf('.');
+        return index >= 0 && COMPRESSIBLE_EXTENSIONS.contains(fileName.substring(index + 1).toLowerCase());
+    }
+
+    private static byte[] compress(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 3 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content);
+        }
+        // only use the compressed variant if it is actually smaller
+        return bytes.size() < content.length ? bytes.toByteArray() : null;
+    }
+
+    /**
+     * Content of a cached file
+     */
+    public static class CachedFile {
+        final byte[] content;
+        final byte[] gzip;
+        final byte[] brotli;
+        final long length;
+        final long lastModified;
+
+        CachedFile(byte[] content, byte[] gzip, byte[] brotli, long length, long lastModified) {
+            this.content = content;
+            this.gzip = gzip;
+            this.brotli = brotli;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        long size() {
+            return content.length + (gzip != null ? gzip.length : 0) + (brotli != null ? brotli.length : 0);
+        }
+    }
+}
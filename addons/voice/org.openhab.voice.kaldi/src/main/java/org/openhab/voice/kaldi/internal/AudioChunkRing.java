@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.kaldi.internal;
+
+/**
+ * A ring of pre-allocated audio chunks passed from the thread capturing audio to the thread sending it to the server.
+ *
+ * The capturing thread claims the next free chunk, fills it and publishes it. The sending thread takes the oldest
+ * published chunk, sends it and releases it for reuse. The chunks are allocated once, no buffers are created while
+ * audio is passed.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class AudioChunkRing {
+
+    /**
+     * The chunk buffers
+     */
+    private final byte[][] chunks;
+
+    /**
+     * Number of valid bytes of each chunk
+     */
+    private final int[] sizes;
+
+    /**
+     * Time in nanoseconds at which each chunk has been captured completely
+     */
+    private final long[] captureTimes;
+
+    /**
+     * Index of the next chunk to fill
+     */
+    private int head;
+
+    /**
+     * Index of the next chunk to send
+     */
+    private int tail;
+
+    /**
+     * Number of published chunks, which have not been released yet
+     */
+    private int count;
+
+    /**
+     * Boolean indicating that no more chunks will be published
+     */
+    private boolean closed;
+
+    /**
+     * Constructs a ring of chunks
+     *
+     * @param capacity The number of chunks
+     * @param chunkSize The size of a chunk in bytes
+     */
+    public AudioChunkRing(int capacity, int chunkSize) {
+        this.chunks = new byte[capacity][chunkSize];
+        this.sizes = new int[capacity];
+        this.captureTimes = new long[capacity];
+    }
+
+    /**
+     * Waits for a free chunk to fill
+     *
+     * @return The chunk or null, if the ring has been closed
+     * @throws InterruptedException
+     */
+    public synchronized byte[] claim() throws InterruptedException {
+        while (count == chunks.length && !closed) {
+            wait();
+        }
+        return closed ? null : chunks[head];
+    }
+
+    /**
+     * Publishes the chunk returned by {@link #claim()}
+     *
+     * @param size The number of valid bytes of the chunk
+     */
+    public synchronized void publish(int size) {
+        if (closed) {
+            return;
+        }
+        sizes[head] = size;
+        captureTimes[head] = System.nanoTime();
+        head = (head + 1) % chunks.length;
+        count++;
+        notifyAll();
+    }
+
+    /**
+     * Waits for the oldest published chunk, which has to be given back by {@link #release()}
+     *
+     * @return The index of the chunk or -1, if the ring has been closed and all chunks have been taken
+     * @throws InterruptedException
+     */
+    public synchronized int take() throws InterruptedException {
+        while (count == 0 && !closed) {
+            wait();
+        }
+        return count == 0 ? -1 : tail;
+    }
+
+    /**
+     * Releases the chunk returned by {@link #take()} for reuse
+     */
+    public synchronized void release() {
+        tail = (tail + 1) % chunks.length;
+        count--;
+        notifyAll();
+    }
+
+    public byte[] getChunk(int index) {
+        return chunks[index];
+    }
+
+    public synchronized int getSize(int index) {
+        return sizes[index];
+    }
+
+    public synchronized long getCaptureTime(int index) {
+        return captureTimes[index];
+    }
+
+    /**
+     * Closes the ring, published chunks can still be taken
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+}
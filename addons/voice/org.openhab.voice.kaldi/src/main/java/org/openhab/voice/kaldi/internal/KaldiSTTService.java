@@ -13,6 +13,10 @@ import java.net.URISyntaxException;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.smarthome.core.audio.AudioFormat;
 import org.eclipse.smarthome.core.audio.AudioStream;
@@ -36,6 +40,20 @@ public class KaldiSTTService implements STTService {
      */
     private static final String kaldiWebSocketURL = "ws://52.37.26.79:8888/client/ws/speech";
 
+    /**
+     * Executor shared by all recognition sessions, idle threads are terminated after a minute
+     */
+    private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Kaldi STT " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     /**
      * Set of supported locales
      */
@@ -108,9 +126,8 @@ public class KaldiSTTService implements STTService {
 
         // Start recognition
         STTServiceKaldiRunnable sttServiceKaldiRunnable = new STTServiceKaldiRunnable(recognitionSession, sttListener,
-                audioStream);
-        Thread thread = new Thread(sttServiceKaldiRunnable);
-        thread.start();
+                audioStream, executor);
+        executor.execute(sttServiceKaldiRunnable);
 
         // Return STTServiceHandleKaldi
         return new STTServiceHandleKaldi(sttServiceKaldiRunnable);
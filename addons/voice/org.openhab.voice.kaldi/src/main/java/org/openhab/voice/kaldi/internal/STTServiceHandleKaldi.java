@@ -39,4 +39,13 @@ public class STTServiceHandleKaldi implements STTServiceHandle {
     public void abort() {
         this.sttServiceKaldiRunnable.abort();
     }
+
+    /**
+     * Returns the latency metrics of the managed recognition session
+     *
+     * @return The STTServiceKaldiMetrics of the session
+     */
+    public STTServiceKaldiMetrics getMetrics() {
+        return this.sttServiceKaldiRunnable.getMetrics();
+    }
 }
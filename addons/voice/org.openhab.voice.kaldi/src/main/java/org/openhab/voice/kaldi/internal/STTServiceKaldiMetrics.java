@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.kaldi.internal;
+
+/**
+ * Latency metrics of a single recognition session
+ *
+ * The chunk latency is the time between capturing an audio chunk completely and handing it to the WebSocket. The
+ * result latency is the time between sending the end of the audio and receiving the final result.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class STTServiceKaldiMetrics {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private long chunkCount;
+    private long byteCount;
+    private long totalChunkLatency;
+    private long maxChunkLatency;
+    private long endOfStreamTime;
+    private long resultLatency = -1;
+
+    synchronized void chunkSent(long captureTime, int size) {
+        long latency = System.nanoTime() - captureTime;
+        chunkCount++;
+        byteCount += size;
+        totalChunkLatency += latency;
+        maxChunkLatency = Math.max(maxChunkLatency, latency);
+    }
+
+    synchronized void endOfStreamSent() {
+        endOfStreamTime = System.nanoTime();
+    }
+
+    synchronized void resultReceived() {
+        if (endOfStreamTime != 0 && resultLatency < 0) {
+            resultLatency = System.nanoTime() - endOfStreamTime;
+        }
+    }
+
+    /**
+     * @return The number of audio chunks sent to the server
+     */
+    public synchronized long getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * @return The number of audio bytes sent to the server
+     */
+    public synchronized long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * @return The average chunk latency in milliseconds
+     */
+    public synchronized double getAverageChunkLatency() {
+        return chunkCount == 0 ? 0 : totalChunkLatency / NANOS_PER_MILLI / chunkCount;
+    }
+
+    /**
+     * @return The maximum chunk latency in milliseconds
+     */
+    public synchronized double getMaxChunkLatency() {
+        return maxChunkLatency / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return The result latency in milliseconds or -1, if no final result has been received after the end of the
+     *         audio
+     */
+    public synchronized double getResultLatency() {
+        return resultLatency < 0 ? -1 : resultLatency / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+                "chunks=%d, bytes=%d, avgChunkLatency=%.1fms, maxChunkLatency=%.1fms, resultLatency=%.1fms", chunkCount,
+                byteCount, getAverageChunkLatency(), getMaxChunkLatency(), getResultLatency());
+    }
+}
@@ -10,12 +10,15 @@ package org.openhab.voice.kaldi.internal;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.concurrent.Executor;
 
 import org.eclipse.smarthome.core.audio.AudioFormat;
 import org.eclipse.smarthome.core.audio.AudioStream;
 import org.eclipse.smarthome.core.voice.RecognitionStartEvent;
 import org.eclipse.smarthome.core.voice.STTListener;
 import org.eclipse.smarthome.core.voice.SpeechRecognitionErrorEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import ee.ioc.phon.netspeechapi.duplex.RecognitionEvent;
 import ee.ioc.phon.netspeechapi.duplex.RecognitionEventListener;
@@ -24,11 +27,32 @@ import ee.ioc.phon.netspeechapi.duplex.WsDuplexRecognitionSession;
 /**
  * A Runnable that sends AudioStream data in a WsDuplexRecognitionSession
  *
+ * The runnable captures the audio into the chunks of an {@link AudioChunkRing}, a second task on the same
+ * {@link Executor} sends the captured chunks as soon as they are published. Reading blocks until the audio source
+ * provides data, so the audio is passed on without additional pacing and without allocating buffers per chunk.
+ *
  * @author Kelly Davis - Initial contribution and API
  *
  */
 public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListener {
 
+    /**
+     * Number of chunks sent per second, 4 <= chunkRate [See: http://bit.ly/1V4Ktw2]
+     */
+    private static final int CHUNK_RATE = 4;
+
+    /**
+     * Number of chunks buffered between capturing and sending, i.e. 2 seconds of audio
+     */
+    private static final int RING_CAPACITY = 2 * CHUNK_RATE;
+
+    /**
+     * Empty chunk sent with the end of stream marker
+     */
+    private static final byte[] EMPTY_CHUNK = new byte[0];
+
+    private final Logger logger = LoggerFactory.getLogger(STTServiceKaldiRunnable.class);
+
     /**
      * Boolean indicating if the server closed the connection
      */
@@ -54,26 +78,43 @@ public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListen
      */
     private final WsDuplexRecognitionSession recognitionSession;
 
+    /**
+     * The Executor running this instance and the sending task
+     */
+    private final Executor executor;
+
+    /**
+     * The chunks passed from capturing to sending, created once the AudioFormat is known
+     */
+    private volatile AudioChunkRing ring;
+
+    /**
+     * The latency metrics of this session
+     */
+    private final STTServiceKaldiMetrics metrics = new STTServiceKaldiMetrics();
+
     /**
      * Constructs an instance targeting the passed WsDuplexRecognitionSession
      *
      * @param recognitionSession The WsDuplexRecognitionSession sesion
      * @param sttListener The STTListener targeted for STTEvents
      * @param audioStream The AudioSource data
+     * @param executor The Executor shared by all recognition sessions
      */
     public STTServiceKaldiRunnable(WsDuplexRecognitionSession recognitionSession, STTListener sttListener,
-            AudioStream audioStream) {
+            AudioStream audioStream, Executor executor) {
         this.isClosed = false;
         this.isAborting = false;
         this.audioStream = audioStream;
         this.sttListener = sttListener;
         this.recognitionSession = recognitionSession;
+        this.executor = executor;
 
         this.recognitionSession.addRecognitionEventListener(this);
     }
 
     /**
-     * This method sends AudioSource data in the WsDuplexRecognitionSession
+     * This method captures AudioSource data and starts sending it in the WsDuplexRecognitionSession
      */
     @Override
     public void run() {
@@ -82,35 +123,81 @@ public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListen
             AudioFormat audioFormat = this.audioStream.getFormat();
             int bitRate = audioFormat.getBitRate().intValue();
             int byteRate = (bitRate / 8);
-            int chunkRate = 4; // 4 <= chunkRate [See: http://bit.ly/1V4Ktw2]
-            byte buffer[] = new byte[byteRate / chunkRate];
+            AudioChunkRing ring = new AudioChunkRing(RING_CAPACITY, byteRate / CHUNK_RATE);
+            this.ring = ring;
 
             sttListener.sttEventReceived(new RecognitionStartEvent());
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    send();
+                }
+            });
 
-            boolean sentLastChunk = false;
-            while (!this.isAborting && !this.isClosed) {
-                long millisWithinChunkSecond = System.currentTimeMillis() % (1000 / chunkRate);
-                int size = audioStream.read(buffer);
-                if (size < 0) {
-                    sentLastChunk = true;
-                    byte buffer2[] = new byte[0];
-                    this.recognitionSession.sendChunk(buffer2, true);
-                    break;
+            try {
+                byte[] chunk;
+                while (!this.isAborting && !this.isClosed && (chunk = ring.claim()) != null) {
+                    int size = fill(chunk);
+                    if (size > 0) {
+                        ring.publish(size);
+                    }
+                    if (size < chunk.length) {
+                        // end of the audio
+                        break;
+                    }
                 }
-                if (size == (byteRate / chunkRate)) {
-                    this.recognitionSession.sendChunk(buffer, false);
+            } finally {
+                ring.close();
+            }
+        } catch (IOException e) {
+            sttListener.sttEventReceived(new SpeechRecognitionErrorEvent("Unable to send audio data to the server"));
+        } catch (InterruptedException e) {
+            sttListener.sttEventReceived(new SpeechRecognitionErrorEvent("Interrupted while capturing audio data"));
+        }
+    }
+
+    /**
+     * Reads audio until the chunk is full, the audio ends or the session is aborted
+     *
+     * @return The number of bytes read
+     */
+    private int fill(byte[] chunk) throws IOException {
+        int size = 0;
+        while (size < chunk.length && !this.isAborting && !this.isClosed) {
+            int read = audioStream.read(chunk, size, chunk.length - size);
+            if (read < 0) {
+                break;
+            }
+            size += read;
+        }
+        return size;
+    }
+
+    /**
+     * This method sends the captured chunks in the WsDuplexRecognitionSession, the last chunk is followed by the end of
+     * stream marker
+     */
+    private void send() {
+        AudioChunkRing ring = this.ring;
+        try {
+            int index;
+            while (!this.isClosed && (index = ring.take()) >= 0) {
+                byte[] chunk = ring.getChunk(index);
+                int size = ring.getSize(index);
+                long captureTime = ring.getCaptureTime(index);
+                if (size == chunk.length) {
+                    // the chunk is copied into the WebSocket frame, it can be reused after sending
+                    this.recognitionSession.sendChunk(chunk, false);
                 } else {
-                    sentLastChunk = true;
-                    byte buffer2[] = Arrays.copyOf(buffer, size);
-                    this.recognitionSession.sendChunk(buffer2, true);
-                    break;
+                    // only the last chunk of the audio is partially filled
+                    this.recognitionSession.sendChunk(Arrays.copyOf(chunk, size), false);
                 }
-                Thread.sleep(1000 / chunkRate - millisWithinChunkSecond);
+                ring.release();
+                metrics.chunkSent(captureTime, size);
             }
-
-            if (this.isAborting && !this.isClosed && !sentLastChunk) {
-                byte buffer2[] = new byte[0];
-                this.recognitionSession.sendChunk(buffer2, true);
+            if (!this.isClosed) {
+                this.recognitionSession.sendChunk(EMPTY_CHUNK, true);
+                metrics.endOfStreamSent();
             }
         } catch (IOException e) {
             sttListener.sttEventReceived(new SpeechRecognitionErrorEvent("Unable to send audio data to the server"));
@@ -134,14 +221,28 @@ public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListen
             // This temporary, but working, solution is to catch a RuntimeException
             // here and assume that it results from sendChunk() being called on a
             // closed session then proceede as if onClose() was called.
+        } finally {
+            // unblock the capturing thread
+            ring.close();
         }
     }
 
+    /**
+     * @return The latency metrics of this session
+     */
+    public STTServiceKaldiMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * This method initiates the process of aborting this thread
      */
     public void abort() {
         this.isAborting = true;
+        AudioChunkRing ring = this.ring;
+        if (ring != null) {
+            ring.close();
+        }
     }
 
     /**
@@ -149,7 +250,11 @@ public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListen
      */
     @Override
     public void onRecognitionEvent(RecognitionEvent recognitionEvent) {
-        // RecognitionEvent are ignored
+        // RecognitionEvent are only used for the metrics
+        if (recognitionEvent.getStatus() == RecognitionEvent.STATUS_SUCCESS
+                && recognitionEvent.getResult().isFinal()) {
+            metrics.resultReceived();
+        }
     }
 
     /**
@@ -158,5 +263,10 @@ public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListen
     @Override
     public void onClose() {
         this.isClosed = true;
+        AudioChunkRing ring = this.ring;
+        if (ring != null) {
+            ring.close();
+        }
+        logger.debug("Kaldi recognition session closed: {}", metrics);
     }
 }
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.marytts.internal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * The raw PCM audio of a synthesized text. The audio of the sentences is appended while they are synthesized, readers
+ * block until the requested data is available or the synthesis is finished.
+ *
+ * @author agent - Initial contribution
+ */
+class MaryTTSAudio {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    /**
+     * {@link AudioFormat} of the raw audio
+     */
+    private final AudioFormat format;
+
+    private byte[] data = new byte[INITIAL_CAPACITY];
+    private int size;
+    private boolean finished;
+    private IOException error;
+
+    public MaryTTSAudio(AudioFormat format) {
+        this.format = format;
+    }
+
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Appends synthesized audio
+     */
+    public synchronized void append(byte[] b, int off, int len) {
+        if (size + len > data.length) {
+            data = Arrays.copyOf(data, Math.max(size + len, data.length * 2));
+        }
+        System.arraycopy(b, off, data, size, len);
+        size += len;
+        notifyAll();
+    }
+
+    /**
+     * Marks the synthesis as successfully finished
+     */
+    public synchronized void complete() {
+        data = Arrays.copyOf(data, size);
+        finished = true;
+        notifyAll();
+    }
+
+    /**
+     * Marks the synthesis as failed, readers get the error after the audio synthesized so far
+     */
+    public synchronized void fail(IOException error) {
+        this.error = error;
+        finished = true;
+        notifyAll();
+    }
+
+    /**
+     * @return true, if all sentences have been synthesized successfully
+     */
+    public synchronized boolean isComplete() {
+        return finished && error == null;
+    }
+
+    /**
+     * Reads audio at a position, waits until data at this position is available
+     *
+     * @return the number of bytes read or -1 at the end of the audio
+     * @throws IOException if the synthesis failed or the reader has been interrupted
+     */
+    public synchronized int read(int position, byte[] b, int off, int len) throws IOException {
+        while (position >= size && !finished) {
+            await();
+        }
+        if (position < size) {
+            int count = Math.min(len, size - position);
+            System.arraycopy(data, position, b, off, count);
+            return count;
+        }
+        if (error != null) {
+            throw error;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the size of the audio synthesized so far in bytes
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    private void await() throws InterruptedIOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for synthesized audio");
+        }
+    }
+}
@@ -8,26 +8,30 @@
  */
 package org.openhab.voice.marytts.internal;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.SequenceInputStream;
 
-import javax.sound.sampled.AudioInputStream;
-
-import org.apache.commons.io.IOUtils;
-import org.eclipse.smarthome.core.audio.AudioException;
 import org.eclipse.smarthome.core.audio.AudioFormat;
 import org.eclipse.smarthome.core.audio.AudioSource;
-import org.eclipse.smarthome.core.audio.FixedLengthAudioStream;
+import org.eclipse.smarthome.core.audio.AudioStream;
 
 /**
  * Implementation of the {@link AudioSource} interface for the {@link MaryTTSService}
  *
+ * The stream starts with the audio of the first sentence, while the following sentences are still synthesized. If
+ * the synthesis is not finished when the stream starts, the WAVE header announces an unknown length. Audio, which is
+ * completely synthesized, is served as {@link MaryTTSFixedLengthAudioStream}.
+ *
  * @author Kelly Davis - Initial contribution and API
  * @author Kai Kreuzer - Refactored to updated APIs and moved to openHAB
  */
-class MaryTTSAudioStream extends FixedLengthAudioStream {
+class MaryTTSAudioStream extends AudioStream {
+
+    static final int HEADER_LENGTH = 44;
+
+    /**
+     * Length of the data chunk for streams of unknown length
+     */
+    private static final long UNKNOWN_LENGTH = 0xFFFFFFFFL - 36;
 
     /**
      * {@link AudioFormat} of this {@link AudioSource}
@@ -35,24 +39,21 @@ class MaryTTSAudioStream extends FixedLengthAudioStream {
     private final AudioFormat audioFormat;
 
     /**
-     * {@link InputStream} of this {@link AudioSource}
+     * The synthesized audio, which may still be growing
      */
-    private InputStream inputStream;
+    private final MaryTTSAudio audio;
 
-    private byte[] rawAudio;
-    private int length;
+    private byte[] header;
+    private int position;
 
     /**
      * Constructs an instance with the passed properties
      *
-     * @param inputStream The InputStream of this instance
+     * @param audio The synthesized audio of this instance
      * @param audioFormat The AudioFormat of this instance
-     * @throws IOException
      */
-    public MaryTTSAudioStream(AudioInputStream inputStream, AudioFormat audioFormat) throws IOException {
-        rawAudio = IOUtils.toByteArray(inputStream);
-        this.length = rawAudio.length + 36;
-        this.inputStream = new SequenceInputStream(getWavHeaderInputStream(length), new ByteArrayInputStream(rawAudio));
+    public MaryTTSAudioStream(MaryTTSAudio audio, AudioFormat audioFormat) {
+        this.audio = audio;
         this.audioFormat = audioFormat;
     }
 
@@ -63,34 +64,48 @@ class MaryTTSAudioStream extends FixedLengthAudioStream {
 
     @Override
     public int read(byte[] b) throws IOException {
-        return inputStream.read(b, 0, b.length);
+        return read(b, 0, b.length);
     }
 
     @Override
-    public int read(byte[] b, int off, int len) throws IOException {
-        return inputStream.read(b, off, len);
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position < HEADER_LENGTH) {
+            if (header == null) {
+                header = getWavHeader(audio.isComplete() ? audio.getSize() : UNKNOWN_LENGTH);
+            }
+            int count = Math.min(len, HEADER_LENGTH - position);
+            System.arraycopy(header, position, b, off, count);
+            position += count;
+            return count;
+        }
+        int count = audio.read(position - HEADER_LENGTH, b, off, len);
+        if (count > 0) {
+            position += count;
+        }
+        return count;
     }
 
     @Override
     public int read() throws IOException {
-        return inputStream.read();
-    }
-
-    @Override
-    public long length() {
-        return length;
+        byte[] b = new byte[1];
+        int count = read(b, 0, 1);
+        return count < 0 ? -1 : b[0] & 0xff;
     }
 
-    private InputStream getWavHeaderInputStream(int length) throws IOException {
+    private byte[] getWavHeader(long rawLength) {
         // WAVE header
         // see http://www-mmsp.ece.mcgill.ca/Documents/AudioFormats/WAVE/WAVE.html
-        byte[] header = new byte[44];
+        byte[] header = new byte[HEADER_LENGTH];
 
+        javax.sound.sampled.AudioFormat rawFormat = audio.getFormat();
         byte format = 0x10; // PCM
-        byte bits = 16;
-        byte channel = 1;
-        int srate = 48000;
-        long rawLength = length - 36;
+        byte bits = (byte) rawFormat.getSampleSizeInBits();
+        byte channel = (byte) rawFormat.getChannels();
+        int srate = (int) rawFormat.getSampleRate();
+        long length = rawLength + 36;
         long bitrate = srate * channel * bits;
 
         header[0] = 'R';
@@ -127,7 +142,7 @@ class MaryTTSAudioStream extends FixedLengthAudioStream {
         header[31] = (byte) (((bitrate / 8) >> 24) & 0xff);
         header[32] = (byte) ((channel * bits) / 8);
         header[33] = 0;
-        header[34] = 16;
+        header[34] = bits;
         header[35] = 0;
         header[36] = 'd';
         header[37] = 'a';
@@ -137,21 +152,12 @@ class MaryTTSAudioStream extends FixedLengthAudioStream {
         header[41] = (byte) ((rawLength >> 8) & 0xff);
         header[42] = (byte) ((rawLength >> 16) & 0xff);
         header[43] = (byte) ((rawLength >> 24) & 0xff);
-        return new ByteArrayInputStream(header);
+        return header;
     }
 
     @Override
     public synchronized void reset() throws IOException {
-        IOUtils.closeQuietly(inputStream);
-        this.inputStream = new SequenceInputStream(getWavHeaderInputStream(length), new ByteArrayInputStream(rawAudio));
-    }
-
-    @Override
-    public InputStream getClonedStream() throws AudioException {
-        try {
-            return new SequenceInputStream(getWavHeaderInputStream(length), new ByteArrayInputStream(rawAudio));
-        } catch (IOException e) {
-            throw new AudioException(e);
-        }
+        position = 0;
+        header = null;
     }
 }
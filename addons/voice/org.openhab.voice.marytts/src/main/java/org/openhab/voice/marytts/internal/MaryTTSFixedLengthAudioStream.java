@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.marytts.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.eclipse.smarthome.core.audio.AudioException;
+import org.eclipse.smarthome.core.audio.AudioFormat;
+import org.eclipse.smarthome.core.audio.FixedLengthAudioStream;
+
+/**
+ * A {@link FixedLengthAudioStream} of completely synthesized audio, it reads through a {@link MaryTTSAudioStream}.
+ *
+ * @author agent - Initial contribution
+ */
+class MaryTTSFixedLengthAudioStream extends FixedLengthAudioStream {
+
+    /**
+     * The completely synthesized audio
+     */
+    private final MaryTTSAudio audio;
+
+    private final MaryTTSAudioStream stream;
+
+    /**
+     * Constructs an instance with the passed properties
+     *
+     * @param audio The completely synthesized audio of this instance
+     * @param audioFormat The AudioFormat of this instance
+     */
+    public MaryTTSFixedLengthAudioStream(MaryTTSAudio audio, AudioFormat audioFormat) {
+        this.audio = audio;
+        this.stream = new MaryTTSAudioStream(audio, audioFormat);
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return stream.getFormat();
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException {
+        return stream.read(b);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return stream.read(b, off, len);
+    }
+
+    @Override
+    public int read() throws IOException {
+        return stream.read();
+    }
+
+    @Override
+    public long length() {
+        return MaryTTSAudioStream.HEADER_LENGTH + audio.getSize();
+    }
+
+    @Override
+    public void reset() throws IOException {
+        stream.reset();
+    }
+
+    @Override
+    public InputStream getClonedStream() throws AudioException {
+        return new MaryTTSFixedLengthAudioStream(audio, stream.getFormat());
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.marytts.internal;
+
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import marytts.LocalMaryInterface;
+import marytts.MaryInterface;
+import marytts.exceptions.MaryConfigurationException;
+
+/**
+ * A pool of {@link MaryInterface} instances configured for a single voice. Instances are created on demand up to the
+ * maximum size of the pool, further requests wait until an instance is released.
+ *
+ * @author agent - Initial contribution
+ */
+class MaryTTSInterfacePool {
+
+    private final Locale locale;
+    private final String voiceLabel;
+    private final int maxSize;
+
+    private final BlockingQueue<MaryInterface> idle = new LinkedBlockingQueue<MaryInterface>();
+    private int created;
+
+    public MaryTTSInterfacePool(Locale locale, String voiceLabel, int maxSize) {
+        this.locale = locale;
+        this.voiceLabel = voiceLabel;
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * Takes an instance from the pool, it has to be given back by {@link #release(MaryInterface)}
+     */
+    public MaryInterface acquire() throws MaryConfigurationException, InterruptedException {
+        MaryInterface maryInterface = idle.poll();
+        if (maryInterface != null) {
+            return maryInterface;
+        }
+        if (reserve()) {
+            try {
+                maryInterface = new LocalMaryInterface();
+                maryInterface.setLocale(locale);
+                maryInterface.setVoice(voiceLabel);
+                return maryInterface;
+            } catch (MaryConfigurationException | RuntimeException e) {
+                unreserve();
+                throw e;
+            }
+        }
+        return idle.take();
+    }
+
+    public void release(MaryInterface maryInterface) {
+        idle.offer(maryInterface);
+    }
+
+    private synchronized boolean reserve() {
+        if (created < maxSize) {
+            created++;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void unreserve() {
+        created--;
+    }
+}
@@ -16,8 +16,15 @@ package org.openhab.voice.marytts.internal;
  */
 
 import java.io.IOException;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import javax.sound.sampled.AudioInputStream;
@@ -25,6 +32,7 @@ import javax.sound.sampled.AudioSystem;
 
 import org.eclipse.smarthome.core.audio.AudioFormat;
 import org.eclipse.smarthome.core.audio.AudioStream;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.voice.TTSException;
 import org.eclipse.smarthome.core.voice.TTSService;
 import org.slf4j.Logger;
@@ -39,6 +47,11 @@ import marytts.modules.synthesis.Voice;
 /**
  * This is a TTS service implementation for using MaryTTS.
  *
+ * Texts are synthesized by a pool of {@link MaryInterface} instances per voice, so that several texts can be
+ * synthesized at the same time. The first sentence of a text is synthesized before the stream is returned, the
+ * following sentences are appended in the background while the stream is already played. The audio of recently
+ * synthesized texts is cached.
+ *
  * @author Kelly Davis - Initial contribution and API
  * @author Kai Kreuzer - Refactored to updated APIs and moved to openHAB
  */
@@ -46,8 +59,31 @@ public class MaryTTSService implements TTSService {
 
     private final Logger logger = LoggerFactory.getLogger(MaryTTSService.class);
 
+    private static final String THREADPOOL_NAME = "marytts";
+
+    // Pool and cache sizes come from ConfigAdmin
+    private static final String CONFIG_POOL_SIZE = "poolSize";
+    private static final String CONFIG_CACHE_SIZE = "cacheSize";
+    private int poolSize = 2;
+    private long cacheSize = 16;
+
+    /**
+     * Used to look up the available voices and locales
+     */
     private MaryInterface marytts;
 
+    /**
+     * Pools of configured MaryInterfaces by voice label
+     */
+    private Map<String, MaryTTSInterfacePool> pools = new HashMap<String, MaryTTSInterfacePool>();
+
+    /**
+     * Synthesized audio by text, voice and format in access order
+     */
+    private final LinkedHashMap<String, MaryTTSAudio> cache = new LinkedHashMap<String, MaryTTSAudio>(16, 0.75f,
+            true);
+    private long cachedBytes;
+
     /**
      * Set of supported voices
      */
@@ -58,8 +94,9 @@ public class MaryTTSService implements TTSService {
      */
     private HashSet<AudioFormat> audioFormats;
 
-    protected void activate() {
+    protected void activate(Map<String, Object> config) {
         try {
+            modified(config);
             marytts = getMaryInterface();
             voices = initVoices();
             audioFormats = initAudioFormats();
@@ -68,6 +105,20 @@ public class MaryTTSService implements TTSService {
         }
     }
 
+    protected void modified(Map<String, Object> config) {
+        if (config != null) {
+            this.poolSize = (int) getLong(config, CONFIG_POOL_SIZE, this.poolSize);
+            this.cacheSize = getLong(config, CONFIG_CACHE_SIZE, this.cacheSize);
+        }
+        synchronized (this) {
+            // in use instances are released into the old pools and dropped
+            pools = new HashMap<String, MaryTTSInterfacePool>();
+        }
+        synchronized (cache) {
+            evict();
+        }
+    }
+
     @Override
     public Set<org.eclipse.smarthome.core.voice.Voice> getAvailableVoices() {
         return this.voices;
@@ -122,24 +173,155 @@ public class MaryTTSService implements TTSService {
         Voice maryTTSVoice = Voice.getVoice(voice.getLabel());
         AudioFormat maryTTSVoiceAudioFormat = getAudioFormat(maryTTSVoice.dbAudioFormat());
 
-        // Synchronize on marytts
-        synchronized (marytts) {
-            // AudioStream to return
-            AudioStream audioStream = null;
+        String cacheKey = getCacheKey(text, voice, maryTTSVoiceAudioFormat);
+        MaryTTSAudio audio;
+        synchronized (cache) {
+            audio = cache.get(cacheKey);
+        }
+        if (audio == null) {
+            audio = synthesize(text, voice, maryTTSVoice.dbAudioFormat(), cacheKey);
+        }
+        // only the complete audio has a known length, it must not be awaited while the synthesis is running
+        if (audio.isComplete()) {
+            return new MaryTTSFixedLengthAudioStream(audio, maryTTSVoiceAudioFormat);
+        }
+        return new MaryTTSAudioStream(audio, maryTTSVoiceAudioFormat);
+    }
 
-            // Set voice (Each voice supports onl a single AudioFormat)
-            marytts.setLocale(voice.getLocale());
-            marytts.setVoice(voice.getLabel());
+    /**
+     * Synthesizes the first sentence of a text and starts the synthesis of the following sentences in the background
+     */
+    private MaryTTSAudio synthesize(String text, org.eclipse.smarthome.core.voice.Voice voice,
+            javax.sound.sampled.AudioFormat format, final String cacheKey) throws TTSException {
+        final MaryTTSInterfacePool pool = getPool(voice);
+        final List<String> sentences = splitSentences(text, voice.getLocale());
+        final MaryTTSAudio audio = new MaryTTSAudio(format);
+        try {
+            synthesizeSentence(pool, sentences.get(0), audio);
+        } catch (MaryConfigurationException | SynthesisException | IOException e) {
+            throw new TTSException("Error generating an AudioStream", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TTSException("Interrupted while generating an AudioStream", e);
+        }
+        if (sentences.size() == 1) {
+            audio.complete();
+            addToCache(cacheKey, audio);
+            return audio;
+        }
 
-            try {
-                AudioInputStream audioInputStream = marytts.generateAudio(text);
-                audioStream = new MaryTTSAudioStream(audioInputStream, maryTTSVoiceAudioFormat);
-            } catch (SynthesisException | IOException e) {
-                throw new TTSException("Error generating an AudioStream", e);
+        ThreadPoolManager.getPool(THREADPOOL_NAME).execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (String sentence : sentences.subList(1, sentences.size())) {
+                        synthesizeSentence(pool, sentence, audio);
+                    }
+                    audio.complete();
+                    addToCache(cacheKey, audio);
+                } catch (MaryConfigurationException | SynthesisException | IOException | InterruptedException e) {
+                    logger.warn("Error generating audio: {}", e.getMessage());
+                    audio.fail(new IOException("Error generating audio: " + e.getMessage(), e));
+                }
+            }
+        });
+        return audio;
+    }
+
+    /**
+     * Synthesizes a single sentence with an instance of the pool and appends its audio
+     */
+    private void synthesizeSentence(MaryTTSInterfacePool pool, String sentence, MaryTTSAudio audio)
+            throws MaryConfigurationException, SynthesisException, IOException, InterruptedException {
+        AudioInputStream audioInputStream;
+        MaryInterface maryInterface = pool.acquire();
+        try {
+            audioInputStream = maryInterface.generateAudio(sentence);
+        } finally {
+            pool.release(maryInterface);
+        }
+        try {
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = audioInputStream.read(buffer)) > 0) {
+                audio.append(buffer, 0, read);
+            }
+        } finally {
+            audioInputStream.close();
+        }
+    }
+
+    private synchronized MaryTTSInterfacePool getPool(org.eclipse.smarthome.core.voice.Voice voice) {
+        MaryTTSInterfacePool pool = pools.get(voice.getLabel());
+        if (pool == null) {
+            pool = new MaryTTSInterfacePool(voice.getLocale(), voice.getLabel(), poolSize);
+            pools.put(voice.getLabel(), pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Splits a text into sentences
+     *
+     * @return the sentences, at least one
+     */
+    private List<String> splitSentences(String text, Locale locale) {
+        List<String> sentences = new ArrayList<String>();
+        BreakIterator iterator = BreakIterator.getSentenceInstance(locale);
+        iterator.setText(text);
+        int start = iterator.first();
+        for (int end = iterator.next(); end != BreakIterator.DONE; start = end, end = iterator.next()) {
+            String sentence = text.substring(start, end).trim();
+            if (!sentence.isEmpty()) {
+                sentences.add(sentence);
+            }
+        }
+        if (sentences.isEmpty()) {
+            sentences.add(text);
+        }
+        return sentences;
+    }
+
+    private String getCacheKey(String text, org.eclipse.smarthome.core.voice.Voice voice, AudioFormat format) {
+        return voice.getUID() + '|' + format.getCodec() + '|' + format.getBitDepth() + '|' + format.getFrequency()
+                + '|' + text;
+    }
+
+    private void addToCache(String cacheKey, MaryTTSAudio audio) {
+        synchronized (cache) {
+            MaryTTSAudio previous = cache.put(cacheKey, audio);
+            if (previous != null) {
+                cachedBytes -= previous.getSize();
             }
+            cachedBytes += audio.getSize();
+            evict();
+        }
+    }
 
-            return audioStream;
+    /**
+     * Removes the least recently used audio from the cache, until it fits into the cache size
+     */
+    private void evict() {
+        long maxBytes = cacheSize * 1024 * 1024;
+        Iterator<MaryTTSAudio> it = cache.values().iterator();
+        while (cachedBytes > maxBytes && it.hasNext()) {
+            cachedBytes -= it.next().getSize();
+            it.remove();
+        }
+    }
+
+    private static long getLong(Map<String, Object> config, String key, long defaultValue) {
+        Object value = config.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
         }
+        return defaultValue;
     }
 
     /**
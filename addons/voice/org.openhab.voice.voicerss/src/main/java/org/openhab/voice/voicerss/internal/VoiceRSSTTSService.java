@@ -11,9 +11,11 @@ package org.openhab.voice.voicerss.internal;
 import java.io.File;
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.eclipse.smarthome.core.audio.AudioException;
@@ -23,6 +25,7 @@ import org.eclipse.smarthome.core.voice.TTSException;
 import org.eclipse.smarthome.core.voice.TTSService;
 import org.eclipse.smarthome.core.voice.Voice;
 import org.openhab.voice.voicerss.internal.cloudapi.CachedVoiceRSSCloudImplementation;
+import org.openhab.voice.voicerss.internal.cloudapi.TTSCachePrewarmer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,10 +43,28 @@ public class VoiceRSSTTSService implements TTSService {
     private static final String CONFIG_API_KEY = "apiKey";
     private String apiKey = null;
 
+    // Cache limits and pre-warming come from ConfigAdmin
+    private static final String CONFIG_CACHE_SIZE = "cacheSize";
+    private static final String CONFIG_CACHE_MAX_AGE = "cacheMaxAge";
+    private static final String CONFIG_CACHE_MEMORY_SIZE = "cacheMemorySize";
+    private static final String CONFIG_PREWARM_FILE = "prewarmFile";
+    private static final String CONFIG_PREWARM_LOCALE = "prewarmLocale";
+    private long cacheSize = 50;
+    private long cacheMaxAge = 365;
+    private long cacheMemorySize = 4;
+    private String prewarmFile = null;
+    private String prewarmLocale = "en-US";
+
+    /**
+     * Background job filling the cache with the phrases of the prewarm file
+     */
+    private Thread prewarmThread;
+
     private final Logger logger = LoggerFactory.getLogger(VoiceRSSTTSService.class);
 
     /**
      * We need the cached implementation to allow for FixedLengthAudioStream.
+     * It is created again whenever the configuration changes.
      */
     private CachedVoiceRSSCloudImplementation voiceRssImpl;
 
@@ -63,7 +84,6 @@ public class VoiceRSSTTSService implements TTSService {
     protected void activate(Map<String, Object> config) {
         try {
             modified(config);
-            voiceRssImpl = initVoiceImplementation();
             voices = initVoices();
             audioFormats = initAudioFormats();
 
@@ -76,7 +96,25 @@ public class VoiceRSSTTSService implements TTSService {
     protected void modified(Map<String, Object> config) {
         if (config != null) {
             this.apiKey = config.containsKey(CONFIG_API_KEY) ? config.get(CONFIG_API_KEY).toString() : null;
+            this.cacheSize = getLong(config, CONFIG_CACHE_SIZE, this.cacheSize);
+            this.cacheMaxAge = getLong(config, CONFIG_CACHE_MAX_AGE, this.cacheMaxAge);
+            this.cacheMemorySize = getLong(config, CONFIG_CACHE_MEMORY_SIZE, this.cacheMemorySize);
+            this.prewarmFile = config.containsKey(CONFIG_PREWARM_FILE) ? config.get(CONFIG_PREWARM_FILE).toString()
+                    : null;
+            if (config.containsKey(CONFIG_PREWARM_LOCALE)) {
+                this.prewarmLocale = config.get(CONFIG_PREWARM_LOCALE).toString();
+            }
         }
+        stopPrewarming();
+        voiceRssImpl = initVoiceImplementation();
+        startPrewarming();
+    }
+
+    /**
+     * DS deactivate
+     */
+    protected void deactivate() {
+        stopPrewarming();
     }
 
     @Override
@@ -119,6 +157,12 @@ public class VoiceRSSTTSService implements TTSService {
         // now create the input stream for given text, locale, format. There is
         // only a default voice
         try {
+            // hot phrases are served from memory
+            byte[] audio = voiceRssImpl.getTextToSpeechAsBytes(this.apiKey, text, voice.getLocale().toLanguageTag(),
+                    requestedFormat.getCodec());
+            if (audio != null) {
+                return new VoiceRSSMemoryAudioStream(audio, getAudioFormat(requestedFormat.getCodec()));
+            }
             File cacheAudioFile = voiceRssImpl.getTextToSpeechAsFile(this.apiKey, text,
                     voice.getLocale().toLanguageTag(), requestedFormat.getCodec());
             if (cacheAudioFile == null) {
@@ -184,10 +228,56 @@ public class VoiceRSSTTSService implements TTSService {
     }
 
     private final CachedVoiceRSSCloudImplementation initVoiceImplementation() {
-        CachedVoiceRSSCloudImplementation apiImpl = new CachedVoiceRSSCloudImplementation(getCacheFolderName());
+        CachedVoiceRSSCloudImplementation apiImpl = new CachedVoiceRSSCloudImplementation(getCacheFolderName(),
+                cacheSize * 1024 * 1024, TimeUnit.DAYS.toMillis(cacheMaxAge), cacheMemorySize * 1024 * 1024);
         return apiImpl;
     }
 
+    /**
+     * Starts the background job filling the cache with the phrases of the
+     * prewarm file, if one is configured.
+     */
+    private void startPrewarming() {
+        if (prewarmFile == null || prewarmFile.trim().isEmpty() || apiKey == null) {
+            return;
+        }
+        File file = new File(prewarmFile.trim());
+        if (!file.isAbsolute()) {
+            file = new File(ConfigConstants.getConfigFolder(), prewarmFile.trim());
+        }
+        try {
+            List<String> phrases = TTSCachePrewarmer.readPhrases(file);
+            prewarmThread = new Thread(new TTSCachePrewarmer(voiceRssImpl, apiKey, prewarmLocale, phrases),
+                    "VoiceRSS cache prewarming");
+            prewarmThread.setDaemon(true);
+            prewarmThread.start();
+            logger.debug("Pre-warming VoiceRSS cache with {} phrases of {}", phrases.size(), file);
+        } catch (IOException ex) {
+            logger.warn("Could not read VoiceRSS prewarm file {}: {}", file, ex.getMessage());
+        }
+    }
+
+    private void stopPrewarming() {
+        if (prewarmThread != null) {
+            prewarmThread.interrupt();
+            prewarmThread = null;
+        }
+    }
+
+    private static long getLong(Map<String, Object> config, String key, long defaultValue) {
+        Object value = config.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException ex) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
     String getCacheFolderName() {
         String folderName = ConfigConstants.getUserDataFolder();
         // we assume that this folder does NOT have a trailing separator
@@ -9,6 +9,7 @@
 package org.openhab.voice.voicerss.internal.cloudapi;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -18,6 +19,12 @@ import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,58 +33,194 @@ import org.slf4j.LoggerFactory;
  * This class implements a cache for the retrieved audio data. It will preserve
  * them in file system, as .mp3 files with an additional .txt file to indidate
  * what content is in the audio file.
- * 
+ *
+ * The cached files are tracked in an in-memory index in access order. The least
+ * recently used files are deleted when the cache exceeds its maximum size, files
+ * which have not been used within the maximum age are deleted as well. The audio
+ * data of recently used files is additionally kept in memory, up to a maximum
+ * memory size.
+ *
  * @author Jochen Hiller - Initial contribution
  */
 public class CachedVoiceRSSCloudImplementation extends VoiceRSSCloudImplementation {
 
+	private static final String AUDIO_FILE_SUFFIX = ".mp3";
+	private static final String TEXT_FILE_SUFFIX = ".txt";
+	private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+	/**
+	 * The last access is written to the file system at most once per interval,
+	 * to keep the access order over restarts without a write for every hit.
+	 */
+	private static final long TOUCH_INTERVAL = TimeUnit.DAYS.toMillis(1);
+
 	private final Logger logger = LoggerFactory.getLogger(CachedVoiceRSSCloudImplementation.class);
 
 	private final File cacheFolder;
+	private final long maxCacheSize;
+	private final long maxAge;
+	private final long maxMemorySize;
 
+	/**
+	 * The cached files by name in access order, the least recently used first
+	 */
+	private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f,
+			true);
+	private long cacheSize;
+	private long memorySize;
+
+	/**
+	 * Creates a cache without any limits.
+	 */
 	public CachedVoiceRSSCloudImplementation(String cacheFolderName) {
+		this(cacheFolderName, 0, 0, 0);
+	}
+
+	/**
+	 * Creates a cache with limits, a limit of 0 disables it.
+	 *
+	 * @param cacheFolderName
+	 *            the folder of the audio files
+	 * @param maxCacheSize
+	 *            maximum size of all audio files in bytes
+	 * @param maxAge
+	 *            maximum time in milliseconds since the last use of an audio
+	 *            file
+	 * @param maxMemorySize
+	 *            maximum size of the audio data kept in memory in bytes, 0
+	 *            keeps no audio data in memory
+	 */
+	public CachedVoiceRSSCloudImplementation(String cacheFolderName, long maxCacheSize, long maxAge,
+			long maxMemorySize) {
 		if (cacheFolderName == null) {
 			throw new RuntimeException("Folder for cache must be defined");
 		}
+		this.maxCacheSize = maxCacheSize;
+		this.maxAge = maxAge;
+		this.maxMemorySize = maxMemorySize;
 		// Lazy create the cache folder
 		cacheFolder = new File(cacheFolderName);
 		if (!cacheFolder.exists()) {
 			cacheFolder.mkdirs();
 		}
+		loadIndex();
 	}
 
 	public File getTextToSpeechAsFile(String apiKey, String text, String locale, String audioFormat)
 			throws IOException {
 		String fileNameInCache = getUniqeFilenameForText(text, locale);
 		// check if in cache
-		File audioFileInCache = new File(cacheFolder, fileNameInCache + ".mp3");
-		if (audioFileInCache.exists()) {
-			return audioFileInCache;
+		File audioFileInCache = new File(cacheFolder, fileNameInCache + AUDIO_FILE_SUFFIX);
+		synchronized (this) {
+			CacheEntry entry = entries.get(fileNameInCache);
+			if (entry != null) {
+				if (audioFileInCache.exists()) {
+					touch(entry, audioFileInCache);
+					return audioFileInCache;
+				}
+				// deleted from outside
+				remove(fileNameInCache);
+			}
 		}
 
 		// if not in cache, get audio data and put to cache
+		File tempFile = File.createTempFile(fileNameInCache, TEMP_FILE_SUFFIX, cacheFolder);
 		try (InputStream is = super.getTextToSpeech(apiKey, text, locale, audioFormat);
-				FileOutputStream fos = new FileOutputStream(audioFileInCache);) {
+				FileOutputStream fos = new FileOutputStream(tempFile);) {
 			copyStream(is, fos);
-			// write text to file for transparency too
-			// this allows to know which contents is in which audio file
-			File txtFileInCache = new File(cacheFolder, fileNameInCache + ".txt");
-			writeText(txtFileInCache, text);
-			// return from cache
-			return audioFileInCache;
 		} catch (FileNotFoundException ex) {
 			logger.warn("Could not write {} to cache, return null", audioFileInCache, ex);
+			tempFile.delete();
 			return null;
 		} catch (IOException ex) {
-			logger.error("Could not write {} to cache, return null", audioFileInCache, ex);
+			logger.error("Could not write {} to cache, return null", audioFileInCache, ex);
+			tempFile.delete();
 			return null;
 		}
+		synchronized (this) {
+			CacheEntry entry = entries.get(fileNameInCache);
+			if (entry != null && audioFileInCache.exists()) {
+				// a concurrent request for the same text has been faster
+				tempFile.delete();
+				touch(entry, audioFileInCache);
+				return audioFileInCache;
+			}
+			if (!tempFile.renameTo(audioFileInCache)) {
+				logger.error("Could not move {} to {}, return null", tempFile, audioFileInCache);
+				tempFile.delete();
+				return null;
+			}
+			entry = new CacheEntry(audioFileInCache.length(), System.currentTimeMillis());
+			entries.put(fileNameInCache, entry);
+			cacheSize += entry.size;
+			evict(entry);
+		}
+		// write text to file for transparency too
+		// this allows to know which contents is in which audio file
+		File txtFileInCache = new File(cacheFolder, fileNameInCache + TEXT_FILE_SUFFIX);
+		try {
+			writeText(txtFileInCache, text);
+		} catch (IOException ex) {
+			logger.warn("Could not write {} to cache", txtFileInCache, ex);
+		}
+		// return from cache
+		return audioFileInCache;
+	}
+
+	/**
+	 * Gets the audio data of a text from memory. The audio file is retrieved
+	 * and loaded into memory, if it is not held there yet.
+	 *
+	 * @return the audio data or null, if it is too large to be kept in memory
+	 *         or could not be retrieved
+	 */
+	public byte[] getTextToSpeechAsBytes(String apiKey, String text, String locale, String audioFormat)
+			throws IOException {
+		String fileNameInCache = getUniqeFilenameForText(text, locale);
+		synchronized (this) {
+			CacheEntry entry = entries.get(fileNameInCache);
+			if (entry != null && entry.audio != null) {
+				touch(entry, new File(cacheFolder, fileNameInCache + AUDIO_FILE_SUFFIX));
+				return entry.audio;
+			}
+		}
+
+		File audioFile = getTextToSpeechAsFile(apiKey, text, locale, audioFormat);
+		// a single file must not displace most of the other files
+		if (audioFile == null || audioFile.length() > maxMemorySize / 4) {
+			return null;
+		}
+		byte[] audio = readFile(audioFile);
+		synchronized (this) {
+			CacheEntry entry = entries.get(fileNameInCache);
+			if (entry != null && entry.audio == null) {
+				entry.audio = audio;
+				memorySize += audio.length;
+				releaseMemory(entry);
+			}
+		}
+		return audio;
+	}
+
+	/**
+	 * Checks whether the audio file of a text is already cached, without
+	 * changing the access order.
+	 */
+	public synchronized boolean isCached(String text, String locale) {
+		return entries.containsKey(getUniqeFilenameForText(text, locale));
+	}
+
+	/**
+	 * Gets the size of all cached audio files in bytes.
+	 */
+	public synchronized long getCacheSize() {
+		return cacheSize;
 	}
 
 	/**
 	 * Gets a unique filename for a give text, by creating a MD5 hash of it. It
 	 * will be preceded by the locale.
-	 * 
+	 *
 	 * Sample: "en-US_00a2653ac5f77063bc4ea2fee87318d3"
 	 */
 	String getUniqeFilenameForText(String text, String locale) {
@@ -105,6 +248,107 @@ public class CachedVoiceRSSCloudImplementation extends VoiceRSSCloudImplementati
 		}
 	}
 
+	// index methods
+
+	/**
+	 * Builds the index from the audio files in the cache folder, using their
+	 * last modification as last access.
+	 */
+	private synchronized void loadIndex() {
+		File[] files = cacheFolder.listFiles();
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File f1, File f2) {
+				long m1 = f1.lastModified();
+				long m2 = f2.lastModified();
+				return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+			}
+		});
+		for (File file : files) {
+			String name = file.getName();
+			if (name.endsWith(TEMP_FILE_SUFFIX)) {
+				// left over from an interrupted download
+				file.delete();
+			} else if (name.endsWith(AUDIO_FILE_SUFFIX)) {
+				CacheEntry entry = new CacheEntry(file.length(), file.lastModified());
+				entries.put(name.substring(0, name.length() - AUDIO_FILE_SUFFIX.length()), entry);
+				cacheSize += entry.size;
+			}
+		}
+		evict(null);
+		logger.debug("Indexed {} cached audio files with {} bytes in {}", entries.size(), cacheSize, cacheFolder);
+	}
+
+	private void touch(CacheEntry entry, File audioFile) {
+		long now = System.currentTimeMillis();
+		entry.lastAccess = now;
+		if (now - entry.lastTouch > TOUCH_INTERVAL && audioFile.setLastModified(now)) {
+			entry.lastTouch = now;
+		}
+	}
+
+	/**
+	 * Deletes the least recently used files, which are expired or exceed the
+	 * maximum cache size.
+	 *
+	 * @param keep
+	 *            entry which must not be deleted, may be null
+	 */
+	private void evict(CacheEntry keep) {
+		long now = System.currentTimeMillis();
+		Iterator<Map.Entry<String, CacheEntry>> it = entries.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<String, CacheEntry> mapEntry = it.next();
+			CacheEntry entry = mapEntry.getValue();
+			boolean expired = maxAge > 0 && now - entry.lastAccess > maxAge;
+			boolean oversized = maxCacheSize > 0 && cacheSize > maxCacheSize;
+			if (!expired && !oversized) {
+				// all following entries have been used more recently
+				break;
+			}
+			if (entry != keep) {
+				it.remove();
+				deleteFiles(mapEntry.getKey(), entry);
+			}
+		}
+	}
+
+	/**
+	 * Drops the audio data of the least recently used files from memory until
+	 * the maximum memory size is kept.
+	 */
+	private void releaseMemory(CacheEntry keep) {
+		Iterator<CacheEntry> it = entries.values().iterator();
+		while (memorySize > maxMemorySize && it.hasNext()) {
+			CacheEntry entry = it.next();
+			if (entry != keep && entry.audio != null) {
+				memorySize -= entry.audio.length;
+				entry.audio = null;
+			}
+		}
+	}
+
+	private void remove(String fileName) {
+		CacheEntry entry = entries.remove(fileName);
+		if (entry != null) {
+			deleteFiles(fileName, entry);
+		}
+	}
+
+	private void deleteFiles(String fileName, CacheEntry entry) {
+		cacheSize -= entry.size;
+		if (entry.audio != null) {
+			memorySize -= entry.audio.length;
+			entry.audio = null;
+		}
+		new File(cacheFolder, fileName + AUDIO_FILE_SUFFIX).delete();
+		new File(cacheFolder, fileName + TEXT_FILE_SUFFIX).delete();
+		logger.debug("Removed {} from cache", fileName);
+	}
+
 	// helper methods
 
 	private void copyStream(InputStream inputStream, OutputStream outputStream) throws IOException {
@@ -116,6 +360,21 @@ public class CachedVoiceRSSCloudImplementation extends VoiceRSSCloudImplementati
 		}
 	}
 
+	private byte[] readFile(File file) throws IOException {
+		try (InputStream inputStream = new FileInputStream(file)) {
+			byte[] bytes = new byte[(int) file.length()];
+			int offset = 0;
+			while (offset < bytes.length) {
+				int read = inputStream.read(bytes, offset, bytes.length - offset);
+				if (read < 0) {
+					return Arrays.copyOf(bytes, offset);
+				}
+				offset += read;
+			}
+			return bytes;
+		}
+	}
+
 	private void writeText(File file, String text) throws IOException {
 		OutputStream outputStream = null;
 		try {
@@ -127,4 +386,20 @@ public class CachedVoiceRSSCloudImplementation extends VoiceRSSCloudImplementati
 			}
 		}
 	}
+
+	/**
+	 * Index entry of a cached audio file
+	 */
+	private static class CacheEntry {
+		private final long size;
+		private long lastAccess;
+		private long lastTouch;
+		private byte[] audio;
+
+		public CacheEntry(long size, long lastAccess) {
+			this.size = size;
+			this.lastAccess = lastAccess;
+			this.lastTouch = lastAccess;
+		}
+	}
 }
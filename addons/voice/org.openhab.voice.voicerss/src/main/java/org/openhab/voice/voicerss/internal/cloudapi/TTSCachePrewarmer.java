@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2014-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.voicerss.internal.cloudapi;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.smarthome.core.audio.AudioFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fills a cache with the audio data of a list of phrases in advance. Only
+ * phrases which are not cached yet are requested from the VoiceRSS service.
+ * It runs as a background job of the TTS service and is used by the
+ * CreateTTSCache tool.
+ *
+ * @author agent - Initial contribution
+ */
+public class TTSCachePrewarmer implements Runnable {
+
+	private final Logger logger = LoggerFactory.getLogger(TTSCachePrewarmer.class);
+
+	private final CachedVoiceRSSCloudImplementation cache;
+	private final String apiKey;
+	private final String locale;
+	private final List<String> phrases;
+
+	public TTSCachePrewarmer(CachedVoiceRSSCloudImplementation cache, String apiKey, String locale,
+			List<String> phrases) {
+		this.cache = cache;
+		this.apiKey = apiKey;
+		this.locale = locale;
+		this.phrases = phrases;
+	}
+
+	/**
+	 * Reads a phrase list with one phrase per line. Empty lines and lines
+	 * starting with '#' are ignored.
+	 */
+	public static List<String> readPhrases(File file) throws IOException {
+		List<String> phrases = new ArrayList<String>();
+		try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
+			String line;
+			while ((line = br.readLine()) != null) {
+				line = line.trim();
+				if (!line.isEmpty() && !line.startsWith("#")) {
+					phrases.add(line);
+				}
+			}
+		}
+		return phrases;
+	}
+
+	/**
+	 * Ensures that the audio data of a single phrase is cached.
+	 *
+	 * @return the cached audio file or null, if it could not be retrieved
+	 */
+	public File prewarm(String phrase) throws IOException {
+		return cache.getTextToSpeechAsFile(apiKey, phrase, locale, AudioFormat.CODEC_MP3);
+	}
+
+	@Override
+	public void run() {
+		int created = 0;
+		int cached = 0;
+		for (String phrase : phrases) {
+			if (Thread.currentThread().isInterrupted()) {
+				logger.debug("Pre-warming of VoiceRSS cache has been interrupted");
+				return;
+			}
+			try {
+				if (cache.isCached(phrase, locale)) {
+					// refreshes the last access of the phrase
+					prewarm(phrase);
+					cached++;
+				} else if (prewarm(phrase) != null) {
+					created++;
+				}
+			} catch (IOException ex) {
+				logger.warn("Could not pre-warm VoiceRSS cache for '{}': {}", phrase, ex.getMessage());
+			}
+		}
+		logger.info("Pre-warmed VoiceRSS cache with {} new and {} already cached phrases", created, cached);
+	}
+}
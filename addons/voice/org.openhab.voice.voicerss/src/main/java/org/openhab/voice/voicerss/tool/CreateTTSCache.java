@@ -8,12 +8,12 @@
  */
 package org.openhab.voice.voicerss.tool;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.util.Collections;
 
 import org.openhab.voice.voicerss.internal.cloudapi.CachedVoiceRSSCloudImplementation;
+import org.openhab.voice.voicerss.internal.cloudapi.TTSCachePrewarmer;
 
 /**
  * This class fills a cache with data from the VoiceRSS TTS service.
@@ -70,6 +70,7 @@ public class CreateTTSCache {
 		System.out.println("  text      the text to create audio file for, e.g. \"Hello World\"");
 		System.out.println(
 				"  inputfile a name of a file, where all lines will be translatet to text, e.g. \"@message.txt\"");
+		System.out.println("            empty lines and lines starting with '#' are ignored");
 		System.out.println();
 		System.out.println(
 				"Sample: java org.openhab.voice.voicerss.tool.CreateTTSCache --api-key 1234567890 cache en-US @messages.txt");
@@ -78,19 +79,9 @@ public class CreateTTSCache {
 
 	private void generateCacheForFile(String apiKey, String cacheDir, String locale, String inputFileName)
 			throws IOException {
-		File inputFile = new File(inputFileName);
-		BufferedReader br = null;
-		try {
-			br = new BufferedReader(new FileReader(inputFile));
-			String line;
-			while ((line = br.readLine()) != null) {
-				// process the line.
-				generateCacheForMessage(apiKey, cacheDir, locale, line);
-			}
-		} finally {
-			if (br != null) {
-				br.close();
-			}
+		TTSCachePrewarmer prewarmer = createPrewarmer(apiKey, cacheDir, locale);
+		for (String msg : TTSCachePrewarmer.readPhrases(new File(inputFileName))) {
+			generateCacheForMessage(prewarmer, locale, msg);
 		}
 	}
 
@@ -104,8 +95,16 @@ public class CreateTTSCache {
 			System.err.println("Ignore msg=''");
 			return;
 		}
-		CachedVoiceRSSCloudImplementation impl = new CachedVoiceRSSCloudImplementation(cacheDir);
-		File cachedFile = impl.getTextToSpeechAsFile(apiKey, msg, locale, "MP3");
+		generateCacheForMessage(createPrewarmer(apiKey, cacheDir, locale), locale, msg);
+	}
+
+	private void generateCacheForMessage(TTSCachePrewarmer prewarmer, String locale, String msg) throws IOException {
+		File cachedFile = prewarmer.prewarm(msg);
 		System.out.println("Created cached audio for locale='" + locale + "', msg='" + msg + "' to file=" + cachedFile);
 	}
+
+	private TTSCachePrewarmer createPrewarmer(String apiKey, String cacheDir, String locale) {
+		CachedVoiceRSSCloudImplementation impl = new CachedVoiceRSSCloudImplementation(cacheDir);
+		return new TTSCachePrewarmer(impl, apiKey, locale, Collections.<String> emptyList());
+	}
 }